@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.annotation.Nonnull;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import uk.org.ukfederation.members.MembersDocumentGenerator;
+
+/**
+ * A generated members document, shared by every thread running a benchmark.
+ *
+ * The shape of the document can be changed from the JMH command line, for example
+ * <code>-p participants=1000,10000 -p grantsPerDomainOwner=10</code>.
+ */
+@State(Scope.Benchmark)
+public class GeneratedDocument {
+
+    /** Total number of participants; one in ten is a domain owner. */
+    @Param({"100", "1000", "10000", "100000"})
+    public int participants;
+
+    /** Number of domains registered by each participant. */
+    @Param({"2"})
+    public int domainsPerParticipant;
+
+    /** Number of grants made by each domain owner. */
+    @Param({"4"})
+    public int grantsPerDomainOwner;
+
+    /** Number of <code>Scopes</code> elements in each member. */
+    @Param({"1"})
+    public int scopesPerMember;
+
+    /** The generator the document was produced by. */
+    private MembersDocumentGenerator generator;
+
+    /** The document, as UTF-8 encoded bytes. */
+    private byte[] bytes;
+
+    /** The document, written to a temporary file. */
+    private Path file;
+
+    /**
+     * Generates the document.
+     *
+     * @throws IOException if the temporary file can not be written
+     */
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+        generator = MembersDocumentGenerator.ofParticipants(participants);
+        generator.setDomainsPerParticipant(domainsPerParticipant);
+        generator.setGrantsPerDomainOwner(grantsPerDomainOwner);
+        generator.setScopesPerMember(scopesPerMember);
+        bytes = generator.generateBytes();
+        file = Files.createTempFile("members-", ".xml");
+        Files.write(file, bytes);
+    }
+
+    /**
+     * Removes the temporary file.
+     *
+     * @throws IOException if the file can not be deleted
+     */
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Returns the generator the document was produced by.
+     *
+     * @return the generator
+     */
+    @Nonnull public MembersDocumentGenerator getGenerator() {
+        return generator;
+    }
+
+    /**
+     * Returns the document as UTF-8 encoded bytes.
+     *
+     * @return the document
+     */
+    @Nonnull public byte[] getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the temporary file the document was written to.
+     *
+     * @return the file
+     */
+    @Nonnull public Path getFile() {
+        return file;
+    }
+
+}
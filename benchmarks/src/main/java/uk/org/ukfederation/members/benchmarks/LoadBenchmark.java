@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+
+import uk.org.ukfederation.members.Members;
+import uk.org.ukfederation.members.MembersLoader;
+
+/**
+ * Benchmarks construction of {@link Members} through each supported input path.
+ *
+ * The <code>...FromParsedDocument</code> benchmarks start from an already parsed DOM, as a caller
+ * holding a {@link Document} would; <code>parseAndLoad</code> includes DOM parsing, for comparison
+ * with the streaming paths.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoadBenchmark {
+
+    /** Factory for namespace-aware DOM parsers. */
+    private DocumentBuilderFactory dbFactory;
+
+    /** Factory for StAX parsers. */
+    private XMLInputFactory staxFactory;
+
+    /** The document, already parsed. */
+    private Document document;
+
+    /** The members schema, already parsed. */
+    private Document schema;
+
+    /**
+     * Parses the document and schema, and compiles the default schema.
+     *
+     * @param generated the generated document
+     * @throws Exception if anything goes wrong
+     */
+    @Setup(Level.Trial)
+    public void setUp(final GeneratedDocument generated) throws Exception {
+        dbFactory = DocumentBuilderFactory.newInstance();
+        dbFactory.setNamespaceAware(true);
+        staxFactory = XMLInputFactory.newInstance();
+        staxFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        document = parse(generated.getBytes());
+        schema = dbFactory.newDocumentBuilder().parse(
+                Members.class.getResourceAsStream("/ukfederation-members.xsd"));
+        MembersLoader.getDefault().getDefaultSchema();
+    }
+
+    /**
+     * Loads from a parsed DOM using the default schema.
+     *
+     * @return the loaded snapshot
+     * @throws Exception if the document can not be loaded
+     */
+    @Benchmark
+    public Members loadFromParsedDocument() throws Exception {
+        return new Members(document);
+    }
+
+    /**
+     * Loads from a parsed DOM using an override schema.
+     *
+     * The compiled schema is cached by content, so this measures the cache lookup rather than compilation.
+     *
+     * @return the loaded snapshot
+     * @throws Exception if the document can not be loaded
+     */
+    @Benchmark
+    public Members loadFromParsedDocumentWithSchema() throws Exception {
+        return new Members(document, schema);
+    }
+
+    /**
+     * Parses the document into a DOM and then loads it.
+     *
+     * @param generated the generated document
+     * @return the loaded snapshot
+     * @throws Exception if the document can not be loaded
+     */
+    @Benchmark
+    public Members parseAndLoad(final GeneratedDocument generated) throws Exception {
+        return new Members(parse(generated.getBytes()));
+    }
+
+    /**
+     * Loads from an {@link java.io.InputStream}.
+     *
+     * @param generated the generated document
+     * @return the loaded snapshot
+     * @throws Exception if the document can not be loaded
+     */
+    @Benchmark
+    public Members loadFromStream(final GeneratedDocument generated) throws Exception {
+        return Members.fromStream(new ByteArrayInputStream(generated.getBytes()));
+    }
+
+    /**
+     * Loads from a file.
+     *
+     * @param generated the generated document
+     * @return the loaded snapshot
+     * @throws Exception if the document can not be loaded
+     */
+    @Benchmark
+    public Members loadFromPath(final GeneratedDocument generated) throws Exception {
+        return Members.fromPath(generated.getFile());
+    }
+
+    /**
+     * Loads from a caller-supplied {@link XMLStreamReader}.
+     *
+     * @param generated the generated document
+     * @return the loaded snapshot
+     * @throws Exception if the document can not be loaded
+     */
+    @Benchmark
+    public Members loadFromStreamReader(final GeneratedDocument generated) throws Exception {
+        final XMLStreamReader reader = staxFactory.createXMLStreamReader(
+                new ByteArrayInputStream(generated.getBytes()));
+        try {
+            return Members.fromStreamReader(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Parses a document into a DOM.
+     *
+     * @param bytes the document
+     * @return the parsed document
+     * @throws Exception if the document can not be parsed
+     */
+    private Document parse(final byte[] bytes) throws Exception {
+        final DocumentBuilder builder = dbFactory.newDocumentBuilder();
+        return builder.parse(new ByteArrayInputStream(bytes));
+    }
+
+}
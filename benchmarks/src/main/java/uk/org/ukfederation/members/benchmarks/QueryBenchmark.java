@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.org.ukfederation.members.EntityAuthorizer;
+import uk.org.ukfederation.members.EntityVerdict;
+import uk.org.ukfederation.members.Members;
+import uk.org.ukfederation.members.MembersDocumentGenerator;
+import uk.org.ukfederation.members.jaxb.BaseGrantType;
+import uk.org.ukfederation.members.jaxb.ParticipantType;
+
+/**
+ * Benchmarks queries against a loaded {@link Members} snapshot.
+ *
+ * Each invocation looks up the next of a fixed, pseudo-randomly chosen set of keys, so that
+ * successive invocations do not hit the same hash bucket or trie path. About one key in eight
+ * is not present in the document.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueryBenchmark {
+
+    /** Number of keys of each kind; a power of two. */
+    private static final int KEYS = 1024;
+
+    /** The loaded snapshot. */
+    private Members members;
+
+    /** Authorizer built from the snapshot. */
+    private EntityAuthorizer authorizer;
+
+    /** Participant names to look up. */
+    private final String[] names = new String[KEYS];
+
+    /** Entity IDs to look up pushed scopes for. */
+    private final String[] scopedEntities = new String[KEYS];
+
+    /** Host names to look up domain owners for. */
+    private final String[] hosts = new String[KEYS];
+
+    /** Granted names to check. */
+    private final String[] grantedNames = new String[KEYS];
+
+    /** Entity ID each granted name is checked for. */
+    private final String[] grantEntityIDs = new String[KEYS];
+
+    /** Member each granted name is checked for. */
+    private final String[] grantees = new String[KEYS];
+
+    /**
+     * Loads the snapshot and chooses the keys to look up.
+     *
+     * @param generated the generated document
+     * @throws Exception if the document can not be loaded
+     */
+    @Setup(Level.Trial)
+    public void setUp(final GeneratedDocument generated) throws Exception {
+        members = Members.fromStream(new ByteArrayInputStream(generated.getBytes()));
+        authorizer = new EntityAuthorizer(members);
+
+        final MembersDocumentGenerator generator = generated.getGenerator();
+        final int memberCount = generator.getMemberCount();
+        final int ownerCount = generator.getDomainOwnerCount();
+        final int grantCount = generator.getGrantsPerDomainOwner();
+        final SplittableRandom random = new SplittableRandom(42);
+        for (int k = 0; k < KEYS; k++) {
+            final boolean miss = random.nextInt(8) == 0;
+            final int i = random.nextInt(memberCount) + (miss ? memberCount : 0);
+            names[k] = ownerCount > 0 && random.nextInt(10) == 0 ?
+                    MembersDocumentGenerator.getDomainOwnerName(random.nextInt(ownerCount)) :
+                        MembersDocumentGenerator.getMemberName(i);
+            scopedEntities[k] = MembersDocumentGenerator.getScopedEntityID(i, 0);
+            hosts[k] = "www." + MembersDocumentGenerator.getMemberDomain(i, 0);
+            if (ownerCount > 0 && grantCount > 0) {
+                final int d = random.nextInt(ownerCount) + (miss ? ownerCount : 0);
+                final int g = random.nextInt(grantCount);
+                grantedNames[k] = MembersDocumentGenerator.getGrantedName(d, g);
+                grantEntityIDs[k] = MembersDocumentGenerator.getGrantEntityID(d, g);
+                grantees[k] = MembersDocumentGenerator.getMemberName(generator.getGranteeIndex(d, g));
+            } else {
+                grantedNames[k] = hosts[k];
+                grantEntityIDs[k] = scopedEntities[k];
+                grantees[k] = names[k];
+            }
+        }
+    }
+
+    /**
+     * Per-thread position in the key arrays.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        /** Index of the next key. */
+        private int next;
+
+        /**
+         * Returns the index of the next key.
+         *
+         * @return the index of the next key
+         */
+        int next() {
+            return next++ & (KEYS - 1);
+        }
+    }
+
+    /**
+     * Looks up a participant by name.
+     *
+     * @param cursor position in the key arrays
+     * @return the participant found
+     */
+    @Benchmark
+    public ParticipantType getParticipantByName(final Cursor cursor) {
+        return members.getParticipantByName(names[cursor.next()]);
+    }
+
+    /**
+     * Checks whether a name is the name of a participant.
+     *
+     * @param cursor position in the key arrays
+     * @return whether the name is known
+     */
+    @Benchmark
+    public boolean isOwnerName(final Cursor cursor) {
+        return members.isOwnerName(names[cursor.next()]);
+    }
+
+    /**
+     * Looks up the scopes pushed to an entity.
+     *
+     * @param cursor position in the key arrays
+     * @return the pushed scopes
+     */
+    @Benchmark
+    public List<String> scopesForEntity(final Cursor cursor) {
+        return members.scopesForEntity(scopedEntities[cursor.next()]);
+    }
+
+    /**
+     * Finds the participant owning a host name.
+     *
+     * @param cursor position in the key arrays
+     * @return the owning participant
+     */
+    @Benchmark
+    public ParticipantType findDomainOwner(final Cursor cursor) {
+        return members.findDomainOwner(hosts[cursor.next()]);
+    }
+
+    /**
+     * Finds the grants covering a host name for an entity.
+     *
+     * @param cursor position in the key arrays
+     * @return the covering grants
+     */
+    @Benchmark
+    public List<BaseGrantType> findGrantsCovering(final Cursor cursor) {
+        final int k = cursor.next();
+        return members.findGrantsCovering(grantedNames[k], grantEntityIDs[k]);
+    }
+
+    /**
+     * Checks an entity registered by a grantee, using a granted host name.
+     *
+     * @param cursor position in the key arrays
+     * @return the verdict
+     */
+    @Benchmark
+    public EntityVerdict authorizeGrantedEntity(final Cursor cursor) {
+        final int k = cursor.next();
+        return authorizer.authorize(grantees[k], grantEntityIDs[k], List.of(grantedNames[k]));
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package uk.org.ukfederation.members.cli;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+import org.xml.sax.SAXException;
+
+import jakarta.xml.bind.JAXBException;
+import uk.org.ukfederation.members.IncomingGrants;
+import uk.org.ukfederation.members.Members;
+import uk.org.ukfederation.members.MembersLoader;
+import uk.org.ukfederation.members.ValidationIssue;
+import uk.org.ukfederation.members.ValidationReport;
+import uk.org.ukfederation.members.jaxb.MemberElement;
+import uk.org.ukfederation.members.jaxb.ParticipantType;
+
+/**
+ * The validate and query commands, shared by the in-process tool and the {@link MembersDaemon}.
+ *
+ * The queries, and the output line each produces per item found, are:
+ *
+ * <ul>
+ * <li><code>owner <i>fqdn</i></code>: the name and ID of the participant owning the domain</li>
+ * <li><code>scopes <i>entityID</i></code>: each scope pushed to the entity</li>
+ * <li><code>grants <i>member</i></code>: the grantor, domain and entity ID of each grant made to
+ *     the named member, with <code>*</code> as the entity ID of a <code>GrantAll</code></li>
+ * <li><code>id <i>ID</i></code>: the name of the participant with the ID, and whether it is a
+ *     <code>member</code> or a <code>domain-owner</code></li>
+ * <li><code>name <i>name</i></code>: the ID of the participant with the name, and whether it is a
+ *     <code>member</code> or a <code>domain-owner</code></li>
+ * </ul>
+ *
+ * Fields within a line are separated by tabs.
+ */
+public final class Commands {
+
+    /** The names of the queries. */
+    @Nonnull public static final List<String> QUERIES = List.of("owner", "scopes", "grants", "id", "name");
+
+    /** Constructor. */
+    private Commands() {
+    }
+
+    /**
+     * Validates a members document, reporting every problem found.
+     *
+     * @param loader the loader to validate with
+     * @param path the members document
+     * @return a response listing the problems, which is negative if any of them is an error
+     */
+    @Nonnull public static Response validate(@Nonnull final MembersLoader loader, @Nonnull final Path path) {
+        try {
+            final ValidationReport report = loader.validate(path);
+            final List<String> lines = new ArrayList<>();
+            for (final ValidationIssue issue : report.getIssues()) {
+                lines.add(issue.toString());
+            }
+            return new Response(report.isValid() ? Response.SUCCESS : Response.NEGATIVE, lines);
+        } catch (final IOException | JAXBException | SAXException e) {
+            return Response.failure("can not validate " + path + ": " + e);
+        }
+    }
+
+    /**
+     * Runs a query against a members document.
+     *
+     * @param members the members document
+     * @param query the name of the query, one of {@link #QUERIES}
+     * @param argument the query's argument
+     * @return a response with one line per item found
+     */
+    @Nonnull public static Response query(@Nonnull final Members members, @Nonnull final String query,
+            @Nonnull final String argument) {
+        if ("owner".equals(query)) {
+            final ParticipantType owner = members.findDomainOwner(argument);
+            return Response.found(owner == null ? List.of() : List.of(owner.getName() + "\t" + owner.getID()));
+        } else if ("scopes".equals(query)) {
+            final List<String> scopes = members.scopesForEntity(argument);
+            return Response.found(scopes == null ? List.of() : scopes);
+        } else if ("grants".equals(query)) {
+            final IncomingGrants grants = members.getIncomingGrants(argument);
+            if (grants == null) {
+                return Response.found(List.of());
+            }
+            final List<String> lines = new ArrayList<>(grants.size());
+            for (final IncomingGrants.IncomingGrant grant : grants.getGrants()) {
+                lines.add(grant.grantor().getName() + "\t" + grant.grant().getValue() + "\t"
+                        + (grant.isGrantAll() ? "*" : grant.entityID()));
+            }
+            return Response.found(lines);
+        } else if ("id".equals(query)) {
+            final ParticipantType participant = members.getParticipantById(argument);
+            return Response.found(participant == null ? List.of()
+                    : List.of(participant.getName() + "\t" + kind(participant)));
+        } else if ("name".equals(query)) {
+            final ParticipantType participant = members.getParticipantByName(argument);
+            return Response.found(participant == null ? List.of()
+                    : List.of(participant.getID() + "\t" + kind(participant)));
+        } else {
+            return Response.failure("unknown query \"" + query + "\"; expected one of " + QUERIES);
+        }
+    }
+
+    /**
+     * Describes the kind of a participant.
+     *
+     * @param participant the participant
+     * @return <code>member</code> or <code>domain-owner</code>
+     */
+    @Nonnull private static String kind(@Nonnull final ParticipantType participant) {
+        return participant instanceof MemberElement ? "member" : "domain-owner";
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package uk.org.ukfederation.members.cli;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * A connection to a {@link MembersDaemon}.
+ */
+@NotThreadSafe
+public class DaemonClient implements AutoCloseable {
+
+    /** The connection to the daemon. */
+    @Nonnull private final SocketChannel channel;
+
+    /** Reader for the daemon's responses. */
+    @Nonnull private final BufferedReader in;
+
+    /** Writer for requests to the daemon. */
+    @Nonnull private final Writer out;
+
+    /**
+     * Constructor.
+     *
+     * @param socket path of the daemon's socket file
+     * @throws IOException if the daemon can not be connected to
+     */
+    public DaemonClient(@Nonnull final Path socket) throws IOException {
+        channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+        try {
+            channel.connect(UnixDomainSocketAddress.of(socket));
+        } catch (final IOException e) {
+            channel.close();
+            throw e;
+        }
+        in = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+        out = new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Sends a request to the daemon and waits for the response.
+     *
+     * @param request the command and its arguments
+     * @return the daemon's response
+     * @throws IOException if the request can not be sent or the response read
+     * @throws IllegalArgumentException if an argument contains a tab or a line break
+     */
+    @Nonnull public Response send(@Nonnull final List<String> request) throws IOException {
+        for (final String word : request) {
+            if (word.indexOf('\t') >= 0 || word.indexOf('\n') >= 0 || word.indexOf('\r') >= 0) {
+                throw new IllegalArgumentException("request arguments can not contain tabs or line breaks");
+            }
+        }
+        out.write(String.join("\t", request));
+        out.write('\n');
+        out.flush();
+        return Response.read(in);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package uk.org.ukfederation.members.cli;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import javax.annotation.Nonnull;
+
+import org.xml.sax.SAXException;
+
+import jakarta.xml.bind.JAXBException;
+import net.shibboleth.shared.component.ComponentInitializationException;
+import uk.org.ukfederation.members.Members;
+import uk.org.ukfederation.members.MembersLoader;
+
+/**
+ * Command-line entry point, validating and querying members documents either in-process or
+ * through a {@link MembersDaemon}.
+ *
+ * Running a command in-process pays for compiling the schema and loading the document each
+ * time; a daemon does that once, so that each command sent to it by a <code>client</code>
+ * invocation takes only as long as the command itself. The output and exit status of a command
+ * are the same either way: see {@link Response}.
+ */
+public final class MembersCli {
+
+    /** Default interval between checks for changes to a daemon's document, in seconds. */
+    private static final long DEFAULT_INTERVAL = 60;
+
+    /** Usage message. */
+    @Nonnull private static final String USAGE = String.join("\n",
+            "usage: members-cli validate <members.xml>...",
+            "       members-cli query <members.xml> <query> <argument>",
+            "       members-cli daemon <members.xml> <socket> [<check interval seconds>]",
+            "       members-cli client <socket> validate <members.xml>...",
+            "       members-cli client <socket> query <query> <argument>",
+            "       members-cli client <socket> reload | status",
+            "queries: " + String.join(", ", Commands.QUERIES));
+
+    /** Constructor. */
+    private MembersCli() {
+    }
+
+    /**
+     * Runs the tool and exits with the command's status.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(@Nonnull final String[] args) {
+        final List<String> arguments = Arrays.asList(args);
+        if (!arguments.isEmpty() && "daemon".equals(arguments.get(0))) {
+            System.exit(daemon(arguments.subList(1, arguments.size()), System.err));
+        }
+        System.exit(run(arguments, System.out, System.err));
+    }
+
+    /**
+     * Runs a command other than <code>daemon</code>.
+     *
+     * @param args the command and its arguments
+     * @param out where to write the command's output
+     * @param err where to write problems running the command
+     * @return the exit status
+     */
+    public static int run(@Nonnull final List<String> args, @Nonnull final PrintStream out,
+            @Nonnull final PrintStream err) {
+        if (args.isEmpty()) {
+            return usage(err);
+        }
+        final String command = args.get(0);
+        if ("validate".equals(command) && args.size() >= 2) {
+            final MembersLoader loader = new MembersLoader();
+            int status = Response.SUCCESS;
+            for (final String file : args.subList(1, args.size())) {
+                status = Math.max(status, print(file + ": ", Commands.validate(loader, Path.of(file)), out, err));
+            }
+            return status;
+        } else if ("query".equals(command) && args.size() == 4) {
+            final Members members;
+            try {
+                members = new MembersLoader().load(Path.of(args.get(1)));
+            } catch (final ComponentInitializationException | JAXBException | SAXException | IOException e) {
+                return print("", Response.failure("can not load " + args.get(1) + ": " + e), out, err);
+            }
+            return print("", Commands.query(members, args.get(2), args.get(3)), out, err);
+        } else if ("client".equals(command) && args.size() >= 3) {
+            return client(Path.of(args.get(1)), args.subList(2, args.size()), out, err);
+        }
+        return usage(err);
+    }
+
+    /**
+     * Sends a command to a daemon.
+     *
+     * @param socket path of the daemon's socket file
+     * @param args the command and its arguments
+     * @param out where to write the command's output
+     * @param err where to write problems running the command
+     * @return the exit status
+     */
+    private static int client(@Nonnull final Path socket, @Nonnull final List<String> args,
+            @Nonnull final PrintStream out, @Nonnull final PrintStream err) {
+        final String command = args.get(0);
+        final List<List<String>> requests = new ArrayList<>();
+        final List<String> prefixes = new ArrayList<>();
+        if ("validate".equals(command) && args.size() >= 2) {
+            for (final String file : args.subList(1, args.size())) {
+                // the daemon's working directory is not the client's
+                requests.add(List.of(command, Path.of(file).toAbsolutePath().toString()));
+                prefixes.add(file + ": ");
+            }
+        } else if ("query".equals(command) && args.size() == 3
+                || ("reload".equals(command) || "status".equals(command)) && args.size() == 1) {
+            requests.add(args);
+            prefixes.add("");
+        } else {
+            return usage(err);
+        }
+
+        try (DaemonClient client = new DaemonClient(socket)) {
+            int status = Response.SUCCESS;
+            for (int i = 0; i < requests.size(); i++) {
+                status = Math.max(status, print(prefixes.get(i), client.send(requests.get(i)), out, err));
+            }
+            return status;
+        } catch (final IOException | IllegalArgumentException e) {
+            return print("", Response.failure("members daemon " + socket + ": " + e.getMessage()), out, err);
+        }
+    }
+
+    /**
+     * Runs a daemon until the process is stopped.
+     *
+     * @param args the members document, the socket path and optionally the check interval in seconds
+     * @param err where to write problems starting the daemon
+     * @return the exit status, if the daemon could not be started
+     */
+    private static int daemon(@Nonnull final List<String> args, @Nonnull final PrintStream err) {
+        if (args.size() != 2 && args.size() != 3) {
+            return usage(err);
+        }
+        final Duration interval;
+        try {
+            interval = Duration.ofSeconds(args.size() == 3 ? Long.parseLong(args.get(2)) : DEFAULT_INTERVAL);
+        } catch (final NumberFormatException e) {
+            return usage(err);
+        }
+
+        final MembersDaemon daemon = new MembersDaemon(new MembersLoader(), Path.of(args.get(0)),
+                Path.of(args.get(1)));
+        final CountDownLatch stopped = new CountDownLatch(1);
+        try {
+            daemon.start(interval);
+        } catch (final ComponentInitializationException | IOException e) {
+            daemon.close();
+            err.println("can not start members daemon: " + e.getMessage());
+            return Response.FAILURE;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            daemon.close();
+            stopped.countDown();
+        }));
+        try {
+            stopped.await();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return Response.SUCCESS;
+    }
+
+    /**
+     * Prints a response: its lines to the output if the command ran, or to the error stream if not.
+     *
+     * @param prefix text to print before each line
+     * @param response the response
+     * @param out the output stream
+     * @param err the error stream
+     * @return the response's status
+     */
+    private static int print(@Nonnull final String prefix, @Nonnull final Response response,
+            @Nonnull final PrintStream out, @Nonnull final PrintStream err) {
+        final PrintStream stream = response.status() == Response.FAILURE ? err : out;
+        for (final String line : response.lines()) {
+            stream.println(prefix + line);
+        }
+        return response.status();
+    }
+
+    /**
+     * Prints the usage message.
+     *
+     * @param err the error stream
+     * @return the exit status for a usage error
+     */
+    private static int usage(@Nonnull final PrintStream err) {
+        err.println(USAGE);
+        return Response.FAILURE;
+    }
+
+}
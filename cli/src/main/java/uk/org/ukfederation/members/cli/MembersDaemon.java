@@ -0,0 +1,298 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package uk.org.ukfederation.members.cli;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.shibboleth.shared.component.ComponentInitializationException;
+import uk.org.ukfederation.members.Members;
+import uk.org.ukfederation.members.MembersLoader;
+import uk.org.ukfederation.members.MembersRegistry;
+
+/**
+ * A long-running process holding a loaded members document and a compiled schema, answering
+ * commands from {@link DaemonClient}s over a Unix domain socket.
+ *
+ * Each client connection carries any number of requests, one per line, each a command and its
+ * arguments separated by tabs; each is answered with a {@link Response}. The commands are:
+ *
+ * <ul>
+ * <li><code>validate <i>path</i></code>: validates a members document, as {@link Commands#validate}</li>
+ * <li><code>query <i>query</i> <i>argument</i></code>: runs a query against the daemon's document,
+ *     as {@link Commands#query}</li>
+ * <li><code>reload</code>: loads the daemon's document again</li>
+ * <li><code>status</code>: describes the daemon's document</li>
+ * </ul>
+ *
+ * The document is held by a {@link MembersRegistry}, which is checked for changes periodically;
+ * a document which fails to load is logged and the previous one kept.
+ *
+ * The socket file is made readable and writable only by its owner where the file system allows.
+ * Its permissions can only be set once it has been created, so the daemon refuses to start when
+ * the directory holding it is writable by its group or by others; keep the socket in a directory
+ * of its own with mode 0700.
+ */
+@ThreadSafe
+public class MembersDaemon implements AutoCloseable {
+
+    /** Class logger. */
+    private final Logger log = LoggerFactory.getLogger(MembersDaemon.class);
+
+    /** Loader used for the document and for validation. */
+    @Nonnull private final MembersLoader loader;
+
+    /** Registry holding the loaded document. */
+    @Nonnull private final MembersRegistry registry;
+
+    /** Path of the socket file. */
+    @Nonnull private final Path socket;
+
+    /** Runs the accept loop and each client connection. */
+    @Nonnull private final ExecutorService executor;
+
+    /** The listening socket, once started. */
+    @GuardedBy("this") @Nullable private ServerSocketChannel server;
+
+    /**
+     * Constructor.
+     *
+     * @param membersLoader loader used for the document and for validation
+     * @param membersFile the members document to hold
+     * @param socketPath path of the socket file to listen on
+     */
+    public MembersDaemon(@Nonnull final MembersLoader membersLoader, @Nonnull final Path membersFile,
+            @Nonnull final Path socketPath) {
+        loader = membersLoader;
+        registry = new MembersRegistry(membersFile, membersLoader);
+        socket = socketPath;
+        executor = Executors.newCachedThreadPool(runnable -> {
+            final Thread thread = new Thread(runnable, "members-daemon");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Loads the document, compiles the schema and starts listening.
+     *
+     * Any existing socket file is replaced.
+     *
+     * @param interval the interval between checks for changes to the document
+     * @throws ComponentInitializationException if the document can not be loaded
+     * @throws IOException if the socket can not be created, or its directory is writable by others
+     */
+    public synchronized void start(@Nonnull final Duration interval)
+            throws ComponentInitializationException, IOException {
+        if (server != null) {
+            throw new IllegalStateException("members daemon already started");
+        }
+        checkDirectory();
+        registry.initialize();
+        registry.start(interval);
+
+        Files.deleteIfExists(socket);
+        final ServerSocketChannel channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        channel.bind(UnixDomainSocketAddress.of(socket));
+        try {
+            Files.setPosixFilePermissions(socket, PosixFilePermissions.fromString("rw-------"));
+        } catch (final UnsupportedOperationException e) {
+            log.debug("can not restrict permissions of {}", socket);
+        }
+        server = channel;
+        executor.execute(() -> accept(channel));
+        log.info("members daemon listening on {} for {} participants", socket, participantCount());
+    }
+
+    /**
+     * Checks that only the directory's owner can create files in the socket's directory, so that
+     * nobody else can connect to the socket before its permissions are restricted.
+     *
+     * @throws IOException if the directory is writable by its group or by others
+     */
+    private void checkDirectory() throws IOException {
+        final Path directory = socket.toAbsolutePath().getParent();
+        final Set<PosixFilePermission> permissions;
+        try {
+            permissions = Files.getPosixFilePermissions(directory);
+        } catch (final UnsupportedOperationException e) {
+            log.debug("can not check permissions of {}", directory);
+            return;
+        }
+        if (permissions.contains(PosixFilePermission.GROUP_WRITE)
+                || permissions.contains(PosixFilePermission.OTHERS_WRITE)) {
+            throw new IOException("socket directory " + directory + " is writable by others ("
+                    + PosixFilePermissions.toString(permissions) + "); use a directory with mode 0700");
+        }
+    }
+
+    /**
+     * Returns the registry holding the document.
+     *
+     * @return the registry
+     */
+    @Nonnull public MembersRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Accepts client connections until the socket is closed.
+     *
+     * @param channel the listening socket
+     */
+    private void accept(@Nonnull final ServerSocketChannel channel) {
+        while (channel.isOpen()) {
+            try {
+                final SocketChannel client = channel.accept();
+                executor.execute(() -> serve(client));
+            } catch (final ClosedChannelException e) {
+                return;
+            } catch (final IOException e) {
+                log.warn("members daemon accept failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Answers the requests on a client connection until the client closes it.
+     *
+     * @param client the client connection
+     */
+    private void serve(@Nonnull final SocketChannel client) {
+        try (client;
+                BufferedReader in = new BufferedReader(
+                        new InputStreamReader(Channels.newInputStream(client), StandardCharsets.UTF_8));
+                Writer out = new OutputStreamWriter(Channels.newOutputStream(client), StandardCharsets.UTF_8)) {
+            String request;
+            while ((request = in.readLine()) != null) {
+                handle(Arrays.asList(request.split("\t", -1))).write(out);
+            }
+        } catch (final IOException e) {
+            log.debug("members daemon client connection failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Runs a single request.
+     *
+     * Any unexpected failure is reported to the client as a failure response rather than
+     * dropping the connection.
+     *
+     * @param request the command and its arguments
+     * @return the response
+     */
+    @Nonnull Response handle(@Nonnull final List<String> request) {
+        try {
+            return run(request);
+        } catch (final RuntimeException e) {
+            log.warn("members daemon request failed: {}", String.join(" ", request), e);
+            return Response.failure("request failed: " + e);
+        }
+    }
+
+    /**
+     * Runs a single request, without handling unexpected failures.
+     *
+     * @param request the command and its arguments
+     * @return the response
+     */
+    @Nonnull private Response run(@Nonnull final List<String> request) {
+        final String command = request.get(0);
+        if ("validate".equals(command) && request.size() == 2) {
+            return Commands.validate(loader, Path.of(request.get(1)));
+        } else if ("query".equals(command) && request.size() == 3) {
+            return Commands.query(registry.getMembers(), request.get(1), request.get(2));
+        } else if ("reload".equals(command) && request.size() == 1) {
+            if (registry.reload()) {
+                return new Response(Response.SUCCESS, List.of(status()));
+            }
+            return Response.failure("reload failed: " + registry.getLastFailure());
+        } else if ("status".equals(command) && request.size() == 1) {
+            return new Response(Response.SUCCESS, List.of(status()));
+        } else {
+            return Response.failure("unknown request: " + String.join(" ", request));
+        }
+    }
+
+    /**
+     * Describes the document held.
+     *
+     * @return the description
+     */
+    @Nonnull private String status() {
+        return "generation " + registry.getGeneration() + "\tparticipants " + participantCount()
+                + "\tpublished " + registry.getLastPublished();
+    }
+
+    /**
+     * Returns the number of participants in the document held.
+     *
+     * @return the number of participants
+     */
+    private int participantCount() {
+        final Members members = registry.getMembers();
+        return members.getIndexSizes().members() + members.getIndexSizes().domainOwners();
+    }
+
+    /**
+     * Stops listening, closes any client connections and removes the socket file.
+     */
+    @Override
+    public synchronized void close() {
+        registry.close();
+        if (server != null) {
+            try {
+                server.close();
+                Files.deleteIfExists(socket);
+            } catch (final IOException e) {
+                log.warn("error closing members daemon socket {}: {}", socket, e.getMessage());
+            }
+            server = null;
+        }
+        executor.shutdownNow();
+    }
+
+}
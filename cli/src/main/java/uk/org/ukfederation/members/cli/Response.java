@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package uk.org.ukfederation.members.cli;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * The outcome of a command: an exit status and the lines of output.
+ *
+ * The same response is produced whether a command is run in-process or by a {@link MembersDaemon},
+ * so that the tool behaves identically either way. On the daemon's socket a response is written as
+ * a line holding the status and the number of output lines, separated by a tab, followed by the
+ * output lines themselves.
+ *
+ * @param status the exit status: {@link #SUCCESS}, {@link #NEGATIVE} or {@link #FAILURE}
+ * @param lines the lines of output, none of which contains a line break
+ */
+@Immutable
+public record Response(int status, @Nonnull List<String> lines) {
+
+    /** Status of a command which succeeded: the document is valid, or the query found something. */
+    public static final int SUCCESS = 0;
+
+    /** Status of a command which ran, but whose answer is no: the document is invalid, or nothing was found. */
+    public static final int NEGATIVE = 1;
+
+    /** Status of a command which could not be run. */
+    public static final int FAILURE = 2;
+
+    /**
+     * Constructor.
+     *
+     * @param status the exit status
+     * @param lines the lines of output; any line breaks within a line are replaced by spaces
+     */
+    public Response(final int status, @Nonnull final List<String> lines) {
+        this.status = status;
+        final List<String> flattened = new ArrayList<>(lines.size());
+        for (final String line : lines) {
+            flattened.add(line.replace("\r\n", " ").replace('\n', ' ').replace('\r', ' '));
+        }
+        this.lines = List.copyOf(flattened);
+    }
+
+    /**
+     * Makes the response to a command which could not be run.
+     *
+     * @param message description of the problem
+     * @return the response
+     */
+    @Nonnull public static Response failure(@Nonnull final String message) {
+        return new Response(FAILURE, List.of(message));
+    }
+
+    /**
+     * Makes the response to a query, which is negative if nothing was found.
+     *
+     * @param lines the lines of output, one per item found
+     * @return the response
+     */
+    @Nonnull public static Response found(@Nonnull final List<String> lines) {
+        return new Response(lines.isEmpty() ? NEGATIVE : SUCCESS, lines);
+    }
+
+    /**
+     * Writes the response to a daemon's client.
+     *
+     * @param out the writer to write to; flushed after the response is written
+     * @throws IOException if the response can not be written
+     */
+    public void write(@Nonnull final Writer out) throws IOException {
+        out.write(status + "\t" + lines.size() + "\n");
+        for (final String line : lines) {
+            out.write(line);
+            out.write('\n');
+        }
+        out.flush();
+    }
+
+    /**
+     * Reads a response from a daemon.
+     *
+     * @param in the reader to read from
+     * @return the response
+     * @throws IOException if the response can not be read, or is not in the expected form
+     */
+    @Nonnull public static Response read(@Nonnull final BufferedReader in) throws IOException {
+        final String header = in.readLine();
+        if (header == null) {
+            throw new EOFException("no response from members daemon");
+        }
+        final int tab = header.indexOf('\t');
+        final int status;
+        final int count;
+        try {
+            status = Integer.parseInt(header.substring(0, Math.max(tab, 0)));
+            count = Integer.parseInt(header.substring(tab + 1));
+        } catch (final NumberFormatException e) {
+            throw new IOException("malformed response from members daemon: " + header);
+        }
+        if (count < 0) {
+            throw new IOException("malformed response from members daemon: " + header);
+        }
+        // the count comes from the daemon, so is not trusted to size the list
+        final List<String> lines = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            final String line = in.readLine();
+            if (line == null) {
+                throw new EOFException("truncated response from members daemon");
+            }
+            lines.add(line);
+        }
+        return new Response(status, lines);
+    }
+
+}
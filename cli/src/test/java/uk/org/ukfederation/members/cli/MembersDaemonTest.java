@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package uk.org.ukfederation.members.cli;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import uk.org.ukfederation.members.Members;
+import uk.org.ukfederation.members.MembersDocumentGenerator;
+import uk.org.ukfederation.members.MembersLoader;
+
+/**
+ * Tests for the {@link MembersDaemon} class, and the commands run through it.
+ */
+public class MembersDaemonTest {
+
+    /** Directory holding the files for each test. */
+    private Path dir;
+
+    /** The generated members document. */
+    private Path document;
+
+    /** The daemon's socket file. */
+    private Path socket;
+
+    /** The daemon. */
+    private MembersDaemon daemon;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("daemon");
+        document = dir.resolve("members.xml");
+        final MembersDocumentGenerator generator = MembersDocumentGenerator.ofParticipants(20);
+        generator.setScopesPerMember(1);
+        generator.setGrantsPerDomainOwner(2);
+        Files.write(document, generator.generateBytes());
+        socket = dir.resolve("members.sock");
+        daemon = new MembersDaemon(new MembersLoader(), document, socket);
+        daemon.start(Duration.ofHours(1));
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        daemon.close();
+        try (var files = Files.list(dir)) {
+            for (final Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    @Test
+    public void testRefuseSharedDirectory() throws Exception {
+        final Path shared = Files.createDirectory(dir.resolve("shared"));
+        Files.setPosixFilePermissions(shared, PosixFilePermissions.fromString("rwxrwxrwx"));
+        try (MembersDaemon other = new MembersDaemon(new MembersLoader(), document, shared.resolve("members.sock"))) {
+            other.start(Duration.ofHours(1));
+            Assert.fail("expected IO exception");
+        } catch (final IOException e) {
+            Assert.assertTrue(e.getMessage().contains("writable by others"), e.getMessage());
+        }
+    }
+
+    @Test
+    public void testQueriesMatchInProcess() throws Exception {
+        final Members members = new MembersLoader().load(document);
+        final List<List<String>> queries = List.of(
+                List.of("owner", MembersDocumentGenerator.getMemberDomain(3, 0)),
+                List.of("owner", "unknown.example.org"),
+                List.of("scopes", MembersDocumentGenerator.getScopedEntityID(3, 0)),
+                List.of("grants", MembersDocumentGenerator.getMemberName(0)),
+                List.of("id", "ukforg19"),
+                List.of("name", MembersDocumentGenerator.getDomainOwnerName(0)),
+                List.of("name", "Unknown"));
+        try (DaemonClient client = new DaemonClient(socket)) {
+            for (final List<String> query : queries) {
+                final Response expected = Commands.query(members, query.get(0), query.get(1));
+                final Response actual = client.send(List.of("query", query.get(0), query.get(1)));
+                Assert.assertEquals(actual, expected, query.toString());
+            }
+            Assert.assertEquals(client.send(List.of("query", "id", "ukforg19")).lines(),
+                    List.of(MembersDocumentGenerator.getDomainOwnerName(0) + "\tdomain-owner"));
+            Assert.assertEquals(client.send(List.of("query", "name", "Unknown")).status(), Response.NEGATIVE);
+            Assert.assertEquals(client.send(List.of("query", "nonsense", "x")).status(), Response.FAILURE);
+            Assert.assertEquals(client.send(List.of("nonsense")).status(), Response.FAILURE);
+        }
+    }
+
+    @Test
+    public void testValidate() throws Exception {
+        final Path invalid = dir.resolve("invalid.xml");
+        Files.writeString(invalid, Files.readString(document, StandardCharsets.UTF_8)
+                .replace("<Name>" + MembersDocumentGenerator.getMemberName(1) + "</Name>",
+                        "<Name>" + MembersDocumentGenerator.getMemberName(0) + "</Name>"),
+                StandardCharsets.UTF_8);
+        try (DaemonClient client = new DaemonClient(socket)) {
+            final Response valid = client.send(List.of("validate", document.toString()));
+            Assert.assertEquals(valid.status(), Response.SUCCESS);
+
+            final Response response = client.send(List.of("validate", invalid.toString()));
+            Assert.assertEquals(response, Commands.validate(new MembersLoader(), invalid));
+            Assert.assertEquals(response.status(), Response.NEGATIVE);
+            Assert.assertTrue(String.join("\n", response.lines()).contains("duplicate participant name"),
+                    response.lines().toString());
+
+            final Response missing = client.send(List.of("validate", dir.resolve("missing.xml").toString()));
+            Assert.assertEquals(missing.status(), Response.FAILURE);
+
+            // an unexpected failure is still answered, and the connection kept open
+            final Response badPath = client.send(List.of("validate", "bad\u0000path.xml"));
+            Assert.assertEquals(badPath.status(), Response.FAILURE);
+            Assert.assertEquals(client.send(List.of("status")).status(), Response.SUCCESS);
+        }
+    }
+
+    @Test
+    public void testCommandLineClient() throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final ByteArrayOutputStream err = new ByteArrayOutputStream();
+        final int status = MembersCli.run(List.of("client", socket.toString(), "query", "owner",
+                MembersDocumentGenerator.getMemberDomain(5, 1)),
+                new PrintStream(out, true, StandardCharsets.UTF_8), new PrintStream(err, true, StandardCharsets.UTF_8));
+        Assert.assertEquals(status, Response.SUCCESS);
+        Assert.assertEquals(out.toString(StandardCharsets.UTF_8).trim(),
+                MembersDocumentGenerator.getMemberName(5) + "\tukforg6");
+        Assert.assertEquals(err.size(), 0);
+
+        Assert.assertEquals(MembersCli.run(List.of("client", socket.toString(), "status"),
+                new PrintStream(out, true, StandardCharsets.UTF_8), new PrintStream(err, true, StandardCharsets.UTF_8)),
+                Response.SUCCESS);
+        Assert.assertEquals(MembersCli.run(List.of("client", dir.resolve("none.sock").toString(), "status"),
+                new PrintStream(out, true, StandardCharsets.UTF_8), new PrintStream(err, true, StandardCharsets.UTF_8)),
+                Response.FAILURE);
+    }
+
+    @Test
+    public void testResponseRoundTrip() throws Exception {
+        final Response response = new Response(Response.NEGATIVE, List.of("one\ttwo", "three\nfour", ""));
+        Assert.assertEquals(response.lines().get(1), "three four");
+        final StringWriter writer = new StringWriter();
+        response.write(writer);
+        Assert.assertEquals(Response.read(new BufferedReader(new StringReader(writer.toString()))), response);
+    }
+
+    @Test
+    public void testResponseBadCount() throws Exception {
+        for (final String header : List.of("0\t-1\n", "0\t2147483647\nonly line\n")) {
+            try {
+                Response.read(new BufferedReader(new StringReader(header)));
+                Assert.fail("expected IO exception for " + header);
+            } catch (final IOException e) {
+                // expected: malformed, or truncated
+            }
+        }
+    }
+
+}
@@ -0,0 +1,382 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeConstants;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.w3c.dom.Element;
+
+import uk.org.ukfederation.members.jaxb.ApprovedEntityAttributeElement;
+import uk.org.ukfederation.members.jaxb.BaseGrantType;
+import uk.org.ukfederation.members.jaxb.DomainElement;
+import uk.org.ukfederation.members.jaxb.EntityIDElement;
+import uk.org.ukfederation.members.jaxb.ParticipantType;
+
+/**
+ * Index of the audit attributes (<code>lastVerified</code>, <code>verifiedBy</code>, <code>source</code>
+ * and <code>sourceURL</code>) on the domains, grants, entity IDs and approved entity attributes of a
+ * members document.
+ *
+ * Entries with a <code>lastVerified</code> date are held sorted by that date, so that date range
+ * queries are answered by binary search; entries are also indexed by verifier and by source. Every
+ * query returns a stream, in date order for the date queries and in document order otherwise.
+ *
+ * @see Members#getAuditIndex()
+ */
+@Immutable
+public final class AuditIndex {
+
+    /** Entries with a <code>lastVerified</code> date, sorted by date then document order. */
+    @Nonnull private final AuditEntry[] verified;
+
+    /** The date of each entry in {@link #verified}, as an epoch day. */
+    @Nonnull private final long[] days;
+
+    /** Entries without a <code>lastVerified</code> date, in document order. */
+    @Nonnull private final AuditEntry[] unverified;
+
+    /** Entries indexed by <code>verifiedBy</code>, each in document order. */
+    @Nonnull private final Map<String, AuditEntry[]> byVerifier;
+
+    /** Entries indexed by <code>source</code>, each in document order. */
+    @Nonnull private final Map<String, AuditEntry[]> bySource;
+
+    /** Number of entries. */
+    private final int size;
+
+    /**
+     * Constructor.
+     *
+     * @param participants the participants, in document order
+     */
+    AuditIndex(@Nonnull final List<? extends ParticipantType> participants) {
+        final Collector collector = new Collector();
+        for (final ParticipantType participant : participants) {
+            collector.collect(participant);
+        }
+        final List<AuditEntry> all = collector.entries;
+        size = all.size();
+
+        final List<AuditEntry> dated = new ArrayList<>();
+        final List<AuditEntry> undated = new ArrayList<>();
+        final Map<String, List<AuditEntry>> verifiers = new HashMap<>();
+        final Map<String, List<AuditEntry>> sources = new HashMap<>();
+        for (final AuditEntry entry : all) {
+            (entry.lastVerified() == null ? undated : dated).add(entry);
+            if (entry.verifiedBy() != null) {
+                verifiers.computeIfAbsent(entry.verifiedBy(), k -> new ArrayList<>()).add(entry);
+            }
+            if (entry.source() != null) {
+                sources.computeIfAbsent(entry.source(), k -> new ArrayList<>()).add(entry);
+            }
+        }
+        verified = dated.toArray(new AuditEntry[0]);
+        // stable, so entries on the same date stay in document order
+        Arrays.sort(verified, Comparator.comparing(AuditEntry::lastVerified));
+        days = new long[verified.length];
+        for (int i = 0; i < verified.length; i++) {
+            days[i] = verified[i].lastVerified().toEpochDay();
+        }
+        unverified = undated.toArray(new AuditEntry[0]);
+        byVerifier = freeze(verifiers);
+        bySource = freeze(sources);
+    }
+
+    /**
+     * Returns the number of entries in the index.
+     *
+     * @return the number of domains, grants, entity IDs and approved entity attributes indexed
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns every entry with a <code>lastVerified</code> date, in date order.
+     *
+     * @return stream of entries
+     */
+    @Nonnull public Stream<AuditEntry> verified() {
+        return Arrays.stream(verified);
+    }
+
+    /**
+     * Returns every entry without a <code>lastVerified</code> date, in document order.
+     *
+     * @return stream of entries
+     */
+    @Nonnull public Stream<AuditEntry> unverified() {
+        return Arrays.stream(unverified);
+    }
+
+    /**
+     * Returns the entries last verified before a date, in date order.
+     *
+     * @param date the date
+     * @return stream of entries whose <code>lastVerified</code> date is before <code>date</code>
+     */
+    @Nonnull public Stream<AuditEntry> verifiedBefore(@Nonnull final LocalDate date) {
+        return Arrays.stream(verified, 0, lowerBound(date.toEpochDay()));
+    }
+
+    /**
+     * Returns the entries last verified on or after one date and before another, in date order.
+     *
+     * @param from the first date included
+     * @param to the first date not included
+     * @return stream of entries whose <code>lastVerified</code> date is in the range
+     */
+    @Nonnull public Stream<AuditEntry> verifiedBetween(@Nonnull final LocalDate from, @Nonnull final LocalDate to) {
+        final int start = lowerBound(from.toEpochDay());
+        return Arrays.stream(verified, start, Math.max(start, lowerBound(to.toEpochDay())));
+    }
+
+    /**
+     * Returns the entries not verified since a date: those without a <code>lastVerified</code> date,
+     * in document order, followed by those last verified before the date, in date order.
+     *
+     * @param date the date
+     * @return stream of entries
+     */
+    @Nonnull public Stream<AuditEntry> notVerifiedSince(@Nonnull final LocalDate date) {
+        return Stream.concat(unverified(), verifiedBefore(date));
+    }
+
+    /**
+     * Returns the entries verified by a given person or group, in document order.
+     *
+     * @param verifiedBy the <code>verifiedBy</code> value
+     * @return stream of entries
+     */
+    @Nonnull public Stream<AuditEntry> verifiedBy(@Nonnull final String verifiedBy) {
+        final AuditEntry[] entries = byVerifier.get(verifiedBy);
+        return entries == null ? Stream.empty() : Arrays.stream(entries);
+    }
+
+    /**
+     * Returns the entries with a given source, in document order.
+     *
+     * @param source the <code>source</code> value
+     * @return stream of entries
+     */
+    @Nonnull public Stream<AuditEntry> fromSource(@Nonnull final String source) {
+        final AuditEntry[] entries = bySource.get(source);
+        return entries == null ? Stream.empty() : Arrays.stream(entries);
+    }
+
+    /**
+     * Returns every <code>verifiedBy</code> value in the document.
+     *
+     * @return immutable set of verifiers
+     */
+    @Nonnull public Set<String> getVerifiers() {
+        return byVerifier.keySet();
+    }
+
+    /**
+     * Returns every <code>source</code> value in the document.
+     *
+     * @return immutable set of sources
+     */
+    @Nonnull public Set<String> getSources() {
+        return bySource.keySet();
+    }
+
+    /**
+     * Finds the first verified entry on or after a date.
+     *
+     * @param day the date, as an epoch day
+     * @return index in {@link #verified} of the first entry on or after the date
+     */
+    private int lowerBound(final long day) {
+        int low = 0;
+        int high = days.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (days[mid] < day) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Converts a map of lists into an immutable map of arrays.
+     *
+     * @param map the map to convert
+     * @return the immutable equivalent
+     */
+    @Nonnull private static Map<String, AuditEntry[]> freeze(@Nonnull final Map<String, List<AuditEntry>> map) {
+        if (map.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        final Map<String, AuditEntry[]> frozen = new HashMap<>(map.size() * 2);
+        for (final Map.Entry<String, List<AuditEntry>> entry : map.entrySet()) {
+            frozen.put(entry.getKey(), entry.getValue().toArray(new AuditEntry[0]));
+        }
+        return Map.copyOf(frozen);
+    }
+
+    /**
+     * The kind of element carrying audit attributes.
+     */
+    public enum Kind {
+
+        /** A <code>Domain</code>. */
+        DOMAIN,
+
+        /** A <code>Grant</code> or <code>GrantAll</code>. */
+        GRANT,
+
+        /** An <code>EntityID</code> within <code>EntityIDs</code>. */
+        ENTITY_ID,
+
+        /** An <code>ApprovedEntityAttribute</code>. */
+        APPROVED_ATTRIBUTE
+    }
+
+    /**
+     * The audit attributes of a single element.
+     *
+     * @param kind the kind of element
+     * @param participant the participant the element belongs to
+     * @param element the JAXB object (or, for an entity ID, possibly the DOM {@link Element}) for the element
+     * @param subject what the element is about: the domain, the name granted, the entity ID, or the entity
+     *  the attribute is approved for
+     * @param lastVerified the <code>lastVerified</code> attribute, or <code>null</code>
+     * @param verifiedBy the <code>verifiedBy</code> attribute, or <code>null</code>
+     * @param source the <code>source</code> attribute, or <code>null</code>
+     * @param sourceURL the <code>sourceURL</code> attribute, or <code>null</code>
+     */
+    public record AuditEntry(@Nonnull Kind kind, @Nonnull ParticipantType participant, @Nonnull Object element,
+            @Nullable String subject, @Nullable LocalDate lastVerified, @Nullable String verifiedBy,
+            @Nullable String source, @Nullable String sourceURL) {
+    }
+
+    /**
+     * Collects the audit entries for each participant.
+     */
+    private static final class Collector {
+
+        /** The entries collected, in document order. */
+        @Nonnull private final List<AuditEntry> entries = new ArrayList<>();
+
+        /** Factory for parsing dates from DOM attributes; created when first needed. */
+        @Nullable private DatatypeFactory datatypes;
+
+        /**
+         * Collects the entries for a participant.
+         *
+         * @param participant the participant
+         */
+        void collect(@Nonnull final ParticipantType participant) {
+            for (final DomainElement domain : Participants.domainListOf(participant)) {
+                entries.add(new AuditEntry(Kind.DOMAIN, participant, domain, domain.getValue(),
+                        date(domain.getLastVerified()), domain.getVerifiedBy(), domain.getSource(),
+                        domain.getSourceURL()));
+            }
+            for (final BaseGrantType grant : Participants.grantListOf(participant)) {
+                entries.add(new AuditEntry(Kind.GRANT, participant, grant, grant.getValue(),
+                        date(grant.getLastVerified()), grant.getVerifiedBy(), grant.getSource(),
+                        grant.getSourceURL()));
+            }
+            for (final Object entityID : Participants.entityIDObjectsOf(participant)) {
+                if (entityID instanceof EntityIDElement) {
+                    final EntityIDElement element = (EntityIDElement) entityID;
+                    entries.add(new AuditEntry(Kind.ENTITY_ID, participant, element, element.getValue(),
+                            date(element.getLastVerified()), element.getVerifiedBy(), element.getSource(),
+                            element.getSourceURL()));
+                } else if (entityID instanceof Element) {
+                    final Element element = (Element) entityID;
+                    entries.add(new AuditEntry(Kind.ENTITY_ID, participant, element,
+                            Participants.entityIDValue(element), date(attribute(element, "lastVerified")),
+                            attribute(element, "verifiedBy"), attribute(element, "source"),
+                            attribute(element, "sourceURL")));
+                }
+            }
+            for (final ApprovedEntityAttributeElement attribute : Participants.approvedAttributesOf(participant)) {
+                entries.add(new AuditEntry(Kind.APPROVED_ATTRIBUTE, participant, attribute, attribute.getEntityID(),
+                        date(attribute.getLastVerified()), attribute.getVerifiedBy(), attribute.getSource(),
+                        attribute.getSourceURL()));
+            }
+        }
+
+        /**
+         * Converts an <code>xs:date</code> to a {@link LocalDate}, ignoring any time zone.
+         *
+         * @param date the date
+         * @return the date, or <code>null</code>
+         */
+        @Nullable private static LocalDate date(@Nullable final XMLGregorianCalendar date) {
+            if (date == null || date.getYear() == DatatypeConstants.FIELD_UNDEFINED) {
+                return null;
+            }
+            return LocalDate.of(date.getYear(), date.getMonth(), date.getDay());
+        }
+
+        /**
+         * Parses an <code>xs:date</code> attribute value.
+         *
+         * @param lexical the attribute value
+         * @return the date, or <code>null</code> if the value is absent or malformed
+         */
+        @Nullable private LocalDate date(@Nullable final String lexical) {
+            if (lexical == null) {
+                return null;
+            }
+            try {
+                if (datatypes == null) {
+                    datatypes = DatatypeFactory.newInstance();
+                }
+                return date(datatypes.newXMLGregorianCalendar(lexical.trim()));
+            } catch (final DatatypeConfigurationException | IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        /**
+         * Returns an unqualified attribute of a DOM element.
+         *
+         * @param element the element
+         * @param name the attribute name
+         * @return the attribute value, or <code>null</code> if it is absent
+         */
+        @Nullable private static String attribute(@Nonnull final Element element, @Nonnull final String name) {
+            return element.hasAttributeNS(null, name) ? element.getAttributeNS(null, name) : null;
+        }
+    }
+
+}
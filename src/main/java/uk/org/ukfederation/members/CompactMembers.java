@@ -0,0 +1,433 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import uk.org.ukfederation.members.jaxb.BaseGrantType;
+import uk.org.ukfederation.members.jaxb.DomainElement;
+import uk.org.ukfederation.members.jaxb.GrantElement;
+import uk.org.ukfederation.members.jaxb.MemberElement;
+import uk.org.ukfederation.members.jaxb.MembersElement;
+import uk.org.ukfederation.members.jaxb.ParticipantType;
+
+/**
+ * Compact, read-only view of a members document, for long-running services which only need lookups.
+ *
+ * A {@link CompactMembers} object answers the same lookups by participant name, domain, grant and
+ * pushed scope as {@link Members}, but holds only small immutable records in flat arrays, with each
+ * distinct string held once. Audit attributes, name comments, entity ID lists and approved entity
+ * attributes are not kept. It holds no reference to the JAXB object graph it was built from, so once
+ * the {@link Members} object is dropped that graph can be garbage collected.
+ *
+ * @see MembersLoader#loadCompact(java.nio.file.Path)
+ */
+@Immutable
+public final class CompactMembers {
+
+    /** All participants, members first, in document order. */
+    @Nonnull private final Participant[] participants;
+
+    /** All registered domains, in document order. */
+    @Nonnull private final Domain[] domains;
+
+    /** All grants, in document order. */
+    @Nonnull private final Grant[] grants;
+
+    /** Participants indexed by name. */
+    @Nonnull private final Map<String, Participant> participantByName;
+
+    /** Registered domains indexed by lower-case name. */
+    @Nonnull private final Map<String, Domain> domainByName;
+
+    /** Grants indexed by lower-case name granted, each in document order. */
+    @Nonnull private final Map<String, Grant[]> grantsByName;
+
+    /** Index of pushed scopes. */
+    @Nonnull private final PushedScopeIndex pushedScopes;
+
+    /** Heap used before and after compaction, if it was measured. */
+    @Nullable private final HeapUsage heapUsage;
+
+    /**
+     * Constructor.
+     *
+     * @param members the {@link Members} object to copy
+     */
+    private CompactMembers(@Nonnull final Members members) {
+        final MembersElement document = members.getMembersElement();
+        final Map<String, String> strings = new HashMap<>();
+        final List<ParticipantType> sources = new ArrayList<>(
+                document.getMember().size() + document.getDomainOwner().size());
+        sources.addAll(document.getMember());
+        sources.addAll(document.getDomainOwner());
+
+        final Map<ParticipantType, Participant> copies = new IdentityHashMap<>(sources.size());
+        participants = new Participant[sources.size()];
+        final Map<String, Participant> byName = new HashMap<>(sources.size() * 2);
+        for (int i = 0; i < participants.length; i++) {
+            final ParticipantType source = sources.get(i);
+            participants[i] = new Participant(intern(strings, source.getID()), intern(strings, source.getName()),
+                    source instanceof MemberElement);
+            copies.put(source, participants[i]);
+            byName.putIfAbsent(participants[i].name(), participants[i]);
+        }
+
+        final List<Domain> domainList = new ArrayList<>();
+        final Map<String, Domain> byDomain = new HashMap<>();
+        final List<Grant> grantList = new ArrayList<>();
+        final Map<String, List<Grant>> byGrant = new HashMap<>();
+        for (final ParticipantType source : sources) {
+            final Participant owner = copies.get(source);
+            for (final DomainElement domainElement : Participants.domainListOf(source)) {
+                final Domain domain = new Domain(intern(strings, domainElement.getValue()), owner);
+                domainList.add(domain);
+                byDomain.putIfAbsent(intern(strings, normalize(domain.name())), domain);
+            }
+            for (final BaseGrantType grantElement : Participants.grantListOf(source)) {
+                final String entityID = grantElement instanceof GrantElement
+                        ? intern(strings, ((GrantElement) grantElement).getEntityID()) : null;
+                final Grant grant = new Grant(owner, !(grantElement instanceof GrantElement),
+                        intern(strings, grantElement.getValue()), copies.get(grantElement.getOrgID()), entityID);
+                grantList.add(grant);
+                byGrant.computeIfAbsent(intern(strings, normalize(grant.domain())), k -> new ArrayList<>(1))
+                        .add(grant);
+            }
+        }
+        domains = domainList.toArray(new Domain[0]);
+        grants = grantList.toArray(new Grant[0]);
+
+        // the immutable maps from Map.copyOf use open addressing in a single flat array
+        participantByName = Map.copyOf(byName);
+        domainByName = Map.copyOf(byDomain);
+        final Map<String, Grant[]> grantArrays = new HashMap<>(byGrant.size() * 2);
+        for (final Map.Entry<String, List<Grant>> entry : byGrant.entrySet()) {
+            grantArrays.put(entry.getKey(), entry.getValue().toArray(new Grant[0]));
+        }
+        grantsByName = Map.copyOf(grantArrays);
+        pushedScopes = members.getPushedScopeIndex();
+        heapUsage = null;
+    }
+
+    /**
+     * Constructor sharing the content of another object, with a heap usage report.
+     *
+     * @param other the object whose content to share
+     * @param usage the heap usage report
+     */
+    private CompactMembers(@Nonnull final CompactMembers other, @Nonnull final HeapUsage usage) {
+        participants = other.participants;
+        domains = other.domains;
+        grants = other.grants;
+        participantByName = other.participantByName;
+        domainByName = other.domainByName;
+        grantsByName = other.grantsByName;
+        pushedScopes = other.pushedScopes;
+        heapUsage = usage;
+    }
+
+    /**
+     * Builds a compact view of a {@link Members} object.
+     *
+     * @param members the {@link Members} object to copy
+     * @return the compact view
+     */
+    @Nonnull public static CompactMembers from(@Nonnull final Members members) {
+        return new CompactMembers(members);
+    }
+
+    /**
+     * Returns a copy of this object carrying a heap usage report.
+     *
+     * @param usage the heap usage report
+     * @return the copy
+     */
+    @Nonnull CompactMembers withHeapUsage(@Nonnull final HeapUsage usage) {
+        return new CompactMembers(this, usage);
+    }
+
+    /**
+     * Returns the heap used before and after compaction, if it was measured.
+     *
+     * @return the heap usage report, or <code>null</code> if it was not measured
+     */
+    @Nullable public HeapUsage getHeapUsage() {
+        return heapUsage;
+    }
+
+    /**
+     * Returns all participants, members first, in document order.
+     *
+     * @return immutable list of participants
+     */
+    @Nonnull public List<Participant> getParticipants() {
+        return Collections.unmodifiableList(Arrays.asList(participants));
+    }
+
+    /**
+     * Returns all registered domains, in document order.
+     *
+     * @return immutable list of domains
+     */
+    @Nonnull public List<Domain> getDomains() {
+        return Collections.unmodifiableList(Arrays.asList(domains));
+    }
+
+    /**
+     * Returns all grants, in document order.
+     *
+     * @return immutable list of grants
+     */
+    @Nonnull public List<Grant> getGrants() {
+        return Collections.unmodifiableList(Arrays.asList(grants));
+    }
+
+    /**
+     * Returns the named participant.
+     *
+     * @param name name of participant to look up
+     * @return the participant, or <code>null</code>
+     */
+    @Nullable public Participant getParticipantByName(@Nonnull final String name) {
+        return participantByName.get(name);
+    }
+
+    /**
+     * Returns the named member.
+     *
+     * @param name name of member to look up
+     * @return the member, or <code>null</code> if there is no member of that name
+     */
+    @Nullable public Participant getMemberByName(@Nonnull final String name) {
+        final Participant participant = participantByName.get(name);
+        return participant != null && participant.member() ? participant : null;
+    }
+
+    /**
+     * Checks for the name of a federation member.
+     *
+     * @param name Name to check.
+     * @return {@code true} if and only if {@code name} contains a legitimate entity owner name.
+     */
+    public boolean isOwnerName(@Nonnull final String name) {
+        return getMemberByName(name) != null;
+    }
+
+    /**
+     * Finds the participant owning a host name, or one of its parent domains.
+     *
+     * @param fqdn host or domain name to look up
+     * @return the owning participant, or <code>null</code> if no enclosing domain is registered
+     * @see Members#findDomainOwner(String)
+     */
+    @Nullable public Participant findDomainOwner(@Nonnull final String fqdn) {
+        final Domain domain = findDomain(fqdn);
+        return domain == null ? null : domain.owner();
+    }
+
+    /**
+     * Finds the registered domain equal to, or enclosing, a host name.
+     *
+     * @param fqdn host or domain name to look up
+     * @return the registered domain, or <code>null</code> if no enclosing domain is registered
+     * @see Members#findOwnedDomain(String)
+     */
+    @Nullable public String findOwnedDomain(@Nonnull final String fqdn) {
+        final Domain domain = findDomain(fqdn);
+        return domain == null ? null : domain.name();
+    }
+
+    /**
+     * Finds the grants which cover a host name for use in a given entity.
+     *
+     * @param fqdn host or domain name to look up
+     * @param entityID the entity the name is used in, or <code>null</code> to match grants for any entity
+     * @return the covering grants, most specific first, in the same order as
+     *  {@link Members#findGrantsCovering(String, String)}; possibly empty
+     */
+    @Nonnull public List<Grant> findGrantsCovering(@Nonnull final String fqdn, @Nullable final String entityID) {
+        List<Grant> found = null;
+        final String name = normalize(fqdn);
+        for (int start = 0; start >= 0; start = nextLabel(name, start)) {
+            final Grant[] named = grantsByName.get(start == 0 ? name : name.substring(start));
+            if (named == null) {
+                continue;
+            }
+            if (found == null) {
+                found = new ArrayList<>();
+            }
+            if (start == 0) {
+                for (int i = named.length - 1; i >= 0; i--) {
+                    final Grant grant = named[i];
+                    if (!grant.all() && (entityID == null || entityID.equals(grant.entityID()))) {
+                        found.add(grant);
+                    }
+                }
+            }
+            for (int i = named.length - 1; i >= 0; i--) {
+                if (named[i].all()) {
+                    found.add(named[i]);
+                }
+            }
+        }
+        return found == null ? Collections.emptyList() : found;
+    }
+
+    /**
+     * Computes the "pushed" scope list for the named entity.
+     *
+     * @param entityID name of the entity
+     * @return immutable ordered list of scopes to be added to the entity, or <code>null</code>
+     */
+    @Nullable public List<String> scopesForEntity(@Nonnull final String entityID) {
+        return pushedScopes.scopesFor(entityID);
+    }
+
+    /**
+     * Returns the entities a scope is pushed to.
+     *
+     * @param scope the scope
+     * @return immutable ordered list of entity IDs the scope is pushed to, possibly empty
+     */
+    @Nonnull public List<String> entitiesForScope(@Nonnull final String scope) {
+        return pushedScopes.entitiesFor(scope);
+    }
+
+    /**
+     * Finds the longest registered domain equal to or enclosing a name.
+     *
+     * @param fqdn the name to look up
+     * @return the registered domain, or <code>null</code>
+     */
+    @Nullable private Domain findDomain(@Nonnull final String fqdn) {
+        final String name = normalize(fqdn);
+        for (int start = 0; start >= 0; start = nextLabel(name, start)) {
+            final Domain domain = domainByName.get(start == 0 ? name : name.substring(start));
+            if (domain != null) {
+                return domain;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the start of the parent of a name within a longer name.
+     *
+     * @param name the full name
+     * @param start start of the current name within <code>name</code>
+     * @return start of the parent name, or <code>-1</code> if the current name has no parent
+     */
+    private static int nextLabel(@Nonnull final String name, final int start) {
+        final int dot = name.indexOf('.', start);
+        return dot < 0 ? -1 : dot + 1;
+    }
+
+    /**
+     * Normalizes a name for lookup: lower case, without a trailing dot.
+     *
+     * @param fqdn the name
+     * @return the normalized name
+     */
+    @Nonnull private static String normalize(@Nonnull final String fqdn) {
+        final String lower = fqdn.toLowerCase(Locale.ROOT);
+        return lower.endsWith(".") ? lower.substring(0, lower.length() - 1) : lower;
+    }
+
+    /**
+     * Returns the single copy of a string held by this object.
+     *
+     * @param strings the strings held so far
+     * @param string the string
+     * @return the held copy of <code>string</code>, or <code>null</code>
+     */
+    @Nullable private static String intern(@Nonnull final Map<String, String> strings,
+            @Nullable final String string) {
+        return string == null ? null : strings.computeIfAbsent(string, s -> s);
+    }
+
+    /**
+     * A participant: a member or a domain owner.
+     *
+     * @param id the participant's organisation ID
+     * @param name the participant's name
+     * @param member <code>true</code> for a member, <code>false</code> for a domain owner
+     */
+    public record Participant(@Nonnull String id, @Nonnull String name, boolean member) {
+    }
+
+    /**
+     * A registered domain.
+     *
+     * @param name the domain, as written in the members document
+     * @param owner the participant registering the domain
+     */
+    public record Domain(@Nonnull String name, @Nonnull Participant owner) {
+    }
+
+    /**
+     * A <code>Grant</code> or <code>GrantAll</code>.
+     *
+     * @param grantor the participant making the grant
+     * @param all <code>true</code> for a <code>GrantAll</code>, <code>false</code> for a <code>Grant</code>
+     * @param domain the domain granted
+     * @param to the member the grant is made to
+     * @param entityID the entity the grant is made for, or <code>null</code> for a <code>GrantAll</code>
+     */
+    public record Grant(@Nonnull Participant grantor, boolean all, @Nonnull String domain, @Nonnull Participant to,
+            @Nullable String entityID) {
+    }
+
+    /**
+     * Heap used by the JVM with the full {@link Members} object held, and with only the compact
+     * view held.
+     *
+     * Both figures are taken just after requesting a garbage collection, so are indicative only.
+     *
+     * @param beforeBytes heap used with the {@link Members} object held, in bytes
+     * @param afterBytes heap used once the {@link Members} object was released, in bytes
+     */
+    public record HeapUsage(long beforeBytes, long afterBytes) {
+
+        /**
+         * Returns the heap released by compaction.
+         *
+         * @return heap released, in bytes; negative if usage grew
+         */
+        public long getSavedBytes() {
+            return beforeBytes - afterBytes;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        @Nonnull public String toString() {
+            return String.format("heap %.1fMB before compaction, %.1fMB after",
+                    beforeBytes / 1e6, afterBytes / 1e6);
+        }
+    }
+
+}
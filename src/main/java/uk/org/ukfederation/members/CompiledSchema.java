@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.xml.validation.Schema;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Unmarshaller;
+
+/**
+ * A compiled members schema together with the JAXB context used to unmarshal documents against it.
+ *
+ * Both the {@link Schema} and the {@link JAXBContext} are thread-safe and may be shared freely.
+ * {@link Unmarshaller}s are not, so each load borrows one from the schema's {@link UnmarshallerPool}.
+ */
+@ThreadSafe
+public final class CompiledSchema {
+
+    /** The compiled schema. */
+    @Nonnull private final Schema schema;
+
+    /** JAXB context for the members object graph. */
+    @Nonnull private final JAXBContext context;
+
+    /** Time taken to compile the schema, in nanoseconds. */
+    private final long compileNanos;
+
+    /** Pool of unmarshallers for this schema. */
+    @Nonnull private final UnmarshallerPool unmarshallerPool;
+
+    /**
+     * Constructor.
+     *
+     * @param compiled the compiled schema
+     * @param jaxbContext JAXB context for the members object graph
+     * @param nanos time taken to compile the schema, in nanoseconds
+     * @param poolSize greatest number of unmarshallers to pool
+     */
+    CompiledSchema(@Nonnull final Schema compiled, @Nonnull final JAXBContext jaxbContext, final long nanos,
+            final int poolSize) {
+        schema = compiled;
+        context = jaxbContext;
+        compileNanos = nanos;
+        unmarshallerPool = new UnmarshallerPool(this, poolSize);
+    }
+
+    /**
+     * Returns the compiled schema.
+     *
+     * @return the compiled schema
+     */
+    @Nonnull public Schema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Returns the time originally taken to compile the schema.
+     *
+     * @return compilation time in nanoseconds
+     */
+    public long getCompileNanos() {
+        return compileNanos;
+    }
+
+    /**
+     * Returns the pool of schema-validating unmarshallers for this schema.
+     *
+     * @return the unmarshaller pool
+     */
+    @Nonnull public UnmarshallerPool getUnmarshallerPool() {
+        return unmarshallerPool;
+    }
+
+    /**
+     * Make a schema-validating unmarshaller for MembersElement documents.
+     *
+     * @return a new {@link Unmarshaller}, for use by a single thread
+     * @throws JAXBException if there is a problem constructing the unmarshaller
+     */
+    @Nonnull public Unmarshaller newUnmarshaller() throws JAXBException {
+        final Unmarshaller unmarshaller = context.createUnmarshaller();
+        unmarshaller.setSchema(schema);
+        return unmarshaller;
+    }
+
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * {@link MembersMetrics} which accumulates measurements in memory, for reading by a metrics exporter.
+ *
+ * Counters are {@link LongAdder}s, so that concurrent lookups do not contend on them.
+ */
+@ThreadSafe
+public class CountingMembersMetrics implements MembersMetrics {
+
+    /** Calls of each lookup method. */
+    @Nonnull private final Map<Lookup, LongAdder> calls = adders(Lookup.class);
+
+    /** Calls of each lookup method which found nothing. */
+    @Nonnull private final Map<Lookup, LongAdder> misses = adders(Lookup.class);
+
+    /** Builds of each lazily built index. */
+    @Nonnull private final Map<LazyIndex, LongAdder> lazyBuilds = adders(LazyIndex.class);
+
+    /** Total time spent building each lazily built index, in nanoseconds. */
+    @Nonnull private final Map<LazyIndex, LongAdder> lazyBuildNanos = adders(LazyIndex.class);
+
+    /** Schema compilations. */
+    @Nonnull private final LongAdder schemaCompilations = new LongAdder();
+
+    /** Total time spent compiling schemas, in nanoseconds. */
+    @Nonnull private final LongAdder schemaCompileNanos = new LongAdder();
+
+    /** Loads. */
+    @Nonnull private final LongAdder loads = new LongAdder();
+
+    /** Total time spent loading, in nanoseconds. */
+    @Nonnull private final LongAdder loadNanos = new LongAdder();
+
+    /** Timings of the most recent load. */
+    @Nullable private volatile LoadTimings lastLoadTimings;
+
+    /** Index sizes of the most recent load. */
+    @Nullable private volatile IndexSizes lastIndexSizes;
+
+    /** {@inheritDoc} */
+    @Override
+    public void schemaCompiled(@Nonnull final String systemId, final long nanos) {
+        schemaCompilations.increment();
+        schemaCompileNanos.add(nanos);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void loaded(@Nonnull final LoadTimings timings, @Nonnull final IndexSizes sizes) {
+        loads.increment();
+        loadNanos.add(timings.getTotalNanos());
+        lastLoadTimings = timings;
+        lastIndexSizes = sizes;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void lazyIndexBuilt(@Nonnull final LazyIndex index, final long nanos) {
+        lazyBuilds.get(index).increment();
+        lazyBuildNanos.get(index).add(nanos);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void lookup(@Nonnull final Lookup lookup, final boolean hit) {
+        calls.get(lookup).increment();
+        if (!hit) {
+            misses.get(lookup).increment();
+        }
+    }
+
+    /**
+     * Returns the number of calls of a lookup method.
+     *
+     * @param lookup the lookup method
+     * @return the number of calls
+     */
+    public long getCalls(@Nonnull final Lookup lookup) {
+        return calls.get(lookup).sum();
+    }
+
+    /**
+     * Returns the number of calls of a lookup method which found nothing.
+     *
+     * @param lookup the lookup method
+     * @return the number of misses
+     */
+    public long getMisses(@Nonnull final Lookup lookup) {
+        return misses.get(lookup).sum();
+    }
+
+    /**
+     * Returns the number of times a lazily built index has been built.
+     *
+     * @param index the index
+     * @return the number of builds
+     */
+    public long getLazyBuilds(@Nonnull final LazyIndex index) {
+        return lazyBuilds.get(index).sum();
+    }
+
+    /**
+     * Returns the total time spent building a lazily built index.
+     *
+     * @param index the index
+     * @return time in nanoseconds
+     */
+    public long getLazyBuildNanos(@Nonnull final LazyIndex index) {
+        return lazyBuildNanos.get(index).sum();
+    }
+
+    /**
+     * Returns the number of schemas compiled.
+     *
+     * @return the number of schema compilations
+     */
+    public long getSchemaCompilations() {
+        return schemaCompilations.sum();
+    }
+
+    /**
+     * Returns the total time spent compiling schemas.
+     *
+     * @return time in nanoseconds
+     */
+    public long getSchemaCompileNanos() {
+        return schemaCompileNanos.sum();
+    }
+
+    /**
+     * Returns the number of {@link Members} objects loaded.
+     *
+     * @return the number of loads
+     */
+    public long getLoads() {
+        return loads.sum();
+    }
+
+    /**
+     * Returns the total time spent loading {@link Members} objects.
+     *
+     * @return time in nanoseconds
+     */
+    public long getLoadNanos() {
+        return loadNanos.sum();
+    }
+
+    /**
+     * Returns the timings of the most recent load.
+     *
+     * @return the timings, or <code>null</code> if nothing has been loaded
+     */
+    @Nullable public LoadTimings getLastLoadTimings() {
+        return lastLoadTimings;
+    }
+
+    /**
+     * Returns the index sizes of the most recent load.
+     *
+     * @return the index sizes, or <code>null</code> if nothing has been loaded
+     */
+    @Nullable public IndexSizes getLastIndexSizes() {
+        return lastIndexSizes;
+    }
+
+    /**
+     * Makes a map holding a counter for each value of an enumeration.
+     *
+     * @param <K> the enumeration type
+     * @param type the enumeration class
+     * @return the map, which is not modified afterwards
+     */
+    @Nonnull private static <K extends Enum<K>> Map<K, LongAdder> adders(@Nonnull final Class<K> type) {
+        final Map<K, LongAdder> map = new EnumMap<>(type);
+        for (final K key : type.getEnumConstants()) {
+            map.put(key, new LongAdder());
+        }
+        return map;
+    }
+
+}
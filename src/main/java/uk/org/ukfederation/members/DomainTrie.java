@@ -0,0 +1,331 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import uk.org.ukfederation.members.jaxb.BaseGrantType;
+import uk.org.ukfederation.members.jaxb.DomainElement;
+import uk.org.ukfederation.members.jaxb.GrantAllElement;
+import uk.org.ukfederation.members.jaxb.GrantElement;
+import uk.org.ukfederation.members.jaxb.ParticipantType;
+
+/**
+ * Index of registered domains and domain grants, organised as a trie over reversed DNS labels.
+ *
+ * The trie for <code>a.example.ac.uk</code> is reached from the root through the nodes for
+ * <code>uk</code>, <code>ac.uk</code> and <code>example.ac.uk</code>, so each lookup takes
+ * time proportional to the number of labels in the name being looked up, and visits every
+ * registered parent domain on the way.
+ *
+ * The trie is built once and not modified afterwards.
+ */
+@Immutable
+final class DomainTrie {
+
+    /** Root node, representing the DNS root. */
+    @Nonnull private final Node root = new Node();
+
+    /** Registered domains lying within other registered domains, mapped to the enclosing domain. */
+    @Nonnull private final SortedMap<String, String> overlaps = new TreeMap<>();
+
+    /**
+     * Registered domains differing only in case from a domain registered earlier by another
+     * participant, mapped to the clash.
+     */
+    @Nonnull private final SortedMap<String, Clash> clashes = new TreeMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param participants the participants, in document order
+     */
+    DomainTrie(@Nonnull final List<? extends ParticipantType> participants) {
+        for (final ParticipantType participant : participants) {
+            for (final DomainElement domain : Participants.domainListOf(participant)) {
+                if (domain.getValue() == null) {
+                    // only possible when collecting validation errors
+                    continue;
+                }
+                final Node node = insert(domain.getValue());
+                if (node.owner == null) {
+                    node.owner = participant;
+                    node.domain = domain.getValue();
+                } else if (node.owner != participant && !domain.getValue().equals(node.domain)) {
+                    // names are compared exactly when checking for duplicates, but looked up in any case
+                    clashes.put(domain.getValue(), new Clash(participant, node.owner, node.domain));
+                }
+            }
+        }
+        for (final ParticipantType participant : participants) {
+            for (final BaseGrantType grant : Participants.grantListOf(participant)) {
+                if (grant.getValue() != null) {
+                    insert(grant.getValue()).addGrant(grant);
+                }
+            }
+        }
+        findOverlaps();
+    }
+
+    /**
+     * Finds the participant registering the longest registered domain equal to or enclosing a name.
+     *
+     * @param fqdn the name to look up
+     * @return the owning participant, or <code>null</code> if no enclosing domain is registered
+     */
+    @Nullable ParticipantType findOwner(@Nonnull final String fqdn) {
+        final Node node = findOwnerNode(fqdn);
+        return node == null ? null : node.owner;
+    }
+
+    /**
+     * Finds the longest registered domain equal to or enclosing a name.
+     *
+     * @param fqdn the name to look up
+     * @return the registered domain, or <code>null</code> if no enclosing domain is registered
+     */
+    @Nullable String findOwnedDomain(@Nonnull final String fqdn) {
+        final Node node = findOwnerNode(fqdn);
+        return node == null ? null : node.domain;
+    }
+
+    /**
+     * Finds the grants covering a name.
+     *
+     * A <code>GrantAll</code> covers the domain it names and all of its subdomains. A <code>Grant</code>
+     * covers only the exact name it names, and only for its own entity ID.
+     *
+     * @param fqdn the name to look up
+     * @param entityID the entity the name is to be used in, or <code>null</code> to match any entity
+     * @return the covering grants, most specific first
+     */
+    @Nonnull List<BaseGrantType> findGrantsCovering(@Nonnull final String fqdn, @Nullable final String entityID) {
+        final String name = normalize(fqdn);
+        final Deque<BaseGrantType> found = new ArrayDeque<>();
+        Node node = root;
+        int end = name.length();
+        while (end > 0) {
+            final int dot = name.lastIndexOf('.', end - 1);
+            node = node.child(name.substring(dot + 1, end));
+            if (node == null) {
+                break;
+            }
+            end = dot;
+            for (final BaseGrantType grant : node.grantAlls) {
+                found.addFirst(grant);
+            }
+            if (end <= 0) {
+                // exact match
+                for (final GrantElement grant : node.grants) {
+                    if (entityID == null || entityID.equals(grant.getEntityID())) {
+                        found.addFirst(grant);
+                    }
+                }
+            }
+        }
+        return found.isEmpty() ? Collections.emptyList() : new ArrayList<>(found);
+    }
+
+    /**
+     * Returns the registered domains which lie within other registered domains.
+     *
+     * @return map from each nested domain to the nearest enclosing registered domain
+     */
+    @Nonnull SortedMap<String, String> getOverlaps() {
+        return Collections.unmodifiableSortedMap(overlaps);
+    }
+
+    /**
+     * Returns the registered domains which differ only in case from a domain registered earlier
+     * by another participant.
+     *
+     * Lookups find the owner of the earlier domain.
+     *
+     * @return map from each later domain to its clash with the earlier domain
+     */
+    @Nonnull SortedMap<String, Clash> getClashes() {
+        return Collections.unmodifiableSortedMap(clashes);
+    }
+
+    /**
+     * Finds the deepest node with an owner along the path to a name.
+     *
+     * @param fqdn the name to look up
+     * @return the node, or <code>null</code>
+     */
+    @Nullable private Node findOwnerNode(@Nonnull final String fqdn) {
+        final String name = normalize(fqdn);
+        Node best = null;
+        Node node = root;
+        int end = name.length();
+        while (end > 0) {
+            final int dot = name.lastIndexOf('.', end - 1);
+            node = node.child(name.substring(dot + 1, end));
+            if (node == null) {
+                break;
+            }
+            if (node.owner != null) {
+                best = node;
+            }
+            end = dot;
+        }
+        return best;
+    }
+
+    /**
+     * Finds or creates the node for a name.
+     *
+     * @param fqdn the name
+     * @return the node for the name
+     */
+    @Nonnull private Node insert(@Nonnull final String fqdn) {
+        final String name = normalize(fqdn);
+        Node node = root;
+        int end = name.length();
+        while (end > 0) {
+            final int dot = name.lastIndexOf('.', end - 1);
+            node = node.childOrCreate(name.substring(dot + 1, end));
+            end = dot;
+        }
+        return node;
+    }
+
+    /**
+     * Records every registered domain lying within another registered domain.
+     */
+    private void findOverlaps() {
+        final Deque<Node> nodes = new ArrayDeque<>();
+        final Deque<Node> enclosing = new ArrayDeque<>();
+        nodes.push(root);
+        enclosing.push(root);
+        while (!nodes.isEmpty()) {
+            final Node node = nodes.pop();
+            Node nearest = enclosing.pop();
+            if (node.owner != null) {
+                if (nearest.owner != null) {
+                    overlaps.put(node.domain, nearest.domain);
+                }
+                nearest = node;
+            }
+            if (node.children != null) {
+                for (final Node child : node.children.values()) {
+                    nodes.push(child);
+                    enclosing.push(nearest);
+                }
+            }
+        }
+    }
+
+    /**
+     * Normalizes a name for lookup: lower case, without a trailing dot.
+     *
+     * @param fqdn the name
+     * @return the normalized name
+     */
+    @Nonnull private static String normalize(@Nonnull final String fqdn) {
+        final String lower = fqdn.toLowerCase(Locale.ROOT);
+        return lower.endsWith(".") ? lower.substring(0, lower.length() - 1) : lower;
+    }
+
+    /**
+     * A registered domain differing only in case from a domain registered earlier by another participant.
+     *
+     * @param participant the participant registering the later domain
+     * @param earlierParticipant the participant registering the earlier domain
+     * @param earlierDomain the earlier domain, as written in the members document
+     */
+    record Clash(@Nonnull ParticipantType participant, @Nonnull ParticipantType earlierParticipant,
+            @Nonnull String earlierDomain) {
+    }
+
+    /**
+     * A node in the trie, corresponding to one DNS name.
+     */
+    private static final class Node {
+
+        /** Child nodes, indexed by label; <code>null</code> until the first child is added. */
+        @Nullable private Map<String, Node> children;
+
+        /** The participant registering this name as a domain, if any. */
+        @Nullable private ParticipantType owner;
+
+        /** The registered domain, as written in the members document, if any. */
+        @Nullable private String domain;
+
+        /** <code>GrantAll</code>s of this name. */
+        @Nonnull private List<BaseGrantType> grantAlls = Collections.emptyList();
+
+        /** <code>Grant</code>s of this name. */
+        @Nonnull private List<GrantElement> grants = Collections.emptyList();
+
+        /**
+         * Returns a child node.
+         *
+         * @param label the child's label
+         * @return the child node, or <code>null</code>
+         */
+        @Nullable Node child(@Nonnull final String label) {
+            return children == null ? null : children.get(label);
+        }
+
+        /**
+         * Returns a child node, creating it if necessary.
+         *
+         * @param label the child's label
+         * @return the child node
+         */
+        @Nonnull Node childOrCreate(@Nonnull final String label) {
+            if (children == null) {
+                children = new HashMap<>(4);
+            }
+            return children.computeIfAbsent(label, l -> new Node());
+        }
+
+        /**
+         * Records a grant of this node's name.
+         *
+         * @param grant the grant
+         */
+        void addGrant(@Nonnull final BaseGrantType grant) {
+            if (grant instanceof GrantElement) {
+                if (grants.isEmpty()) {
+                    grants = new ArrayList<>(2);
+                }
+                grants.add((GrantElement) grant);
+            } else if (grant instanceof GrantAllElement) {
+                if (grantAlls.isEmpty()) {
+                    grantAlls = new ArrayList<>(2);
+                }
+                grantAlls.add(grant);
+            }
+        }
+    }
+
+}
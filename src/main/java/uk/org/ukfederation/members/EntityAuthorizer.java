@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import uk.org.ukfederation.members.EntityVerdict.Coverage;
+import uk.org.ukfederation.members.jaxb.ApprovedEntityAttributeElement;
+import uk.org.ukfederation.members.jaxb.BaseGrantType;
+import uk.org.ukfederation.members.jaxb.GrantAllElement;
+import uk.org.ukfederation.members.jaxb.MemberElement;
+import uk.org.ukfederation.members.jaxb.ParticipantType;
+
+/**
+ * Answers the questions asked of each entity registered in the federation, using indexes
+ * precomputed from a {@link Members} snapshot.
+ *
+ * For each entity, the authorizer determines whether its owner is a member; how each host name
+ * the entity uses is covered, by a domain registered to the owner or by a <code>Grant</code>
+ * or <code>GrantAll</code> made to the owner; whether the entity ID is listed in the owner's
+ * <code>EntityIDs</code>; and which <code>ApprovedEntityAttribute</code> values the entity may carry.
+ *
+ * If the entity ID is an absolute URL with a host, that host is always checked in addition to
+ * any host names supplied; it is reported as {@link Coverage#ENTITY_ID} if not otherwise covered
+ * but the entity ID is listed in <code>EntityIDs</code>.
+ *
+ * Instances are immutable once constructed, and may be used from any number of threads.
+ */
+@ThreadSafe
+public final class EntityAuthorizer {
+
+    /** The snapshot the authorizer was built from. */
+    @Nonnull private final Members members;
+
+    /** Entity IDs listed in each member's <code>EntityIDs</code>, indexed by member name. */
+    @Nonnull private final Map<String, Set<String>> entityIDsByOwner = new HashMap<>();
+
+    /** Approved entity attributes for each entity, indexed by member name then entity ID. */
+    @Nonnull private final Map<String, Map<String, List<ApprovedEntityAttributeElement>>> attributesByOwner =
+            new HashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param snapshot the {@link Members} snapshot to answer queries from
+     */
+    public EntityAuthorizer(@Nonnull final Members snapshot) {
+        members = snapshot;
+        for (final MemberElement member : snapshot.getMembersElement().getMember()) {
+            final List<String> entityIDs = Participants.entityIDsOf(member);
+            if (!entityIDs.isEmpty()) {
+                entityIDsByOwner.put(member.getName(), new HashSet<>(entityIDs));
+            }
+            final List<ApprovedEntityAttributeElement> attributes = Participants.approvedAttributesOf(member);
+            if (!attributes.isEmpty()) {
+                final Map<String, List<ApprovedEntityAttributeElement>> byEntity = new HashMap<>();
+                for (final ApprovedEntityAttributeElement attribute : attributes) {
+                    byEntity.computeIfAbsent(attribute.getEntityID(), e -> new ArrayList<>()).add(attribute);
+                }
+                attributesByOwner.put(member.getName(), byEntity);
+            }
+        }
+    }
+
+    /**
+     * Returns the snapshot the authorizer was built from.
+     *
+     * @return the {@link Members} snapshot
+     */
+    @Nonnull public Members getMembers() {
+        return members;
+    }
+
+    /**
+     * Checks a single entity.
+     *
+     * @param ownerName name of the participant registering the entity
+     * @param entityID the entity's entity ID
+     * @param hostNames host names used by the entity, for example in scopes or endpoints
+     * @return the verdict for the entity
+     */
+    @Nonnull public EntityVerdict authorize(@Nonnull final String ownerName, @Nonnull final String entityID,
+            @Nonnull final Collection<String> hostNames) {
+        final MemberElement owner = members.getMemberByName(ownerName);
+        final Set<String> listedIDs = entityIDsByOwner.get(ownerName);
+        final boolean listed = listedIDs != null && listedIDs.contains(entityID);
+
+        final Map<String, Coverage> coverage = new LinkedHashMap<>();
+        final String entityHost = hostOf(entityID);
+        if (entityHost != null) {
+            final Coverage entityCoverage = coverage(owner, entityHost, entityID);
+            coverage.put(entityHost, entityCoverage == Coverage.NOT_COVERED && listed ?
+                    Coverage.ENTITY_ID : entityCoverage);
+        }
+        for (final String host : hostNames) {
+            if (!coverage.containsKey(host)) {
+                coverage.put(host, coverage(owner, host, entityID));
+            }
+        }
+
+        final Map<String, List<ApprovedEntityAttributeElement>> ownerAttributes = attributesByOwner.get(ownerName);
+        final List<ApprovedEntityAttributeElement> attributes = ownerAttributes == null ? null :
+            ownerAttributes.get(entityID);
+
+        return new EntityVerdict(ownerName, entityID, owner != null, listed, coverage,
+                attributes == null ? Collections.emptyList() : attributes);
+    }
+
+    /**
+     * Checks a single entity.
+     *
+     * @param query the entity to check
+     * @return the verdict for the entity
+     */
+    @Nonnull public EntityVerdict authorize(@Nonnull final Query query) {
+        return authorize(query.ownerName(), query.entityID(), query.hostNames());
+    }
+
+    /**
+     * Checks a batch of entities.
+     *
+     * @param queries the entities to check
+     * @param parallel <code>true</code> to spread the work across the common fork-join pool
+     * @return the verdicts, in the same order as the queries
+     */
+    @Nonnull public List<EntityVerdict> authorizeAll(@Nonnull final Collection<Query> queries,
+            final boolean parallel) {
+        if (parallel) {
+            return queries.parallelStream().map(this::authorize).collect(Collectors.toList());
+        }
+        final List<EntityVerdict> verdicts = new ArrayList<>(queries.size());
+        for (final Query query : queries) {
+            verdicts.add(authorize(query));
+        }
+        return verdicts;
+    }
+
+    /**
+     * Determines how a host name is covered for an entity.
+     *
+     * @param owner the entity's owner, or <code>null</code> if the owner is not a member
+     * @param host the host name
+     * @param entityID the entity's entity ID
+     * @return the coverage of the host name
+     */
+    @Nonnull private Coverage coverage(@Nullable final MemberElement owner, @Nonnull final String host,
+            @Nonnull final String entityID) {
+        if (owner == null) {
+            return Coverage.NOT_COVERED;
+        }
+        final ParticipantType domainOwner = members.findDomainOwner(host);
+        if (domainOwner == owner) {
+            return Coverage.OWNED_DOMAIN;
+        }
+        for (final BaseGrantType grant : members.findGrantsCovering(host, entityID)) {
+            if (grant.getOrgID() == owner) {
+                return grant instanceof GrantAllElement ? Coverage.GRANT_ALL : Coverage.GRANT;
+            }
+        }
+        return Coverage.NOT_COVERED;
+    }
+
+    /**
+     * Extracts the host from an entity ID, if it is an absolute URL.
+     *
+     * @param entityID the entity ID
+     * @return the host name, or <code>null</code>
+     */
+    @Nullable private static String hostOf(@Nonnull final String entityID) {
+        if (!entityID.startsWith("http://") && !entityID.startsWith("https://")) {
+            return null;
+        }
+        try {
+            return URI.create(entityID).getHost();
+        } catch (final IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * An entity to be checked.
+     *
+     * @param ownerName name of the participant registering the entity
+     * @param entityID the entity's entity ID
+     * @param hostNames host names used by the entity, for example in scopes or endpoints
+     */
+    public record Query(@Nonnull String ownerName, @Nonnull String entityID, @Nonnull List<String> hostNames) {
+    }
+
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+import uk.org.ukfederation.members.jaxb.ApprovedEntityAttributeElement;
+
+/**
+ * The result of checking one entity against the members document with an {@link EntityAuthorizer}.
+ */
+@Immutable
+public final class EntityVerdict {
+
+    /**
+     * How a host name used by an entity is covered.
+     */
+    public enum Coverage {
+
+        /** The name lies within a domain registered to the entity's owner. */
+        OWNED_DOMAIN,
+
+        /** The name has been granted to the entity's owner for this entity by a <code>Grant</code>. */
+        GRANT,
+
+        /** The name lies within a domain granted to the entity's owner by a <code>GrantAll</code>. */
+        GRANT_ALL,
+
+        /** The entity ID itself is listed in the owner's <code>EntityIDs</code>. */
+        ENTITY_ID,
+
+        /** The name is not covered. */
+        NOT_COVERED
+    }
+
+    /** Name of the entity's owner. */
+    @Nonnull private final String ownerName;
+
+    /** The entity's entity ID. */
+    @Nonnull private final String entityID;
+
+    /** Whether the owner is a federation member. */
+    private final boolean ownerIsMember;
+
+    /** Whether the entity ID is listed in the owner's <code>EntityIDs</code>. */
+    private final boolean entityIDListed;
+
+    /** Coverage of each host name checked, in the order checked. */
+    @Nonnull private final Map<String, Coverage> hostCoverage;
+
+    /** Entity attributes approved for the entity. */
+    @Nonnull private final List<ApprovedEntityAttributeElement> approvedAttributes;
+
+    /**
+     * Constructor.
+     *
+     * @param owner name of the entity's owner
+     * @param entity the entity's entity ID
+     * @param member whether the owner is a federation member
+     * @param listed whether the entity ID is listed in the owner's <code>EntityIDs</code>
+     * @param coverage coverage of each host name checked
+     * @param attributes entity attributes approved for the entity
+     */
+    EntityVerdict(@Nonnull final String owner, @Nonnull final String entity, final boolean member,
+            final boolean listed, @Nonnull final Map<String, Coverage> coverage,
+            @Nonnull final List<ApprovedEntityAttributeElement> attributes) {
+        ownerName = owner;
+        entityID = entity;
+        ownerIsMember = member;
+        entityIDListed = listed;
+        hostCoverage = Collections.unmodifiableMap(coverage);
+        approvedAttributes = Collections.unmodifiableList(attributes);
+    }
+
+    /**
+     * Returns the name of the entity's owner.
+     *
+     * @return owner name
+     */
+    @Nonnull public String getOwnerName() {
+        return ownerName;
+    }
+
+    /**
+     * Returns the entity's entity ID.
+     *
+     * @return entity ID
+     */
+    @Nonnull public String getEntityID() {
+        return entityID;
+    }
+
+    /**
+     * Indicates whether the entity's owner is a federation member.
+     *
+     * @return <code>true</code> if the owner is a member
+     */
+    public boolean isOwnerMember() {
+        return ownerIsMember;
+    }
+
+    /**
+     * Indicates whether the entity ID is listed in the owner's <code>EntityIDs</code>.
+     *
+     * @return <code>true</code> if the entity ID is specifically permitted
+     */
+    public boolean isEntityIDListed() {
+        return entityIDListed;
+    }
+
+    /**
+     * Returns how each host name checked is covered.
+     *
+     * @return map from host name to {@link Coverage}, in the order the names were checked
+     */
+    @Nonnull public Map<String, Coverage> getHostCoverage() {
+        return hostCoverage;
+    }
+
+    /**
+     * Indicates whether every host name checked is covered.
+     *
+     * @return <code>true</code> if no host name is {@link Coverage#NOT_COVERED}
+     */
+    public boolean isAllHostsCovered() {
+        return !hostCoverage.containsValue(Coverage.NOT_COVERED);
+    }
+
+    /**
+     * Returns the entity attributes approved for this entity under its owner.
+     *
+     * @return approved entity attributes, possibly empty
+     */
+    @Nonnull public List<ApprovedEntityAttributeElement> getApprovedAttributes() {
+        return approvedAttributes;
+    }
+
+    /**
+     * Indicates whether the entity is authorized: its owner is a member and every host name is covered.
+     *
+     * @return <code>true</code> if the entity is authorized
+     */
+    public boolean isAuthorized() {
+        return ownerIsMember && isAllHostsCovered();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Nonnull public String toString() {
+        return "EntityVerdict{owner=" + ownerName + ", entityID=" + entityID + ", member=" + ownerIsMember
+                + ", listed=" + entityIDListed + ", hosts=" + hostCoverage
+                + ", approvedAttributes=" + approvedAttributes.size() + "}";
+    }
+
+}
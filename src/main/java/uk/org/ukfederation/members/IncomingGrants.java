@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import uk.org.ukfederation.members.jaxb.BaseGrantType;
+import uk.org.ukfederation.members.jaxb.GrantElement;
+import uk.org.ukfederation.members.jaxb.MemberElement;
+import uk.org.ukfederation.members.jaxb.ParticipantType;
+
+/**
+ * The grants made to a single member, each with the participant making it.
+ *
+ * Grants are held in document order: those made by members first, then those made by domain
+ * owners, each participant's grants in the order they appear.
+ *
+ * @see Members#getIncomingGrants(MemberElement)
+ */
+@Immutable
+public final class IncomingGrants {
+
+    /** The member the grants are made to. */
+    @Nonnull private final MemberElement member;
+
+    /** The grants, in document order. */
+    @Nonnull private final List<IncomingGrant> grants;
+
+    /** Number of <code>GrantAll</code> elements among the grants. */
+    private final int grantAllCount;
+
+    /**
+     * Constructor.
+     *
+     * @param grantee the member the grants are made to
+     * @param incoming the grants, in document order
+     */
+    IncomingGrants(@Nonnull final MemberElement grantee, @Nonnull final List<IncomingGrant> incoming) {
+        member = grantee;
+        grants = List.copyOf(incoming);
+        int all = 0;
+        for (final IncomingGrant grant : grants) {
+            if (grant.isGrantAll()) {
+                all++;
+            }
+        }
+        grantAllCount = all;
+    }
+
+    /**
+     * Returns the member the grants are made to.
+     *
+     * @return the member
+     */
+    @Nonnull public MemberElement getMember() {
+        return member;
+    }
+
+    /**
+     * Returns the grants made to the member.
+     *
+     * @return immutable list of grants, in document order
+     */
+    @Nonnull public List<IncomingGrant> getGrants() {
+        return grants;
+    }
+
+    /**
+     * Returns the number of grants made to the member.
+     *
+     * @return the number of grants
+     */
+    public int size() {
+        return grants.size();
+    }
+
+    /**
+     * Returns the number of <code>GrantAll</code> elements made to the member.
+     *
+     * @return the number of grants covering every entity of the member
+     */
+    public int getGrantAllCount() {
+        return grantAllCount;
+    }
+
+    /**
+     * Returns the number of <code>Grant</code> elements made to the member.
+     *
+     * @return the number of grants covering a single entity of the member
+     */
+    public int getGrantCount() {
+        return grants.size() - grantAllCount;
+    }
+
+    /**
+     * Returns the participants making grants to the member.
+     *
+     * @return immutable list of distinct participants, in document order
+     */
+    @Nonnull public List<ParticipantType> getGrantors() {
+        final Set<ParticipantType> grantors = Collections.newSetFromMap(new IdentityHashMap<>());
+        final List<ParticipantType> result = new ArrayList<>();
+        for (final IncomingGrant grant : grants) {
+            if (grantors.add(grant.grantor())) {
+                result.add(grant.grantor());
+            }
+        }
+        return List.copyOf(result);
+    }
+
+    /**
+     * Returns the names granted to the member.
+     *
+     * @return immutable list of distinct names, in document order
+     */
+    @Nonnull public List<String> getNames() {
+        final Set<String> names = new LinkedHashSet<>();
+        for (final IncomingGrant grant : grants) {
+            if (grant.grant().getValue() != null) {
+                names.add(grant.grant().getValue());
+            }
+        }
+        return List.copyOf(names);
+    }
+
+    /**
+     * Returns the entity IDs named by the <code>Grant</code> elements made to the member.
+     *
+     * @return immutable list of distinct entity IDs, in document order
+     */
+    @Nonnull public List<String> getEntityIDs() {
+        final Set<String> entityIDs = new LinkedHashSet<>();
+        for (final IncomingGrant grant : grants) {
+            if (grant.entityID() != null) {
+                entityIDs.add(grant.entityID());
+            }
+        }
+        return List.copyOf(entityIDs);
+    }
+
+    /**
+     * A grant made to a member.
+     *
+     * @param grantor the participant making the grant
+     * @param grant the <code>Grant</code> or <code>GrantAll</code> element
+     */
+    public record IncomingGrant(@Nonnull ParticipantType grantor, @Nonnull BaseGrantType grant) {
+
+        /**
+         * Indicates whether this is a <code>GrantAll</code>, covering every entity of the member.
+         *
+         * @return <code>true</code> for a <code>GrantAll</code>, <code>false</code> for a <code>Grant</code>
+         */
+        public boolean isGrantAll() {
+            return !(grant instanceof GrantElement);
+        }
+
+        /**
+         * Returns the entity ID of a <code>Grant</code>.
+         *
+         * @return the entity ID, or <code>null</code> for a <code>GrantAll</code>
+         */
+        @Nullable public String entityID() {
+            return grant instanceof GrantElement ? ((GrantElement) grant).getEntityID() : null;
+        }
+    }
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Sizes of the indexes of a {@link Members} object.
+ *
+ * @param members number of members
+ * @param domainOwners number of domain owners
+ * @param domains number of registered domains
+ * @param grants number of <code>Grant</code> and <code>GrantAll</code> elements
+ */
+public record IndexSizes(int members, int domainOwners, int domains, int grants) {
+
+    /**
+     * Returns the number of participants.
+     *
+     * @return number of members and domain owners
+     */
+    public int participants() {
+        return members + domainOwners;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Nonnull public String toString() {
+        return String.format("%d members, %d domain owners, %d domains, %d grants",
+                members, domainOwners, domains, grants);
+    }
+
+}
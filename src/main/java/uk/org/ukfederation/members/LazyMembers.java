@@ -0,0 +1,769 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package uk.org.ukfederation.members;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+import javax.xml.transform.stax.StAXSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.UnmarshalException;
+import net.shibboleth.shared.component.ComponentInitializationException;
+import uk.org.ukfederation.members.jaxb.MemberElement;
+import uk.org.ukfederation.members.jaxb.MembersElement;
+import uk.org.ukfederation.members.jaxb.ParticipantType;
+
+/**
+ * A members document whose participants are unmarshalled only when first looked up.
+ *
+ * Loading makes a single streaming pass over the document, validating it against the schema
+ * without building any JAXB objects. That pass indexes each participant's name and ID, and the
+ * information needed for the same checks on participant names, domain registrations and grants
+ * that {@link Members} makes; overlapping domain registrations, which {@link Members} only warns
+ * about, are not reported. A second, much cheaper, pass over the bytes of the document records
+ * where each participant's element starts and ends.
+ *
+ * Name lookups such as {@link #isOwnerName(String)} are answered from the index alone. Looking
+ * up a participant unmarshals that participant's element, including its <code>Domains</code>,
+ * <code>Grants</code>, <code>Scopes</code>, <code>EntityIDs</code> and
+ * <code>ApprovedEntityAttributes</code>, from the recorded byte range, and keeps the result. A
+ * grant's <code>orgID</code> refers to another participant object, so the participants its grants
+ * are made to are unmarshalled at the same time, and so on in turn; each participant object is
+ * published only once all of the participants it refers to have been.
+ *
+ * The document file is mapped into memory rather than read onto the heap. It must not be
+ * modified in place while this object is in use; replacing it with a new file, for example by
+ * renaming a new file over it, does not affect the mapping.
+ *
+ * @see MembersLoader#loadLazy(Path)
+ */
+@ThreadSafe
+public final class LazyMembers {
+
+    /** Class logger. */
+    @Nonnull private static final Logger LOG = LoggerFactory.getLogger(LazyMembers.class);
+
+    /** Schema providing the unmarshallers for each participant. */
+    @Nonnull private final CompiledSchema schema;
+
+    /** System ID of the document, for error messages. */
+    @Nonnull private final String systemId;
+
+    /** The bytes of the document. */
+    @Nonnull private final ByteBuffer document;
+
+    /** Start and end offsets of each participant's element, in pairs, in document order. */
+    @Nonnull private final int[] ranges;
+
+    /** Bytes placed before a participant's element to make it a document. */
+    @Nonnull private final byte[] prefix;
+
+    /** Bytes placed after a participant's element to make it a document. */
+    @Nonnull private final byte[] suffix;
+
+    /** Participant names, in document order. */
+    @Nonnull private final List<String> names;
+
+    /** Participant IDs, in document order. */
+    @Nonnull private final String[] ids;
+
+    /** Whether each participant is a member, in document order. */
+    @Nonnull private final boolean[] members;
+
+    /** Index of each participant, by name. */
+    @Nonnull private final Map<String, Integer> indexByName;
+
+    /** Index of each participant, by ID. */
+    @Nonnull private final Map<String, Integer> indexById;
+
+    /** Participants unmarshalled so far, in document order. */
+    @Nonnull private final AtomicReferenceArray<ParticipantType> participants;
+
+    /** Number of participants unmarshalled so far. */
+    private volatile int materialized;
+
+    /** Time spent in each phase of loading. */
+    @Nonnull private final LoadTimings loadTimings;
+
+    /**
+     * Constructor.
+     *
+     * @param compiledSchema schema providing the unmarshallers for each participant
+     * @param docSystemId system ID of the document
+     * @param bytes the bytes of the document
+     * @param index the result of the streaming pass over the document
+     * @param timings time spent in each phase of loading
+     */
+    private LazyMembers(@Nonnull final CompiledSchema compiledSchema, @Nonnull final String docSystemId,
+            @Nonnull final ByteBuffer bytes, @Nonnull final Indexer index, @Nonnull final LoadTimings timings) {
+        schema = compiledSchema;
+        systemId = docSystemId;
+        document = bytes;
+        ranges = scanParticipants(bytes);
+        if (ranges.length != 2 * index.names.size()) {
+            throw new IllegalStateException("found " + ranges.length / 2 + " participant elements in " + systemId
+                    + ", expected " + index.names.size());
+        }
+        prefix = index.prefix();
+        suffix = index.suffix();
+        names = List.copyOf(index.names);
+        ids = index.ids.toArray(new String[0]);
+        members = new boolean[names.size()];
+        indexByName = new HashMap<>();
+        indexById = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            members[i] = index.members.get(i);
+            indexByName.put(names.get(i), i);
+            indexById.put(ids[i], i);
+        }
+        participants = new AtomicReferenceArray<>(names.size());
+        loadTimings = timings;
+    }
+
+    /**
+     * Loads a members document from a file, validating it and indexing its participants.
+     *
+     * @param path {@link Path} of the members document
+     * @param loader loader providing the schema and metrics
+     * @return the new {@link LazyMembers} object
+     * @throws ComponentInitializationException if there is a problem in the members document
+     * @throws JAXBException if there is a problem parsing or validating the members document
+     * @throws SAXException if there is a problem parsing the schema document
+     * @throws IOException if the file can not be read, or is not in an encoding this class supports
+     */
+    @Nonnull static LazyMembers load(@Nonnull final Path path, @Nonnull final MembersLoader loader)
+            throws ComponentInitializationException, JAXBException, SAXException, IOException {
+        final long start = System.nanoTime();
+        final CompiledSchema compiledSchema = loader.getDefaultSchema();
+        final long compiled = System.nanoTime();
+
+        final String docSystemId = path.toUri().toString();
+        final Indexer index;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+            final XMLStreamReader raw = MembersLoader.createStreamReader(in, docSystemId);
+            try {
+                index = new Indexer(raw);
+                compiledSchema.getSchema().newValidator().validate(new StAXSource(index));
+            } catch (final SAXException e) {
+                throw new UnmarshalException(parseException(e));
+            } finally {
+                try {
+                    raw.close();
+                } catch (final XMLStreamException e) {
+                    LOG.debug("error closing stream reader", e);
+                }
+            }
+        }
+        final long validated = System.nanoTime();
+
+        index.check();
+        final ByteBuffer bytes;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("members document too large to load lazily: " + path);
+            }
+            bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        final LazyMembers lazy = new LazyMembers(compiledSchema, docSystemId, bytes, index,
+                new LoadTimings(compiled - start, validated - compiled, System.nanoTime() - validated));
+        loader.getMetrics().loaded(lazy.loadTimings, new IndexSizes(index.memberCount(),
+                index.names.size() - index.memberCount(), index.domains.size(), index.grantTo.size()));
+        LOG.debug("indexed {} participants lazily from {}: {}", lazy.names.size(), path, lazy.loadTimings);
+        return lazy;
+    }
+
+    /**
+     * Finds the parse exception describing a validation failure.
+     *
+     * Validating from a StAX source reports the parse exception wrapped in several layers of
+     * other exceptions; {@link Members} reports it directly.
+     *
+     * @param e the exception thrown by the validator
+     * @return the parse exception, or the exception thrown if there is none
+     */
+    @Nonnull private static Exception parseException(@Nonnull final SAXException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SAXParseException) {
+                return (SAXParseException) cause;
+            }
+        }
+        return e;
+    }
+
+    /**
+     * Returns the time spent in each phase of loading this object.
+     *
+     * The unmarshal phase covers the streaming pass which validates and indexes the document.
+     *
+     * @return the {@link LoadTimings} for this object
+     */
+    @Nonnull public LoadTimings getLoadTimings() {
+        return loadTimings;
+    }
+
+    /**
+     * Returns the names of the participants, in document order.
+     *
+     * @return the participant names
+     */
+    @Nonnull public List<String> getParticipantNames() {
+        return names;
+    }
+
+    /**
+     * Returns the number of participants unmarshalled so far.
+     *
+     * @return the number of participants unmarshalled
+     */
+    public int getMaterializedCount() {
+        return materialized;
+    }
+
+    /**
+     * Indicates whether a name is the name of a participant, without unmarshalling anything.
+     *
+     * @param name name to look up
+     * @return <code>true</code> if the name is the name of a member or domain owner
+     */
+    public boolean isParticipantName(@Nonnull final String name) {
+        return indexByName.containsKey(name);
+    }
+
+    /**
+     * Indicates whether a name is the name of a member, without unmarshalling anything.
+     *
+     * @param name name to look up
+     * @return <code>true</code> if the name is the name of a member
+     */
+    public boolean isOwnerName(@Nonnull final String name) {
+        final Integer index = indexByName.get(name);
+        return index != null && members[index];
+    }
+
+    /**
+     * Returns the participant with a given name, unmarshalling it if necessary.
+     *
+     * @param name name of the participant
+     * @return the participant, or <code>null</code> if there is no participant with that name
+     */
+    @Nullable public ParticipantType getParticipantByName(@Nonnull final String name) {
+        final Integer index = indexByName.get(name);
+        return index == null ? null : participant(index);
+    }
+
+    /**
+     * Returns the member with a given name, unmarshalling it if necessary.
+     *
+     * @param name name of the member
+     * @return the member, or <code>null</code> if there is no member with that name
+     */
+    @Nullable public MemberElement getMemberByName(@Nonnull final String name) {
+        final Integer index = indexByName.get(name);
+        return index == null || !members[index] ? null : (MemberElement) participant(index);
+    }
+
+    /**
+     * Returns the participant with a given ID, unmarshalling it if necessary.
+     *
+     * @param id ID of the participant
+     * @return the participant, or <code>null</code> if there is no participant with that ID
+     */
+    @Nullable public ParticipantType getParticipantById(@Nonnull final String id) {
+        final Integer index = indexById.get(id);
+        return index == null ? null : participant(index);
+    }
+
+    /**
+     * Returns the member with a given ID, unmarshalling it if necessary.
+     *
+     * @param id ID of the member
+     * @return the member, or <code>null</code> if there is no member with that ID
+     */
+    @Nullable public MemberElement getMemberById(@Nonnull final String id) {
+        final Integer index = indexById.get(id);
+        return index == null || !members[index] ? null : (MemberElement) participant(index);
+    }
+
+    /**
+     * Returns a participant, unmarshalling it if necessary.
+     *
+     * @param index index of the participant in document order
+     * @return the participant
+     */
+    @Nonnull private ParticipantType participant(final int index) {
+        final ParticipantType participant = participants.get(index);
+        return participant != null ? participant : materialize(index);
+    }
+
+    /**
+     * Unmarshals a participant and every participant it refers to, directly or indirectly, that
+     * has not already been unmarshalled, then publishes them all.
+     *
+     * @param index index of the participant in document order
+     * @return the participant
+     * @throws IllegalStateException if a participant can not be unmarshalled; the document was
+     *  validated when loaded, so this means that the file has been modified in place
+     */
+    @Nonnull private synchronized ParticipantType materialize(final int index) {
+        final ParticipantType existing = participants.get(index);
+        if (existing != null) {
+            return existing;
+        }
+
+        final Map<Integer, ParticipantType> pending = new HashMap<>();
+        final Deque<ReferenceRecorder.Reference> references = new ArrayDeque<>();
+        pending.put(index, unmarshal(index, references));
+        while (!references.isEmpty()) {
+            final ReferenceRecorder.Reference reference = references.pop();
+            final Integer target = reference.orgID() == null ? null : indexById.get(reference.orgID());
+            if (target == null) {
+                throw new IllegalStateException("participant \"" + reference.grantor().getName() + "\" in "
+                        + systemId + " refers to unknown orgID \"" + reference.orgID() + "\"");
+            }
+            ParticipantType referent = participants.get(target);
+            if (referent == null) {
+                referent = pending.get(target);
+            }
+            if (referent == null) {
+                referent = unmarshal(target, references);
+                pending.put(target, referent);
+            }
+            reference.grant().setOrgID(referent);
+        }
+
+        for (final Map.Entry<Integer, ParticipantType> entry : pending.entrySet()) {
+            participants.set(entry.getKey(), entry.getValue());
+        }
+        materialized += pending.size();
+        return pending.get(index);
+    }
+
+    /**
+     * Unmarshals a single participant's element.
+     *
+     * The element was validated when the document was loaded, so is not validated again. The
+     * references its grants make to participants are left for the caller to resolve.
+     *
+     * @param index index of the participant in document order
+     * @param references list to add the participant's references to other participants to
+     * @return the participant, with the <code>orgID</code> of its grants unset
+     */
+    @Nonnull private ParticipantType unmarshal(final int index,
+            @Nonnull final Deque<ReferenceRecorder.Reference> references) {
+        final int start = ranges[2 * index];
+        final int end = ranges[2 * index + 1];
+        final byte[] bytes = new byte[prefix.length + end - start + suffix.length];
+        System.arraycopy(prefix, 0, bytes, 0, prefix.length);
+        document.get(start, bytes, prefix.length, end - start);
+        System.arraycopy(suffix, 0, bytes, bytes.length - suffix.length, suffix.length);
+
+        try {
+            final InputSource source = new InputSource(new ByteArrayInputStream(bytes));
+            source.setSystemId(systemId);
+            final ReferenceRecorder.Parsed parsed = ReferenceRecorder.parse(source, schema, false);
+            references.addAll(parsed.references());
+            final MembersElement element = parsed.element();
+            final ParticipantType participant = members[index] ?
+                    element.getMember().get(0) : element.getDomainOwner().get(0);
+            if (!names.get(index).equals(participant.getName())) {
+                throw new IllegalStateException("participant at offset " + start + " in " + systemId
+                        + " is no longer \"" + names.get(index) + "\"");
+            }
+            return participant;
+        } catch (final JAXBException | IOException | IndexOutOfBoundsException e) {
+            throw new IllegalStateException("can not unmarshal participant \"" + names.get(index)
+                    + "\" from " + systemId, e);
+        }
+    }
+
+    /**
+     * Finds the element of each participant in the bytes of a well-formed members document.
+     *
+     * The participants are the children of the document element. Comments, processing
+     * instructions, <code>CDATA</code> sections and quoted attribute values are skipped, so that
+     * markup characters within them are not mistaken for tags. The document must be in an
+     * encoding in which the markup characters are single ASCII bytes.
+     *
+     * @param bytes the bytes of the document
+     * @return the start and end offsets of each participant's element, in pairs, in document order
+     */
+    @Nonnull static int[] scanParticipants(@Nonnull final ByteBuffer bytes) {
+        int[] ranges = new int[64];
+        int count = 0;
+        int depth = 0;
+        int i = 0;
+        final int limit = bytes.limit();
+        while (i < limit) {
+            if (bytes.get(i) != '<') {
+                i++;
+            } else if (startsWith(bytes, i, "<!--")) {
+                i = indexOf(bytes, i + 4, "-->") + 3;
+            } else if (startsWith(bytes, i, "<![CDATA[")) {
+                i = indexOf(bytes, i + 9, "]]>") + 3;
+            } else if (startsWith(bytes, i, "<?")) {
+                i = indexOf(bytes, i + 2, "?>") + 2;
+            } else if (startsWith(bytes, i, "<!")) {
+                i = indexOf(bytes, i + 2, ">") + 1;
+            } else if (startsWith(bytes, i, "</")) {
+                final int end = indexOf(bytes, i + 2, ">") + 1;
+                if (depth == 2) {
+                    ranges[count++] = end;
+                }
+                depth--;
+                i = end;
+            } else {
+                // start tag: find its end, skipping any '>' in attribute values
+                int j = i + 1;
+                byte quote = 0;
+                while (quote != 0 || bytes.get(j) != '>') {
+                    final byte b = bytes.get(j);
+                    if (quote != 0) {
+                        if (b == quote) {
+                            quote = 0;
+                        }
+                    } else if (b == '"' || b == '\'') {
+                        quote = b;
+                    }
+                    j++;
+                }
+                depth++;
+                if (depth == 2) {
+                    if (count + 2 > ranges.length) {
+                        ranges = Arrays.copyOf(ranges, ranges.length * 2);
+                    }
+                    ranges[count++] = i;
+                }
+                if (bytes.get(j - 1) == '/') {
+                    // empty element
+                    if (depth == 2) {
+                        ranges[count++] = j + 1;
+                    }
+                    depth--;
+                }
+                i = j + 1;
+            }
+        }
+        return Arrays.copyOf(ranges, count);
+    }
+
+    /**
+     * Indicates whether the bytes at an offset are a given ASCII string.
+     *
+     * @param bytes the bytes to look in
+     * @param offset the offset to look at
+     * @param s the string to look for
+     * @return <code>true</code> if the string is at the offset
+     */
+    private static boolean startsWith(@Nonnull final ByteBuffer bytes, final int offset, @Nonnull final String s) {
+        if (offset + s.length() > bytes.limit()) {
+            return false;
+        }
+        for (int k = 0; k < s.length(); k++) {
+            if (bytes.get(offset + k) != s.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the next occurrence of a given ASCII string.
+     *
+     * @param bytes the bytes to look in
+     * @param from the offset to start looking at
+     * @param s the string to look for
+     * @return the offset of the string
+     * @throws IllegalStateException if the string does not occur, as the document is not well-formed
+     */
+    private static int indexOf(@Nonnull final ByteBuffer bytes, final int from, @Nonnull final String s) {
+        for (int i = from; i + s.length() <= bytes.limit(); i++) {
+            if (startsWith(bytes, i, s)) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("members document is not well-formed: \"" + s + "\" not found");
+    }
+
+    /**
+     * Indexes a members document as it is read, without building any objects for its contents.
+     */
+    private static final class Indexer extends StreamReaderDelegate {
+
+        /** Encoding of the document. */
+        @Nonnull private final Charset charset;
+
+        /** Depth of the current element, the document element being at depth 1. */
+        private int depth;
+
+        /** Qualified name of the document element. */
+        @Nullable private String rootName;
+
+        /** Namespace declarations on the document element. */
+        @Nonnull private final StringBuilder namespaces = new StringBuilder();
+
+        /** Participant names, in document order. */
+        @Nonnull private final List<String> names = new ArrayList<>();
+
+        /** Participant IDs, in document order. */
+        @Nonnull private final List<String> ids = new ArrayList<>();
+
+        /** Whether each participant is a member, in document order. */
+        @Nonnull private final List<Boolean> members = new ArrayList<>();
+
+        /** Registered domains, in document order. */
+        @Nonnull private final List<String> domains = new ArrayList<>();
+
+        /** Index of the participant registering each domain. */
+        @Nonnull private final List<Integer> domainParticipants = new ArrayList<>();
+
+        /** The <code>to</code> attribute of each grant, in document order. */
+        @Nonnull private final List<String> grantTo = new ArrayList<>();
+
+        /** The <code>orgID</code> attribute of each grant, in document order. */
+        @Nonnull private final List<String> grantOrgIDs = new ArrayList<>();
+
+        /** Index of the participant making each grant. */
+        @Nonnull private final List<Integer> grantors = new ArrayList<>();
+
+        /** Text of the element being captured, or <code>null</code> if none is. */
+        @Nullable private StringBuilder text;
+
+        /**
+         * Constructor.
+         *
+         * @param reader reader positioned at the start of the document
+         * @throws IOException if the document is not in an encoding this class supports
+         */
+        Indexer(@Nonnull final XMLStreamReader reader) throws IOException {
+            super(reader);
+            final String encoding = reader.getEncoding() != null ? reader.getEncoding()
+                    : reader.getCharacterEncodingScheme();
+            charset = encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+            final String markup = "<>/!?[]-\"'=: ";
+            if (!Arrays.equals(markup.getBytes(charset), markup.getBytes(StandardCharsets.US_ASCII))) {
+                throw new IOException("members document encoding not supported for lazy loading: " + encoding);
+            }
+        }
+
+        @Override
+        public int next() throws XMLStreamException {
+            return record(super.next());
+        }
+
+        @Override
+        public int nextTag() throws XMLStreamException {
+            return record(super.nextTag());
+        }
+
+        /**
+         * Records what is needed from an event.
+         *
+         * @param event the event the reader is positioned on
+         * @return the event
+         */
+        private int record(final int event) {
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+                startElement();
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+                if (text != null) {
+                    endText();
+                }
+            } else if (text != null && (event == XMLStreamConstants.CHARACTERS
+                    || event == XMLStreamConstants.CDATA || event == XMLStreamConstants.SPACE)) {
+                text.append(getText());
+            }
+            return event;
+        }
+
+        /** Records what is needed from a start tag. */
+        private void startElement() {
+            if (depth == 1) {
+                rootName = getPrefix() == null || getPrefix().isEmpty() ?
+                        getLocalName() : getPrefix() + ":" + getLocalName();
+                for (int i = 0; i < getNamespaceCount(); i++) {
+                    final String ns = getNamespacePrefix(i);
+                    namespaces.append(ns == null || ns.isEmpty() ? " xmlns" : " xmlns:" + ns)
+                        .append("=\"").append(escape(getNamespaceURI(i))).append('"');
+                }
+                return;
+            }
+            if (!MembersWriter.MEMBERS_NS.equals(getNamespaceURI())) {
+                return;
+            }
+            final String name = getLocalName();
+            if (depth == 2) {
+                members.add("Member".equals(name));
+                ids.add(getAttributeValue(null, "ID"));
+                names.add(null);
+            } else if (depth == 3 && "Name".equals(name)) {
+                text = new StringBuilder();
+            } else if ("Domain".equals(name) && depth == 4) {
+                text = new StringBuilder();
+            } else if (("Grant".equals(name) || "GrantAll".equals(name)) && depth == 4) {
+                grantTo.add(getAttributeValue(null, "to"));
+                grantOrgIDs.add(getAttributeValue(null, "orgID"));
+                grantors.add(names.size() - 1);
+            }
+        }
+
+        /** Records the text of a captured element, which has just ended. */
+        private void endText() {
+            final String value = text.toString();
+            text = null;
+            if (depth == 2) {
+                names.set(names.size() - 1, value);
+            } else {
+                domains.add(value);
+                domainParticipants.add(names.size() - 1);
+            }
+        }
+
+        /**
+         * Returns the number of members.
+         *
+         * @return the number of members
+         */
+        int memberCount() {
+            int count = 0;
+            for (final boolean member : members) {
+                if (member) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Checks participant names, domain registrations and grants, as {@link Members} does.
+         *
+         * @throws ComponentInitializationException if there is a problem in the members document
+         */
+        void check() throws ComponentInitializationException {
+            final Map<String, Integer> byName = new HashMap<>();
+            for (int i = 0; i < names.size(); i++) {
+                if (byName.putIfAbsent(names.get(i), i) != null) {
+                    throw error(Members.duplicateNameMessage(names.get(i)));
+                }
+            }
+
+            final Map<String, Integer> byDomain = new HashMap<>();
+            for (int i = 0; i < domains.size(); i++) {
+                final Integer previous = byDomain.putIfAbsent(domains.get(i), domainParticipants.get(i));
+                if (previous != null) {
+                    throw error(Members.duplicateDomainMessage(domains.get(i), names.get(previous),
+                            names.get(domainParticipants.get(i)), previous.equals(domainParticipants.get(i))));
+                }
+            }
+
+            final Map<String, Integer> byId = new HashMap<>();
+            for (int i = 0; i < ids.size(); i++) {
+                byId.put(ids.get(i), i);
+            }
+            for (int i = 0; i < grantTo.size(); i++) {
+                final String to = grantTo.get(i);
+                final String grantor = names.get(grantors.get(i));
+                final Integer target = to == null ? null : byName.get(to);
+                if (target == null) {
+                    throw error(Members.unknownGrantMessage(to, grantor));
+                } else if (!members.get(target)) {
+                    throw error(Members.grantNotToMemberMessage(to, grantor));
+                }
+                // the schema has already checked that the orgID refers to some participant
+                final Integer referent = byId.get(grantOrgIDs.get(i));
+                if (!target.equals(referent)) {
+                    throw error(Members.badOrgIDMessage(to, grantor, referent == null ? "null"
+                            : "wrong participant \"" + names.get(referent) + "\""));
+                }
+            }
+        }
+
+        /**
+         * Logs and makes the exception for a problem in the document.
+         *
+         * @param message description of the problem
+         * @return the exception to throw
+         */
+        @Nonnull private static ComponentInitializationException error(@Nonnull final String message) {
+            LOG.error(message);
+            return new ComponentInitializationException(message);
+        }
+
+        /**
+         * Returns the bytes to place before a participant's element to make it a document.
+         *
+         * @return the bytes
+         */
+        @Nonnull byte[] prefix() {
+            return ("<?xml version=\"1.0\" encoding=\"" + charset.name() + "\"?><" + rootName + namespaces + ">")
+                    .getBytes(charset);
+        }
+
+        /**
+         * Returns the bytes to place after a participant's element to make it a document.
+         *
+         * @return the bytes
+         */
+        @Nonnull byte[] suffix() {
+            return ("</" + rootName + ">").getBytes(charset);
+        }
+
+        /**
+         * Escapes a string for use in a double-quoted attribute value.
+         *
+         * @param value the string to escape
+         * @return the escaped string
+         */
+        @Nonnull private static String escape(@Nonnull final String value) {
+            return value.replace("&", "&amp;").replace("<", "&lt;").replace("\"", "&quot;");
+        }
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Records where the time went while loading a single {@link Members} object.
+ *
+ * The schema phase covers acquiring the compiled schema; it will be close to zero
+ * whenever the schema was already held by the {@link MembersLoader}.
+ */
+@Immutable
+public final class LoadTimings {
+
+    /** Time spent acquiring (and, if necessary, compiling) the schema, in nanoseconds. */
+    private final long schemaNanos;
+
+    /** Time spent parsing, validating and unmarshalling the document, in nanoseconds. */
+    private final long unmarshalNanos;
+
+    /** Time spent building and checking the indexes, in nanoseconds. */
+    private final long indexNanos;
+
+    /**
+     * Constructor.
+     *
+     * @param schema time spent acquiring the schema, in nanoseconds
+     * @param unmarshal time spent unmarshalling the document, in nanoseconds
+     * @param index time spent building the indexes, in nanoseconds
+     */
+    LoadTimings(final long schema, final long unmarshal, final long index) {
+        schemaNanos = schema;
+        unmarshalNanos = unmarshal;
+        indexNanos = index;
+    }
+
+    /**
+     * Returns the time spent acquiring the schema.
+     *
+     * @return time in nanoseconds
+     */
+    public long getSchemaNanos() {
+        return schemaNanos;
+    }
+
+    /**
+     * Returns the time spent parsing, validating and unmarshalling the document.
+     *
+     * @return time in nanoseconds
+     */
+    public long getUnmarshalNanos() {
+        return unmarshalNanos;
+    }
+
+    /**
+     * Returns the time spent building and checking the indexes.
+     *
+     * @return time in nanoseconds
+     */
+    public long getIndexNanos() {
+        return indexNanos;
+    }
+
+    /**
+     * Returns the total time spent loading.
+     *
+     * @return time in nanoseconds
+     */
+    public long getTotalNanos() {
+        return schemaNanos + unmarshalNanos + indexNanos;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Nonnull public String toString() {
+        return String.format("schema %.1fms, unmarshal %.1fms, index %.1fms",
+                schemaNanos / 1e6, unmarshalNanos / 1e6, indexNanos / 1e6);
+    }
+
+}
@@ -16,29 +16,42 @@
 
 package uk.org.ukfederation.members;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import javax.xml.XMLConstants;
-import javax.xml.transform.Source;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamSource;
-import javax.xml.validation.Schema;
-import javax.xml.validation.SchemaFactory;
+import javax.xml.stream.XMLStreamReader;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 
-import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBElement;
 import jakarta.xml.bind.JAXBException;
 import jakarta.xml.bind.Unmarshaller;
 import net.shibboleth.shared.component.ComponentInitializationException;
+import uk.org.ukfederation.members.IncomingGrants.IncomingGrant;
+import uk.org.ukfederation.members.MembersMetrics.LazyIndex;
+import uk.org.ukfederation.members.MembersMetrics.Lookup;
 import uk.org.ukfederation.members.jaxb.BaseGrantType;
 import uk.org.ukfederation.members.jaxb.DomainElement;
 import uk.org.ukfederation.members.jaxb.DomainOwnerElement;
@@ -47,7 +60,6 @@ import uk.org.ukfederation.members.jaxb.GrantsElement;
 import uk.org.ukfederation.members.jaxb.MemberElement;
 import uk.org.ukfederation.members.jaxb.MembersElement;
 import uk.org.ukfederation.members.jaxb.ParticipantType;
-import uk.org.ukfederation.members.jaxb.ScopesElement;
 
 /**
  * Java bean representing the whole of the members.xml file.
@@ -59,13 +71,41 @@ import uk.org.ukfederation.members.jaxb.ScopesElement;
  */
 public class Members {
 
+    /** Problem handler for strict loading, which fails on the first error. */
+    private static final Problems STRICT = new Problems() {
+
+        @Override
+        public void error(@Nonnull final Object element, @Nonnull final String message)
+                throws ComponentInitializationException {
+            throw new ComponentInitializationException(message);
+        }
+
+        @Override
+        public void warning(@Nonnull final Object element, @Nonnull final String message) {
+            // already logged
+        }
+    };
+
     /** Class logger. */
     private final Logger log = LoggerFactory.getLogger(Members.class);
 
     /**
      * The root of the underlying JAXB object graph.
+     * 
+     * For an object read from a {@link MembersSnapshot}, this is <code>null</code> until the graph
+     * is first needed. It is published only after the indexes built from it.
+     */
+    private volatile MembersElement membersElement;
+
+    /**
+     * Snapshot to rebuild the JAXB object graph from, or <code>null</code> once it has been built.
+     */
+    @Nullable private SnapshotReader pendingTree;
+
+    /**
+     * Names of the members, for an object read from a {@link MembersSnapshot}; otherwise <code>null</code>.
      */
-    private final MembersElement membersElement;
+    @Nullable private final Set<String> snapshotMemberNames;
 
     /**
      * Map of participants indexed by name.
@@ -73,11 +113,12 @@ public class Members {
     private final Map<String, ParticipantType> participantByName = new HashMap<>();
     
     /**
-     * Collections of (non-regex) scopes pushed to each entity.
+     * Index of the (non-regex) scopes pushed to each entity.
      * 
-     * This is initialised the first time it is needed.
+     * This is initialised at construction if the {@link MembersLoader} asks for it, and
+     * otherwise the first time it is needed. It is immutable.
      */
-    private Map<String, List<String>> pushedScopes;
+    private volatile PushedScopeIndex pushedScopes;
     
     /**
      * A {@link Map} recording the (single) participant registered as owning a
@@ -85,50 +126,157 @@ public class Members {
      */
     private Map<String, ParticipantType> domainOwners = new HashMap<>();
 
+    /**
+     * Trie of registered domains and grants, for lookups covering subdomains.
+     */
+    private DomainTrie domainTrie;
+
+    /**
+     * Index of participants by organisation ID.
+     */
+    private OrgIDIndex orgIDIndex;
+
+    /**
+     * The grants made to each member, indexed by member.
+     */
+    private Map<MemberElement, IncomingGrants> incomingGrants;
+
+    /**
+     * Index of audit attributes, built the first time it is needed. It is immutable.
+     */
+    private volatile AuditIndex auditIndex;
+
+    /**
+     * Search index over participant names, built the first time it is needed. It is immutable.
+     */
+    private volatile ParticipantSearch participantSearch;
+
+    /**
+     * Time spent in each phase of loading this object.
+     */
+    private final LoadTimings loadTimings;
+
+    /**
+     * Sizes of the indexes built while loading this object, or <code>null</code> until the JAXB
+     * object graph has been built.
+     */
+    private volatile IndexSizes indexSizes;
+
+    /**
+     * Receiver for measurements of loading and lookups.
+     */
+    @Nonnull private final MembersMetrics metrics;
+
     /**
      * Constructs a {@link Members} object from an XML document.
      * 
-     * This constructor validates against the schema document passed as parameter.
+     * This constructor validates against the schema document passed as parameter, or against
+     * the schema defined in this project if that is <code>null</code>. The compiled schema is
+     * obtained from the {@link MembersLoader} passed as parameter.
      * 
-     * @param document {@link Document} node to base the {@link Members} object on
-     * @param schema schema to validate against
+     * @param document the members document
+     * @param schema schema document to validate against, or <code>null</code>
+     * @param loader {@link MembersLoader} to obtain the compiled schema from
      * @throws ComponentInitializationException if there is a problem in the members document
      * @throws JAXBException if there is a problem unmarshalling the members document
      * @throws SAXException if there is a problem parsing the schema document
      */
-    private Members(@Nonnull final Source document, @Nonnull final Source schema)
+    Members(@Nonnull final Input document, @Nullable final Document schema, @Nonnull final MembersLoader loader)
             throws JAXBException, SAXException, ComponentInitializationException {
-        membersElement = makeUnmarshaller(schema).unmarshal(document, MembersElement.class).getValue();
+        this(document, schema, loader, null);
+    }
 
-        // Index members.
-        for (final MemberElement member : membersElement.getMember()) {
-            addParticipant(member);
-            if (member.getDomains() != null) {
-                addParticipantDomains(member, member.getDomains());
+    /**
+     * Constructs a {@link Members} object from an XML document, optionally in collecting mode.
+     * 
+     * In collecting mode, schema validation continues past each error and every semantic check
+     * is applied, with all of the problems found being passed to the collector rather than the
+     * first one causing an exception to be thrown. The resulting object should only be used if
+     * the collector has not recorded any errors.
+     * 
+     * @param document the members document
+     * @param schema schema document to validate against, or <code>null</code>
+     * @param loader {@link MembersLoader} to obtain the compiled schema from
+     * @param collector collector for problems in collecting mode, or <code>null</code> to load strictly
+     * @throws ComponentInitializationException if there is a problem in the members document when loading strictly
+     * @throws JAXBException if there is a problem unmarshalling the members document
+     * @throws SAXException if there is a problem parsing the schema document
+     */
+    Members(@Nonnull final Input document, @Nullable final Document schema, @Nonnull final MembersLoader loader,
+            @Nullable final ValidationCollector collector)
+            throws JAXBException, SAXException, ComponentInitializationException {
+        metrics = loader.getMetrics();
+        final long start = System.nanoTime();
+        final CompiledSchema compiledSchema = schema == null ? loader.getDefaultSchema() : loader.getSchema(schema);
+        final long compiled = System.nanoTime();
+        final MembersElement element;
+        try (UnmarshallerPool.Lease lease = compiledSchema.getUnmarshallerPool().borrow()) {
+            final Unmarshaller unmarshaller = lease.get();
+            if (collector != null) {
+                unmarshaller.setEventHandler(collector);
+                unmarshaller.setListener(collector);
             }
+            element = document.unmarshal(unmarshaller).getValue();
         }
-        
-        // Index domain owners.
-        for (final DomainOwnerElement domainOwner : membersElement.getDomainOwner()) {
-            addParticipant(domainOwner);
-            if (domainOwner.getDomains() != null) {
-                addParticipantDomains(domainOwner, domainOwner.getDomains());
-            }
+        final long unmarshalled = System.nanoTime();
+        buildIndexes(element, collector == null ? STRICT : collector, loader.getCheckExecutor());
+        membersElement = element;
+        snapshotMemberNames = null;
+        if (loader.isEagerScopeIndex() && (collector == null || !collector.hasErrors())) {
+            getPushedScopeIndex();
         }
-        
-        /*
-         * Cross-check Grants elements.
-         * 
-         * This needs to be done after all participants have been registered so that we can
-         * see which participant each Grant is made to. However, each grant must by definition
-         * be made to an entity owner, and those must all be members.
-         */
-        for (final MemberElement member : membersElement.getMember()) {
-            checkGrants(member.getGrants(), member.getName());
+        loadTimings = new LoadTimings(compiled - start, unmarshalled - compiled, System.nanoTime() - unmarshalled);
+        log.debug("loaded members document: {}", loadTimings);
+        if (collector == null || !collector.hasErrors()) {
+            metrics.loaded(loadTimings, indexSizes);
         }
-        for (final DomainOwnerElement domainOwner : membersElement.getDomainOwner()) {
-            checkGrants(domainOwner.getGrants(), domainOwner.getName());
+    }
+
+    /**
+     * Constructs a {@link Members} object from a JAXB object graph which has already been
+     * unmarshalled and validated, such as one merged from several fragments.
+     *
+     * @param element the root of the JAXB object graph
+     * @param compileNanos time spent compiling the schema
+     * @param unmarshalNanos time spent unmarshalling the object graph
+     * @param loader {@link MembersLoader} providing the loading options
+     * @throws ComponentInitializationException if there is a problem in the members document
+     */
+    Members(@Nonnull final MembersElement element, final long compileNanos, final long unmarshalNanos,
+            @Nonnull final MembersLoader loader) throws ComponentInitializationException {
+        metrics = loader.getMetrics();
+        final long start = System.nanoTime();
+        buildIndexes(element, STRICT, loader.getCheckExecutor());
+        membersElement = element;
+        snapshotMemberNames = null;
+        if (loader.isEagerScopeIndex()) {
+            getPushedScopeIndex();
         }
+        loadTimings = new LoadTimings(compileNanos, unmarshalNanos, System.nanoTime() - start);
+        log.debug("merged members document: {}", loadTimings);
+        metrics.loaded(loadTimings, indexSizes);
+    }
+
+    /**
+     * Constructs a {@link Members} object from a {@link MembersSnapshot}.
+     * 
+     * Only the member names and the pushed scope index are read at construction. The JAXB object
+     * graph and the remaining indexes are rebuilt from the snapshot when first needed.
+     * 
+     * @param snapshot the snapshot to read
+     * @param readNanos time spent mapping and verifying the snapshot
+     * @param membersMetrics receiver for measurements of loading and lookups
+     */
+    Members(@Nonnull final SnapshotReader snapshot, final long readNanos,
+            @Nonnull final MembersMetrics membersMetrics) {
+        metrics = membersMetrics;
+        final long start = System.nanoTime();
+        snapshotMemberNames = snapshot.readMemberNames();
+        pushedScopes = snapshot.readPushedScopes();
+        pendingTree = snapshot;
+        loadTimings = new LoadTimings(0, readNanos, System.nanoTime() - start);
+        log.debug("loaded members snapshot: {}", loadTimings);
+        metrics.loaded(loadTimings, snapshot.readIndexSizes());
     }
 
     /**
@@ -146,8 +294,7 @@ public class Members {
      */
     public Members(@Nonnull final Document document, @Nonnull final Document schema)
             throws JAXBException, SAXException, ComponentInitializationException {
-        this(new DOMSource(document.getDocumentElement(), "members.xml"),
-                new DOMSource(schema.getDocumentElement(), "ukfederation-members.xsd"));
+        this(MembersLoader.input(document), schema, MembersLoader.getDefault());
     }
 
     /**
@@ -161,39 +308,227 @@ public class Members {
      * @throws SAXException if there is a problem parsing the schema document
      */
     public Members(@Nonnull final Document doc) throws ComponentInitializationException, JAXBException, SAXException {
-        this(new DOMSource(doc.getDocumentElement(), "members.xml"),
-                new StreamSource(Members.class.getClassLoader().getResourceAsStream("ukfederation-members.xsd")));
+        this(MembersLoader.input(doc), null, MembersLoader.getDefault());
     }
 
     /**
-     * Make a schema-validating unmarshaller for MembersElement documents.
+     * Loads a {@link Members} object from a stream containing an XML document.
+     * 
+     * The document is unmarshalled directly from a schema-validating StAX parser,
+     * without first building a DOM. The schema defined in this project is used.
      * 
-     * @param schemaSource schema to validate against
-     * @return the constructed {@link Unmarshaller}
+     * @param in {@link InputStream} to read the members document from
+     * @return the new {@link Members} object
+     * @throws ComponentInitializationException if there is a problem in the members document
+     * @throws JAXBException if there is a problem parsing or unmarshalling the members document
      * @throws SAXException if there is a problem parsing the schema document
-     * @throws JAXBException if there is a problem constructing the unmarshaller
      */
-    private static Unmarshaller makeUnmarshaller(@Nonnull final Source schemaSource)
-            throws SAXException, JAXBException {
-        final SchemaFactory sf = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-        final Schema schema = sf.newSchema(schemaSource);
+    @Nonnull public static Members fromStream(@Nonnull final InputStream in)
+            throws ComponentInitializationException, JAXBException, SAXException {
+        return MembersLoader.getDefault().load(in);
+    }
+
+    /**
+     * Loads a {@link Members} object from a file containing an XML document.
+     * 
+     * The document is unmarshalled directly from a schema-validating StAX parser,
+     * without first building a DOM. The schema defined in this project is used.
+     * 
+     * @param path {@link Path} of the members document
+     * @return the new {@link Members} object
+     * @throws ComponentInitializationException if there is a problem in the members document
+     * @throws JAXBException if there is a problem parsing or unmarshalling the members document
+     * @throws SAXException if there is a problem parsing the schema document
+     * @throws IOException if the file can not be read
+     */
+    @Nonnull public static Members fromPath(@Nonnull final Path path)
+            throws ComponentInitializationException, JAXBException, SAXException, IOException {
+        return MembersLoader.getDefault().load(path);
+    }
+
+    /**
+     * Loads a {@link Members} object from a StAX stream reader.
+     * 
+     * The reader must be positioned at the start of the document, or on the
+     * <code>Members</code> start tag. The schema defined in this project is used.
+     * 
+     * @param reader {@link XMLStreamReader} to read the members document from
+     * @return the new {@link Members} object
+     * @throws ComponentInitializationException if there is a problem in the members document
+     * @throws JAXBException if there is a problem parsing or unmarshalling the members document
+     * @throws SAXException if there is a problem parsing the schema document
+     */
+    @Nonnull public static Members fromStreamReader(@Nonnull final XMLStreamReader reader)
+            throws ComponentInitializationException, JAXBException, SAXException {
+        return MembersLoader.getDefault().load(reader);
+    }
+
+    /**
+     * Returns the JAXB object graph, rebuilding it from the snapshot this object was read from if necessary.
+     * 
+     * @return the root of the JAXB object graph
+     */
+    @Nonnull private MembersElement tree() {
+        final MembersElement element = membersElement;
+        return element != null ? element : materialize();
+    }
+
+    /**
+     * Rebuilds the JAXB object graph, and the indexes built from it, from the snapshot this object
+     * was read from.
+     * 
+     * @return the root of the JAXB object graph
+     */
+    @Nonnull private synchronized MembersElement materialize() {
+        if (membersElement != null) {
+            // another thread got here first
+            return membersElement;
+        }
+        final long start = System.nanoTime();
+        final MembersElement element = pendingTree.readTree();
+        try {
+            buildIndexes(element, STRICT, null);
+        } catch (final ComponentInitializationException e) {
+            // the snapshot was written from a document which passed these checks
+            throw new IllegalStateException("members snapshot is inconsistent", e);
+        }
+        pendingTree = null;
+        membersElement = element;
+        final long nanos = System.nanoTime() - start;
+        log.debug("rebuilt members object graph from snapshot in {}ms", nanos / 1_000_000);
+        metrics.lazyIndexBuilt(LazyIndex.SNAPSHOT_TREE, nanos);
+        return element;
+    }
+
+    /**
+     * Indexes the participants in the members document, and cross-checks their grants.
+     * 
+     * @param element the root of the JAXB object graph
+     * @param problems handler for any problems found
+     * @param executor executor to spread the checks across, or <code>null</code> to make them sequentially
+     * @throws ComponentInitializationException if there is a problem in the members document
+     */
+    private void buildIndexes(@Nonnull final MembersElement element, @Nonnull final Problems problems,
+            @Nullable final Executor executor) throws ComponentInitializationException {
+        final List<ParticipantType> participants = new ArrayList<>(
+                element.getMember().size() + element.getDomainOwner().size());
+        participants.addAll(element.getMember());
+        participants.addAll(element.getDomainOwner());
+
+        if (executor == null) {
+            checkParticipants(element, problems);
+        } else {
+            new ParallelChecks(participants, participantByName, domainOwners, log).run(problems, executor);
+        }
+
+        orgIDIndex = new OrgIDIndex(participants);
+        incomingGrants = indexIncomingGrants(participants);
+        int grants = 0;
+        for (final ParticipantType participant : participants) {
+            grants += Participants.grantListOf(participant).size();
+        }
+        indexSizes = new IndexSizes(element.getMember().size(), element.getDomainOwner().size(),
+                domainOwners.size(), grants);
+
+        // Index domains and grants by reversed label.
+        domainTrie = new DomainTrie(participants);
+        for (final Map.Entry<String, String> overlap : domainTrie.getOverlaps().entrySet()) {
+            final ParticipantType nested = domainOwners.get(overlap.getKey());
+            final String message = "domain \"" + overlap.getKey() + "\" of participant \"" + nested.getName()
+                    + "\" lies within domain \"" + overlap.getValue() + "\" of participant \""
+                    + domainOwners.get(overlap.getValue()).getName() + "\"";
+            log.warn(message);
+            problems.warning(nested, message);
+        }
+        for (final Map.Entry<String, DomainTrie.Clash> entry : domainTrie.getClashes().entrySet()) {
+            final DomainTrie.Clash clash = entry.getValue();
+            final String message = "domain \"" + entry.getKey() + "\" of participant \""
+                    + clash.participant().getName() + "\" differs only in case from domain \""
+                    + clash.earlierDomain() + "\" of participant \"" + clash.earlierParticipant().getName() + "\"";
+            log.warn(message);
+            problems.warning(clash.participant(), message);
+        }
+    }
+
+    /**
+     * Indexes the grants made to each member, once the grants have been checked.
+     * 
+     * @param participants all participants, members first, in document order
+     * @return the grants made to each member
+     */
+    @Nonnull private Map<MemberElement, IncomingGrants> indexIncomingGrants(
+            @Nonnull final List<ParticipantType> participants) {
+        final Map<MemberElement, List<IncomingGrant>> byGrantee = new HashMap<>();
+        for (final ParticipantType participant : participants) {
+            for (final BaseGrantType grant : Participants.grantListOf(participant)) {
+                // grants which failed the checks are only seen when collecting validation errors
+                final ParticipantType to = grant.getTo() == null ? null : participantByName.get(grant.getTo());
+                if (to instanceof MemberElement) {
+                    byGrantee.computeIfAbsent((MemberElement) to, k -> new ArrayList<>())
+                        .add(new IncomingGrant(participant, grant));
+                }
+            }
+        }
+        final Map<MemberElement, IncomingGrants> index = new HashMap<>();
+        for (final Map.Entry<MemberElement, List<IncomingGrant>> entry : byGrantee.entrySet()) {
+            index.put(entry.getKey(), new IncomingGrants(entry.getKey(), entry.getValue()));
+        }
+        return index;
+    }
+
+    /**
+     * Registers each participant and its domains, and cross-checks their grants, one at a time
+     * in document order.
+     * 
+     * @param element the root of the JAXB object graph
+     * @param problems handler for any problems found
+     * @throws ComponentInitializationException if there is a problem in the members document
+     */
+    private void checkParticipants(@Nonnull final MembersElement element, @Nonnull final Problems problems)
+            throws ComponentInitializationException {
+        // Index members.
+        for (final MemberElement member : element.getMember()) {
+            addParticipant(member, problems);
+            if (member.getDomains() != null) {
+                addParticipantDomains(member, member.getDomains(), problems);
+            }
+        }
         
-        final JAXBContext jc = JAXBContext.newInstance(MembersElement.class);
-        Unmarshaller unmarshaller = jc.createUnmarshaller();
-        unmarshaller.setSchema(schema);
-        return unmarshaller;
+        // Index domain owners.
+        for (final DomainOwnerElement domainOwner : element.getDomainOwner()) {
+            addParticipant(domainOwner, problems);
+            if (domainOwner.getDomains() != null) {
+                addParticipantDomains(domainOwner, domainOwner.getDomains(), problems);
+            }
+        }
+        
+        /*
+         * Cross-check Grants elements.
+         * 
+         * This needs to be done after all participants have been registered so that we can
+         * see which participant each Grant is made to. However, each grant must by definition
+         * be made to an entity owner, and those must all be members.
+         */
+        for (final MemberElement member : element.getMember()) {
+            checkGrants(member.getGrants(), member.getName(), problems);
+        }
+        for (final DomainOwnerElement domainOwner : element.getDomainOwner()) {
+            checkGrants(domainOwner.getGrants(), domainOwner.getName(), problems);
+        }
     }
 
     /**
      * Registers a participant (a member or domain owner) from the members document.
      * 
      * @param participant the participant to register
+     * @param problems handler for any problems found
      * @throws ComponentInitializationException if the participant is malformed
      */
-    private void addParticipant(@Nonnull final ParticipantType participant) throws ComponentInitializationException {
+    private void addParticipant(@Nonnull final ParticipantType participant, @Nonnull final Problems problems)
+            throws ComponentInitializationException {
         final String name = participant.getName();
         if (participantByName.containsKey(name)) {
-            throw new ComponentInitializationException("duplicate participant name in members document: " + name);
+            problems.error(participant, duplicateNameMessage(name));
         } else {
             participantByName.put(name, participant);
         }
@@ -204,10 +539,11 @@ public class Members {
      *
      * @param participant participant owning at least one domain
      * @param domainsElement the {@link DomainsElement} for the participant
+     * @param problems handler for any problems found
      * @throws ComponentInitializationException if a domain is registered to more than one participant
      */
     private void addParticipantDomains(@Nonnull final ParticipantType participant,
-            @Nonnull final DomainsElement domainsElement)
+            @Nonnull final DomainsElement domainsElement, @Nonnull final Problems problems)
         throws ComponentInitializationException {
         for (final DomainElement domainElement : domainsElement.getDomain()) {
             final String domain = domainElement.getValue();
@@ -215,68 +551,155 @@ public class Members {
             if (previousParticipant == null) {
                 // not previously registered, OK
                 domainOwners.put(domain, participant);
-            } else if (previousParticipant == participant) {
-                // two registrations in a single participant
-                throw new ComponentInitializationException("participant \"" + participant.getName() +
-                        "\" registers domain \"" + domain + "\" more than once");
             } else {
-                // two different participants
-                throw new ComponentInitializationException("domain \"" + domain +
-                        "\" appears in multiple participants: " +
-                        "\"" + previousParticipant.getName() + "\", " + 
-                        "\"" + participant.getName() + "\"");
+                problems.error(domainElement, duplicateDomainMessage(domain, previousParticipant, participant));
             }
         }
     }
 
+    /**
+     * Describes a participant name appearing more than once.
+     * 
+     * @param name the participant name
+     * @return the error message
+     */
+    @Nonnull static String duplicateNameMessage(@Nullable final String name) {
+        return "duplicate participant name in members document: " + name;
+    }
+
+    /**
+     * Describes a domain registered more than once.
+     * 
+     * @param domain the domain
+     * @param previousParticipant the participant the domain was first registered to
+     * @param participant the participant registering it again
+     * @return the error message
+     */
+    @Nonnull static String duplicateDomainMessage(@Nonnull final String domain,
+            @Nonnull final ParticipantType previousParticipant, @Nonnull final ParticipantType participant) {
+        return duplicateDomainMessage(domain, previousParticipant.getName(), participant.getName(),
+                previousParticipant == participant);
+    }
+
+    /**
+     * Describes a domain registered more than once, given the names of the participants involved.
+     * 
+     * @param domain the domain
+     * @param previousName name of the participant the domain was first registered to
+     * @param name name of the participant registering it again
+     * @param sameParticipant whether both registrations are in a single participant
+     * @return the error message
+     */
+    @Nonnull static String duplicateDomainMessage(@Nonnull final String domain, @Nullable final String previousName,
+            @Nullable final String name, final boolean sameParticipant) {
+        if (sameParticipant) {
+            // two registrations in a single participant
+            return "participant \"" + name +
+                    "\" registers domain \"" + domain + "\" more than once";
+        } else {
+            // two different participants
+            return "domain \"" + domain +
+                    "\" appears in multiple participants: " +
+                    "\"" + previousName + "\", " + 
+                    "\"" + name + "\"";
+        }
+    }
+
     /**
      * Check that a series of grants are valid.
      * 
      * @param grants the {@link GrantsElement} to check
      * @param name name of the granting participant
+     * @param problems handler for any problems found
      * @throws ComponentInitializationException if a grant is not valid
      */
-    private void checkGrants(@Nullable final GrantsElement grants, @Nonnull final String name)
-            throws ComponentInitializationException {
+    private void checkGrants(@Nullable final GrantsElement grants, @Nonnull final String name,
+            @Nonnull final Problems problems) throws ComponentInitializationException {
         if (grants == null) {
             return;
         }
         
         for (final BaseGrantType grant : grants.getGrantOrGrantAll()) {
-            // Grant must be to a participant we can look up by name
-            final ParticipantType to = participantByName.get(grant.getTo());
-            if (to == null) {
-                final String message = "unknown grant to=\"" + grant.getTo()
-                        + "\" in participant \"" + name + "\"";
-                log.error(message);
-                throw new ComponentInitializationException(message);
-            }
-            
-            // That participant must be a member
-            if (!(to instanceof MemberElement)) {
-                final String message = "grant to=\"" + grant.getTo()
-                        + "\" in participant \"" + name + "\" is not to a member";
+            final String message = checkGrant(grant, name, participantByName);
+            if (message != null) {
                 log.error(message);
-                throw new ComponentInitializationException(message);
+                problems.error(grant, message);
             }
-            
-            // Make sure that "orgID" and "to" attributes are consistent.
-            final Object orgIDObject = grant.getOrgID();
-            if (orgIDObject != to) {
-                final String target;
-                if (orgIDObject instanceof ParticipantType) {
-                    target = "wrong participant \"" + ((ParticipantType)orgIDObject).getName() + "\"";
-                } else if (orgIDObject == null) {
-                    target = "null";
-                } else {
-                    target = "unknown " + orgIDObject.getClass().getName() + " object";
-                }
-                final String message = "grant to=\"" + grant.getTo()
-                    + "\" in participant \"" + name + " has bad orgID: " + target;
-                log.error(message);
-                throw new ComponentInitializationException(message);
+        }
+    }
+
+    /**
+     * Check that a single grant is valid.
+     * 
+     * This only reads the participant index, so may be called from several threads at once.
+     * 
+     * @param grant the grant to check
+     * @param name name of the granting participant
+     * @param participants index of participants by name
+     * @return a description of the problem with the grant, or <code>null</code> if it is valid
+     */
+    @Nullable static String checkGrant(@Nonnull final BaseGrantType grant, @Nullable final String name,
+            @Nonnull final Map<String, ParticipantType> participants) {
+        // Grant must be to a participant we can look up by name
+        final ParticipantType to = grant.getTo() == null ? null : participants.get(grant.getTo());
+        if (to == null) {
+            return unknownGrantMessage(grant.getTo(), name);
+        }
+        
+        // That participant must be a member
+        if (!(to instanceof MemberElement)) {
+            return grantNotToMemberMessage(grant.getTo(), name);
+        }
+        
+        // Make sure that "orgID" and "to" attributes are consistent.
+        final Object orgIDObject = grant.getOrgID();
+        if (orgIDObject != to) {
+            final String target;
+            if (orgIDObject instanceof ParticipantType) {
+                target = "wrong participant \"" + ((ParticipantType)orgIDObject).getName() + "\"";
+            } else if (orgIDObject == null) {
+                target = "null";
+            } else {
+                target = "unknown " + orgIDObject.getClass().getName() + " object";
             }
+            return badOrgIDMessage(grant.getTo(), name, target);
         }
+        return null;
+    }
+
+    /**
+     * Describes a grant to a participant which does not exist.
+     * 
+     * @param to the grant's <code>to</code> attribute
+     * @param name name of the granting participant
+     * @return the error message
+     */
+    @Nonnull static String unknownGrantMessage(@Nullable final String to, @Nullable final String name) {
+        return "unknown grant to=\"" + to + "\" in participant \"" + name + "\"";
+    }
+
+    /**
+     * Describes a grant to a participant which is not a member.
+     * 
+     * @param to the grant's <code>to</code> attribute
+     * @param name name of the granting participant
+     * @return the error message
+     */
+    @Nonnull static String grantNotToMemberMessage(@Nullable final String to, @Nullable final String name) {
+        return "grant to=\"" + to + "\" in participant \"" + name + "\" is not to a member";
+    }
+
+    /**
+     * Describes a grant whose <code>orgID</code> does not refer to the participant named by its <code>to</code>.
+     * 
+     * @param to the grant's <code>to</code> attribute
+     * @param name name of the granting participant
+     * @param target description of what the <code>orgID</code> does refer to
+     * @return the error message
+     */
+    @Nonnull static String badOrgIDMessage(@Nullable final String to, @Nullable final String name,
+            @Nonnull final String target) {
+        return "grant to=\"" + to + "\" in participant \"" + name + " has bad orgID: " + target;
     }
 
     /**
@@ -285,7 +708,26 @@ public class Members {
      * @return the {@link MembersElement} object
      */
     @Nonnull public MembersElement getMembersElement() {
-        return membersElement;
+        return tree();
+    }
+
+    /**
+     * Returns the time spent in each phase of loading this object.
+     * 
+     * @return the {@link LoadTimings} for this object
+     */
+    @Nonnull public LoadTimings getLoadTimings() {
+        return loadTimings;
+    }
+
+    /**
+     * Returns the sizes of this object's indexes.
+     * 
+     * @return the {@link IndexSizes} for this object
+     */
+    @Nonnull public IndexSizes getIndexSizes() {
+        tree();
+        return indexSizes;
     }
 
     /**
@@ -296,7 +738,10 @@ public class Members {
      */
     @Nullable
     public ParticipantType getParticipantByName(@Nonnull final String name) {
-        return participantByName.get(name);
+        tree();
+        final ParticipantType participant = participantByName.get(name);
+        metrics.lookup(Lookup.PARTICIPANT_BY_NAME, participant != null);
+        return participant;
     }
 
     /**
@@ -309,8 +754,94 @@ public class Members {
      */
     @Nullable
     public MemberElement getMemberByName(@Nonnull final String name) {
-        final ParticipantType participant = getParticipantByName(name);
-        return (participant instanceof MemberElement) ? (MemberElement)participant : null;
+        tree();
+        final ParticipantType participant = participantByName.get(name);
+        final boolean member = participant instanceof MemberElement;
+        metrics.lookup(Lookup.MEMBER_BY_NAME, member);
+        return member ? (MemberElement)participant : null;
+    }
+
+    /**
+     * Returns the grants made to a member, each with the participant making it.
+     * 
+     * @param member the member
+     * @return the grants made to the member, which may be empty
+     */
+    @Nonnull
+    public IncomingGrants getIncomingGrants(@Nonnull final MemberElement member) {
+        tree();
+        final IncomingGrants grants = incomingGrants.get(member);
+        metrics.lookup(Lookup.INCOMING_GRANTS, grants != null);
+        return grants != null ? grants : new IncomingGrants(member, List.of());
+    }
+
+    /**
+     * Returns the grants made to the named member, each with the participant making it.
+     * 
+     * @param name name of the member
+     * @return the grants made to the member, which may be empty, or <code>null</code> if there is no such member
+     */
+    @Nullable
+    public IncomingGrants getIncomingGrants(@Nonnull final String name) {
+        tree();
+        final ParticipantType participant = participantByName.get(name);
+        if (!(participant instanceof MemberElement)) {
+            metrics.lookup(Lookup.INCOMING_GRANTS, false);
+            return null;
+        }
+        return getIncomingGrants((MemberElement) participant);
+    }
+
+    /**
+     * Returns the JAXB object for the participant with an organisation ID.
+     * 
+     * A malformed ID is rejected without allocating any objects.
+     * 
+     * @param id organisation ID of the participant to look up, such as <code>ukforg1234</code>
+     * @return {@link ParticipantType} for the participant, or <code>null</code>
+     */
+    @Nullable
+    public ParticipantType getParticipantById(@Nonnull final String id) {
+        tree();
+        final ParticipantType participant = orgIDIndex.get(id);
+        metrics.lookup(Lookup.PARTICIPANT_BY_ID, participant != null);
+        return participant;
+    }
+
+    /**
+     * Returns the JAXB object for the member with an organisation ID.
+     * 
+     * Note: looking up a non-member participant will return <code>null</code>.
+     * 
+     * @param id organisation ID of the member to look up, such as <code>ukforg1234</code>
+     * @return {@link MemberElement} for the member, or <code>null</code>
+     */
+    @Nullable
+    public MemberElement getMemberById(@Nonnull final String id) {
+        tree();
+        final ParticipantType participant = orgIDIndex.get(id);
+        final boolean member = participant instanceof MemberElement;
+        metrics.lookup(Lookup.MEMBER_BY_ID, member);
+        return member ? (MemberElement)participant : null;
+    }
+
+    /**
+     * Returns the JAXB objects for the participants with each of a list of organisation IDs.
+     * 
+     * @param ids organisation IDs of the participants to look up
+     * @return list of the same length as <code>ids</code>, holding the participant with each ID,
+     *  or <code>null</code> where there is none
+     */
+    @Nonnull
+    public List<ParticipantType> getParticipantsById(@Nonnull final List<String> ids) {
+        tree();
+        final List<ParticipantType> participants = new ArrayList<>(ids.size());
+        for (final String id : ids) {
+            final ParticipantType participant = id == null ? null : orgIDIndex.get(id);
+            metrics.lookup(Lookup.PARTICIPANT_BY_ID, participant != null);
+            participants.add(participant);
+        }
+        return participants;
     }
 
     /**
@@ -320,59 +851,352 @@ public class Members {
      * @return {@code true} if and only if {@code name} contains a legitimate entity owner name.
      */
     public boolean isOwnerName(@Nonnull final String name) {
-        return getMemberByName(name) != null;
+        final boolean owner;
+        if (snapshotMemberNames != null) {
+            owner = snapshotMemberNames.contains(name);
+        } else {
+            owner = participantByName.get(name) instanceof MemberElement;
+        }
+        metrics.lookup(Lookup.IS_OWNER_NAME, owner);
+        return owner;
     }
     
     /**
-     * Collect all of the scopes mentioned in Scopes elements for different
-     * members.  Store these away in a map that allows us to retrieve them
-     * by reference to the entityID which they were pushed to.
+     * Finds the participant owning a host name, or one of its parent domains.
+     * 
+     * Where more than one enclosing domain is registered, the longest one wins.
+     * 
+     * @param fqdn host or domain name to look up
+     * @return the owning participant, or <code>null</code> if no enclosing domain is registered
      */
-    private void collectPushedScopes() {
-        // initialise the map we store everything in
-        pushedScopes = new HashMap<>();
-        
-        // loop through each Member element
-        for (final MemberElement member : membersElement.getMember()) {
-            
-            // each Member may have multiple Scopes elements
-            for (final ScopesElement scopesElement : member.getScopes()) {
-                
-                // each Scopes may have many Entity elements
-                final List<String> entities = scopesElement.getEntity();
-                
-                // each Scopes may have many Scope elements
-                final List<String> scopes = scopesElement.getScope();
-                
-                // Register each of those scopes for each of those entities
-                for (String entityID: entities) {
-                    final List<String> scopeList = pushedScopes.get(entityID);
-                    if (scopeList == null) {
-                        // first mention of this entity
-                        pushedScopes.put(entityID, new ArrayList<>(scopes));
-                    } else {
-                        // entity has a list already, add in the new ones
-                        scopeList.addAll(scopes);
-                    }
-                }
-            }
+    @Nullable
+    public ParticipantType findDomainOwner(@Nonnull final String fqdn) {
+        tree();
+        final ParticipantType owner = domainTrie.findOwner(fqdn);
+        metrics.lookup(Lookup.FIND_DOMAIN_OWNER, owner != null);
+        return owner;
+    }
+
+    /**
+     * Finds the registered domain equal to, or enclosing, a host name.
+     * 
+     * Where more than one enclosing domain is registered, the longest one wins.
+     * 
+     * @param fqdn host or domain name to look up
+     * @return the registered domain, or <code>null</code> if no enclosing domain is registered
+     */
+    @Nullable
+    public String findOwnedDomain(@Nonnull final String fqdn) {
+        tree();
+        final String domain = domainTrie.findOwnedDomain(fqdn);
+        metrics.lookup(Lookup.FIND_OWNED_DOMAIN, domain != null);
+        return domain;
+    }
+
+    /**
+     * Finds the grants which cover a host name for use in a given entity.
+     * 
+     * A <code>GrantAll</code> covers the domain it names and all of its subdomains, for any entity.
+     * A <code>Grant</code> covers only the exact name it names, and only for its own entity ID.
+     * 
+     * @param fqdn host or domain name to look up
+     * @param entityID the entity the name is used in, or <code>null</code> to match grants for any entity
+     * @return the covering grants, most specific first; possibly empty
+     */
+    @Nonnull
+    public List<BaseGrantType> findGrantsCovering(@Nonnull final String fqdn, @Nullable final String entityID) {
+        tree();
+        final List<BaseGrantType> grants = domainTrie.findGrantsCovering(fqdn, entityID);
+        metrics.lookup(Lookup.FIND_GRANTS_COVERING, !grants.isEmpty());
+        return grants;
+    }
+
+    /**
+     * Returns the registered domains which lie within other registered domains,
+     * such as <code>x.ac.uk</code> registered alongside <code>ac.uk</code>.
+     * 
+     * These are detected, and logged as warnings, when the document is loaded.
+     * 
+     * @return map from each nested domain to the nearest enclosing registered domain
+     */
+    @Nonnull
+    public Map<String, String> getOverlappingDomains() {
+        tree();
+        return domainTrie.getOverlaps();
+    }
+
+    /**
+     * Returns the registered domains which differ only in case from a domain registered earlier
+     * by another participant, such as <code>Example.org</code> registered alongside
+     * <code>example.org</code>.
+     * 
+     * These are detected, and logged as warnings, when the document is loaded. Domain lookups
+     * ignore case, so they find the participant registering the earlier domain.
+     * 
+     * @return map from each later domain to the earlier domain
+     */
+    @Nonnull
+    public Map<String, String> getClashingDomains() {
+        tree();
+        final SortedMap<String, String> clashes = new TreeMap<>();
+        for (final Map.Entry<String, DomainTrie.Clash> entry : domainTrie.getClashes().entrySet()) {
+            clashes.put(entry.getKey(), entry.getValue().earlierDomain());
+        }
+        return Collections.unmodifiableSortedMap(clashes);
+    }
+
+    /**
+     * Computes the structural differences between an earlier snapshot and this one.
+     * 
+     * @param previous the earlier snapshot
+     * @return the differences between <code>previous</code> and this object
+     */
+    @Nonnull public MembersDelta diff(@Nonnull final Members previous) {
+        return MembersDelta.compute(previous, this);
+    }
+
+    /**
+     * Returns the index of participants by name.
+     * 
+     * @return the participant index, which must not be modified
+     */
+    @Nonnull Map<String, ParticipantType> getParticipantIndex() {
+        tree();
+        return participantByName;
+    }
+
+    /**
+     * Returns the index of domain owners by domain.
+     * 
+     * @return the domain owner index, which must not be modified
+     */
+    @Nonnull Map<String, ParticipantType> getDomainOwnerIndex() {
+        tree();
+        return domainOwners;
+    }
+
+    /**
+     * Returns the index of pushed scopes, building it if necessary.
+     * 
+     * @return the pushed scope index
+     */
+    @Nonnull PushedScopeIndex getPushedScopeIndex() {
+        PushedScopeIndex scopes = pushedScopes;
+        if (scopes == null) {
+            /*
+             * Concurrent first callers may each build an index, but they will build
+             * identical immutable indexes and each is fully built before it is published.
+             */
+            final MembersElement element = tree();
+            final long start = System.nanoTime();
+            scopes = new PushedScopeIndex(element.getMember());
+            pushedScopes = scopes;
+            metrics.lazyIndexBuilt(LazyIndex.PUSHED_SCOPES, System.nanoTime() - start);
+        }
+        return scopes;
+    }
+
+    /**
+     * Returns the index of the audit attributes on the domains, grants, entity IDs and approved
+     * entity attributes of the members document, building it if necessary.
+     * 
+     * @return the audit index
+     */
+    @Nonnull
+    public AuditIndex getAuditIndex() {
+        AuditIndex index = auditIndex;
+        if (index == null) {
+            // as for the pushed scope index, racing first callers build identical immutable indexes
+            final MembersElement element = tree();
+            final long start = System.nanoTime();
+            final List<ParticipantType> participants = new ArrayList<>(
+                    element.getMember().size() + element.getDomainOwner().size());
+            participants.addAll(element.getMember());
+            participants.addAll(element.getDomainOwner());
+            index = new AuditIndex(participants);
+            auditIndex = index;
+            metrics.lazyIndexBuilt(LazyIndex.AUDIT, System.nanoTime() - start);
         }
+        return index;
+    }
+
+    /**
+     * Returns the search index over the names of the participants in the members document,
+     * building it if necessary.
+     * 
+     * @return the participant search index
+     */
+    @Nonnull
+    public ParticipantSearch getParticipantSearch() {
+        ParticipantSearch search = participantSearch;
+        if (search == null) {
+            final MembersElement element = tree();
+            final long start = System.nanoTime();
+            final List<ParticipantType> participants = new ArrayList<>(
+                    element.getMember().size() + element.getDomainOwner().size());
+            participants.addAll(element.getMember());
+            participants.addAll(element.getDomainOwner());
+            search = new ParticipantSearch(participants);
+            participantSearch = search;
+            metrics.lazyIndexBuilt(LazyIndex.PARTICIPANT_SEARCH, System.nanoTime() - start);
+        }
+        return search;
     }
 
     /**
      * Computes the "pushed" scope list for the named entity.
      * 
+     * Duplicate scopes are removed, keeping the first occurrence of each.
+     * 
      * @param entityID name of the entity
-     * @return ordered list of scopes to be added to the entity, or <code>null</code>
+     * @return immutable ordered list of scopes to be added to the entity, or <code>null</code>
      */
+    @Nullable
     public List<String> scopesForEntity(@Nonnull final String entityID) {
         
         // retrieve the pushed scopes if they have not already been retrieved
-        if (pushedScopes == null) {
-            collectPushedScopes();
+        final List<String> scopes = getPushedScopeIndex().scopesFor(entityID);
+        metrics.lookup(Lookup.SCOPES_FOR_ENTITY, scopes != null);
+        return scopes;
+    }
+
+    /**
+     * Returns the entities a scope is pushed to.
+     * 
+     * @param scope the scope
+     * @return immutable ordered list of entity IDs the scope is pushed to, possibly empty
+     */
+    @Nonnull
+    public List<String> entitiesForScope(@Nonnull final String scope) {
+        final List<String> entities = getPushedScopeIndex().entitiesFor(scope);
+        metrics.lookup(Lookup.ENTITIES_FOR_SCOPE, !entities.isEmpty());
+        return entities;
+    }
+
+    /**
+     * Checks a batch of names for those of federation members.
+     * 
+     * This is equivalent to calling {@link #isOwnerName(String)} for each name.
+     * 
+     * @param names the names to check
+     * @return array of the same length as <code>names</code>, <code>true</code> where the name
+     *  is that of a member
+     */
+    @Nonnull
+    public boolean[] areOwnerNames(@Nonnull final List<String> names) {
+        final Set<String> snapshotNames = snapshotMemberNames;
+        final boolean[] owners = new boolean[names.size()];
+        int i = 0;
+        for (final String name : names) {
+            final boolean owner = snapshotNames != null ? snapshotNames.contains(name)
+                    : participantByName.get(name) instanceof MemberElement;
+            metrics.lookup(Lookup.IS_OWNER_NAME, owner);
+            owners[i++] = owner;
         }
-        
-        return pushedScopes.get(entityID);
+        return owners;
+    }
+
+    /**
+     * Returns the JAXB objects for a batch of named members.
+     * 
+     * This is equivalent to calling {@link #getMemberByName(String)} for each name.
+     * 
+     * @param names names of the members to look up
+     * @param parallel <code>true</code> to spread the work across the common fork-join pool
+     * @return immutable list of the same length as <code>names</code>, holding the member with each
+     *  name, or <code>null</code> where there is none
+     */
+    @Nonnull
+    public List<MemberElement> getMembersByName(@Nonnull final List<String> names, final boolean parallel) {
+        tree();
+        final MemberElement[] members = new MemberElement[names.size()];
+        final IntStream indexes = IntStream.range(0, members.length);
+        (parallel ? indexes.parallel() : indexes).forEach(i -> {
+            final ParticipantType participant = participantByName.get(names.get(i));
+            final boolean member = participant instanceof MemberElement;
+            metrics.lookup(Lookup.MEMBER_BY_NAME, member);
+            members[i] = member ? (MemberElement)participant : null;
+        });
+        return Collections.unmodifiableList(Arrays.asList(members));
+    }
+
+    /**
+     * Computes the "pushed" scope lists for a batch of entities.
+     * 
+     * This is equivalent to calling {@link #scopesForEntity(String)} for each entity.
+     * 
+     * @param entityIDs names of the entities
+     * @param parallel <code>true</code> to spread the work across the common fork-join pool
+     * @return map from each entity with pushed scopes to its immutable ordered list of scopes,
+     *  in the order of <code>entityIDs</code>; entities without pushed scopes are omitted
+     */
+    @Nonnull
+    public Map<String, List<String>> scopesForEntities(@Nonnull final Collection<String> entityIDs,
+            final boolean parallel) {
+        return scopesForEntities(parallel ? entityIDs.parallelStream() : entityIDs.stream())
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+    }
+
+    /**
+     * Computes the "pushed" scope lists for a stream of entities, as a stage in a pipeline.
+     * 
+     * This is equivalent to calling {@link #scopesForEntity(String)} for each entity. The
+     * pushed scope index is acquired once, when this method is called.
+     * 
+     * @param entityIDs names of the entities
+     * @return stream of entries mapping each entity with pushed scopes to its immutable ordered list
+     *  of scopes; entities without pushed scopes are omitted
+     */
+    @Nonnull
+    public Stream<Map.Entry<String, List<String>>> scopesForEntities(@Nonnull final Stream<String> entityIDs) {
+        final PushedScopeIndex index = getPushedScopeIndex();
+        return entityIDs.map(entityID -> {
+            final List<String> scopes = index.scopesFor(entityID);
+            metrics.lookup(Lookup.SCOPES_FOR_ENTITY, scopes != null);
+            return scopes == null ? null : Map.entry(entityID, scopes);
+        }).filter(Objects::nonNull);
+    }
+
+    /**
+     * Handler for the problems found by the semantic checks applied while loading.
+     * 
+     * When loading strictly, the first error causes an exception to be thrown; in collecting mode,
+     * each problem is recorded and loading continues.
+     */
+    interface Problems {
+
+        /**
+         * Handles an error.
+         * 
+         * @param element the JAXB object the error concerns
+         * @param message description of the error
+         * @throws ComponentInitializationException if loading should stop
+         */
+        void error(@Nonnull Object element, @Nonnull String message) throws ComponentInitializationException;
+
+        /**
+         * Handles a warning, which has already been logged.
+         * 
+         * @param element the JAXB object the warning concerns
+         * @param message description of the warning
+         */
+        void warning(@Nonnull Object element, @Nonnull String message);
+    }
+
+    /**
+     * A members document that can be unmarshalled by a (schema-validating) {@link Unmarshaller}.
+     */
+    @FunctionalInterface
+    interface Input {
+
+        /**
+         * Unmarshals the members document.
+         * 
+         * @param unmarshaller the {@link Unmarshaller} to use
+         * @return the unmarshalled document element
+         * @throws JAXBException if there is a problem parsing or unmarshalling the members document
+         */
+        @Nonnull JAXBElement<MembersElement> unmarshal(@Nonnull Unmarshaller unmarshaller) throws JAXBException;
     }
 
 }
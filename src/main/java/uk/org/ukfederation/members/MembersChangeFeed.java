@@ -0,0 +1,350 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.org.ukfederation.members.MembersDelta.GrantKey;
+import uk.org.ukfederation.members.jaxb.MemberElement;
+import uk.org.ukfederation.members.jaxb.ParticipantType;
+
+/**
+ * Publishes the changes made by each reload of a {@link MembersRegistry} as a stream of typed
+ * {@link ChangeEvent}s.
+ *
+ * Each time the registry publishes a new snapshot, the feed computes the {@link MembersDelta}
+ * from the previous one and turns it into events: members joining and leaving, domain owners
+ * being added and removed, other changes to participants, domains being added, removed or
+ * transferred, grants being made and revoked, and changes to the scopes pushed to entities.
+ * No events are published for the first snapshot, which consumers should read in full.
+ *
+ * Each {@link Subscription} has a bounded queue of its own. Events are offered to it without
+ * blocking the reload; if the queue is full, the event is dropped and counted, and the consumer
+ * should rebuild its view from {@link MembersRegistry#getMembers()} rather than rely on the feed.
+ */
+@ThreadSafe
+public class MembersChangeFeed implements MembersRegistry.Listener, AutoCloseable {
+
+    /** Class logger. */
+    private final Logger log = LoggerFactory.getLogger(MembersChangeFeed.class);
+
+    /** The registry whose reloads are published. */
+    @Nonnull private final MembersRegistry registry;
+
+    /** The current subscriptions. */
+    @Nonnull private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    /**
+     * Constructor, starting to listen to the registry's reloads.
+     *
+     * @param membersRegistry the registry whose reloads are published
+     */
+    public MembersChangeFeed(@Nonnull final MembersRegistry membersRegistry) {
+        registry = membersRegistry;
+        registry.addListener(this);
+    }
+
+    /**
+     * Subscribes to every kind of event.
+     *
+     * @param capacity greatest number of events to hold for the subscriber
+     * @return the new subscription
+     */
+    @Nonnull public Subscription subscribe(final int capacity) {
+        return subscribe(capacity, EnumSet.allOf(Kind.class));
+    }
+
+    /**
+     * Subscribes to some kinds of event.
+     *
+     * @param capacity greatest number of events to hold for the subscriber
+     * @param kinds the kinds of event to receive
+     * @return the new subscription
+     */
+    @Nonnull public Subscription subscribe(final int capacity, @Nonnull final Set<Kind> kinds) {
+        final Subscription subscription = new Subscription(capacity, kinds);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Stops listening to the registry. Existing subscriptions receive no further events.
+     */
+    @Override
+    public void close() {
+        registry.removeListener(this);
+        subscriptions.clear();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void published(@Nullable final Members previous, @Nonnull final Members current, final long generation) {
+        if (previous == null || subscriptions.isEmpty()) {
+            return;
+        }
+        final List<ChangeEvent> events = events(current.diff(previous), previous, current, generation);
+        log.debug("members snapshot {} made {} changes", generation, events.size());
+        for (final Subscription subscription : subscriptions) {
+            subscription.offer(events);
+        }
+    }
+
+    /**
+     * Turns the differences between two snapshots into events.
+     *
+     * @param delta the differences
+     * @param previous the earlier snapshot
+     * @param current the later snapshot
+     * @param generation the generation of the later snapshot
+     * @return the events, grouped by kind
+     */
+    @Nonnull static List<ChangeEvent> events(@Nonnull final MembersDelta delta, @Nonnull final Members previous,
+            @Nonnull final Members current, final long generation) {
+        final List<ChangeEvent> events = new ArrayList<>();
+        for (final String name : delta.getParticipants().getAdded()) {
+            final ParticipantType participant = current.getParticipantByName(name);
+            if (participant instanceof MemberElement) {
+                events.add(new ChangeEvent(Kind.MEMBER_JOINED, generation, name, name,
+                        date(((MemberElement) participant).getJoinDate()), null));
+            } else {
+                events.add(new ChangeEvent(Kind.DOMAIN_OWNER_ADDED, generation, name, name, null, null));
+            }
+        }
+        for (final String name : delta.getParticipants().getRemoved()) {
+            final Kind kind = previous.getParticipantByName(name) instanceof MemberElement ?
+                    Kind.MEMBER_LEFT : Kind.DOMAIN_OWNER_REMOVED;
+            events.add(new ChangeEvent(kind, generation, name, name, null, null));
+        }
+        for (final String name : delta.getParticipants().getChanged()) {
+            events.add(new ChangeEvent(Kind.PARTICIPANT_CHANGED, generation, name, name, null, null));
+        }
+        for (final String domain : delta.getDomains().getAdded()) {
+            events.add(new ChangeEvent(Kind.DOMAIN_ADDED, generation, domain,
+                    nameOf(current.findDomainOwner(domain)), null, null));
+        }
+        for (final String domain : delta.getDomains().getRemoved()) {
+            events.add(new ChangeEvent(Kind.DOMAIN_REMOVED, generation, domain,
+                    nameOf(previous.findDomainOwner(domain)), null, null));
+        }
+        for (final String domain : delta.getDomains().getChanged()) {
+            events.add(new ChangeEvent(Kind.DOMAIN_TRANSFERRED, generation, domain,
+                    nameOf(current.findDomainOwner(domain)), null, null));
+        }
+        for (final GrantKey grant : delta.getGrants().getAdded()) {
+            events.add(new ChangeEvent(Kind.GRANT_ADDED, generation, grant.domain(), grant.grantor(), null, grant));
+        }
+        for (final GrantKey grant : delta.getGrants().getRemoved()) {
+            events.add(new ChangeEvent(Kind.GRANT_REVOKED, generation, grant.domain(), grant.grantor(), null, grant));
+        }
+        final Set<String> entities = new LinkedHashSet<>(delta.getPushedScopes().getAdded());
+        entities.addAll(delta.getPushedScopes().getRemoved());
+        entities.addAll(delta.getPushedScopes().getChanged());
+        for (final String entity : entities) {
+            events.add(new ChangeEvent(Kind.SCOPES_CHANGED, generation, entity, null, null, null));
+        }
+        return events;
+    }
+
+    /**
+     * Returns the name of a participant.
+     *
+     * @param participant the participant, or <code>null</code>
+     * @return the participant's name, or <code>null</code>
+     */
+    @Nullable private static String nameOf(@Nullable final ParticipantType participant) {
+        return participant == null ? null : participant.getName();
+    }
+
+    /**
+     * Converts an <code>xs:date</code> value.
+     *
+     * @param date the date, or <code>null</code>
+     * @return the date, or <code>null</code>
+     */
+    @Nullable private static LocalDate date(@Nullable final XMLGregorianCalendar date) {
+        return date == null ? null : LocalDate.of(date.getYear(), date.getMonth(), date.getDay());
+    }
+
+    /**
+     * The kinds of {@link ChangeEvent}.
+     */
+    public enum Kind {
+
+        /** A member was added; the subject is its name, and the join date is given. */
+        MEMBER_JOINED,
+
+        /** A member was removed; the subject is its name. */
+        MEMBER_LEFT,
+
+        /** A domain owner was added; the subject is its name. */
+        DOMAIN_OWNER_ADDED,
+
+        /** A domain owner was removed; the subject is its name. */
+        DOMAIN_OWNER_REMOVED,
+
+        /**
+         * Something else about a participant changed, such as its name comment, join date, entity IDs
+         * or approved entity attributes; the subject is its name.
+         */
+        PARTICIPANT_CHANGED,
+
+        /** A domain was registered; the subject is the domain, and the participant its owner. */
+        DOMAIN_ADDED,
+
+        /** A domain registration was removed; the subject is the domain, and the participant its former owner. */
+        DOMAIN_REMOVED,
+
+        /**
+         * A domain was registered to a different participant; the subject is the domain, and the
+         * participant its new owner.
+         */
+        DOMAIN_TRANSFERRED,
+
+        /** A grant was made; the subject is the name granted, and the participant the grantor. */
+        GRANT_ADDED,
+
+        /** A grant was revoked; the subject is the name granted, and the participant the grantor. */
+        GRANT_REVOKED,
+
+        /** The scopes pushed to an entity were added, removed or changed; the subject is the entity ID. */
+        SCOPES_CHANGED
+    }
+
+    /**
+     * A single change made by a reload.
+     *
+     * @param kind the kind of change
+     * @param generation the generation of the snapshot which made the change
+     * @param subject the participant name, domain or entity ID changed, according to the kind
+     * @param participant the participant concerned, or <code>null</code> for {@link Kind#SCOPES_CHANGED}
+     * @param joinDate the join date of a member for {@link Kind#MEMBER_JOINED}, otherwise <code>null</code>
+     * @param grant the grant for {@link Kind#GRANT_ADDED} and {@link Kind#GRANT_REVOKED}, otherwise <code>null</code>
+     */
+    public record ChangeEvent(@Nonnull Kind kind, long generation, @Nonnull String subject,
+            @Nullable String participant, @Nullable LocalDate joinDate, @Nullable GrantKey grant) {
+    }
+
+    /**
+     * A consumer's bounded queue of events.
+     */
+    public final class Subscription implements AutoCloseable {
+
+        /** The events waiting to be consumed. */
+        @Nonnull private final BlockingQueue<ChangeEvent> queue;
+
+        /** The kinds of event to receive. */
+        @Nonnull private final Set<Kind> kinds;
+
+        /** Number of events dropped because the queue was full. */
+        @Nonnull private final LongAdder dropped = new LongAdder();
+
+        /**
+         * Constructor.
+         *
+         * @param capacity greatest number of events to hold
+         * @param wanted the kinds of event to receive
+         */
+        Subscription(final int capacity, @Nonnull final Set<Kind> wanted) {
+            queue = new ArrayBlockingQueue<>(capacity);
+            kinds = Set.copyOf(wanted);
+        }
+
+        /**
+         * Adds events to the queue without waiting, dropping any which do not fit.
+         *
+         * @param events the events
+         */
+        void offer(@Nonnull final List<ChangeEvent> events) {
+            for (final ChangeEvent event : events) {
+                if (kinds.contains(event.kind()) && !queue.offer(event)) {
+                    dropped.increment();
+                }
+            }
+        }
+
+        /**
+         * Removes the next event, if there is one.
+         *
+         * @return the next event, or <code>null</code> if there is none
+         */
+        @Nullable public ChangeEvent poll() {
+            return queue.poll();
+        }
+
+        /**
+         * Removes the next event, waiting for one if necessary.
+         *
+         * @param timeout how long to wait
+         * @param unit unit of the timeout
+         * @return the next event, or <code>null</code> if none arrived in time
+         * @throws InterruptedException if interrupted while waiting
+         */
+        @Nullable public ChangeEvent poll(final long timeout, @Nonnull final TimeUnit unit)
+                throws InterruptedException {
+            return queue.poll(timeout, unit);
+        }
+
+        /**
+         * Removes every waiting event.
+         *
+         * @param sink collection to add the events to
+         * @return the number of events removed
+         */
+        public int drainTo(@Nonnull final Collection<? super ChangeEvent> sink) {
+            return queue.drainTo(sink);
+        }
+
+        /**
+         * Returns the number of events dropped because the queue was full.
+         *
+         * A consumer seeing this increase has missed changes, and should rebuild its view.
+         *
+         * @return the number of events dropped
+         */
+        public long getDroppedCount() {
+            return dropped.sum();
+        }
+
+        /**
+         * Cancels the subscription. Events already queued may still be consumed.
+         */
+        @Override
+        public void close() {
+            subscriptions.remove(this);
+        }
+    }
+
+}
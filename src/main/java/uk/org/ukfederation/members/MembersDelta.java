@@ -0,0 +1,497 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiPredicate;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import uk.org.ukfederation.members.jaxb.ApprovedEntityAttributeElement;
+import uk.org.ukfederation.members.jaxb.BaseGrantType;
+import uk.org.ukfederation.members.jaxb.GrantAllElement;
+import uk.org.ukfederation.members.jaxb.GrantElement;
+import uk.org.ukfederation.members.jaxb.MemberElement;
+import uk.org.ukfederation.members.jaxb.ParticipantType;
+import uk.org.ukfederation.members.jaxb.ScopesElement;
+
+/**
+ * The structural differences between two {@link Members} snapshots.
+ *
+ * Participants, domains and pushed scopes are keyed by name, domain and entity ID
+ * respectively, and are reported as added, removed or changed. Grants, entity IDs and
+ * approved entity attributes have no identity beyond their content, so they are only
+ * ever reported as added or removed.
+ *
+ * A participant present in both snapshots is reported as changed if its ID, kind,
+ * name comment or join date differ, or if any of its domains, grants, scopes, entity IDs
+ * or approved entity attributes were added or removed.
+ *
+ * Computing a delta takes time linear in the size of the two snapshots.
+ */
+@Immutable
+public final class MembersDelta {
+
+    /** Changes to participants, by name. */
+    @Nonnull private final Changes<String> participants;
+
+    /** Changes to domain registrations, by domain; a change is a change of owner. */
+    @Nonnull private final Changes<String> domains;
+
+    /** Changes to grants. */
+    @Nonnull private final Changes<GrantKey> grants;
+
+    /** Changes to pushed scopes, by entity ID. */
+    @Nonnull private final Changes<String> pushedScopes;
+
+    /** Changes to specifically permitted entity IDs. */
+    @Nonnull private final Changes<EntityIDKey> entityIDs;
+
+    /** Changes to approved entity attributes. */
+    @Nonnull private final Changes<ApprovedAttributeKey> approvedEntityAttributes;
+
+    /**
+     * Constructor.
+     *
+     * @param participantChanges changes to participants
+     * @param domainChanges changes to domain registrations
+     * @param grantChanges changes to grants
+     * @param scopeChanges changes to pushed scopes
+     * @param entityIDChanges changes to permitted entity IDs
+     * @param attributeChanges changes to approved entity attributes
+     */
+    private MembersDelta(@Nonnull final Changes<String> participantChanges,
+            @Nonnull final Changes<String> domainChanges, @Nonnull final Changes<GrantKey> grantChanges,
+            @Nonnull final Changes<String> scopeChanges, @Nonnull final Changes<EntityIDKey> entityIDChanges,
+            @Nonnull final Changes<ApprovedAttributeKey> attributeChanges) {
+        participants = participantChanges;
+        domains = domainChanges;
+        grants = grantChanges;
+        pushedScopes = scopeChanges;
+        entityIDs = entityIDChanges;
+        approvedEntityAttributes = attributeChanges;
+    }
+
+    /**
+     * Returns the changes to participants, keyed by participant name.
+     *
+     * @return participant changes
+     */
+    @Nonnull public Changes<String> getParticipants() {
+        return participants;
+    }
+
+    /**
+     * Returns the changes to domain registrations, keyed by domain.
+     *
+     * A domain is reported as changed if it is registered to a different participant.
+     *
+     * @return domain changes
+     */
+    @Nonnull public Changes<String> getDomains() {
+        return domains;
+    }
+
+    /**
+     * Returns the grants which have been added or removed.
+     *
+     * @return grant changes
+     */
+    @Nonnull public Changes<GrantKey> getGrants() {
+        return grants;
+    }
+
+    /**
+     * Returns the changes to pushed scopes, keyed by the entity ID the scopes are pushed to.
+     *
+     * @return pushed scope changes
+     */
+    @Nonnull public Changes<String> getPushedScopes() {
+        return pushedScopes;
+    }
+
+    /**
+     * Returns the specifically permitted entity IDs which have been added or removed.
+     *
+     * @return entity ID changes
+     */
+    @Nonnull public Changes<EntityIDKey> getEntityIDs() {
+        return entityIDs;
+    }
+
+    /**
+     * Returns the approved entity attributes which have been added or removed.
+     *
+     * @return approved entity attribute changes
+     */
+    @Nonnull public Changes<ApprovedAttributeKey> getApprovedEntityAttributes() {
+        return approvedEntityAttributes;
+    }
+
+    /**
+     * Indicates whether the two snapshots are structurally identical.
+     *
+     * @return <code>true</code> if and only if nothing has changed
+     */
+    public boolean isEmpty() {
+        return participants.isEmpty() && domains.isEmpty() && grants.isEmpty() && pushedScopes.isEmpty()
+                && entityIDs.isEmpty() && approvedEntityAttributes.isEmpty();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Nonnull public String toString() {
+        return "MembersDelta{participants=" + participants + ", domains=" + domains + ", grants=" + grants
+                + ", pushedScopes=" + pushedScopes + ", entityIDs=" + entityIDs
+                + ", approvedEntityAttributes=" + approvedEntityAttributes + "}";
+    }
+
+    /**
+     * Computes the differences between two snapshots.
+     *
+     * @param previous the earlier snapshot
+     * @param current the later snapshot
+     * @return the differences between the snapshots
+     */
+    @Nonnull static MembersDelta compute(@Nonnull final Members previous, @Nonnull final Members current) {
+        // Participant names touched by changes to their contents.
+        final Set<String> touched = new HashSet<>();
+
+        final Changes<String> domainChanges = diffMaps(previous.getDomainOwnerIndex(),
+                current.getDomainOwnerIndex(), (a, b) -> a.getName().equals(b.getName()));
+        for (final String domain : domainChanges.getAdded()) {
+            touched.add(current.getDomainOwnerIndex().get(domain).getName());
+        }
+        for (final String domain : domainChanges.getRemoved()) {
+            touched.add(previous.getDomainOwnerIndex().get(domain).getName());
+        }
+        for (final String domain : domainChanges.getChanged()) {
+            touched.add(previous.getDomainOwnerIndex().get(domain).getName());
+            touched.add(current.getDomainOwnerIndex().get(domain).getName());
+        }
+
+        final Changes<GrantKey> grantChanges = diffSets(grantKeys(previous), grantKeys(current));
+        for (final GrantKey key : grantChanges.getAdded()) {
+            touched.add(key.grantor());
+        }
+        for (final GrantKey key : grantChanges.getRemoved()) {
+            touched.add(key.grantor());
+        }
+
+        final Changes<EntityIDKey> entityIDChanges = diffSets(entityIDKeys(previous), entityIDKeys(current));
+        for (final EntityIDKey key : entityIDChanges.getAdded()) {
+            touched.add(key.participant());
+        }
+        for (final EntityIDKey key : entityIDChanges.getRemoved()) {
+            touched.add(key.participant());
+        }
+
+        final Changes<ApprovedAttributeKey> attributeChanges =
+                diffSets(attributeKeys(previous), attributeKeys(current));
+        for (final ApprovedAttributeKey key : attributeChanges.getAdded()) {
+            touched.add(key.participant());
+        }
+        for (final ApprovedAttributeKey key : attributeChanges.getRemoved()) {
+            touched.add(key.participant());
+        }
+
+        final Changes<String> scopeChanges =
+                diffMaps(previous.getPushedScopeIndex().getScopesByEntity(),
+                        current.getPushedScopeIndex().getScopesByEntity(), List::equals);
+
+        final Changes<String> participantChanges = diffMaps(previous.getParticipantIndex(),
+                current.getParticipantIndex(),
+                (a, b) -> !touched.contains(a.getName()) && sameParticipantDetails(a, b));
+
+        return new MembersDelta(participantChanges, domainChanges, grantChanges, scopeChanges, entityIDChanges,
+                attributeChanges);
+    }
+
+    /**
+     * Compares the details of two participants with the same name, other than the
+     * contents covered by the other categories of change.
+     *
+     * @param a the first participant
+     * @param b the second participant
+     * @return <code>true</code> if the details are the same
+     */
+    private static boolean sameParticipantDetails(@Nonnull final ParticipantType a,
+            @Nonnull final ParticipantType b) {
+        if (a.getClass() != b.getClass() || !Objects.equals(a.getID(), b.getID())
+                || !Objects.equals(a.getNameComment(), b.getNameComment())) {
+            return false;
+        }
+        if (a instanceof MemberElement) {
+            final MemberElement ma = (MemberElement) a;
+            final MemberElement mb = (MemberElement) b;
+            return Objects.equals(ma.getJoinDate(), mb.getJoinDate())
+                    && scopesSignature(ma).equals(scopesSignature(mb));
+        }
+        return true;
+    }
+
+    /**
+     * Summarises a member's <code>Scopes</code> elements for comparison.
+     *
+     * @param member the member
+     * @return a list of entity and scope lists, in document order
+     */
+    @Nonnull private static List<List<String>> scopesSignature(@Nonnull final MemberElement member) {
+        final List<List<String>> signature = new ArrayList<>();
+        for (final ScopesElement scopes : member.getScopes()) {
+            signature.add(scopes.getEntity());
+            signature.add(scopes.getScope());
+        }
+        return signature;
+    }
+
+    /**
+     * Collects the grants in a snapshot.
+     *
+     * @param members the snapshot
+     * @return the set of grant keys
+     */
+    @Nonnull private static Set<GrantKey> grantKeys(@Nonnull final Members members) {
+        final Set<GrantKey> keys = new HashSet<>();
+        for (final ParticipantType participant : members.getParticipantIndex().values()) {
+            for (final BaseGrantType grant : Participants.grantListOf(participant)) {
+                keys.add(GrantKey.of(participant.getName(), grant));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Collects the specifically permitted entity IDs in a snapshot.
+     *
+     * @param members the snapshot
+     * @return the set of entity ID keys
+     */
+    @Nonnull private static Set<EntityIDKey> entityIDKeys(@Nonnull final Members members) {
+        final Set<EntityIDKey> keys = new HashSet<>();
+        for (final ParticipantType participant : members.getParticipantIndex().values()) {
+            for (final String entityID : Participants.entityIDsOf(participant)) {
+                keys.add(new EntityIDKey(participant.getName(), entityID));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Collects the approved entity attributes in a snapshot.
+     *
+     * @param members the snapshot
+     * @return the set of approved attribute keys
+     */
+    @Nonnull private static Set<ApprovedAttributeKey> attributeKeys(@Nonnull final Members members) {
+        final Set<ApprovedAttributeKey> keys = new HashSet<>();
+        for (final ParticipantType participant : members.getParticipantIndex().values()) {
+            for (final ApprovedEntityAttributeElement attribute : Participants.approvedAttributesOf(participant)) {
+                keys.add(new ApprovedAttributeKey(participant.getName(), attribute.getEntityID(),
+                        attribute.getName(), attribute.getNameFormat(), attribute.getValue()));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Compares two maps.
+     *
+     * @param <K> key type
+     * @param <V> value type
+     * @param before the earlier map
+     * @param after the later map
+     * @param same test for two values being equivalent
+     * @return the changes between the maps
+     */
+    @Nonnull private static <K, V> Changes<K> diffMaps(@Nonnull final Map<K, V> before,
+            @Nonnull final Map<K, V> after, @Nonnull final BiPredicate<V, V> same) {
+        final Set<K> added = new LinkedHashSet<>();
+        final Set<K> changed = new LinkedHashSet<>();
+        for (final Map.Entry<K, V> entry : after.entrySet()) {
+            final V old = before.get(entry.getKey());
+            if (old == null) {
+                added.add(entry.getKey());
+            } else if (!same.test(old, entry.getValue())) {
+                changed.add(entry.getKey());
+            }
+        }
+        final Set<K> removed = new LinkedHashSet<>();
+        for (final K key : before.keySet()) {
+            if (!after.containsKey(key)) {
+                removed.add(key);
+            }
+        }
+        return new Changes<>(added, removed, changed);
+    }
+
+    /**
+     * Compares two sets.
+     *
+     * @param <K> element type
+     * @param before the earlier set
+     * @param after the later set
+     * @return the elements added and removed
+     */
+    @Nonnull private static <K> Changes<K> diffSets(@Nonnull final Set<K> before, @Nonnull final Set<K> after) {
+        final Set<K> added = new LinkedHashSet<>();
+        for (final K key : after) {
+            if (!before.contains(key)) {
+                added.add(key);
+            }
+        }
+        final Set<K> removed = new LinkedHashSet<>();
+        for (final K key : before) {
+            if (!after.contains(key)) {
+                removed.add(key);
+            }
+        }
+        return new Changes<>(added, removed, Collections.emptySet());
+    }
+
+    /**
+     * The keys added, removed and changed in one category.
+     *
+     * @param <K> key type
+     */
+    @Immutable
+    public static final class Changes<K> {
+
+        /** Keys present only in the later snapshot. */
+        @Nonnull private final Set<K> added;
+
+        /** Keys present only in the earlier snapshot. */
+        @Nonnull private final Set<K> removed;
+
+        /** Keys present in both snapshots, but with different content. */
+        @Nonnull private final Set<K> changed;
+
+        /**
+         * Constructor.
+         *
+         * @param addedKeys keys present only in the later snapshot
+         * @param removedKeys keys present only in the earlier snapshot
+         * @param changedKeys keys present in both snapshots, but with different content
+         */
+        Changes(@Nonnull final Set<K> addedKeys, @Nonnull final Set<K> removedKeys,
+                @Nonnull final Set<K> changedKeys) {
+            added = Collections.unmodifiableSet(addedKeys);
+            removed = Collections.unmodifiableSet(removedKeys);
+            changed = Collections.unmodifiableSet(changedKeys);
+        }
+
+        /**
+         * Returns the keys present only in the later snapshot.
+         *
+         * @return added keys
+         */
+        @Nonnull public Set<K> getAdded() {
+            return added;
+        }
+
+        /**
+         * Returns the keys present only in the earlier snapshot.
+         *
+         * @return removed keys
+         */
+        @Nonnull public Set<K> getRemoved() {
+            return removed;
+        }
+
+        /**
+         * Returns the keys present in both snapshots, but with different content.
+         *
+         * @return changed keys
+         */
+        @Nonnull public Set<K> getChanged() {
+            return changed;
+        }
+
+        /**
+         * Indicates whether there were no changes in this category.
+         *
+         * @return <code>true</code> if and only if nothing was added, removed or changed
+         */
+        public boolean isEmpty() {
+            return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        @Nonnull public String toString() {
+            return "{added=" + added + ", removed=" + removed + ", changed=" + changed + "}";
+        }
+    }
+
+    /**
+     * Identifies a grant by its content.
+     *
+     * @param grantor name of the participant making the grant
+     * @param all <code>true</code> for a <code>GrantAll</code>, <code>false</code> for a <code>Grant</code>
+     * @param domain the domain granted
+     * @param to name of the member the grant is made to
+     * @param entityID the entity the grant is made for, or <code>null</code> for a <code>GrantAll</code>
+     */
+    public record GrantKey(@Nonnull String grantor, boolean all, @Nonnull String domain, @Nonnull String to,
+            @Nullable String entityID) {
+
+        /**
+         * Makes the key for a grant.
+         *
+         * @param grantor name of the participant making the grant
+         * @param grant the grant
+         * @return the key for the grant
+         */
+        @Nonnull static GrantKey of(@Nonnull final String grantor, @Nonnull final BaseGrantType grant) {
+            final String entityID = grant instanceof GrantElement ? ((GrantElement) grant).getEntityID() : null;
+            return new GrantKey(grantor, grant instanceof GrantAllElement, grant.getValue(), grant.getTo(),
+                    entityID);
+        }
+    }
+
+    /**
+     * Identifies an entity ID specifically permitted to a participant.
+     *
+     * @param participant name of the participant
+     * @param entityID the permitted entity ID
+     */
+    public record EntityIDKey(@Nonnull String participant, @Nonnull String entityID) {
+    }
+
+    /**
+     * Identifies an entity attribute approved for an entity owned by a participant.
+     *
+     * @param participant name of the participant
+     * @param entityID the entity the attribute is approved for
+     * @param name the attribute's <code>Name</code>
+     * @param nameFormat the attribute's <code>NameFormat</code>
+     * @param value the attribute's <code>Value</code>
+     */
+    public record ApprovedAttributeKey(@Nonnull String participant, @Nonnull String entityID, @Nonnull String name,
+            @Nonnull String nameFormat, @Nonnull String value) {
+    }
+
+}
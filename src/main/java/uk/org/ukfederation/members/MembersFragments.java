@@ -0,0 +1,367 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import jakarta.xml.bind.JAXBException;
+import net.shibboleth.shared.component.ComponentInitializationException;
+import uk.org.ukfederation.members.jaxb.MembersElement;
+import uk.org.ukfederation.members.jaxb.ParticipantType;
+
+/**
+ * A members document split across several fragment files, each of which is a schema-valid
+ * <code>Members</code> document holding some of the participants.
+ *
+ * {@link #load()} parses and validates the fragments in parallel, then merges them into a single
+ * {@link Members} object, members first and then domain owners, each in fragment order. The
+ * checks made across the whole document are made on the merged result: participant IDs must be
+ * unique, and participant names, domain registrations and each grant's <code>to</code> and
+ * <code>orgID</code> are checked exactly as for a single document.
+ *
+ * A grant's <code>orgID</code> may refer to a participant in another fragment, so each fragment
+ * is validated without the schema's ID and IDREF checks, which can only be made on the whole
+ * document; any other schema violation in a fragment is an error. Instead, participant IDs are
+ * checked for uniqueness, and each grant's <code>orgID</code> resolved, when the fragments are merged.
+ *
+ * The parsed form of each fragment is kept, along with a digest of the file it was parsed from.
+ * Later calls to {@link #load()} only parse the fragments whose files have changed, and those
+ * whose grants refer to participants in a fragment parsed again; the JAXB objects of the other
+ * fragments are shared, unmodified, with the previously loaded {@link Members} objects.
+ */
+@ThreadSafe
+public class MembersFragments {
+
+    /** Class logger. */
+    private final Logger log = LoggerFactory.getLogger(MembersFragments.class);
+
+    /** Loader providing the schema and loading options. */
+    @Nonnull private final MembersLoader loader;
+
+    /** The fragment files, in merge order. */
+    @Nonnull private final List<Path> paths;
+
+    /** The most recently parsed form of each fragment, indexed by file. */
+    @GuardedBy("this") @Nonnull private final Map<Path, Fragment> fragments = new HashMap<>();
+
+    /** Number of fragments parsed by the most recent call to {@link #load()}. */
+    @GuardedBy("this") private int lastParsed;
+
+    /**
+     * Constructor.
+     *
+     * @param membersLoader loader providing the schema and loading options
+     * @param fragmentPaths the fragment files, in merge order
+     */
+    public MembersFragments(@Nonnull final MembersLoader membersLoader, @Nonnull final List<Path> fragmentPaths) {
+        loader = membersLoader;
+        paths = List.copyOf(fragmentPaths);
+    }
+
+    /**
+     * Returns the fragment files.
+     *
+     * @return the fragment files, in merge order
+     */
+    @Nonnull public List<Path> getPaths() {
+        return paths;
+    }
+
+    /**
+     * Returns the number of fragments parsed by the most recent call to {@link #load()}.
+     *
+     * @return the number of fragments parsed
+     */
+    public synchronized int getLastParsedCount() {
+        return lastParsed;
+    }
+
+    /**
+     * Loads the fragments and merges them into a single {@link Members} object.
+     *
+     * Fragments whose files have not changed since the previous call are not parsed again, unless
+     * one of their grants refers to a participant in a fragment which has been. The others are
+     * parsed and validated in parallel, on the loader's
+     * {@linkplain MembersLoader#getCheckExecutor() check executor} if it has one and otherwise on
+     * {@link ForkJoinPool#commonPool()}.
+     *
+     * @return the merged {@link Members} object
+     * @throws ComponentInitializationException if there is a problem in the merged members document
+     * @throws JAXBException if there is a problem parsing or unmarshalling a fragment
+     * @throws SAXException if there is a problem parsing the schema document
+     * @throws IOException if a fragment can not be read
+     */
+    @Nonnull public synchronized Members load()
+            throws ComponentInitializationException, JAXBException, SAXException, IOException {
+        final long start = System.nanoTime();
+        final CompiledSchema schema = loader.getDefaultSchema();
+        final long compiled = System.nanoTime();
+
+        // Parse the fragments which have changed.
+        final Executor executor = loader.getCheckExecutor() != null ?
+                loader.getCheckExecutor() : ForkJoinPool.commonPool();
+        final List<Fragment> current = new ArrayList<>(paths.size());
+        final Map<Path, byte[]> digests = new HashMap<>();
+        final Set<Path> fresh = new HashSet<>();
+        for (final Path path : paths) {
+            final byte[] digest = MembersSnapshot.digest(path);
+            digests.put(path, digest);
+            final Fragment previous = fragments.get(path);
+            if (previous != null && Arrays.equals(previous.digest(), digest)) {
+                current.add(previous);
+            } else {
+                current.add(null);
+                fresh.add(path);
+            }
+        }
+        parseAll(current, fresh, digests, schema, executor);
+
+        /*
+         * A fragment which has not changed is shared with the Members objects already returned, so
+         * its grants must not be modified. If any of them no longer refers to the right participant,
+         * because the fragment defining that participant has been parsed again, parse this fragment
+         * again too, until every fragment kept refers only to participants which have been kept.
+         */
+        Map<String, ParticipantType> byID = indexByID(current);
+        while (true) {
+            final Set<Path> stale = new HashSet<>();
+            for (final Fragment fragment : current) {
+                if (!fresh.contains(fragment.path()) && !isResolved(fragment, byID)) {
+                    stale.add(fragment.path());
+                }
+            }
+            if (stale.isEmpty()) {
+                break;
+            }
+            for (int i = 0; i < current.size(); i++) {
+                if (stale.contains(current.get(i).path())) {
+                    current.set(i, null);
+                }
+            }
+            fresh.addAll(stale);
+            parseAll(current, stale, digests, schema, executor);
+            byID = indexByID(current);
+        }
+
+        for (final Fragment fragment : current) {
+            fragments.put(fragment.path(), fragment);
+        }
+        fragments.keySet().retainAll(paths);
+        lastParsed = fresh.size();
+        log.debug("parsed {} of {} members fragments", fresh.size(), paths.size());
+        final long unmarshalled = System.nanoTime();
+
+        return new Members(merge(current, byID, fresh), compiled - start, unmarshalled - compiled, loader);
+    }
+
+    /**
+     * Parses fragments in parallel.
+     *
+     * @param current the fragments in merge order, with <code>null</code> for those to parse,
+     *  which are replaced by the parsed fragments
+     * @param toParse the files of the fragments to parse
+     * @param digests digest of each fragment file
+     * @param schema the compiled schema
+     * @param executor executor to parse on
+     * @throws JAXBException if there is a problem parsing or unmarshalling a fragment
+     * @throws IOException if a fragment can not be read
+     */
+    private void parseAll(@Nonnull final List<Fragment> current, @Nonnull final Set<Path> toParse,
+            @Nonnull final Map<Path, byte[]> digests, @Nonnull final CompiledSchema schema,
+            @Nonnull final Executor executor) throws JAXBException, IOException {
+        final Map<Integer, CompletableFuture<Fragment>> parsing = new HashMap<>();
+        for (int i = 0; i < paths.size(); i++) {
+            final Path path = paths.get(i);
+            if (toParse.contains(path)) {
+                parsing.put(i, CompletableFuture.supplyAsync(() -> parse(path, digests.get(path), schema), executor));
+            }
+        }
+        try {
+            for (final Map.Entry<Integer, CompletableFuture<Fragment>> entry : parsing.entrySet()) {
+                current.set(entry.getKey(), entry.getValue().join());
+            }
+        } catch (final CompletionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    /**
+     * Indexes the participants of the fragments by ID.
+     *
+     * @param parsed the fragments, in merge order
+     * @return the participants, indexed by ID
+     * @throws ComponentInitializationException if two participants have the same ID
+     */
+    @Nonnull private static Map<String, ParticipantType> indexByID(@Nonnull final List<Fragment> parsed)
+            throws ComponentInitializationException {
+        final Map<String, ParticipantType> byID = new HashMap<>();
+        for (final Fragment fragment : parsed) {
+            final List<ParticipantType> participants = new ArrayList<>(fragment.element().getMember());
+            participants.addAll(fragment.element().getDomainOwner());
+            for (final ParticipantType participant : participants) {
+                final ParticipantType previous = byID.putIfAbsent(participant.getID(), participant);
+                if (previous != null) {
+                    throw new ComponentInitializationException("participant ID \"" + participant.getID()
+                            + "\" appears in multiple participants: \"" + previous.getName() + "\", \""
+                            + participant.getName() + "\"");
+                }
+            }
+        }
+        return byID;
+    }
+
+    /**
+     * Indicates whether every grant of a fragment already refers to the participant its
+     * <code>orgID</code> names.
+     *
+     * @param fragment the fragment
+     * @param byID the participants, indexed by ID
+     * @return <code>true</code> if no grant of the fragment needs to be modified
+     */
+    private static boolean isResolved(@Nonnull final Fragment fragment,
+            @Nonnull final Map<String, ParticipantType> byID) {
+        for (final ReferenceRecorder.Reference reference : fragment.references()) {
+            final ParticipantType target = reference.orgID() == null ? null : byID.get(reference.orgID());
+            if (target == null || reference.grant().getOrgID() != target) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Merges parsed fragments into a single JAXB object graph, resolving the references made by
+     * the newly parsed fragments.
+     *
+     * The fragments which have not been parsed again are only read: every reference they make
+     * must already be resolved.
+     *
+     * @param parsed the fragments, in merge order
+     * @param byID the participants of the fragments, indexed by ID
+     * @param fresh the files of the newly parsed fragments
+     * @return the root of the merged object graph
+     * @throws ComponentInitializationException if a grant's <code>orgID</code> does not refer to any participant
+     */
+    @Nonnull private static MembersElement merge(@Nonnull final List<Fragment> parsed,
+            @Nonnull final Map<String, ParticipantType> byID, @Nonnull final Set<Path> fresh)
+            throws ComponentInitializationException {
+        final MembersElement merged = new MembersElement();
+        for (final Fragment fragment : parsed) {
+            merged.getMember().addAll(fragment.element().getMember());
+        }
+        for (final Fragment fragment : parsed) {
+            merged.getDomainOwner().addAll(fragment.element().getDomainOwner());
+        }
+
+        for (final Fragment fragment : parsed) {
+            if (!fresh.contains(fragment.path())) {
+                continue;
+            }
+            for (final ReferenceRecorder.Reference reference : fragment.references()) {
+                final ParticipantType target = reference.orgID() == null ? null : byID.get(reference.orgID());
+                if (target == null) {
+                    throw new ComponentInitializationException("grant to=\"" + reference.grant().getTo()
+                            + "\" in participant \"" + reference.grantor().getName()
+                            + "\" refers to unknown orgID \"" + reference.orgID() + "\"");
+                }
+                reference.grant().setOrgID(target);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Parses and validates a single fragment.
+     *
+     * @param path the fragment file
+     * @param digest digest of the fragment file
+     * @param schema the compiled schema
+     * @return the parsed fragment
+     * @throws CompletionException wrapping any exception thrown
+     */
+    @Nonnull private static Fragment parse(@Nonnull final Path path, @Nonnull final byte[] digest,
+            @Nonnull final CompiledSchema schema) {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+            final InputSource source = new InputSource(in);
+            source.setSystemId(path.toUri().toString());
+            final ReferenceRecorder.Parsed fragment = ReferenceRecorder.parse(source, schema, true);
+            return new Fragment(path, digest, fragment.element(), fragment.references());
+        } catch (final IOException | JAXBException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Recovers the exception thrown while parsing a fragment.
+     *
+     * @param e the exception thrown while waiting for the parse
+     * @return the unchecked exception to throw, if the cause was not checked
+     * @throws JAXBException if that was the exception thrown
+     * @throws IOException if that was the exception thrown
+     */
+    @Nonnull private static RuntimeException unwrap(@Nonnull final CompletionException e)
+            throws JAXBException, IOException {
+        final Throwable cause = e.getCause();
+        if (cause instanceof JAXBException) {
+            throw (JAXBException) cause;
+        } else if (cause instanceof IOException) {
+            throw (IOException) cause;
+        } else if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return e;
+    }
+
+    /**
+     * A parsed fragment.
+     *
+     * @param path the fragment file
+     * @param digest digest of the file the fragment was parsed from
+     * @param element the root of the fragment's JAXB object graph
+     * @param references the reference made by each grant in the fragment
+     */
+    private record Fragment(@Nonnull Path path, @Nonnull byte[] digest, @Nonnull MembersElement element,
+            @Nonnull List<ReferenceRecorder.Reference> references) {
+    }
+
+}
@@ -0,0 +1,727 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.Source;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.UnmarshalException;
+import net.shibboleth.shared.component.ComponentInitializationException;
+import uk.org.ukfederation.members.jaxb.MembersElement;
+
+/**
+ * Thread-safe, reusable factory for {@link Members} objects.
+ *
+ * Compiling the members schema and building the JAXB context account for most of the
+ * cost of constructing a {@link Members} object, but neither depends on the document
+ * being loaded. A {@link MembersLoader} does each of these once and shares the results
+ * between loads. The schema bundled with this project is compiled on first use; the most
+ * recently used override schemas are cached under a digest of their content, so that presenting
+ * an identical schema document again does not recompile it.
+ *
+ * The {@link Members} constructors use the instance returned by {@link #getDefault()}, whose
+ * options can not be changed; callers needing other options construct a {@link MembersLoader}
+ * of their own.
+ */
+@ThreadSafe
+public class MembersLoader {
+
+    /** Name of the schema resource bundled with this project. */
+    static final String SCHEMA_RESOURCE = "ukfederation-members.xsd";
+
+    /** Shared instance used by the {@link Members} constructors. */
+    private static final MembersLoader DEFAULT = new MembersLoader(true);
+
+    /** Class logger. */
+    private final Logger log = LoggerFactory.getLogger(MembersLoader.class);
+
+    /** JAXB context for the members object graph, built on first use. */
+    private volatile JAXBContext jaxbContext;
+
+    /** Compiled form of the bundled schema, built on first use. */
+    private volatile CompiledSchema defaultSchema;
+
+    /** Number of compiled override schemas kept. */
+    static final int OVERRIDE_SCHEMA_CACHE_SIZE = 8;
+
+    /** Most recently used compiled override schemas, indexed by a digest of their content. */
+    @GuardedBy("overrideSchemas") private final Map<String, CompiledSchema> overrideSchemas =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, CompiledSchema> eldest) {
+                    return size() > OVERRIDE_SCHEMA_CACHE_SIZE;
+                }
+            };
+
+    /** Whether to build the pushed scope index while loading, rather than on first use. */
+    private volatile boolean eagerScopeIndex;
+
+    /** Executor for the semantic checks, or <code>null</code> to make them sequentially. */
+    @Nullable private volatile Executor checkExecutor;
+
+    /** Receiver for measurements of loading and lookups. */
+    @Nonnull private volatile MembersMetrics metrics = MembersMetrics.NOOP;
+
+    /** Capacity of the unmarshaller pool of each schema compiled. */
+    private volatile int unmarshallerPoolSize = Runtime.getRuntime().availableProcessors();
+
+    /** Whether this is the shared default instance, whose options can not be changed. */
+    private final boolean shared;
+
+    /**
+     * Constructor.
+     */
+    public MembersLoader() {
+        this(false);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param isShared whether this is the shared default instance
+     */
+    private MembersLoader(final boolean isShared) {
+        shared = isShared;
+    }
+
+    /**
+     * Returns the shared default {@link MembersLoader}.
+     *
+     * The shared instance is used by unrelated code throughout the JVM, so its options can not be
+     * changed: each of its setters throws {@link IllegalStateException}. Construct a
+     * {@link MembersLoader} to load with other options.
+     *
+     * @return the shared instance
+     */
+    @Nonnull public static MembersLoader getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Indicates whether the pushed scope index is built while loading, rather than on first use.
+     *
+     * @return <code>true</code> if the index is built while loading
+     */
+    public boolean isEagerScopeIndex() {
+        return eagerScopeIndex;
+    }
+
+    /**
+     * Sets whether the pushed scope index is built while loading, rather than on first use.
+     *
+     * Building the index eagerly moves its cost out of the first call to
+     * {@link Members#scopesForEntity(String)}. Defaults to <code>false</code>.
+     *
+     * @param eager <code>true</code> to build the index while loading
+     * @throws IllegalStateException if this is the {@linkplain #getDefault() shared instance}
+     */
+    public void setEagerScopeIndex(final boolean eager) {
+        checkModifiable();
+        eagerScopeIndex = eager;
+    }
+
+    /**
+     * Returns the executor the semantic checks are spread across.
+     *
+     * @return the executor, or <code>null</code> if the checks are made sequentially
+     */
+    @Nullable public Executor getCheckExecutor() {
+        return checkExecutor;
+    }
+
+    /**
+     * Sets an executor to spread the semantic checks made after unmarshalling across.
+     *
+     * When an executor is set, domain conflict detection and the grant and <code>orgID</code>
+     * consistency checks are split into tasks run on the executor, which is worthwhile for
+     * documents with many thousands of participants. {@link java.util.concurrent.ForkJoinPool#commonPool()}
+     * is a suitable choice. The problems found, their messages and the order in which they are
+     * reported are the same as when the checks are made sequentially.
+     *
+     * Defaults to <code>null</code>, making the checks sequentially on the loading thread.
+     *
+     * @param executor the executor, or <code>null</code> to make the checks sequentially
+     * @throws IllegalStateException if this is the {@linkplain #getDefault() shared instance}
+     */
+    public void setCheckExecutor(@Nullable final Executor executor) {
+        checkModifiable();
+        checkExecutor = executor;
+    }
+
+    /**
+     * Returns the receiver for measurements of loading and lookups.
+     *
+     * @return the {@link MembersMetrics}
+     */
+    @Nonnull public MembersMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets the receiver for measurements of schema compilation, and of loading and lookups on
+     * the {@link Members} objects subsequently loaded.
+     *
+     * Defaults to {@link MembersMetrics#NOOP}.
+     *
+     * @param membersMetrics the {@link MembersMetrics}
+     * @throws IllegalStateException if this is the {@linkplain #getDefault() shared instance}
+     */
+    public void setMetrics(@Nonnull final MembersMetrics membersMetrics) {
+        checkModifiable();
+        metrics = membersMetrics;
+    }
+
+    /**
+     * Returns the capacity of the {@link UnmarshallerPool} of each schema compiled.
+     *
+     * @return the pool capacity
+     */
+    public int getUnmarshallerPoolSize() {
+        return unmarshallerPoolSize;
+    }
+
+    /**
+     * Sets the capacity of the {@link UnmarshallerPool} of each schema compiled, which is the
+     * greatest number of documents which can be loaded against the same schema at once.
+     *
+     * This only affects schemas compiled after it is called, so should be set before the first
+     * load. Defaults to the number of available processors.
+     *
+     * @param size the pool capacity
+     * @throws IllegalStateException if this is the {@linkplain #getDefault() shared instance}
+     */
+    public void setUnmarshallerPoolSize(final int size) {
+        checkModifiable();
+        if (size < 1) {
+            throw new IllegalArgumentException("pool capacity must be positive: " + size);
+        }
+        unmarshallerPoolSize = size;
+    }
+
+    /**
+     * Checks that this loader's options may be changed.
+     *
+     * @throws IllegalStateException if this is the shared instance
+     */
+    private void checkModifiable() {
+        if (shared) {
+            throw new IllegalStateException("the default MembersLoader is shared and can not be reconfigured;"
+                    + " construct a MembersLoader to set loading options");
+        }
+    }
+
+    /**
+     * Loads a {@link Members} object from an XML document, validating against the
+     * schema defined in this project.
+     *
+     * @param document {@link Document} node to base the {@link Members} object on
+     * @return the new {@link Members} object
+     * @throws ComponentInitializationException if there is a problem in the members document
+     * @throws JAXBException if there is a problem unmarshalling the members document
+     * @throws SAXException if there is a problem parsing the schema document
+     */
+    @Nonnull public Members load(@Nonnull final Document document)
+            throws ComponentInitializationException, JAXBException, SAXException {
+        return new Members(input(document), null, this);
+    }
+
+    /**
+     * Loads a {@link Members} object from an XML document, validating against the
+     * schema document passed as parameter.
+     *
+     * @param document {@link Document} node to base the {@link Members} object on
+     * @param schema schema to validate against
+     * @return the new {@link Members} object
+     * @throws ComponentInitializationException if there is a problem in the members document
+     * @throws JAXBException if there is a problem unmarshalling the members document
+     * @throws SAXException if there is a problem parsing the schema document
+     */
+    @Nonnull public Members load(@Nonnull final Document document, @Nonnull final Document schema)
+            throws ComponentInitializationException, JAXBException, SAXException {
+        return new Members(input(document), schema, this);
+    }
+
+    /**
+     * Loads a {@link Members} object from a stream containing an XML document, validating
+     * against the schema defined in this project.
+     *
+     * The document is unmarshalled directly from a schema-validating StAX parser, so no
+     * DOM is built and the document is only held in memory once, as the JAXB object graph.
+     *
+     * @param in {@link InputStream} to read the members document from; not closed by this method
+     * @return the new {@link Members} object
+     * @throws ComponentInitializationException if there is a problem in the members document
+     * @throws JAXBException if there is a problem parsing or unmarshalling the members document
+     * @throws SAXException if there is a problem parsing the schema document
+     */
+    @Nonnull public Members load(@Nonnull final InputStream in)
+            throws ComponentInitializationException, JAXBException, SAXException {
+        final XMLStreamReader reader = createStreamReader(in, "members.xml");
+        try {
+            return load(reader);
+        } finally {
+            closeQuietly(reader);
+        }
+    }
+
+    /**
+     * Loads a {@link Members} object from a file containing an XML document, validating
+     * against the schema defined in this project.
+     *
+     * The document is unmarshalled directly from a schema-validating StAX parser, so no
+     * DOM is built and the document is only held in memory once, as the JAXB object graph.
+     *
+     * @param path {@link Path} of the members document
+     * @return the new {@link Members} object
+     * @throws ComponentInitializationException if there is a problem in the members document
+     * @throws JAXBException if there is a problem parsing or unmarshalling the members document
+     * @throws SAXException if there is a problem parsing the schema document
+     * @throws IOException if the file can not be read
+     */
+    @Nonnull public Members load(@Nonnull final Path path)
+            throws ComponentInitializationException, JAXBException, SAXException, IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+            final XMLStreamReader reader = createStreamReader(in, path.toUri().toString());
+            try {
+                return load(reader);
+            } finally {
+                closeQuietly(reader);
+            }
+        }
+    }
+
+    /**
+     * Loads a {@link Members} object from a file containing an XML document, using a
+     * {@link MembersSnapshot} of it where possible.
+     *
+     * If the snapshot file was written from a document identical to the source document, it is
+     * read instead of the document. Otherwise, the document is loaded and validated as by
+     * {@link #load(Path)}, and a new snapshot written for next time. A snapshot which can not be
+     * read or written is logged and otherwise ignored.
+     *
+     * @param source {@link Path} of the members document
+     * @param snapshot {@link Path} of the snapshot file, which need not exist
+     * @return the new {@link Members} object
+     * @throws ComponentInitializationException if there is a problem in the members document
+     * @throws JAXBException if there is a problem parsing or unmarshalling the members document
+     * @throws SAXException if there is a problem parsing the schema document
+     * @throws IOException if the members document can not be read
+     */
+    @Nonnull public Members loadCached(@Nonnull final Path source, @Nonnull final Path snapshot)
+            throws ComponentInitializationException, JAXBException, SAXException, IOException {
+        final byte[] digest = MembersSnapshot.digest(source);
+        if (Files.exists(snapshot)) {
+            try {
+                if (MessageDigest.isEqual(digest, MembersSnapshot.readSourceDigest(snapshot))) {
+                    return MembersSnapshot.read(snapshot, metrics);
+                }
+                log.debug("members snapshot {} is out of date", snapshot);
+            } catch (final IOException e) {
+                log.warn("can not read members snapshot {}: {}", snapshot, e.getMessage());
+            }
+        }
+        final Members members = load(source);
+        try {
+            MembersSnapshot.write(members, digest, snapshot);
+        } catch (final IOException e) {
+            log.warn("can not write members snapshot {}: {}", snapshot, e.getMessage());
+        }
+        return members;
+    }
+
+    /**
+     * Loads a {@link Members} object from a members document split across several fragment
+     * files, validating each against the schema defined in this project.
+     *
+     * To parse only the fragments which have changed when loading again, keep the
+     * {@link MembersFragments} object and call its {@link MembersFragments#load()} method instead.
+     *
+     * @param paths the fragment files, in merge order
+     * @return the new {@link Members} object
+     * @throws ComponentInitializationException if there is a problem in the merged members document
+     * @throws JAXBException if there is a problem parsing or unmarshalling a fragment
+     * @throws SAXException if there is a problem parsing the schema document
+     * @throws IOException if a fragment can not be read
+     */
+    @Nonnull public Members loadFragments(@Nonnull final List<Path> paths)
+            throws ComponentInitializationException, JAXBException, SAXException, IOException {
+        return new MembersFragments(this, paths).load();
+    }
+
+    /**
+     * Loads a {@link LazyMembers} view of a file containing an XML document, validating
+     * against the schema defined in this project.
+     *
+     * The document is validated and checked in a single streaming pass which builds no JAXB
+     * objects; each participant is unmarshalled only when it is first looked up. This suits
+     * tools which only look up a few participants, or only check participant names.
+     *
+     * @param path {@link Path} of the members document
+     * @return the new {@link LazyMembers} object
+     * @throws ComponentInitializationException if there is a problem in the members document
+     * @throws JAXBException if there is a problem parsing or validating the members document
+     * @throws SAXException if there is a problem parsing the schema document
+     * @throws IOException if the file can not be read, or is not in an ASCII-compatible encoding
+     */
+    @Nonnull public LazyMembers loadLazy(@Nonnull final Path path)
+            throws ComponentInitializationException, JAXBException, SAXException, IOException {
+        return LazyMembers.load(path, this);
+    }
+
+    /**
+     * Loads a {@link CompactMembers} view of a file containing an XML document, validating
+     * against the schema defined in this project.
+     *
+     * The document is loaded and checked as by {@link #load(Path)}, then copied into a
+     * {@link CompactMembers} object and the full {@link Members} object released. The heap used
+     * before and after is measured, each time just after requesting a garbage collection, and
+     * recorded in the result; this is intended for the startup of long-running services.
+     *
+     * @param path {@link Path} of the members document
+     * @return the new {@link CompactMembers} object
+     * @throws ComponentInitializationException if there is a problem in the members document
+     * @throws JAXBException if there is a problem parsing or unmarshalling the members document
+     * @throws SAXException if there is a problem parsing the schema document
+     * @throws IOException if the file can not be read
+     */
+    @Nonnull public CompactMembers loadCompact(@Nonnull final Path path)
+            throws ComponentInitializationException, JAXBException, SAXException, IOException {
+        final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        Members members = load(path);
+        memory.gc();
+        final long before = memory.getHeapMemoryUsage().getUsed();
+        final CompactMembers compact = CompactMembers.from(members);
+        // release the JAXB object graph before measuring again
+        members = null;
+        memory.gc();
+        final CompactMembers.HeapUsage usage =
+                new CompactMembers.HeapUsage(before, memory.getHeapMemoryUsage().getUsed());
+        log.debug("compacted members document {}: {}", path, usage);
+        return compact.withHeapUsage(usage);
+    }
+
+    /**
+     * Loads a {@link Members} object from a StAX stream reader, validating against the
+     * schema defined in this project.
+     *
+     * @param reader {@link XMLStreamReader} positioned at the start of the document,
+     *  or on the <code>Members</code> start tag; not closed by this method
+     * @return the new {@link Members} object
+     * @throws ComponentInitializationException if there is a problem in the members document
+     * @throws JAXBException if there is a problem parsing or unmarshalling the members document
+     * @throws SAXException if there is a problem parsing the schema document
+     */
+    @Nonnull public Members load(@Nonnull final XMLStreamReader reader)
+            throws ComponentInitializationException, JAXBException, SAXException {
+        return new Members(unmarshaller -> unmarshaller.unmarshal(reader, MembersElement.class), null, this);
+    }
+
+    /**
+     * Validates an XML document in collecting mode, against the schema defined in this project.
+     *
+     * Unlike {@link #load(Document)}, which stops at the first problem, this applies schema
+     * validation and every semantic check to the whole document and reports all of the problems
+     * found. Locations are reported as element paths; line numbers are not available from a DOM.
+     *
+     * @param document the members document
+     * @return the {@link ValidationReport}, including the loaded {@link Members} if there are no errors
+     * @throws JAXBException if there is a problem constructing the JAXB context
+     * @throws SAXException if there is a problem parsing the schema document
+     */
+    @Nonnull public ValidationReport validate(@Nonnull final Document document) throws JAXBException, SAXException {
+        return validate(input(document), new ValidationCollector(null));
+    }
+
+    /**
+     * Validates an XML document read from a stream in collecting mode, against the schema
+     * defined in this project.
+     *
+     * Unlike {@link #load(InputStream)}, which stops at the first problem, this applies schema
+     * validation and every semantic check to the whole document and reports all of the problems
+     * found, with their line numbers.
+     *
+     * @param in {@link InputStream} to read the members document from; not closed by this method
+     * @return the {@link ValidationReport}, including the loaded {@link Members} if there are no errors
+     * @throws JAXBException if there is a problem constructing the JAXB context
+     * @throws SAXException if there is a problem parsing the schema document
+     */
+    @Nonnull public ValidationReport validate(@Nonnull final InputStream in) throws JAXBException, SAXException {
+        final XMLStreamReader reader = createStreamReader(in, "members.xml");
+        try {
+            return validate(unmarshaller -> unmarshaller.unmarshal(reader, MembersElement.class),
+                    new ValidationCollector(reader));
+        } finally {
+            closeQuietly(reader);
+        }
+    }
+
+    /**
+     * Validates a file containing an XML document in collecting mode, against the schema
+     * defined in this project.
+     *
+     * @param path {@link Path} of the members document
+     * @return the {@link ValidationReport}, including the loaded {@link Members} if there are no errors
+     * @throws JAXBException if there is a problem constructing the JAXB context
+     * @throws SAXException if there is a problem parsing the schema document
+     * @throws IOException if the file can not be read
+     * @see #validate(InputStream)
+     */
+    @Nonnull public ValidationReport validate(@Nonnull final Path path)
+            throws JAXBException, SAXException, IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+            final XMLStreamReader reader = createStreamReader(in, path.toUri().toString());
+            try {
+                return validate(unmarshaller -> unmarshaller.unmarshal(reader, MembersElement.class),
+                        new ValidationCollector(reader));
+            } finally {
+                closeQuietly(reader);
+            }
+        }
+    }
+
+    /**
+     * Validates a members document in collecting mode.
+     *
+     * @param input the members document
+     * @param collector the collector to record problems in
+     * @return the {@link ValidationReport}
+     * @throws JAXBException if there is a problem constructing the JAXB context
+     * @throws SAXException if there is a problem parsing the schema document
+     */
+    @Nonnull private ValidationReport validate(@Nonnull final Members.Input input,
+            @Nonnull final ValidationCollector collector) throws JAXBException, SAXException {
+        try {
+            return collector.toReport(new Members(input, null, this, collector));
+        } catch (final UnmarshalException e) {
+            // the document could not be parsed any further
+            final Throwable cause = e.getMessage() == null && e.getLinkedException() != null ?
+                    e.getLinkedException() : e;
+            collector.fatal(String.valueOf(cause.getMessage()));
+            return collector.toReport(null);
+        } catch (final ComponentInitializationException e) {
+            // semantic problems are collected, not thrown
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Makes an unmarshalling step for a DOM members document.
+     *
+     * @param document {@link Document} node to base the {@link Members} object on
+     * @return the unmarshalling step
+     */
+    @Nonnull static Members.Input input(@Nonnull final Document document) {
+        final DOMSource source = new DOMSource(document.getDocumentElement(), "members.xml");
+        return unmarshaller -> unmarshaller.unmarshal(source, MembersElement.class);
+    }
+
+    /**
+     * Creates a namespace-aware StAX reader for a members document.
+     *
+     * DTDs and external entities are not supported: members documents never need them.
+     *
+     * @param in {@link InputStream} to read the document from
+     * @param systemId system ID to report in error messages
+     * @return the new {@link XMLStreamReader}
+     * @throws JAXBException if the reader can not be created
+     */
+    @Nonnull static XMLStreamReader createStreamReader(@Nonnull final InputStream in, @Nonnull final String systemId)
+            throws JAXBException {
+        final XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        try {
+            return factory.createXMLStreamReader(systemId, in);
+        } catch (final XMLStreamException e) {
+            throw new UnmarshalException(e);
+        }
+    }
+
+    /**
+     * Closes a StAX reader, logging rather than throwing any exception.
+     *
+     * @param reader the reader to close
+     */
+    private void closeQuietly(@Nonnull final XMLStreamReader reader) {
+        try {
+            reader.close();
+        } catch (final XMLStreamException e) {
+            log.debug("error closing stream reader", e);
+        }
+    }
+
+    /**
+     * Returns the compiled form of the schema bundled with this project, compiling it
+     * if this has not already been done.
+     *
+     * @return the compiled bundled schema
+     * @throws SAXException if there is a problem parsing the schema document
+     * @throws JAXBException if there is a problem constructing the JAXB context
+     */
+    @Nonnull public CompiledSchema getDefaultSchema() throws SAXException, JAXBException {
+        CompiledSchema schema = defaultSchema;
+        if (schema == null) {
+            synchronized (this) {
+                schema = defaultSchema;
+                if (schema == null) {
+                    final URL url = MembersLoader.class.getClassLoader().getResource(SCHEMA_RESOURCE);
+                    if (url == null) {
+                        throw new SAXException("schema resource not found: " + SCHEMA_RESOURCE);
+                    }
+                    schema = compile(new StreamSource(url.toExternalForm()));
+                    defaultSchema = schema;
+                }
+            }
+        }
+        return schema;
+    }
+
+    /**
+     * Returns the compiled form of an override schema, compiling it if an identical
+     * schema document has not been seen recently.
+     *
+     * Only the {@value #OVERRIDE_SCHEMA_CACHE_SIZE} most recently used override schemas are kept,
+     * so a service presenting many different schema documents recompiles those it has not used
+     * recently rather than keeping every compiled schema and its unmarshaller pool.
+     *
+     * @param schemaDocument the schema document
+     * @return the compiled schema
+     * @throws SAXException if there is a problem parsing the schema document
+     * @throws JAXBException if there is a problem constructing the JAXB context
+     */
+    @Nonnull public CompiledSchema getSchema(@Nonnull final Document schemaDocument)
+            throws SAXException, JAXBException {
+        final String digest = digest(schemaDocument);
+        synchronized (overrideSchemas) {
+            final CompiledSchema cached = overrideSchemas.get(digest);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        /*
+         * Two threads may race to compile the same schema; that costs some
+         * duplicated work, but both end up sharing whichever result is cached first.
+         */
+        final CompiledSchema schema = compile(new DOMSource(schemaDocument.getDocumentElement(), SCHEMA_RESOURCE));
+        synchronized (overrideSchemas) {
+            final CompiledSchema previous = overrideSchemas.putIfAbsent(digest, schema);
+            return previous == null ? schema : previous;
+        }
+    }
+
+    /**
+     * Returns the JAXB context for the members object graph, constructing it on first use.
+     *
+     * @return the JAXB context
+     * @throws JAXBException if there is a problem constructing the context
+     */
+    @Nonnull JAXBContext getJAXBContext() throws JAXBException {
+        JAXBContext context = jaxbContext;
+        if (context == null) {
+            synchronized (this) {
+                context = jaxbContext;
+                if (context == null) {
+                    context = JAXBContext.newInstance(MembersElement.class);
+                    jaxbContext = context;
+                }
+            }
+        }
+        return context;
+    }
+
+    /**
+     * Compiles a schema.
+     *
+     * @param schemaSource schema to compile
+     * @return the compiled schema
+     * @throws SAXException if there is a problem parsing the schema document
+     * @throws JAXBException if there is a problem constructing the JAXB context
+     */
+    @Nonnull private CompiledSchema compile(@Nonnull final Source schemaSource) throws SAXException, JAXBException {
+        final JAXBContext context = getJAXBContext();
+        final long start = System.nanoTime();
+        final SchemaFactory sf = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+        final Schema schema = sf.newSchema(schemaSource);
+        final long nanos = System.nanoTime() - start;
+        log.debug("compiled schema {} in {}ms", schemaSource.getSystemId(), nanos / 1_000_000);
+        metrics.schemaCompiled(String.valueOf(schemaSource.getSystemId()), nanos);
+        return new CompiledSchema(schema, context, nanos, unmarshallerPoolSize);
+    }
+
+    /**
+     * Computes a digest of a schema document's content, for use as a cache key.
+     *
+     * @param schemaDocument the schema document
+     * @return hex-encoded SHA-256 digest of the serialized document
+     * @throws SAXException if the document can not be serialized
+     */
+    @Nonnull private static String digest(@Nonnull final Document schemaDocument) throws SAXException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            TransformerFactory.newInstance().newTransformer()
+                .transform(new DOMSource(schemaDocument), new StreamResult(bytes));
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes.toByteArray()));
+        } catch (final TransformerException e) {
+            throw new SAXException("could not serialize schema document", e);
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+}
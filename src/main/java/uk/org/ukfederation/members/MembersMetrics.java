@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Receives measurements of the work done in loading and querying {@link Members} objects.
+ *
+ * An implementation can be set on a {@link MembersLoader} to pass the measurements to a metrics
+ * system; {@link CountingMembersMetrics} accumulates them in memory. Every method has an empty
+ * default, and the default instance {@link #NOOP} overrides none of them, so that uninstrumented
+ * loading and lookups do no extra work. Implementations must be thread-safe, and should return quickly,
+ * as they are called on the lookup paths.
+ */
+public interface MembersMetrics {
+
+    /** Instance which discards every measurement. */
+    @Nonnull MembersMetrics NOOP = new MembersMetrics() {
+    };
+
+    /**
+     * Called when a schema has been compiled.
+     *
+     * @param systemId system ID of the schema
+     * @param nanos time taken, in nanoseconds
+     */
+    default void schemaCompiled(@Nonnull final String systemId, final long nanos) {
+    }
+
+    /**
+     * Called when a {@link Members} object has been loaded from a document or a snapshot.
+     *
+     * @param timings time spent in each phase of loading
+     * @param sizes sizes of the indexes built while loading
+     */
+    default void loaded(@Nonnull final LoadTimings timings, @Nonnull final IndexSizes sizes) {
+    }
+
+    /**
+     * Called when an index built on first use has been built.
+     *
+     * @param index the index
+     * @param nanos time taken, in nanoseconds
+     */
+    default void lazyIndexBuilt(@Nonnull final LazyIndex index, final long nanos) {
+    }
+
+    /**
+     * Called on each lookup.
+     *
+     * @param lookup the lookup method called
+     * @param hit <code>true</code> if the lookup found something
+     */
+    default void lookup(@Nonnull final Lookup lookup, final boolean hit) {
+    }
+
+    /**
+     * The instrumented lookup methods of {@link Members}.
+     */
+    enum Lookup {
+
+        /** {@link Members#getParticipantByName(String)}. */
+        PARTICIPANT_BY_NAME,
+
+        /** {@link Members#getMemberByName(String)}. */
+        MEMBER_BY_NAME,
+
+        /**
+         * {@link Members#getParticipantById(String)}, and each ID passed to
+         * {@link Members#getParticipantsById(java.util.List)}.
+         */
+        PARTICIPANT_BY_ID,
+
+        /** {@link Members#getMemberById(String)}. */
+        MEMBER_BY_ID,
+
+        /** {@link Members#isOwnerName(String)}. */
+        IS_OWNER_NAME,
+
+        /** {@link Members#findDomainOwner(String)}. */
+        FIND_DOMAIN_OWNER,
+
+        /** {@link Members#findOwnedDomain(String)}. */
+        FIND_OWNED_DOMAIN,
+
+        /** {@link Members#findGrantsCovering(String, String)}. */
+        FIND_GRANTS_COVERING,
+
+        /** {@link Members#scopesForEntity(String)}. */
+        SCOPES_FOR_ENTITY,
+
+        /** {@link Members#entitiesForScope(String)}. */
+        ENTITIES_FOR_SCOPE,
+
+        /**
+         * {@link Members#getIncomingGrants(uk.org.ukfederation.members.jaxb.MemberElement)} and
+         * {@link Members#getIncomingGrants(String)}.
+         */
+        INCOMING_GRANTS
+    }
+
+    /**
+     * The indexes of {@link Members} which are built on first use.
+     */
+    enum LazyIndex {
+
+        /**
+         * The pushed scope index; when {@link MembersLoader#setEagerScopeIndex(boolean)} is set,
+         * this is built while loading.
+         */
+        PUSHED_SCOPES,
+
+        /** The audit index returned by {@link Members#getAuditIndex()}. */
+        AUDIT,
+
+        /** The search index returned by {@link Members#getParticipantSearch()}. */
+        PARTICIPANT_SEARCH,
+
+        /** The JAXB object graph and its indexes, for an object read from a {@link MembersSnapshot}. */
+        SNAPSHOT_TREE
+    }
+
+}
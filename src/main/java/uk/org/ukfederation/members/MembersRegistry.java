@@ -0,0 +1,378 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.shibboleth.shared.component.ComponentInitializationException;
+
+/**
+ * Holds the current {@link Members} snapshot, and replaces it when the members document changes.
+ *
+ * A replacement snapshot is loaded and completely validated, and its indexes are built, before
+ * it is published with a single atomic reference swap. Readers calling {@link #getMembers()}
+ * therefore never block and never see a partially built snapshot; a reader wanting a consistent
+ * view across several queries should call {@link #getMembers()} once and keep the result.
+ *
+ * If a reload fails, the failure is recorded and logged, and the last good snapshot remains
+ * published.
+ *
+ * Reloads can be requested explicitly, or scheduled with {@link #start(Duration)}. When the
+ * registry was constructed from a {@link Path}, scheduled reloads only happen if the file's
+ * modification time or size has changed since the last load.
+ */
+@ThreadSafe
+public class MembersRegistry implements AutoCloseable {
+
+    /** Class logger. */
+    private final Logger log = LoggerFactory.getLogger(MembersRegistry.class);
+
+    /** Source of new snapshots. */
+    @Nonnull private final MembersSource source;
+
+    /** File to watch for changes, or <code>null</code> if the source is not a file. */
+    @Nullable private final Path watchedFile;
+
+    /** The currently published snapshot. */
+    @Nonnull private final AtomicReference<Members> current = new AtomicReference<>();
+
+    /** Number of snapshots published so far. */
+    @Nonnull private final AtomicLong generation = new AtomicLong();
+
+    /** Lock serializing reloads. */
+    @Nonnull private final Object reloadLock = new Object();
+
+    /** Modification time of the watched file when it was last loaded. */
+    @GuardedBy("reloadLock") @Nullable private FileTime loadedModifiedTime;
+
+    /** Size of the watched file when it was last loaded. */
+    @GuardedBy("reloadLock") private long loadedSize = -1;
+
+    /** Executor used for background and scheduled reloads, created on demand. */
+    @GuardedBy("this") @Nullable private ScheduledExecutorService executor;
+
+    /** The periodic reload task, once started. */
+    @GuardedBy("this") @Nullable private ScheduledFuture<?> periodicReload;
+
+    /** The most recent reload failure, cleared by a successful reload. */
+    @Nullable private volatile Exception lastFailure;
+
+    /** When the current snapshot was published. */
+    @Nullable private volatile Instant lastPublished;
+
+    /** Listeners told of each publication. */
+    @Nonnull private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Constructor for a registry watching a members file, loaded using the default {@link MembersLoader}.
+     *
+     * @param file the members file
+     */
+    public MembersRegistry(@Nonnull final Path file) {
+        this(file, MembersLoader.getDefault());
+    }
+
+    /**
+     * Constructor for a registry watching a members file.
+     *
+     * @param file the members file
+     * @param loader the {@link MembersLoader} to load the file with
+     */
+    public MembersRegistry(@Nonnull final Path file, @Nonnull final MembersLoader loader) {
+        source = () -> loader.load(file);
+        watchedFile = file;
+    }
+
+    /**
+     * Constructor for a registry using an arbitrary source of snapshots.
+     *
+     * Every scheduled reload will call the source.
+     *
+     * @param membersSource the source of new snapshots
+     */
+    public MembersRegistry(@Nonnull final MembersSource membersSource) {
+        source = membersSource;
+        watchedFile = null;
+    }
+
+    /**
+     * Loads and publishes the initial snapshot.
+     *
+     * @throws ComponentInitializationException if the initial snapshot can not be loaded
+     */
+    public void initialize() throws ComponentInitializationException {
+        if (!reload()) {
+            throw new ComponentInitializationException("could not load initial members snapshot", lastFailure);
+        }
+    }
+
+    /**
+     * Returns the currently published snapshot.
+     *
+     * This never blocks.
+     *
+     * @return the current {@link Members} snapshot
+     * @throws IllegalStateException if no snapshot has yet been published
+     */
+    @Nonnull public Members getMembers() {
+        final Members members = current.get();
+        if (members == null) {
+            throw new IllegalStateException("no members snapshot has been loaded");
+        }
+        return members;
+    }
+
+    /**
+     * Returns the number of snapshots published so far.
+     *
+     * @return the snapshot generation, <code>0</code> before the first publication
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Returns the time at which the current snapshot was published.
+     *
+     * @return the publication time, or <code>null</code> if no snapshot has been published
+     */
+    @Nullable public Instant getLastPublished() {
+        return lastPublished;
+    }
+
+    /**
+     * Returns the failure from the most recent reload attempt, if it failed.
+     *
+     * @return the exception which caused the last reload to fail, or <code>null</code>
+     */
+    @Nullable public Exception getLastFailure() {
+        return lastFailure;
+    }
+
+    /**
+     * Adds a listener to be told of each snapshot published from now on.
+     *
+     * @param listener the listener
+     */
+    public void addListener(@Nonnull final Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener.
+     *
+     * @param listener the listener
+     */
+    public void removeListener(@Nonnull final Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Loads a new snapshot and publishes it, regardless of whether the source has changed.
+     *
+     * @return <code>true</code> if a new snapshot was published, <code>false</code> if the load failed
+     */
+    public boolean reload() {
+        synchronized (reloadLock) {
+            return doReload();
+        }
+    }
+
+    /**
+     * Loads and publishes a new snapshot if the watched file has changed since the last load.
+     *
+     * If the registry is not watching a file, this always reloads.
+     *
+     * @return <code>true</code> if a new snapshot was published
+     */
+    public boolean reloadIfModified() {
+        synchronized (reloadLock) {
+            if (watchedFile != null && current.get() != null) {
+                try {
+                    final BasicFileAttributes attributes =
+                            Files.readAttributes(watchedFile, BasicFileAttributes.class);
+                    if (attributes.lastModifiedTime().equals(loadedModifiedTime)
+                            && attributes.size() == loadedSize) {
+                        return false;
+                    }
+                } catch (final IOException e) {
+                    log.warn("could not check members file {}: {}", watchedFile, e.getMessage());
+                    lastFailure = e;
+                    return false;
+                }
+            }
+            return doReload();
+        }
+    }
+
+    /**
+     * Requests a reload on the registry's background thread.
+     *
+     * @return a future completing with the result of {@link #reload()}
+     */
+    @Nonnull public CompletableFuture<Boolean> reloadInBackground() {
+        return CompletableFuture.supplyAsync(this::reload, getExecutor());
+    }
+
+    /**
+     * Starts periodic reloading.
+     *
+     * Each period, {@link #reloadIfModified()} is called on the registry's background thread.
+     * Periodic reloading can only be started once, until the registry is closed.
+     *
+     * @param interval the interval between checks
+     */
+    public synchronized void start(@Nonnull final Duration interval) {
+        if (periodicReload != null) {
+            throw new IllegalStateException("members registry periodic reloading already started");
+        }
+        final long millis = interval.toMillis();
+        periodicReload = getExecutor().scheduleWithFixedDelay(this::reloadIfModified, millis, millis,
+                TimeUnit.MILLISECONDS);
+        log.debug("checking for members changes every {}ms", millis);
+    }
+
+    /**
+     * Stops any background reloading.
+     *
+     * The last published snapshot remains available.
+     */
+    @Override
+    public synchronized void close() {
+        periodicReload = null;
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Loads, validates and publishes a new snapshot.
+     *
+     * @return <code>true</code> if a new snapshot was published
+     */
+    @GuardedBy("reloadLock") private boolean doReload() {
+        try {
+            final BasicFileAttributes attributes = watchedFile == null ? null :
+                Files.readAttributes(watchedFile, BasicFileAttributes.class);
+            final Members members = source.load();
+
+            // Build lazily constructed indexes before anyone can see the snapshot.
+            members.getPushedScopeIndex();
+
+            final Members previous = current.getAndSet(members);
+            lastPublished = Instant.now();
+            lastFailure = null;
+            if (attributes != null) {
+                loadedModifiedTime = attributes.lastModifiedTime();
+                loadedSize = attributes.size();
+            }
+            final long published = generation.incrementAndGet();
+            log.info("published members snapshot {} ({})", published, members.getLoadTimings());
+            for (final Listener listener : listeners) {
+                try {
+                    listener.published(previous, members, published);
+                } catch (final RuntimeException e) {
+                    log.error("members registry listener failed", e);
+                }
+            }
+            return true;
+        } catch (final Exception e) {
+            lastFailure = e;
+            if (current.get() == null) {
+                log.error("could not load members snapshot: {}", e.getMessage());
+            } else {
+                log.error("could not reload members snapshot, keeping the previous one: {}", e.getMessage());
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Returns the background executor, creating it if necessary.
+     *
+     * @return the background executor
+     */
+    @Nonnull private synchronized ScheduledExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "members-registry");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    /**
+     * Receives each newly published {@link Members} snapshot.
+     *
+     * Listeners are called on the thread which made the reload, after the snapshot has been
+     * published and while further reloads wait, so should return promptly.
+     */
+    @FunctionalInterface
+    public interface Listener {
+
+        /**
+         * Called when a snapshot has been published.
+         *
+         * @param previous the snapshot replaced, or <code>null</code> for the first publication
+         * @param current the snapshot published
+         * @param generation the generation of the snapshot published
+         */
+        void published(@Nullable Members previous, @Nonnull Members current, long generation);
+    }
+
+    /**
+     * A source of new {@link Members} snapshots.
+     */
+    @FunctionalInterface
+    public interface MembersSource {
+
+        /**
+         * Loads a new snapshot.
+         *
+         * @return the new snapshot
+         * @throws Exception if the snapshot can not be loaded
+         */
+        @Nonnull Members load() throws Exception;
+    }
+
+}
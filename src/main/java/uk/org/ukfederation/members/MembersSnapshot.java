@@ -0,0 +1,581 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+
+import uk.org.ukfederation.members.jaxb.ApprovedEntityAttributeElement;
+import uk.org.ukfederation.members.jaxb.ApprovedEntityAttributesElement;
+import uk.org.ukfederation.members.jaxb.BaseGrantType;
+import uk.org.ukfederation.members.jaxb.DomainElement;
+import uk.org.ukfederation.members.jaxb.DomainsElement;
+import uk.org.ukfederation.members.jaxb.EntityIDElement;
+import uk.org.ukfederation.members.jaxb.EntityIDsElement;
+import uk.org.ukfederation.members.jaxb.GrantElement;
+import uk.org.ukfederation.members.jaxb.GrantsElement;
+import uk.org.ukfederation.members.jaxb.MemberElement;
+import uk.org.ukfederation.members.jaxb.MembersElement;
+import uk.org.ukfederation.members.jaxb.ParticipantType;
+import uk.org.ukfederation.members.jaxb.ScopesElement;
+
+/**
+ * Reads and writes binary snapshots of validated {@link Members} objects.
+ *
+ * A snapshot holds everything in the members document: participants, domains, grants, pushed scopes,
+ * entity IDs, approved entity attributes and audit attributes. It also records a SHA-256 digest of
+ * the source document it was made from, so that a stale snapshot can be recognised without loading it.
+ *
+ * Reading a snapshot memory-maps the file and rebuilds only the participant names and the pushed
+ * scope index, which takes milliseconds even for very large documents; no XML parsing, schema
+ * validation or unmarshalling is involved. The JAXB object graph, and the indexes built from it,
+ * are rebuilt from the snapshot the first time anything asks for them.
+ *
+ * <p>The file format is:</p>
+ * <ul>
+ * <li>the eight ASCII bytes <code>UKFMEMBS</code>;</li>
+ * <li>the format version, currently {@value #FORMAT_VERSION}, as a 4-byte integer;</li>
+ * <li>the 32-byte SHA-256 digest of the source document;</li>
+ * <li>the CRC-32C of the rest of the file, as a 4-byte integer;</li>
+ * <li>a table of every distinct string, each as a length-prefixed UTF-8 sequence;</li>
+ * <li>the number of domains and of grants;</li>
+ * <li>the name and kind of each participant;</li>
+ * <li>the contents of each <code>Scopes</code> element;</li>
+ * <li>the full content of each participant.</li>
+ * </ul>
+ * <p>All integers are big-endian. Everything after the string table refers to strings by their
+ * index in the table, with <code>-1</code> standing for an absent value.</p>
+ */
+@ThreadSafe
+public final class MembersSnapshot {
+
+    /** Current format version. Snapshots with any other version are not read. */
+    public static final int FORMAT_VERSION = 2;
+
+    /** Bytes identifying a snapshot file. */
+    static final byte[] MAGIC = "UKFMEMBS".getBytes(StandardCharsets.US_ASCII);
+
+    /** Length of a SHA-256 digest. */
+    static final int DIGEST_LENGTH = 32;
+
+    /** Length of the header preceding the checksummed content. */
+    static final int HEADER_LENGTH = MAGIC.length + Integer.BYTES + DIGEST_LENGTH + Integer.BYTES;
+
+    /** Participant kind: <code>Member</code>. */
+    static final byte MEMBER = 0;
+
+    /** Participant kind: <code>DomainOwner</code>. */
+    static final byte DOMAIN_OWNER = 1;
+
+    /** Grant kind: <code>Grant</code>. */
+    static final byte GRANT = 0;
+
+    /** Grant kind: <code>GrantAll</code>. */
+    static final byte GRANT_ALL = 1;
+
+    /** Constructor. */
+    private MembersSnapshot() {
+    }
+
+    /**
+     * Computes the SHA-256 digest of a source document, for recording in or comparing with a snapshot.
+     *
+     * @param source the source document
+     * @return the digest
+     * @throws IOException if the document can not be read
+     */
+    @Nonnull public static byte[] digest(@Nonnull final Path source) throws IOException {
+        final MessageDigest digest = sha256();
+        final byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(source)) {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, n);
+            }
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Writes a snapshot.
+     *
+     * The snapshot is written to a temporary file which then replaces the target, so that readers
+     * never see a partly written snapshot.
+     *
+     * @param members the {@link Members} object to write
+     * @param sourceDigest SHA-256 digest of the document <code>members</code> was loaded from
+     * @param path the snapshot file to write
+     * @throws IOException if the snapshot can not be written
+     */
+    public static void write(@Nonnull final Members members, @Nonnull final byte[] sourceDigest,
+            @Nonnull final Path path) throws IOException {
+        if (sourceDigest.length != DIGEST_LENGTH) {
+            throw new IllegalArgumentException("source digest must be a SHA-256 digest");
+        }
+        final byte[] content = new Encoder(members.getMembersElement()).encode();
+        final CRC32C crc = new CRC32C();
+        crc.update(content);
+
+        final Path parent = path.toAbsolutePath().getParent();
+        final Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream os = Files.newOutputStream(temp, StandardOpenOption.WRITE);
+                    DataOutputStream out = new DataOutputStream(os)) {
+                out.write(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.write(sourceDigest);
+                out.writeInt((int) crc.getValue());
+                out.write(content);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Reads the source document digest recorded in a snapshot, without reading the rest of it.
+     *
+     * @param path the snapshot file
+     * @return the digest, or <code>null</code> if the file is not a snapshot in the current format
+     * @throws IOException if the file can not be read
+     */
+    @Nullable public static byte[] readSourceDigest(@Nonnull final Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+            while (header.hasRemaining() && channel.read(header) > 0) {
+                // keep reading
+            }
+            header.flip();
+            if (!isCurrentHeader(header)) {
+                return null;
+            }
+            final byte[] digest = new byte[DIGEST_LENGTH];
+            header.get(digest);
+            return digest;
+        }
+    }
+
+    /**
+     * Reads a snapshot.
+     *
+     * @param path the snapshot file
+     * @return a {@link Members} object equivalent to the one the snapshot was written from
+     * @throws IOException if the file can not be read, or is not an intact snapshot in the current format
+     */
+    @Nonnull public static Members read(@Nonnull final Path path) throws IOException {
+        return read(path, MembersMetrics.NOOP);
+    }
+
+    /**
+     * Reads a snapshot, passing measurements of loading and lookups to a {@link MembersMetrics}.
+     *
+     * @param path the snapshot file
+     * @param metrics receiver for measurements of loading and lookups
+     * @return a {@link Members} object equivalent to the one the snapshot was written from
+     * @throws IOException if the file can not be read, or is not an intact snapshot in the current format
+     */
+    @Nonnull static Members read(@Nonnull final Path path, @Nonnull final MembersMetrics metrics)
+            throws IOException {
+        final long start = System.nanoTime();
+        final ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // the mapping remains valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (!isCurrentHeader(buffer)) {
+            throw new IOException("not a version " + FORMAT_VERSION + " members snapshot: " + path);
+        }
+        buffer.position(buffer.position() + DIGEST_LENGTH);
+        final int expected = buffer.getInt();
+        final CRC32C crc = new CRC32C();
+        crc.update(buffer.slice());
+        if ((int) crc.getValue() != expected) {
+            throw new IOException("members snapshot is corrupt: " + path);
+        }
+        final SnapshotReader reader = new SnapshotReader(buffer.slice());
+        return new Members(reader, System.nanoTime() - start, metrics);
+    }
+
+    /**
+     * Checks the magic number and version at the start of a buffer, leaving it positioned after them.
+     *
+     * @param buffer the buffer
+     * @return <code>true</code> if the buffer starts with the header of a current-format snapshot
+     */
+    private static boolean isCurrentHeader(@Nonnull final ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_LENGTH) {
+            return false;
+        }
+        final byte[] magic = new byte[MAGIC.length];
+        buffer.get(magic);
+        return Arrays.equals(magic, MAGIC) && buffer.getInt() == FORMAT_VERSION;
+    }
+
+    /**
+     * Returns a new SHA-256 message digest.
+     *
+     * @return the message digest
+     */
+    @Nonnull private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Encodes the content of a snapshot: everything after the header.
+     */
+    private static final class Encoder {
+
+        /** The document to encode. */
+        @Nonnull private final MembersElement document;
+
+        /** All participants, members first, in document order. */
+        @Nonnull private final List<ParticipantType> participants = new ArrayList<>();
+
+        /** Index of each participant in {@link #participants}. */
+        @Nonnull private final Map<Object, Integer> participantIndex = new IdentityHashMap<>();
+
+        /** Index of each distinct string in the string table. */
+        @Nonnull private final Map<String, Integer> stringIndex = new HashMap<>();
+
+        /** The string table. */
+        @Nonnull private final List<String> strings = new ArrayList<>();
+
+        /**
+         * Constructor.
+         *
+         * @param membersElement the document to encode
+         */
+        Encoder(@Nonnull final MembersElement membersElement) {
+            document = membersElement;
+            participants.addAll(document.getMember());
+            participants.addAll(document.getDomainOwner());
+            for (int i = 0; i < participants.size(); i++) {
+                participantIndex.put(participants.get(i), i);
+            }
+        }
+
+        /**
+         * Encodes the document.
+         *
+         * @return the encoded content
+         * @throws IOException if the content can not be encoded
+         */
+        @Nonnull byte[] encode() throws IOException {
+            // encode everything but the string table, collecting the strings
+            final ByteArrayOutputStream body = new ByteArrayOutputStream(participants.size() * 256);
+            final DataOutputStream out = new DataOutputStream(body);
+            int domains = 0;
+            int grants = 0;
+            for (final ParticipantType participant : participants) {
+                domains += Participants.domainListOf(participant).size();
+                grants += Participants.grantListOf(participant).size();
+            }
+            out.writeInt(domains);
+            out.writeInt(grants);
+            out.writeInt(participants.size());
+            for (final ParticipantType participant : participants) {
+                out.writeByte(participant instanceof MemberElement ? MEMBER : DOMAIN_OWNER);
+                out.writeInt(ref(participant.getName()));
+            }
+            final List<ScopesElement> scopes = new ArrayList<>();
+            for (final MemberElement member : document.getMember()) {
+                scopes.addAll(member.getScopes());
+            }
+            out.writeInt(scopes.size());
+            for (final ScopesElement scopesElement : scopes) {
+                writeStrings(out, scopesElement.getEntity());
+                writeStrings(out, scopesElement.getScope());
+            }
+            for (final ParticipantType participant : participants) {
+                writeParticipant(out, participant);
+            }
+            out.flush();
+
+            final ByteArrayOutputStream content = new ByteArrayOutputStream(body.size() + strings.size() * 32);
+            final DataOutputStream table = new DataOutputStream(content);
+            table.writeInt(strings.size());
+            for (final String string : strings) {
+                final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                table.writeInt(bytes.length);
+                table.write(bytes);
+            }
+            table.flush();
+            body.writeTo(content);
+            return content.toByteArray();
+        }
+
+        /**
+         * Returns the string table index of a string, adding it to the table if necessary.
+         *
+         * @param string the string
+         * @return the index, or <code>-1</code> for <code>null</code>
+         */
+        private int ref(@Nullable final String string) {
+            if (string == null) {
+                return -1;
+            }
+            final Integer index = stringIndex.get(string);
+            if (index != null) {
+                return index;
+            }
+            strings.add(string);
+            stringIndex.put(string, strings.size() - 1);
+            return strings.size() - 1;
+        }
+
+        /**
+         * Returns the string table index of a date's lexical form.
+         *
+         * @param date the date
+         * @return the index, or <code>-1</code> for <code>null</code>
+         */
+        private int ref(@Nullable final XMLGregorianCalendar date) {
+            return ref(date == null ? null : date.toXMLFormat());
+        }
+
+        /**
+         * Writes a counted list of strings.
+         *
+         * @param out where to write the list
+         * @param values the strings
+         * @throws IOException if the list can not be written
+         */
+        private void writeStrings(@Nonnull final DataOutputStream out, @Nonnull final List<String> values)
+                throws IOException {
+            out.writeInt(values.size());
+            for (final String value : values) {
+                out.writeInt(ref(value));
+            }
+        }
+
+        /**
+         * Writes the full content of a participant.
+         *
+         * @param out where to write the participant
+         * @param participant the participant
+         * @throws IOException if the participant can not be written
+         */
+        private void writeParticipant(@Nonnull final DataOutputStream out, @Nonnull final ParticipantType participant)
+                throws IOException {
+            out.writeInt(ref(participant.getID()));
+            out.writeInt(ref(participant.getNameComment()));
+            final MemberElement member = participant instanceof MemberElement ? (MemberElement) participant : null;
+            if (member != null) {
+                out.writeInt(ref(member.getJoinDate()));
+            }
+            writeDomains(out, Participants.domainsOf(participant));
+            writeGrants(out, Participants.grantsOf(participant));
+            if (member != null) {
+                out.writeInt(member.getScopes().size());
+                for (final ScopesElement scopesElement : member.getScopes()) {
+                    writeStrings(out, scopesElement.getEntity());
+                    writeStrings(out, scopesElement.getScope());
+                }
+                writeEntityIDs(out, member.getEntityIDs());
+                writeApprovedAttributes(out, member.getApprovedEntityAttributes());
+            }
+        }
+
+        /**
+         * Writes a <code>Domains</code> element.
+         *
+         * @param out where to write the element
+         * @param domains the element, or <code>null</code>
+         * @throws IOException if the element can not be written
+         */
+        private void writeDomains(@Nonnull final DataOutputStream out, @Nullable final DomainsElement domains)
+                throws IOException {
+            if (domains == null) {
+                out.writeInt(-1);
+                return;
+            }
+            out.writeInt(domains.getDomain().size());
+            for (final DomainElement domain : domains.getDomain()) {
+                out.writeInt(ref(domain.getValue()));
+                out.writeInt(ref(domain.getType() == null ? null : domain.getType().value()));
+                writeAudit(out, domain.getLastVerified(), domain.getVerifiedBy(), domain.getSource(),
+                        domain.getSourceURL());
+            }
+        }
+
+        /**
+         * Writes a <code>Grants</code> element.
+         *
+         * @param out where to write the element
+         * @param grants the element, or <code>null</code>
+         * @throws IOException if the element can not be written
+         */
+        private void writeGrants(@Nonnull final DataOutputStream out, @Nullable final GrantsElement grants)
+                throws IOException {
+            if (grants == null) {
+                out.writeInt(-1);
+                return;
+            }
+            out.writeInt(grants.getGrantOrGrantAll().size());
+            for (final BaseGrantType grant : grants.getGrantOrGrantAll()) {
+                final boolean single = grant instanceof GrantElement;
+                out.writeByte(single ? GRANT : GRANT_ALL);
+                out.writeInt(ref(grant.getValue()));
+                out.writeInt(ref(grant.getTo()));
+                final Integer orgID = grant.getOrgID() == null ? null : participantIndex.get(grant.getOrgID());
+                out.writeInt(orgID == null ? -1 : orgID);
+                if (single) {
+                    out.writeInt(ref(((GrantElement) grant).getEntityID()));
+                }
+                writeAudit(out, grant.getLastVerified(), grant.getVerifiedBy(), grant.getSource(),
+                        grant.getSourceURL());
+            }
+        }
+
+        /**
+         * Writes an <code>EntityIDs</code> element.
+         *
+         * Each entity ID is written with its attributes, so that it can be rebuilt as the DOM
+         * {@link Element} JAXB would have produced.
+         *
+         * @param out where to write the element
+         * @param entityIDs the element, or <code>null</code>
+         * @throws IOException if the element can not be written
+         */
+        private void writeEntityIDs(@Nonnull final DataOutputStream out, @Nullable final EntityIDsElement entityIDs)
+                throws IOException {
+            if (entityIDs == null) {
+                out.writeInt(-1);
+                return;
+            }
+            out.writeInt(entityIDs.getEntityID().size());
+            for (final Object object : entityIDs.getEntityID()) {
+                final List<String> attributes = new ArrayList<>();
+                if (object instanceof Element) {
+                    final Element element = (Element) object;
+                    out.writeInt(ref(element.getTextContent()));
+                    final NamedNodeMap map = element.getAttributes();
+                    for (int i = 0; i < map.getLength(); i++) {
+                        final Attr attr = (Attr) map.item(i);
+                        if (!"http://www.w3.org/2000/xmlns/".equals(attr.getNamespaceURI())) {
+                            attributes.add(attr.getName());
+                            attributes.add(attr.getValue());
+                        }
+                    }
+                } else {
+                    out.writeInt(ref(Participants.entityIDValue(object)));
+                    if (object instanceof EntityIDElement) {
+                        final EntityIDElement element = (EntityIDElement) object;
+                        addAttribute(attributes, "lastVerified",
+                                element.getLastVerified() == null ? null : element.getLastVerified().toXMLFormat());
+                        addAttribute(attributes, "verifiedBy", element.getVerifiedBy());
+                        addAttribute(attributes, "source", element.getSource());
+                        addAttribute(attributes, "sourceURL", element.getSourceURL());
+                    }
+                }
+                writeStrings(out, attributes);
+            }
+        }
+
+        /**
+         * Adds an attribute name and value to a list, if the value is present.
+         *
+         * @param attributes list of alternating names and values
+         * @param name the attribute name
+         * @param value the attribute value, or <code>null</code>
+         */
+        private static void addAttribute(@Nonnull final List<String> attributes, @Nonnull final String name,
+                @Nullable final String value) {
+            if (value != null) {
+                attributes.add(name);
+                attributes.add(value);
+            }
+        }
+
+        /**
+         * Writes an <code>ApprovedEntityAttributes</code> element.
+         *
+         * @param out where to write the element
+         * @param approved the element, or <code>null</code>
+         * @throws IOException if the element can not be written
+         */
+        private void writeApprovedAttributes(@Nonnull final DataOutputStream out,
+                @Nullable final ApprovedEntityAttributesElement approved) throws IOException {
+            if (approved == null) {
+                out.writeInt(-1);
+                return;
+            }
+            out.writeInt(approved.getApprovedEntityAttribute().size());
+            for (final ApprovedEntityAttributeElement attribute : approved.getApprovedEntityAttribute()) {
+                out.writeInt(ref(attribute.getName()));
+                out.writeInt(ref(attribute.getNameFormat()));
+                out.writeInt(ref(attribute.getValue()));
+                out.writeInt(ref(attribute.getEntityID()));
+                writeAudit(out, attribute.getLastVerified(), attribute.getVerifiedBy(), attribute.getSource(),
+                        attribute.getSourceURL());
+            }
+        }
+
+        /**
+         * Writes the audit attributes common to several elements.
+         *
+         * @param out where to write the attributes
+         * @param lastVerified the <code>lastVerified</code> attribute
+         * @param verifiedBy the <code>verifiedBy</code> attribute
+         * @param source the <code>source</code> attribute
+         * @param sourceURL the <code>sourceURL</code> attribute
+         * @throws IOException if the attributes can not be written
+         */
+        private void writeAudit(@Nonnull final DataOutputStream out, @Nullable final XMLGregorianCalendar lastVerified,
+                @Nullable final String verifiedBy, @Nullable final String source, @Nullable final String sourceURL)
+                throws IOException {
+            out.writeInt(ref(lastVerified));
+            out.writeInt(ref(verifiedBy));
+            out.writeInt(ref(source));
+            out.writeInt(ref(sourceURL));
+        }
+    }
+
+}
@@ -0,0 +1,551 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.xml.XMLConstants;
+import javax.xml.datatype.XMLGregorianCalendar;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+
+import uk.org.ukfederation.members.jaxb.ApprovedEntityAttributeElement;
+import uk.org.ukfederation.members.jaxb.BaseGrantType;
+import uk.org.ukfederation.members.jaxb.DomainElement;
+import uk.org.ukfederation.members.jaxb.DomainOwnerElement;
+import uk.org.ukfederation.members.jaxb.DomainsElement;
+import uk.org.ukfederation.members.jaxb.EntityIDElement;
+import uk.org.ukfederation.members.jaxb.EntityIDsElement;
+import uk.org.ukfederation.members.jaxb.GrantElement;
+import uk.org.ukfederation.members.jaxb.GrantsElement;
+import uk.org.ukfederation.members.jaxb.MemberElement;
+import uk.org.ukfederation.members.jaxb.MembersElement;
+import uk.org.ukfederation.members.jaxb.ParticipantType;
+import uk.org.ukfederation.members.jaxb.ScopesElement;
+
+/**
+ * Thread-safe, reusable writer for members documents.
+ *
+ * The document is written straight through a StAX {@link XMLStreamWriter}, element by element in
+ * the order required by the schema, without building a DOM or invoking a JAXB marshaller. The
+ * output is indented with four spaces, uses <code>\n</code> line endings and writes attributes in
+ * a fixed order, so that writing the same content always produces the same bytes.
+ *
+ * By default, the output is also in canonical order: members and then domain owners each sorted
+ * by the numeric part of their organisation ID, each participant's domains sorted by name, and
+ * its grants sorted by name granted, then <code>GrantAll</code> before <code>Grant</code>, then
+ * grantee and entity ID. The order of pushed scopes, entity IDs and approved entity attributes
+ * is significant or conventional, so those are written in document order.
+ */
+@ThreadSafe
+public class MembersWriter {
+
+    /** Namespace of the members document. */
+    public static final String MEMBERS_NS = "http://ukfederation.org.uk/2007/01/members";
+
+    /** Default <code>xsi:schemaLocation</code> written on the document element. */
+    public static final String DEFAULT_SCHEMA_LOCATION = MEMBERS_NS + " ukfederation-members.xsd";
+
+    /** Indentation for each level of nesting. */
+    private static final String INDENT = "    ";
+
+    /** Canonical order for participants. */
+    private static final Comparator<ParticipantType> PARTICIPANT_ORDER =
+            Comparator.comparingLong((ParticipantType p) -> p.getID() == null ? -1 : OrgIDIndex.parse(p.getID()))
+                .thenComparing(ParticipantType::getID, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    /** Canonical order for domains. */
+    private static final Comparator<DomainElement> DOMAIN_ORDER =
+            Comparator.comparing((DomainElement d) -> lower(d.getValue()))
+                .thenComparing(DomainElement::getValue, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    /** Canonical order for grants. */
+    private static final Comparator<BaseGrantType> GRANT_ORDER =
+            Comparator.comparing((BaseGrantType g) -> lower(g.getValue()))
+                .thenComparing(g -> g instanceof GrantElement)
+                .thenComparing(BaseGrantType::getTo, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(g -> g instanceof GrantElement ? ((GrantElement) g).getEntityID() : null,
+                        Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    /** Whether to write participants, domains and grants in canonical order. */
+    private volatile boolean canonicalOrder = true;
+
+    /** <code>xsi:schemaLocation</code> to write on the document element, or <code>null</code>. */
+    @Nullable private volatile String schemaLocation = DEFAULT_SCHEMA_LOCATION;
+
+    /**
+     * Indicates whether participants, domains and grants are written in canonical order.
+     *
+     * @return <code>true</code> if they are written in canonical order
+     */
+    public boolean isCanonicalOrder() {
+        return canonicalOrder;
+    }
+
+    /**
+     * Sets whether participants, domains and grants are written in canonical order, rather than
+     * in document order. Defaults to <code>true</code>.
+     *
+     * @param canonical <code>true</code> to write in canonical order
+     */
+    public void setCanonicalOrder(final boolean canonical) {
+        canonicalOrder = canonical;
+    }
+
+    /**
+     * Returns the <code>xsi:schemaLocation</code> written on the document element.
+     *
+     * @return the schema location, or <code>null</code> if none is written
+     */
+    @Nullable public String getSchemaLocation() {
+        return schemaLocation;
+    }
+
+    /**
+     * Sets the <code>xsi:schemaLocation</code> written on the document element.
+     * Defaults to {@link #DEFAULT_SCHEMA_LOCATION}.
+     *
+     * @param location the schema location, or <code>null</code> to write none
+     */
+    public void setSchemaLocation(@Nullable final String location) {
+        schemaLocation = location;
+    }
+
+    /**
+     * Writes the document underlying a {@link Members} object to a file.
+     *
+     * @param members the members to write
+     * @param path the file to write
+     * @throws IOException if the file can not be written
+     * @throws XMLStreamException if the document can not be serialized
+     */
+    public void write(@Nonnull final Members members, @Nonnull final Path path)
+            throws IOException, XMLStreamException {
+        write(members.getMembersElement(), path);
+    }
+
+    /**
+     * Writes the document underlying a {@link Members} object to a stream, encoded as UTF-8.
+     *
+     * @param members the members to write
+     * @param out the stream to write to; not closed by this method
+     * @throws XMLStreamException if the document can not be serialized or written
+     */
+    public void write(@Nonnull final Members members, @Nonnull final OutputStream out) throws XMLStreamException {
+        write(members.getMembersElement(), out);
+    }
+
+    /**
+     * Writes a members document to a file.
+     *
+     * The document is written to a temporary file which then replaces the target, so that readers
+     * never see a partly written document.
+     *
+     * @param members the document to write
+     * @param path the file to write
+     * @throws IOException if the file can not be written
+     * @throws XMLStreamException if the document can not be serialized
+     */
+    public void write(@Nonnull final MembersElement members, @Nonnull final Path path)
+            throws IOException, XMLStreamException {
+        final Path parent = path.toAbsolutePath().getParent();
+        final Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp), 64 * 1024)) {
+                write(members, out);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Writes a members document to a stream, encoded as UTF-8.
+     *
+     * @param members the document to write
+     * @param out the stream to write to; not closed by this method
+     * @throws XMLStreamException if the document can not be serialized or written
+     */
+    public void write(@Nonnull final MembersElement members, @Nonnull final OutputStream out)
+            throws XMLStreamException {
+        final XMLStreamWriter writer = XMLOutputFactory.newFactory().createXMLStreamWriter(out, "UTF-8");
+        try {
+            writer.writeStartDocument("UTF-8", "1.0");
+            writer.writeCharacters("\n");
+            write(members, writer);
+            writer.writeCharacters("\n");
+            writer.writeEndDocument();
+            writer.flush();
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Writes the document element of a members document, and its content, to a StAX writer.
+     *
+     * @param members the document to write
+     * @param writer the writer to write to; neither the document nor the writer is ended
+     * @throws XMLStreamException if the document can not be serialized or written
+     */
+    public void write(@Nonnull final MembersElement members, @Nonnull final XMLStreamWriter writer)
+            throws XMLStreamException {
+        new Serializer(writer, canonicalOrder).writeMembers(members, schemaLocation);
+    }
+
+    /**
+     * Lower-cases a name for ordering.
+     *
+     * @param name the name
+     * @return the lower-case name, or the empty string for <code>null</code>
+     */
+    @Nonnull private static String lower(@Nullable final String name) {
+        return name == null ? "" : name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Writes a single document.
+     */
+    private static final class Serializer {
+
+        /** The writer. */
+        @Nonnull private final XMLStreamWriter out;
+
+        /** Whether to write in canonical order. */
+        private final boolean canonical;
+
+        /**
+         * Constructor.
+         *
+         * @param writer the writer
+         * @param canonicalOrder whether to write in canonical order
+         */
+        Serializer(@Nonnull final XMLStreamWriter writer, final boolean canonicalOrder) {
+            out = writer;
+            canonical = canonicalOrder;
+        }
+
+        /**
+         * Writes the document element.
+         *
+         * @param members the document
+         * @param schemaLocation the <code>xsi:schemaLocation</code>, or <code>null</code>
+         * @throws XMLStreamException if the document can not be written
+         */
+        void writeMembers(@Nonnull final MembersElement members, @Nullable final String schemaLocation)
+                throws XMLStreamException {
+            out.setDefaultNamespace(MEMBERS_NS);
+            out.writeStartElement(MEMBERS_NS, "Members");
+            out.writeDefaultNamespace(MEMBERS_NS);
+            if (schemaLocation != null) {
+                out.setPrefix("xsi", XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI);
+                out.writeNamespace("xsi", XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI);
+                out.writeAttribute("xsi", XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI, "schemaLocation",
+                        schemaLocation);
+            }
+            for (final MemberElement member : ordered(members.getMember(), PARTICIPANT_ORDER)) {
+                writeParticipant(member);
+            }
+            for (final DomainOwnerElement domainOwner : ordered(members.getDomainOwner(), PARTICIPANT_ORDER)) {
+                writeParticipant(domainOwner);
+            }
+            newline(0);
+            out.writeEndElement();
+        }
+
+        /**
+         * Writes a participant.
+         *
+         * @param participant the participant
+         * @throws XMLStreamException if the participant can not be written
+         */
+        private void writeParticipant(@Nonnull final ParticipantType participant) throws XMLStreamException {
+            final MemberElement member = participant instanceof MemberElement ? (MemberElement) participant : null;
+            start(1, member != null ? "Member" : "DomainOwner");
+            attribute("ID", participant.getID());
+            text(2, "Name", participant.getName());
+            if (participant.getNameComment() != null) {
+                text(2, "NameComment", participant.getNameComment());
+            }
+            if (member != null) {
+                text(2, "JoinDate", date(member.getJoinDate()));
+            }
+            writeDomains(Participants.domainsOf(participant));
+            writeGrants(Participants.grantsOf(participant));
+            if (member != null) {
+                for (final ScopesElement scopes : member.getScopes()) {
+                    start(2, "Scopes");
+                    for (final String entity : scopes.getEntity()) {
+                        text(3, "Entity", entity);
+                    }
+                    for (final String scope : scopes.getScope()) {
+                        text(3, "Scope", scope);
+                    }
+                    end(2);
+                }
+                writeEntityIDs(member.getEntityIDs());
+                if (member.getApprovedEntityAttributes() != null) {
+                    start(2, "ApprovedEntityAttributes");
+                    for (final ApprovedEntityAttributeElement attribute
+                            : member.getApprovedEntityAttributes().getApprovedEntityAttribute()) {
+                        newline(3);
+                        out.writeEmptyElement(MEMBERS_NS, "ApprovedEntityAttribute");
+                        attribute("Name", attribute.getName());
+                        attribute("NameFormat", attribute.getNameFormat());
+                        attribute("Value", attribute.getValue());
+                        attribute("entityID", attribute.getEntityID());
+                        audit(attribute.getLastVerified(), attribute.getVerifiedBy(), attribute.getSource(),
+                                attribute.getSourceURL());
+                    }
+                    end(2);
+                }
+            }
+            end(1);
+        }
+
+        /**
+         * Writes a <code>Domains</code> element.
+         *
+         * @param domains the element, or <code>null</code>
+         * @throws XMLStreamException if the element can not be written
+         */
+        private void writeDomains(@Nullable final DomainsElement domains) throws XMLStreamException {
+            if (domains == null) {
+                return;
+            }
+            start(2, "Domains");
+            for (final DomainElement domain : ordered(domains.getDomain(), DOMAIN_ORDER)) {
+                start(3, "Domain");
+                if (domain.getType() != null) {
+                    attribute("type", domain.getType().value());
+                }
+                audit(domain.getLastVerified(), domain.getVerifiedBy(), domain.getSource(), domain.getSourceURL());
+                characters(domain.getValue());
+                out.writeEndElement();
+            }
+            end(2);
+        }
+
+        /**
+         * Writes a <code>Grants</code> element.
+         *
+         * @param grants the element, or <code>null</code>
+         * @throws XMLStreamException if the element can not be written
+         */
+        private void writeGrants(@Nullable final GrantsElement grants) throws XMLStreamException {
+            if (grants == null) {
+                return;
+            }
+            start(2, "Grants");
+            for (final BaseGrantType grant : ordered(grants.getGrantOrGrantAll(), GRANT_ORDER)) {
+                final boolean single = grant instanceof GrantElement;
+                start(3, single ? "Grant" : "GrantAll");
+                attribute("to", grant.getTo());
+                final Object orgID = grant.getOrgID();
+                attribute("orgID", orgID instanceof ParticipantType ? ((ParticipantType) orgID).getID() : null);
+                if (single) {
+                    attribute("entityID", ((GrantElement) grant).getEntityID());
+                }
+                audit(grant.getLastVerified(), grant.getVerifiedBy(), grant.getSource(), grant.getSourceURL());
+                characters(grant.getValue());
+                out.writeEndElement();
+            }
+            end(2);
+        }
+
+        /**
+         * Writes an <code>EntityIDs</code> element.
+         *
+         * @param entityIDs the element, or <code>null</code>
+         * @throws XMLStreamException if the element can not be written
+         */
+        private void writeEntityIDs(@Nullable final EntityIDsElement entityIDs) throws XMLStreamException {
+            if (entityIDs == null) {
+                return;
+            }
+            start(2, "EntityIDs");
+            for (final Object object : entityIDs.getEntityID()) {
+                start(3, "EntityID");
+                if (object instanceof Element) {
+                    final NamedNodeMap attributes = ((Element) object).getAttributes();
+                    final List<Attr> sorted = new ArrayList<>(attributes.getLength());
+                    for (int i = 0; i < attributes.getLength(); i++) {
+                        final Attr attr = (Attr) attributes.item(i);
+                        if (!XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attr.getNamespaceURI())) {
+                            sorted.add(attr);
+                        }
+                    }
+                    sorted.sort(Comparator.comparing(Attr::getName));
+                    for (final Attr attr : sorted) {
+                        if (attr.getNamespaceURI() == null || attr.getPrefix() == null) {
+                            out.writeAttribute(attr.getName(), attr.getValue());
+                        } else {
+                            out.writeAttribute(attr.getPrefix(), attr.getNamespaceURI(), attr.getLocalName(),
+                                    attr.getValue());
+                        }
+                    }
+                } else if (object instanceof EntityIDElement) {
+                    final EntityIDElement element = (EntityIDElement) object;
+                    audit(element.getLastVerified(), element.getVerifiedBy(), element.getSource(),
+                            element.getSourceURL());
+                }
+                characters(Participants.entityIDValue(object));
+                out.writeEndElement();
+            }
+            end(2);
+        }
+
+        /**
+         * Writes the audit attributes common to several elements.
+         *
+         * @param lastVerified the <code>lastVerified</code> attribute
+         * @param verifiedBy the <code>verifiedBy</code> attribute
+         * @param source the <code>source</code> attribute
+         * @param sourceURL the <code>sourceURL</code> attribute
+         * @throws XMLStreamException if the attributes can not be written
+         */
+        private void audit(@Nullable final XMLGregorianCalendar lastVerified, @Nullable final String verifiedBy,
+                @Nullable final String source, @Nullable final String sourceURL) throws XMLStreamException {
+            attribute("lastVerified", date(lastVerified));
+            attribute("verifiedBy", verifiedBy);
+            attribute("source", source);
+            attribute("sourceURL", sourceURL);
+        }
+
+        /**
+         * Returns a list in canonical order, if required.
+         *
+         * @param <T> type of the list elements
+         * @param list the list in document order
+         * @param order the canonical order
+         * @return the list, sorted if canonical order is required
+         */
+        @Nonnull private <T> List<T> ordered(@Nonnull final List<T> list, @Nonnull final Comparator<? super T> order) {
+            if (!canonical || list.size() < 2) {
+                return list;
+            }
+            final List<T> sorted = new ArrayList<>(list);
+            sorted.sort(order);
+            return sorted;
+        }
+
+        /**
+         * Starts an element on a new line.
+         *
+         * @param depth nesting depth of the element
+         * @param name local name of the element
+         * @throws XMLStreamException if the element can not be written
+         */
+        private void start(final int depth, @Nonnull final String name) throws XMLStreamException {
+            newline(depth);
+            out.writeStartElement(MEMBERS_NS, name);
+        }
+
+        /**
+         * Ends an element with content, on a new line.
+         *
+         * @param depth nesting depth of the element
+         * @throws XMLStreamException if the element can not be written
+         */
+        private void end(final int depth) throws XMLStreamException {
+            newline(depth);
+            out.writeEndElement();
+        }
+
+        /**
+         * Writes an element with text content on a new line.
+         *
+         * @param depth nesting depth of the element
+         * @param name local name of the element
+         * @param value the text content
+         * @throws XMLStreamException if the element can not be written
+         */
+        private void text(final int depth, @Nonnull final String name, @Nullable final String value)
+                throws XMLStreamException {
+            start(depth, name);
+            characters(value);
+            out.writeEndElement();
+        }
+
+        /**
+         * Writes text content.
+         *
+         * @param value the text, or <code>null</code> for none
+         * @throws XMLStreamException if the text can not be written
+         */
+        private void characters(@Nullable final String value) throws XMLStreamException {
+            if (value != null) {
+                out.writeCharacters(value);
+            }
+        }
+
+        /**
+         * Writes an unqualified attribute, if it has a value.
+         *
+         * @param name the attribute name
+         * @param value the attribute value, or <code>null</code> to write nothing
+         * @throws XMLStreamException if the attribute can not be written
+         */
+        private void attribute(@Nonnull final String name, @Nullable final String value) throws XMLStreamException {
+            if (value != null) {
+                out.writeAttribute(name, value);
+            }
+        }
+
+        /**
+         * Writes a line break and indentation.
+         *
+         * @param depth nesting depth of the element to follow
+         * @throws XMLStreamException if the text can not be written
+         */
+        private void newline(final int depth) throws XMLStreamException {
+            out.writeCharacters("\n");
+            for (int i = 0; i < depth; i++) {
+                out.writeCharacters(INDENT);
+            }
+        }
+
+        /**
+         * Returns the lexical form of a date.
+         *
+         * @param date the date
+         * @return the lexical form, or <code>null</code>
+         */
+        @Nullable private static String date(@Nullable final XMLGregorianCalendar date) {
+            return date == null ? null : date.toXMLFormat();
+        }
+    }
+
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import uk.org.ukfederation.members.jaxb.ParticipantType;
+
+/**
+ * Index of participants by organisation ID.
+ *
+ * Organisation IDs are the string <code>ukforg</code> followed by a numeric code. The index is an
+ * open-addressing hash table keyed on the numeric code as a primitive <code>long</code>, so neither
+ * building it nor looking an ID up allocates a key object, and a malformed ID is rejected while it
+ * is being parsed. Since the schema only requires the codes to be distinct as strings,
+ * <code>ukforg7</code> and <code>ukforg07</code> can both appear; the second of any such pair is held
+ * in a small overflow map, keyed on the whole ID.
+ */
+@Immutable
+final class OrgIDIndex {
+
+    /** Prefix of every organisation ID. */
+    static final String PREFIX = "ukforg";
+
+    /** Maximum number of digits in a code, so that it fits in a <code>long</code>. */
+    private static final int MAX_DIGITS = 18;
+
+    /** Marker for an empty slot in {@link #keys}. */
+    private static final long EMPTY = -1;
+
+    /** Numeric codes, or {@link #EMPTY}. */
+    @Nonnull private final long[] keys;
+
+    /** Participant holding the code in the corresponding slot of {@link #keys}. */
+    @Nonnull private final ParticipantType[] values;
+
+    /** Participants whose code duplicates another's, indexed by their full ID. */
+    @Nonnull private final Map<String, ParticipantType> overflow;
+
+    /**
+     * Constructor.
+     *
+     * Participants whose ID is missing or malformed are not indexed; a participant whose ID
+     * duplicates an earlier one exactly is ignored.
+     *
+     * @param participants the participants, in document order
+     */
+    OrgIDIndex(@Nonnull final List<? extends ParticipantType> participants) {
+        // keep the load factor at or below one half
+        final int capacity = Integer.highestOneBit(Math.max(2, participants.size()) * 2 - 1) << 1;
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new ParticipantType[capacity];
+        Map<String, ParticipantType> extra = null;
+        for (final ParticipantType participant : participants) {
+            final String id = participant.getID();
+            final long code = id == null ? EMPTY : parse(id);
+            if (code == EMPTY) {
+                continue;
+            }
+            final int slot = slot(code);
+            if (keys[slot] == EMPTY) {
+                keys[slot] = code;
+                values[slot] = participant;
+            } else if (!id.equals(values[slot].getID())) {
+                if (extra == null) {
+                    extra = new HashMap<>();
+                }
+                extra.putIfAbsent(id, participant);
+            }
+        }
+        overflow = extra == null ? Collections.emptyMap() : extra;
+    }
+
+    /**
+     * Looks up a participant by organisation ID.
+     *
+     * @param id the organisation ID, such as <code>ukforg1234</code>
+     * @return the participant, or <code>null</code> if there is none or the ID is malformed
+     */
+    @Nullable ParticipantType get(@Nonnull final String id) {
+        final long code = parse(id);
+        if (code == EMPTY) {
+            return null;
+        }
+        final int slot = slot(code);
+        if (keys[slot] == EMPTY) {
+            return null;
+        }
+        final ParticipantType participant = values[slot];
+        if (id.equals(participant.getID())) {
+            return participant;
+        }
+        return overflow.isEmpty() ? null : overflow.get(id);
+    }
+
+    /**
+     * Returns the number of participants indexed.
+     *
+     * @return the number of participants indexed
+     */
+    int size() {
+        int size = overflow.size();
+        for (final long key : keys) {
+            if (key != EMPTY) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Parses the numeric code from an organisation ID, without allocating.
+     *
+     * @param id the organisation ID
+     * @return the code, or <code>-1</code> if the ID is malformed
+     */
+    static long parse(@Nonnull final CharSequence id) {
+        final int length = id.length();
+        if (length <= PREFIX.length() || length > PREFIX.length() + MAX_DIGITS) {
+            return EMPTY;
+        }
+        for (int i = 0; i < PREFIX.length(); i++) {
+            if (id.charAt(i) != PREFIX.charAt(i)) {
+                return EMPTY;
+            }
+        }
+        long code = 0;
+        for (int i = PREFIX.length(); i < length; i++) {
+            // the schema's \d matches any Unicode decimal digit
+            final int digit = Character.digit(id.charAt(i), 10);
+            if (digit < 0) {
+                return EMPTY;
+            }
+            code = code * 10 + digit;
+        }
+        return code;
+    }
+
+    /**
+     * Finds the slot holding a code, or the empty slot where it would be held.
+     *
+     * @param code the code
+     * @return the slot
+     */
+    private int slot(final long code) {
+        final int mask = keys.length - 1;
+        // mix the bits, as codes are mostly small consecutive integers
+        final long h = code * 0x9E3779B97F4A7C15L;
+        int slot = (int) (h ^ (h >>> 32)) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != code) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntConsumer;
+
+import javax.annotation.Nonnull;
+
+import org.slf4j.Logger;
+
+import net.shibboleth.shared.component.ComponentInitializationException;
+import uk.org.ukfederation.members.jaxb.BaseGrantType;
+import uk.org.ukfederation.members.jaxb.DomainElement;
+import uk.org.ukfederation.members.jaxb.ParticipantType;
+
+/**
+ * The semantic checks made by {@link Members} after unmarshalling, spread across an {@link Executor}.
+ *
+ * Participant names are registered sequentially, as that is cheap. Domains are then registered
+ * in parallel in a concurrent map, where the claim made earliest in the document wins; once all
+ * participants are registered, their grants are checked in parallel against the completed name
+ * index.
+ *
+ * Problems are not reported as they are found. Each is tagged with the position of the element
+ * concerned, and the problems are reported in document order once each phase is complete, so
+ * the problems reported, their messages and their order are exactly those of the sequential checks.
+ */
+final class ParallelChecks {
+
+    /** Number of tasks to create for each available processor, to even out the load. */
+    private static final int TASKS_PER_PROCESSOR = 4;
+
+    /** Document order of problems. */
+    private static final Comparator<Finding> DOCUMENT_ORDER =
+            Comparator.comparingInt(Finding::participant).thenComparingInt(Finding::index);
+
+    /** All participants, in document order. */
+    @Nonnull private final List<ParticipantType> participants;
+
+    /** Index of participants by name, to be populated. */
+    @Nonnull private final Map<String, ParticipantType> participantByName;
+
+    /** Index of participants by registered domain, to be populated. */
+    @Nonnull private final Map<String, ParticipantType> domainOwners;
+
+    /** Logger for grant problems. */
+    @Nonnull private final Logger log;
+
+    /**
+     * Constructor.
+     *
+     * @param all all participants, members first, in document order
+     * @param byName index of participants by name, to be populated
+     * @param byDomain index of participants by registered domain, to be populated
+     * @param logger logger for grant problems
+     */
+    ParallelChecks(@Nonnull final List<ParticipantType> all, @Nonnull final Map<String, ParticipantType> byName,
+            @Nonnull final Map<String, ParticipantType> byDomain, @Nonnull final Logger logger) {
+        participants = all;
+        participantByName = byName;
+        domainOwners = byDomain;
+        log = logger;
+    }
+
+    /**
+     * Makes the checks, populating the indexes.
+     *
+     * @param problems handler for any problems found
+     * @param executor executor to run the checks on
+     * @throws ComponentInitializationException if the problem handler stops loading
+     */
+    void run(@Nonnull final Members.Problems problems, @Nonnull final Executor executor)
+            throws ComponentInitializationException {
+        final List<Finding> registration = new ArrayList<>();
+        registerNames(registration);
+        registerDomains(registration, executor);
+        registration.sort(DOCUMENT_ORDER);
+        for (final Finding finding : registration) {
+            problems.error(finding.element(), finding.message());
+        }
+
+        for (final Finding finding : checkGrants(executor)) {
+            log.error(finding.message());
+            problems.error(finding.element(), finding.message());
+        }
+    }
+
+    /**
+     * Registers each participant by name.
+     *
+     * @param findings list to add problems to
+     */
+    private void registerNames(@Nonnull final List<Finding> findings) {
+        for (int i = 0; i < participants.size(); i++) {
+            final ParticipantType participant = participants.get(i);
+            final String name = participant.getName();
+            if (participantByName.containsKey(name)) {
+                findings.add(new Finding(i, -1, participant, Members.duplicateNameMessage(name)));
+            } else {
+                participantByName.put(name, participant);
+            }
+        }
+    }
+
+    /**
+     * Registers each participant's domains, detecting conflicts.
+     *
+     * @param findings list to add problems to
+     * @param executor executor to run the checks on
+     */
+    private void registerDomains(@Nonnull final List<Finding> findings, @Nonnull final Executor executor) {
+        final Map<String, Claim> claims = new ConcurrentHashMap<>();
+        final Queue<Claim> duplicates = new ConcurrentLinkedQueue<>();
+        forEachParticipant(executor, i -> {
+            final ParticipantType participant = participants.get(i);
+            final List<DomainElement> domains = Participants.domainListOf(participant);
+            for (int j = 0; j < domains.size(); j++) {
+                final DomainElement domain = domains.get(j);
+                if (domain.getValue() == null) {
+                    // only possible when collecting validation errors
+                    continue;
+                }
+                claims.merge(domain.getValue(), new Claim(i, j, participant, domain), (a, b) -> {
+                    final boolean aFirst = a.participantIndex() < b.participantIndex()
+                            || a.participantIndex() == b.participantIndex() && a.domainIndex() < b.domainIndex();
+                    duplicates.add(aFirst ? b : a);
+                    return aFirst ? a : b;
+                });
+            }
+        });
+
+        for (final Map.Entry<String, Claim> entry : claims.entrySet()) {
+            domainOwners.put(entry.getKey(), entry.getValue().participant());
+        }
+        for (final Claim duplicate : duplicates) {
+            final String domain = duplicate.domain().getValue();
+            findings.add(new Finding(duplicate.participantIndex(), duplicate.domainIndex(), duplicate.domain(),
+                    Members.duplicateDomainMessage(domain, claims.get(domain).participant(),
+                            duplicate.participant())));
+        }
+    }
+
+    /**
+     * Checks every participant's grants against the completed name index.
+     *
+     * @param executor executor to run the checks on
+     * @return the problems found, in document order
+     */
+    @Nonnull private List<Finding> checkGrants(@Nonnull final Executor executor) {
+        final AtomicReferenceArray<List<Finding>> results = new AtomicReferenceArray<>(participants.size());
+        forEachParticipant(executor, i -> {
+            final ParticipantType participant = participants.get(i);
+            final List<BaseGrantType> grants = Participants.grantListOf(participant);
+            List<Finding> found = null;
+            for (int j = 0; j < grants.size(); j++) {
+                final String message = Members.checkGrant(grants.get(j), participant.getName(), participantByName);
+                if (message != null) {
+                    if (found == null) {
+                        found = new ArrayList<>(1);
+                    }
+                    found.add(new Finding(i, j, grants.get(j), message));
+                }
+            }
+            results.set(i, found);
+        });
+
+        final List<Finding> findings = new ArrayList<>();
+        for (int i = 0; i < results.length(); i++) {
+            final List<Finding> found = results.get(i);
+            if (found != null) {
+                findings.addAll(found);
+            }
+        }
+        return findings;
+    }
+
+    /**
+     * Applies an action to the index of every participant, on the executor, and waits for completion.
+     *
+     * @param executor executor to run the action on
+     * @param action the action to apply to each participant index
+     */
+    private void forEachParticipant(@Nonnull final Executor executor, @Nonnull final IntConsumer action) {
+        final int count = participants.size();
+        if (count == 0) {
+            return;
+        }
+        final int tasks = Math.min(count, Runtime.getRuntime().availableProcessors() * TASKS_PER_PROCESSOR);
+        final int chunk = (count + tasks - 1) / tasks;
+        final List<CompletableFuture<Void>> futures = new ArrayList<>(tasks);
+        for (int start = 0; start < count; start += chunk) {
+            final int from = start;
+            final int to = Math.min(count, start + chunk);
+            futures.add(CompletableFuture.runAsync(() -> {
+                for (int i = from; i < to; i++) {
+                    action.accept(i);
+                }
+            }, executor));
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        } catch (final CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * A problem found, tagged with its position in the document.
+     *
+     * @param participant index of the participant concerned, in document order
+     * @param index index of the element concerned within the participant, or <code>-1</code> for the participant
+     * @param element the JAXB object concerned
+     * @param message description of the problem
+     */
+    private record Finding(int participant, int index, @Nonnull Object element, @Nonnull String message) {
+    }
+
+    /**
+     * A participant's registration of a domain.
+     *
+     * @param participantIndex index of the participant, in document order
+     * @param domainIndex index of the domain within the participant
+     * @param participant the participant
+     * @param domain the domain element
+     */
+    private record Claim(int participantIndex, int domainIndex, @Nonnull ParticipantType participant,
+            @Nonnull DomainElement domain) {
+    }
+
+}
@@ -0,0 +1,349 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import uk.org.ukfederation.members.jaxb.ParticipantType;
+
+/**
+ * Search index over the <code>Name</code> and <code>NameComment</code> of each participant in a
+ * members document.
+ *
+ * Text is folded before it is indexed or searched for: accents are removed, letters are
+ * lower-cased and each run of other characters becomes a single space, so that
+ * "Universit&eacute; de l'Example" is found by "universite de l example".
+ *
+ * A search matches the query as a prefix of the whole of a name, or of any word within it; every
+ * word start of every name is held in a sorted array, so that prefix matches are found by binary
+ * search. A fuzzy search also matches names sharing enough of their character trigrams with the
+ * query, which tolerates misspellings and transpositions.
+ *
+ * Each match is scored between 0 and 1: an exact match on a name scores 1, a prefix of the name
+ * {@value #PREFIX}, a prefix of a later word {@value #WORD_PREFIX}, and a fuzzy match at most
+ * {@value #FUZZY}. Matches on a <code>NameComment</code> score half as much as those on a name.
+ *
+ * The index is built from a single {@link Members} object; following reloads of a
+ * {@link MembersRegistry} means asking the current {@link Members} object for its index.
+ *
+ * @see Members#getParticipantSearch()
+ */
+@Immutable
+public final class ParticipantSearch {
+
+    /** Score of a query matching the start of a name. */
+    public static final double PREFIX = 0.8;
+
+    /** Score of a query matching the start of a later word in a name. */
+    public static final double WORD_PREFIX = 0.6;
+
+    /** Score of a fuzzy match with identical trigrams; less similar matches score proportionately less. */
+    public static final double FUZZY = 0.5;
+
+    /** Factor applied to the score of a match on a <code>NameComment</code> rather than a name. */
+    private static final double COMMENT = 0.5;
+
+    /** Least trigram similarity (Dice coefficient) for a fuzzy match. */
+    private static final double MIN_SIMILARITY = 0.3;
+
+    /** Combining marks left by decomposing accented characters. */
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    /** Runs of characters which are neither letters nor digits. */
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    /** Order of results: best score first, then by name. */
+    private static final Comparator<Match> RANK = Comparator.comparingDouble(Match::score).reversed()
+            .thenComparing(m -> m.participant().getName(), Comparator.nullsLast(Comparator.naturalOrder()));
+
+    /** The participants, in document order. */
+    @Nonnull private final ParticipantType[] participants;
+
+    /** Index into {@link #participants} of each indexed text. */
+    @Nonnull private final int[] textParticipant;
+
+    /** Whether each indexed text is a <code>NameComment</code> rather than a name. */
+    @Nonnull private final boolean[] textComment;
+
+    /** Number of distinct trigrams in each indexed text. */
+    @Nonnull private final int[] textTrigrams;
+
+    /** Every word start of every indexed text, to the end of the text, sorted. */
+    @Nonnull private final String[] keys;
+
+    /** Index of the text each key was taken from. */
+    @Nonnull private final int[] keyText;
+
+    /** Offset within its text at which each key starts. */
+    @Nonnull private final int[] keyOffset;
+
+    /** Indexes of the texts containing each trigram, in ascending order. */
+    @Nonnull private final Map<String, int[]> trigrams;
+
+    /**
+     * Constructor.
+     *
+     * @param all the participants, in document order
+     */
+    ParticipantSearch(@Nonnull final List<? extends ParticipantType> all) {
+        participants = all.toArray(new ParticipantType[0]);
+        final List<String> texts = new ArrayList<>(participants.length);
+        final List<Integer> owners = new ArrayList<>(participants.length);
+        final List<Boolean> comments = new ArrayList<>(participants.length);
+        for (int i = 0; i < participants.length; i++) {
+            final String name = fold(participants[i].getName());
+            if (!name.isEmpty()) {
+                texts.add(name);
+                owners.add(i);
+                comments.add(false);
+            }
+            final String comment = fold(participants[i].getNameComment());
+            if (!comment.isEmpty()) {
+                texts.add(comment);
+                owners.add(i);
+                comments.add(true);
+            }
+        }
+
+        textParticipant = new int[texts.size()];
+        textComment = new boolean[texts.size()];
+        textTrigrams = new int[texts.size()];
+        final List<Key> allKeys = new ArrayList<>();
+        final Map<String, List<Integer>> postings = new HashMap<>();
+        for (int t = 0; t < texts.size(); t++) {
+            textParticipant[t] = owners.get(t);
+            textComment[t] = comments.get(t);
+            final String text = texts.get(t);
+            int offset = 0;
+            while (offset >= 0) {
+                allKeys.add(new Key(text.substring(offset), t, offset));
+                final int space = text.indexOf(' ', offset);
+                offset = space < 0 ? -1 : space + 1;
+            }
+            final Set<String> grams = trigramsOf(text);
+            textTrigrams[t] = grams.size();
+            for (final String gram : grams) {
+                postings.computeIfAbsent(gram, k -> new ArrayList<>()).add(t);
+            }
+        }
+
+        allKeys.sort(Comparator.comparing(Key::key));
+        keys = new String[allKeys.size()];
+        keyText = new int[allKeys.size()];
+        keyOffset = new int[allKeys.size()];
+        for (int k = 0; k < keys.length; k++) {
+            keys[k] = allKeys.get(k).key();
+            keyText[k] = allKeys.get(k).text();
+            keyOffset[k] = allKeys.get(k).offset();
+        }
+
+        trigrams = new HashMap<>(postings.size() * 4 / 3 + 1);
+        for (final Map.Entry<String, List<Integer>> entry : postings.entrySet()) {
+            trigrams.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+        }
+    }
+
+    /**
+     * Folds text for indexing or searching.
+     *
+     * @param text the text, or <code>null</code>
+     * @return the folded text: unaccented, lower-case, with single spaces between words
+     */
+    @Nonnull public static String fold(@Nullable final String text) {
+        if (text == null) {
+            return "";
+        }
+        final String unaccented = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARATORS.matcher(unaccented.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    /**
+     * Returns the number of participants indexed.
+     *
+     * @return the number of participants
+     */
+    public int size() {
+        return participants.length;
+    }
+
+    /**
+     * Finds the participants whose name or <code>NameComment</code>, or a word within either,
+     * starts with the query.
+     *
+     * @param query the text to search for
+     * @param limit the greatest number of matches to return
+     * @return the best matches, best first
+     */
+    @Nonnull public List<Match> search(@Nonnull final String query, final int limit) {
+        return search(query, limit, false);
+    }
+
+    /**
+     * Finds the participants whose name or <code>NameComment</code>, or a word within either,
+     * starts with the query, optionally including fuzzy matches.
+     *
+     * @param query the text to search for
+     * @param limit the greatest number of matches to return
+     * @param fuzzy <code>true</code> to include names with trigrams in common with the query
+     * @return the best matches, best first, each participant at most once
+     */
+    @Nonnull public List<Match> search(@Nonnull final String query, final int limit, final boolean fuzzy) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be positive: " + limit);
+        }
+        final String folded = fold(query);
+        if (folded.isEmpty()) {
+            return List.of();
+        }
+
+        // best score for each participant matched
+        final Map<Integer, Double> scores = new HashMap<>();
+        for (int k = lowerBound(folded); k < keys.length && keys[k].startsWith(folded); k++) {
+            final double score;
+            if (keyOffset[k] > 0) {
+                score = WORD_PREFIX;
+            } else {
+                score = keys[k].length() == folded.length() ? 1.0 : PREFIX;
+            }
+            record(scores, keyText[k], score);
+        }
+        if (fuzzy) {
+            fuzzyMatch(folded, scores);
+        }
+
+        final PriorityQueue<Match> best = new PriorityQueue<>(limit + 1, RANK.reversed());
+        for (final Map.Entry<Integer, Double> entry : scores.entrySet()) {
+            best.add(new Match(participants[entry.getKey()], entry.getValue()));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        final List<Match> result = new ArrayList<>(best);
+        result.sort(RANK);
+        return List.copyOf(result);
+    }
+
+    /**
+     * Adds the fuzzy matches for a query.
+     *
+     * @param folded the folded query
+     * @param scores best score for each participant matched, to be updated
+     */
+    private void fuzzyMatch(@Nonnull final String folded, @Nonnull final Map<Integer, Double> scores) {
+        final Set<String> grams = trigramsOf(folded);
+        final int[] shared = new int[textParticipant.length];
+        final int[] touched = new int[textParticipant.length];
+        int count = 0;
+        for (final String gram : grams) {
+            final int[] texts = trigrams.get(gram);
+            if (texts != null) {
+                for (final int t : texts) {
+                    if (shared[t]++ == 0) {
+                        touched[count++] = t;
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            final int t = touched[i];
+            final double similarity = 2.0 * shared[t] / (grams.size() + textTrigrams[t]);
+            if (similarity >= MIN_SIMILARITY) {
+                record(scores, t, FUZZY * similarity);
+            }
+        }
+    }
+
+    /**
+     * Records the score of a match, if it is the participant's best so far.
+     *
+     * @param scores best score for each participant matched
+     * @param text index of the text matched
+     * @param score score of the match on a name
+     */
+    private void record(@Nonnull final Map<Integer, Double> scores, final int text, final double score) {
+        scores.merge(textParticipant[text], textComment[text] ? score * COMMENT : score, Math::max);
+    }
+
+    /**
+     * Finds the first key not less than the given string.
+     *
+     * @param folded the folded query
+     * @return index of the first such key, or the number of keys if there is none
+     */
+    private int lowerBound(@Nonnull final String folded) {
+        final int found = Arrays.binarySearch(keys, folded);
+        if (found < 0) {
+            return -found - 1;
+        }
+        // step back over any identical keys
+        int k = found;
+        while (k > 0 && keys[k - 1].equals(folded)) {
+            k--;
+        }
+        return k;
+    }
+
+    /**
+     * Returns the distinct trigrams of folded text, including those spanning its start and end.
+     *
+     * @param folded the folded text
+     * @return the trigrams
+     */
+    @Nonnull private static Set<String> trigramsOf(@Nonnull final String folded) {
+        final String padded = " " + folded + " ";
+        final Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    /**
+     * A participant found by a search.
+     *
+     * @param participant the participant
+     * @param score how well the participant matched the query, between 0 and 1
+     */
+    public record Match(@Nonnull ParticipantType participant, double score) {
+    }
+
+    /**
+     * A word start within an indexed text.
+     *
+     * @param key the text from the word start to the end
+     * @param text index of the text
+     * @param offset offset of the word start within the text
+     */
+    private record Key(@Nonnull String key, int text, int offset) {
+    }
+
+}
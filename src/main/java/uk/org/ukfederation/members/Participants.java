@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.w3c.dom.Element;
+
+import uk.org.ukfederation.members.jaxb.ApprovedEntityAttributeElement;
+import uk.org.ukfederation.members.jaxb.BaseGrantType;
+import uk.org.ukfederation.members.jaxb.DomainElement;
+import uk.org.ukfederation.members.jaxb.DomainOwnerElement;
+import uk.org.ukfederation.members.jaxb.DomainsElement;
+import uk.org.ukfederation.members.jaxb.EntityIDElement;
+import uk.org.ukfederation.members.jaxb.GrantsElement;
+import uk.org.ukfederation.members.jaxb.MemberElement;
+import uk.org.ukfederation.members.jaxb.ParticipantType;
+
+/**
+ * Helper methods giving uniform access to the parts of a participant.
+ *
+ * {@link MemberElement} and {@link DomainOwnerElement} share only {@link ParticipantType}
+ * as a common base, so the elements they both carry have to be fetched separately.
+ */
+final class Participants {
+
+    /** Constructor. */
+    private Participants() {
+    }
+
+    /**
+     * Returns the {@link DomainsElement} for a participant.
+     *
+     * @param participant the participant
+     * @return the participant's {@link DomainsElement}, or <code>null</code>
+     */
+    @Nullable static DomainsElement domainsOf(@Nonnull final ParticipantType participant) {
+        if (participant instanceof MemberElement) {
+            return ((MemberElement) participant).getDomains();
+        } else if (participant instanceof DomainOwnerElement) {
+            return ((DomainOwnerElement) participant).getDomains();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the list of domains registered to a participant.
+     *
+     * @param participant the participant
+     * @return the participant's {@link DomainElement}s, possibly empty
+     */
+    @Nonnull static List<DomainElement> domainListOf(@Nonnull final ParticipantType participant) {
+        final DomainsElement domains = domainsOf(participant);
+        return domains == null ? Collections.emptyList() : domains.getDomain();
+    }
+
+    /**
+     * Returns the {@link GrantsElement} for a participant.
+     *
+     * @param participant the participant
+     * @return the participant's {@link GrantsElement}, or <code>null</code>
+     */
+    @Nullable static GrantsElement grantsOf(@Nonnull final ParticipantType participant) {
+        if (participant instanceof MemberElement) {
+            return ((MemberElement) participant).getGrants();
+        } else if (participant instanceof DomainOwnerElement) {
+            return ((DomainOwnerElement) participant).getGrants();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the list of grants made by a participant.
+     *
+     * @param participant the participant
+     * @return the participant's grants, possibly empty
+     */
+    @Nonnull static List<BaseGrantType> grantListOf(@Nonnull final ParticipantType participant) {
+        final GrantsElement grants = grantsOf(participant);
+        return grants == null ? Collections.emptyList() : grants.getGrantOrGrantAll();
+    }
+
+    /**
+     * Returns the objects representing the entity IDs specifically permitted to a participant.
+     *
+     * The schema gives the <code>EntityID</code> children of <code>EntityIDs</code> no type,
+     * so JAXB represents each of them as a DOM {@link Element}.
+     *
+     * @param participant the participant
+     * @return the objects representing each <code>EntityID</code>, possibly empty
+     */
+    @Nonnull static List<Object> entityIDObjectsOf(@Nonnull final ParticipantType participant) {
+        if (participant instanceof MemberElement) {
+            final MemberElement member = (MemberElement) participant;
+            if (member.getEntityIDs() != null) {
+                return member.getEntityIDs().getEntityID();
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Returns the entity IDs specifically permitted to a participant.
+     *
+     * @param participant the participant
+     * @return the entity IDs, in document order, possibly empty
+     */
+    @Nonnull static List<String> entityIDsOf(@Nonnull final ParticipantType participant) {
+        final List<Object> objects = entityIDObjectsOf(participant);
+        if (objects.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final List<String> entityIDs = new ArrayList<>(objects.size());
+        for (final Object object : objects) {
+            entityIDs.add(entityIDValue(object));
+        }
+        return entityIDs;
+    }
+
+    /**
+     * Extracts the entity ID from an object representing an <code>EntityID</code> element.
+     *
+     * @param object the object representing the element
+     * @return the entity ID
+     */
+    @Nonnull static String entityIDValue(@Nonnull final Object object) {
+        if (object instanceof Element) {
+            return ((Element) object).getTextContent().trim();
+        } else if (object instanceof EntityIDElement) {
+            return ((EntityIDElement) object).getValue();
+        }
+        return object.toString().trim();
+    }
+
+    /**
+     * Returns the entity attributes specifically approved for a participant's entities.
+     *
+     * @param participant the participant
+     * @return the {@link ApprovedEntityAttributeElement}s, possibly empty
+     */
+    @Nonnull static List<ApprovedEntityAttributeElement> approvedAttributesOf(
+            @Nonnull final ParticipantType participant) {
+        if (participant instanceof MemberElement) {
+            final MemberElement member = (MemberElement) participant;
+            if (member.getApprovedEntityAttributes() != null) {
+                return member.getApprovedEntityAttributes().getApprovedEntityAttribute();
+            }
+        }
+        return Collections.emptyList();
+    }
+
+}
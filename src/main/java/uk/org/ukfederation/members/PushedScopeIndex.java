@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import uk.org.ukfederation.members.jaxb.MemberElement;
+import uk.org.ukfederation.members.jaxb.ScopesElement;
+
+/**
+ * Immutable index of the (non-regex) scopes pushed to entities by <code>Scopes</code> elements.
+ *
+ * Each entity's scopes are held as a compact immutable list in document order, with any
+ * duplicates removed. The reverse mapping, from each scope to the entities it is pushed to,
+ * is held in the same way.
+ */
+@Immutable
+final class PushedScopeIndex {
+
+    /** Scopes pushed to each entity, indexed by entity ID. */
+    @Nonnull private final Map<String, List<String>> scopesByEntity;
+
+    /** Entities each scope is pushed to, indexed by scope. */
+    @Nonnull private final Map<String, List<String>> entitiesByScope;
+
+    /**
+     * Constructor.
+     *
+     * @param members the members, in document order
+     */
+    PushedScopeIndex(@Nonnull final List<MemberElement> members) {
+        this(collect(members));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param builder the builder holding the pushed scopes
+     */
+    private PushedScopeIndex(@Nonnull final Builder builder) {
+        scopesByEntity = freeze(builder.scopes);
+        entitiesByScope = freeze(builder.entities);
+    }
+
+    /**
+     * Collects the scopes pushed by each member's <code>Scopes</code> elements.
+     *
+     * @param members the members, in document order
+     * @return a builder holding the pushed scopes
+     */
+    @Nonnull private static Builder collect(@Nonnull final List<MemberElement> members) {
+        final Builder builder = new Builder();
+        // each Member may have multiple Scopes elements, each with many Entity and Scope elements
+        for (final MemberElement member : members) {
+            for (final ScopesElement scopesElement : member.getScopes()) {
+                builder.add(scopesElement.getEntity(), scopesElement.getScope());
+            }
+        }
+        return builder;
+    }
+
+    /**
+     * Returns the scopes pushed to an entity.
+     *
+     * @param entityID the entity ID
+     * @return immutable list of scopes in document order, or <code>null</code> if none are pushed
+     */
+    @Nullable List<String> scopesFor(@Nonnull final String entityID) {
+        return scopesByEntity.get(entityID);
+    }
+
+    /**
+     * Returns the entities a scope is pushed to.
+     *
+     * @param scope the scope
+     * @return immutable list of entity IDs in document order, possibly empty
+     */
+    @Nonnull List<String> entitiesFor(@Nonnull final String scope) {
+        final List<String> entities = entitiesByScope.get(scope);
+        return entities == null ? Collections.emptyList() : entities;
+    }
+
+    /**
+     * Returns the scopes pushed to each entity.
+     *
+     * @return immutable map from entity ID to scopes
+     */
+    @Nonnull Map<String, List<String>> getScopesByEntity() {
+        return scopesByEntity;
+    }
+
+    /**
+     * Returns the number of entities with pushed scopes.
+     *
+     * @return number of entities
+     */
+    int size() {
+        return scopesByEntity.size();
+    }
+
+    /**
+     * Accumulates pushed scopes, in document order, for building a {@link PushedScopeIndex}.
+     */
+    static final class Builder {
+
+        /** Scopes pushed to each entity, indexed by entity ID. */
+        @Nonnull private final Map<String, Set<String>> scopes = new HashMap<>();
+
+        /** Entities each scope is pushed to, indexed by scope. */
+        @Nonnull private final Map<String, Set<String>> entities = new HashMap<>();
+
+        /**
+         * Records the contents of a <code>Scopes</code> element.
+         *
+         * @param entityIDs the entities the scopes are pushed to
+         * @param scopeValues the scopes
+         */
+        void add(@Nonnull final Collection<String> entityIDs, @Nonnull final Collection<String> scopeValues) {
+            for (final String entityID : entityIDs) {
+                final Set<String> entityScopes = scopes.computeIfAbsent(entityID, e -> new LinkedHashSet<>());
+                for (final String scope : scopeValues) {
+                    entityScopes.add(scope);
+                    entities.computeIfAbsent(scope, s -> new LinkedHashSet<>()).add(entityID);
+                }
+            }
+        }
+
+        /**
+         * Builds the index.
+         *
+         * @return the index
+         */
+        @Nonnull PushedScopeIndex build() {
+            return new PushedScopeIndex(this);
+        }
+    }
+
+    /**
+     * Converts a map of ordered sets into an immutable map of immutable lists.
+     *
+     * @param map the map to convert
+     * @return the immutable equivalent
+     */
+    @Nonnull private static Map<String, List<String>> freeze(@Nonnull final Map<String, Set<String>> map) {
+        final Map<String, List<String>> frozen = new HashMap<>(map.size() * 4 / 3 + 1);
+        for (final Map.Entry<String, Set<String>> entry : map.entrySet()) {
+            frozen.put(entry.getKey(), List.copyOf(entry.getValue()));
+        }
+        return Map.copyOf(frozen);
+    }
+
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package uk.org.ukfederation.members;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.validation.ValidatorHandler;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.JAXBIntrospector;
+import jakarta.xml.bind.UnmarshalException;
+import jakarta.xml.bind.Unmarshaller;
+import jakarta.xml.bind.UnmarshallerHandler;
+import uk.org.ukfederation.members.jaxb.BaseGrantType;
+import uk.org.ukfederation.members.jaxb.MembersElement;
+import uk.org.ukfederation.members.jaxb.ParticipantType;
+
+/**
+ * Unmarshals a partial members document, holding only some of the participants, leaving the
+ * <code>orgID</code> of each grant for the caller to resolve.
+ *
+ * A grant's <code>orgID</code> in a partial document may refer to a participant it does not
+ * define, so the schema's ID and IDREF checks, which can only be made on a whole document, are
+ * not made; every other schema constraint is. The <code>orgID</code> attributes are removed
+ * before the document reaches JAXB and listed by {@link Parsed#references()} instead. The caller
+ * is then responsible for checking that participant IDs are unique and for resolving each
+ * reference.
+ */
+@NotThreadSafe
+final class ReferenceRecorder extends XMLFilterImpl {
+
+    /** Xerces feature controlling the schema's ID and IDREF checks. */
+    @Nonnull private static final String ID_IDREF_CHECKING =
+            "http://apache.org/xml/features/validation/id-idref-checking";
+
+    /** The <code>orgID</code> of each grant, in document order. */
+    @Nonnull private final List<String> orgIDs = new ArrayList<>();
+
+    /** Constructor. */
+    private ReferenceRecorder() {
+    }
+
+    /**
+     * Parses and unmarshals a partial members document.
+     *
+     * @param source the document
+     * @param schema the compiled schema, providing the unmarshaller
+     * @param validate whether to validate the document against the schema
+     * @return the unmarshalled document and its references to participants
+     * @throws JAXBException if the document can not be parsed, is not valid, or can not be unmarshalled
+     * @throws IOException if the document can not be read
+     */
+    @Nonnull static Parsed parse(@Nonnull final InputSource source, @Nonnull final CompiledSchema schema,
+            final boolean validate) throws JAXBException, IOException {
+        final ReferenceRecorder recorder = new ReferenceRecorder();
+        try (UnmarshallerPool.Lease lease = schema.getUnmarshallerPool().borrow()) {
+            final Unmarshaller unmarshaller = lease.get();
+            // validated, if at all, by the ValidatorHandler below
+            unmarshaller.setSchema(null);
+            try {
+                final UnmarshallerHandler handler = unmarshaller.getUnmarshallerHandler();
+                recorder.setContentHandler(handler);
+
+                final XMLReader reader = newReader();
+                if (validate) {
+                    final ValidatorHandler validator = schema.getSchema().newValidatorHandler();
+                    validator.setFeature(ID_IDREF_CHECKING, false);
+                    validator.setContentHandler(recorder);
+                    reader.setContentHandler(validator);
+                } else {
+                    reader.setContentHandler(recorder);
+                }
+                reader.parse(source);
+
+                final MembersElement element = (MembersElement) JAXBIntrospector.getValue(handler.getResult());
+                return new Parsed(element, recorder.references(element));
+            } finally {
+                unmarshaller.setSchema(schema.getSchema());
+            }
+        } catch (final SAXException | ParserConfigurationException e) {
+            throw new UnmarshalException(e);
+        }
+    }
+
+    /**
+     * Creates a namespace-aware SAX reader for a members document.
+     *
+     * As for {@link MembersLoader#createStreamReader}, DTDs and external entities are not supported.
+     *
+     * @return the new {@link XMLReader}
+     * @throws SAXException if the reader can not be configured
+     * @throws ParserConfigurationException if the reader can not be created
+     */
+    @Nonnull private static XMLReader newReader() throws SAXException, ParserConfigurationException {
+        final SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+        factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+        return factory.newSAXParser().getXMLReader();
+    }
+
+    @Override
+    public void startElement(@Nonnull final String uri, @Nonnull final String localName,
+            @Nonnull final String qName, @Nonnull final Attributes atts) throws SAXException {
+        if (MembersWriter.MEMBERS_NS.equals(uri) && ("Grant".equals(localName) || "GrantAll".equals(localName))) {
+            final int index = atts.getIndex("", "orgID");
+            if (index >= 0) {
+                orgIDs.add(atts.getValue(index));
+                final AttributesImpl remaining = new AttributesImpl(atts);
+                remaining.removeAttribute(index);
+                super.startElement(uri, localName, qName, remaining);
+                return;
+            }
+            orgIDs.add(null);
+        }
+        super.startElement(uri, localName, qName, atts);
+    }
+
+    /**
+     * Pairs each grant with the <code>orgID</code> recorded for it.
+     *
+     * @param element the root of the document's JAXB object graph
+     * @return the references, in document order
+     */
+    @Nonnull private List<Reference> references(@Nonnull final MembersElement element) {
+        final List<ParticipantType> participants = new ArrayList<>(element.getMember());
+        participants.addAll(element.getDomainOwner());
+        final List<Reference> references = new ArrayList<>(orgIDs.size());
+        int i = 0;
+        for (final ParticipantType participant : participants) {
+            for (final BaseGrantType grant : Participants.grantListOf(participant)) {
+                references.add(new Reference(participant, grant, orgIDs.get(i++)));
+            }
+        }
+        return List.copyOf(references);
+    }
+
+    /**
+     * An unmarshalled partial document.
+     *
+     * @param element the root of the document's JAXB object graph
+     * @param references the reference made by each grant, in document order; the
+     *  <code>orgID</code> of every grant is left unset
+     */
+    record Parsed(@Nonnull MembersElement element, @Nonnull List<Reference> references) {
+    }
+
+    /**
+     * The reference a grant makes to a participant through its <code>orgID</code>.
+     *
+     * @param grantor the participant making the grant
+     * @param grant the grant
+     * @param orgID the ID of the participant referred to, or <code>null</code> if the grant has none
+     */
+    record Reference(@Nonnull ParticipantType grantor, @Nonnull BaseGrantType grant, @Nullable String orgID) {
+    }
+
+}
@@ -0,0 +1,457 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import uk.org.ukfederation.members.jaxb.ApprovedEntityAttributeElement;
+import uk.org.ukfederation.members.jaxb.ApprovedEntityAttributesElement;
+import uk.org.ukfederation.members.jaxb.BaseGrantType;
+import uk.org.ukfederation.members.jaxb.DomainElement;
+import uk.org.ukfederation.members.jaxb.DomainOwnerElement;
+import uk.org.ukfederation.members.jaxb.DomainType;
+import uk.org.ukfederation.members.jaxb.DomainsElement;
+import uk.org.ukfederation.members.jaxb.EntityIDsElement;
+import uk.org.ukfederation.members.jaxb.GrantAllElement;
+import uk.org.ukfederation.members.jaxb.GrantElement;
+import uk.org.ukfederation.members.jaxb.GrantsElement;
+import uk.org.ukfederation.members.jaxb.MemberElement;
+import uk.org.ukfederation.members.jaxb.MembersElement;
+import uk.org.ukfederation.members.jaxb.ParticipantType;
+import uk.org.ukfederation.members.jaxb.ScopesElement;
+
+/**
+ * Decodes the content of a {@link MembersSnapshot}.
+ *
+ * Strings are only decoded from the string table when something refers to them, so that
+ * reading the participant names and pushed scopes touches only a small part of the snapshot.
+ */
+@NotThreadSafe
+final class SnapshotReader {
+
+    /** Namespace of the members document, for rebuilt <code>EntityID</code> elements. */
+    private static final String MEMBERS_NS = "http://ukfederation.org.uk/2007/01/members";
+
+    /** The snapshot content, following the header. */
+    @Nonnull private final ByteBuffer content;
+
+    /** Offset of each string in the string table. */
+    @Nonnull private final int[] stringOffsets;
+
+    /** Strings decoded so far. */
+    @Nonnull private final String[] strings;
+
+    /** Offset of the index sizes section. */
+    private final int sizesOffset;
+
+    /** Offset of the participant names section. */
+    private final int namesOffset;
+
+    /** Offset of the pushed scopes section. */
+    private final int scopesOffset;
+
+    /** Offset of the participant content section, or <code>-1</code> until it has been found. */
+    private int treeOffset = -1;
+
+    /**
+     * Constructor.
+     *
+     * @param buffer the snapshot content, following the header
+     * @throws IOException if the string table is malformed
+     */
+    SnapshotReader(@Nonnull final ByteBuffer buffer) throws IOException {
+        content = buffer;
+        try {
+            final int count = content.getInt(0);
+            stringOffsets = new int[count];
+            strings = new String[count];
+            int offset = Integer.BYTES;
+            for (int i = 0; i < count; i++) {
+                stringOffsets[i] = offset;
+                offset += Integer.BYTES + content.getInt(offset);
+            }
+            sizesOffset = offset;
+            namesOffset = sizesOffset + 2 * Integer.BYTES;
+            scopesOffset = namesOffset + Integer.BYTES
+                    + content.getInt(namesOffset) * (1 + Integer.BYTES);
+        } catch (final IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IOException("malformed members snapshot", e);
+        }
+    }
+
+    /**
+     * Reads the names of the members; domain owners are not included.
+     *
+     * @return the member names
+     */
+    @Nonnull Set<String> readMemberNames() {
+        final ByteBuffer in = at(namesOffset);
+        final int count = in.getInt();
+        final Set<String> names = new HashSet<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            final byte kind = in.get();
+            final String name = string(in.getInt());
+            if (kind == MembersSnapshot.MEMBER) {
+                names.add(name);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Reads the sizes of the indexes which will be built from the snapshot.
+     *
+     * @return the index sizes
+     */
+    @Nonnull IndexSizes readIndexSizes() {
+        final ByteBuffer in = at(namesOffset);
+        final int count = in.getInt();
+        int members = 0;
+        for (int i = 0; i < count; i++) {
+            if (in.get() == MembersSnapshot.MEMBER) {
+                members++;
+            }
+            in.getInt();
+        }
+        return new IndexSizes(members, count - members, content.getInt(sizesOffset),
+                content.getInt(sizesOffset + Integer.BYTES));
+    }
+
+    /**
+     * Reads the pushed scopes, building an index of them.
+     *
+     * @return the pushed scope index
+     */
+    @Nonnull PushedScopeIndex readPushedScopes() {
+        final ByteBuffer in = at(scopesOffset);
+        final PushedScopeIndex.Builder builder = new PushedScopeIndex.Builder();
+        final int count = in.getInt();
+        for (int i = 0; i < count; i++) {
+            builder.add(readStrings(in), readStrings(in));
+        }
+        treeOffset = in.position();
+        return builder.build();
+    }
+
+    /**
+     * Rebuilds the JAXB object graph.
+     *
+     * @return the document element of the graph
+     */
+    @Nonnull MembersElement readTree() {
+        if (treeOffset < 0) {
+            readPushedScopes();
+        }
+        final DatatypeFactory datatypes;
+        try {
+            datatypes = DatatypeFactory.newInstance();
+        } catch (final DatatypeConfigurationException e) {
+            throw new IllegalStateException("no XML datatype factory available", e);
+        }
+
+        // create every participant first, so that grants can refer to any of them
+        final ByteBuffer names = at(namesOffset);
+        final int count = names.getInt();
+        final MembersElement document = new MembersElement();
+        final List<ParticipantType> participants = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final ParticipantType participant;
+            if (names.get() == MembersSnapshot.MEMBER) {
+                final MemberElement member = new MemberElement();
+                document.getMember().add(member);
+                participant = member;
+            } else {
+                final DomainOwnerElement domainOwner = new DomainOwnerElement();
+                document.getDomainOwner().add(domainOwner);
+                participant = domainOwner;
+            }
+            participant.setName(string(names.getInt()));
+            participants.add(participant);
+        }
+
+        final TreeDecoder decoder = new TreeDecoder(at(treeOffset), participants, datatypes);
+        for (final ParticipantType participant : participants) {
+            decoder.readParticipant(participant);
+        }
+        return document;
+    }
+
+    /**
+     * Returns a view of the content positioned at an offset.
+     *
+     * @param offset the offset
+     * @return the view
+     */
+    @Nonnull private ByteBuffer at(final int offset) {
+        return content.duplicate().position(offset);
+    }
+
+    /**
+     * Returns a string from the string table.
+     *
+     * @param ref index of the string in the table, or <code>-1</code>
+     * @return the string, or <code>null</code> if <code>ref</code> is <code>-1</code>
+     */
+    @Nullable private String string(final int ref) {
+        if (ref < 0) {
+            return null;
+        }
+        String string = strings[ref];
+        if (string == null) {
+            final int offset = stringOffsets[ref];
+            final byte[] bytes = new byte[content.getInt(offset)];
+            content.get(offset + Integer.BYTES, bytes);
+            string = new String(bytes, StandardCharsets.UTF_8);
+            strings[ref] = string;
+        }
+        return string;
+    }
+
+    /**
+     * Reads a counted list of strings.
+     *
+     * @param in where to read the list from
+     * @return the strings
+     */
+    @Nonnull private List<String> readStrings(@Nonnull final ByteBuffer in) {
+        final int count = in.getInt();
+        final List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(string(in.getInt()));
+        }
+        return values;
+    }
+
+    /**
+     * Decodes the full content of each participant, in the order they were written.
+     */
+    private final class TreeDecoder {
+
+        /** Where to read the content from. */
+        @Nonnull private final ByteBuffer in;
+
+        /** All participants, by index. */
+        @Nonnull private final List<ParticipantType> participants;
+
+        /** Factory for dates. */
+        @Nonnull private final DatatypeFactory datatypes;
+
+        /** Document owning any rebuilt <code>EntityID</code> elements; created when first needed. */
+        @Nullable private Document owner;
+
+        /**
+         * Constructor.
+         *
+         * @param buffer where to read the content from
+         * @param all all participants, by index
+         * @param factory factory for dates
+         */
+        TreeDecoder(@Nonnull final ByteBuffer buffer, @Nonnull final List<ParticipantType> all,
+                @Nonnull final DatatypeFactory factory) {
+            in = buffer;
+            participants = all;
+            datatypes = factory;
+        }
+
+        /**
+         * Reads the content of a participant.
+         *
+         * @param participant the participant, which already has its name
+         */
+        void readParticipant(@Nonnull final ParticipantType participant) {
+            participant.setID(string(in.getInt()));
+            participant.setNameComment(string(in.getInt()));
+            if (participant instanceof MemberElement) {
+                final MemberElement member = (MemberElement) participant;
+                member.setJoinDate(date(in.getInt()));
+                member.setDomains(readDomains());
+                member.setGrants(readGrants());
+                final int scopes = in.getInt();
+                for (int i = 0; i < scopes; i++) {
+                    final ScopesElement scopesElement = new ScopesElement();
+                    scopesElement.getEntity().addAll(readStrings(in));
+                    scopesElement.getScope().addAll(readStrings(in));
+                    member.getScopes().add(scopesElement);
+                }
+                member.setEntityIDs(readEntityIDs());
+                member.setApprovedEntityAttributes(readApprovedAttributes());
+            } else {
+                final DomainOwnerElement domainOwner = (DomainOwnerElement) participant;
+                domainOwner.setDomains(readDomains());
+                domainOwner.setGrants(readGrants());
+            }
+        }
+
+        /**
+         * Reads a <code>Domains</code> element.
+         *
+         * @return the element, or <code>null</code> if there was none
+         */
+        @Nullable private DomainsElement readDomains() {
+            final int count = in.getInt();
+            if (count < 0) {
+                return null;
+            }
+            final DomainsElement domains = new DomainsElement();
+            for (int i = 0; i < count; i++) {
+                final DomainElement domain = new DomainElement();
+                domain.setValue(string(in.getInt()));
+                final String type = string(in.getInt());
+                domain.setType(type == null ? null : DomainType.fromValue(type));
+                domain.setLastVerified(date(in.getInt()));
+                domain.setVerifiedBy(string(in.getInt()));
+                domain.setSource(string(in.getInt()));
+                domain.setSourceURL(string(in.getInt()));
+                domains.getDomain().add(domain);
+            }
+            return domains;
+        }
+
+        /**
+         * Reads a <code>Grants</code> element.
+         *
+         * @return the element, or <code>null</code> if there was none
+         */
+        @Nullable private GrantsElement readGrants() {
+            final int count = in.getInt();
+            if (count < 0) {
+                return null;
+            }
+            final GrantsElement grants = new GrantsElement();
+            for (int i = 0; i < count; i++) {
+                final boolean single = in.get() == MembersSnapshot.GRANT;
+                final BaseGrantType grant = single ? new GrantElement() : new GrantAllElement();
+                grant.setValue(string(in.getInt()));
+                grant.setTo(string(in.getInt()));
+                final int orgID = in.getInt();
+                grant.setOrgID(orgID < 0 ? null : participants.get(orgID));
+                if (single) {
+                    ((GrantElement) grant).setEntityID(string(in.getInt()));
+                }
+                grant.setLastVerified(date(in.getInt()));
+                grant.setVerifiedBy(string(in.getInt()));
+                grant.setSource(string(in.getInt()));
+                grant.setSourceURL(string(in.getInt()));
+                grants.getGrantOrGrantAll().add(grant);
+            }
+            return grants;
+        }
+
+        /**
+         * Reads an <code>EntityIDs</code> element, rebuilding each entity ID as a DOM {@link Element}
+         * as JAXB would.
+         *
+         * @return the element, or <code>null</code> if there was none
+         */
+        @Nullable private EntityIDsElement readEntityIDs() {
+            final int count = in.getInt();
+            if (count < 0) {
+                return null;
+            }
+            final EntityIDsElement entityIDs = new EntityIDsElement();
+            for (int i = 0; i < count; i++) {
+                final Element element = owner().createElementNS(MEMBERS_NS, "EntityID");
+                element.setTextContent(string(in.getInt()));
+                final List<String> attributes = readStrings(in);
+                for (int a = 0; a + 1 < attributes.size(); a += 2) {
+                    final String name = attributes.get(a);
+                    if (name.indexOf(':') < 0) {
+                        element.setAttributeNS(null, name, attributes.get(a + 1));
+                    } else {
+                        element.setAttribute(name, attributes.get(a + 1));
+                    }
+                }
+                entityIDs.getEntityID().add(element);
+            }
+            return entityIDs;
+        }
+
+        /**
+         * Reads an <code>ApprovedEntityAttributes</code> element.
+         *
+         * @return the element, or <code>null</code> if there was none
+         */
+        @Nullable private ApprovedEntityAttributesElement readApprovedAttributes() {
+            final int count = in.getInt();
+            if (count < 0) {
+                return null;
+            }
+            final ApprovedEntityAttributesElement approved = new ApprovedEntityAttributesElement();
+            for (int i = 0; i < count; i++) {
+                final ApprovedEntityAttributeElement attribute = new ApprovedEntityAttributeElement();
+                attribute.setName(string(in.getInt()));
+                attribute.setNameFormat(string(in.getInt()));
+                attribute.setValue(string(in.getInt()));
+                attribute.setEntityID(string(in.getInt()));
+                attribute.setLastVerified(date(in.getInt()));
+                attribute.setVerifiedBy(string(in.getInt()));
+                attribute.setSource(string(in.getInt()));
+                attribute.setSourceURL(string(in.getInt()));
+                approved.getApprovedEntityAttribute().add(attribute);
+            }
+            return approved;
+        }
+
+        /**
+         * Returns a date from the string table.
+         *
+         * @param ref index of the date's lexical form in the table, or <code>-1</code>
+         * @return the date, or <code>null</code> if <code>ref</code> is <code>-1</code>
+         */
+        @Nullable private XMLGregorianCalendar date(final int ref) {
+            final String lexical = string(ref);
+            return lexical == null ? null : datatypes.newXMLGregorianCalendar(lexical);
+        }
+
+        /**
+         * Returns the document owning rebuilt <code>EntityID</code> elements.
+         *
+         * @return the owning document
+         */
+        @Nonnull private Document owner() {
+            if (owner == null) {
+                final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+                factory.setNamespaceAware(true);
+                try {
+                    owner = factory.newDocumentBuilder().newDocument();
+                } catch (final ParserConfigurationException e) {
+                    throw new IllegalStateException("can not create DOM document", e);
+                }
+            }
+            return owner;
+        }
+    }
+
+}
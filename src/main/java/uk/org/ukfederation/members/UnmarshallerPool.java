@@ -0,0 +1,252 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Unmarshaller;
+
+/**
+ * Bounded pool of the schema-validating {@link Unmarshaller}s for a single {@link CompiledSchema}.
+ *
+ * An {@link Unmarshaller} may be reused for any number of documents, but by only one thread at a
+ * time. The pool lends each one out to a single load and takes it back afterwards, so that
+ * concurrent loads against the same schema each have their own, and sequential loads reuse the
+ * same few. Unmarshallers are created as they are first needed, up to the capacity of the pool;
+ * once that many are on loan, further loads wait for one to be returned.
+ *
+ * The pool counts the loans made and the time spent waiting for them.
+ */
+@ThreadSafe
+public final class UnmarshallerPool {
+
+    /** The schema the unmarshallers validate against. */
+    @Nonnull private final CompiledSchema schema;
+
+    /** Greatest number of unmarshallers. */
+    private final int capacity;
+
+    /** Permits for unmarshallers not on loan. */
+    @Nonnull private final Semaphore available;
+
+    /** Unmarshallers created and not on loan. */
+    @Nonnull private final ConcurrentLinkedQueue<Unmarshaller> idle = new ConcurrentLinkedQueue<>();
+
+    /** Number of unmarshallers created. */
+    @Nonnull private final LongAdder created = new LongAdder();
+
+    /** Number of loans made. */
+    @Nonnull private final LongAdder loans = new LongAdder();
+
+    /** Total time spent waiting for loans, in nanoseconds. */
+    @Nonnull private final LongAdder waitNanos = new LongAdder();
+
+    /** Longest time spent waiting for a loan, in nanoseconds. */
+    @Nonnull private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Constructor.
+     *
+     * @param compiledSchema the schema the unmarshallers validate against
+     * @param size greatest number of unmarshallers
+     */
+    UnmarshallerPool(@Nonnull final CompiledSchema compiledSchema, final int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("pool capacity must be positive: " + size);
+        }
+        schema = compiledSchema;
+        capacity = size;
+        available = new Semaphore(size, true);
+    }
+
+    /**
+     * Borrows an unmarshaller, waiting for one to be returned if they are all on loan.
+     *
+     * The unmarshaller is returned to the pool by closing the {@link Lease}.
+     *
+     * @return the lease of an unmarshaller
+     * @throws JAXBException if there is a problem constructing a new unmarshaller, or the
+     *  thread is interrupted while waiting
+     */
+    @Nonnull public Lease borrow() throws JAXBException {
+        final long start = System.nanoTime();
+        try {
+            available.acquire();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JAXBException("interrupted waiting for an unmarshaller", e);
+        }
+        final long waited = System.nanoTime() - start;
+        loans.increment();
+        waitNanos.add(waited);
+        maxWaitNanos.accumulate(waited);
+
+        Unmarshaller unmarshaller = idle.poll();
+        if (unmarshaller == null) {
+            try {
+                unmarshaller = schema.newUnmarshaller();
+            } catch (final JAXBException | RuntimeException e) {
+                available.release();
+                throw e;
+            }
+            created.increment();
+        }
+        return new Lease(unmarshaller);
+    }
+
+    /**
+     * Returns the greatest number of unmarshallers the pool will create.
+     *
+     * @return the capacity of the pool
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of unmarshallers created so far.
+     *
+     * @return the number of unmarshallers created
+     */
+    public long getCreatedCount() {
+        return created.sum();
+    }
+
+    /**
+     * Returns the number of unmarshallers currently on loan.
+     *
+     * @return the number of unmarshallers on loan
+     */
+    public int getActiveCount() {
+        return capacity - available.availablePermits();
+    }
+
+    /**
+     * Returns the number of unmarshallers created and not currently on loan.
+     *
+     * @return the number of idle unmarshallers
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * Returns the number of loads currently waiting for an unmarshaller.
+     *
+     * @return the estimated number of waiting loads
+     */
+    public int getWaitingCount() {
+        return available.getQueueLength();
+    }
+
+    /**
+     * Returns the number of loans made so far.
+     *
+     * @return the number of loans
+     */
+    public long getLoanCount() {
+        return loans.sum();
+    }
+
+    /**
+     * Returns the total time spent waiting for loans.
+     *
+     * @return the total waiting time in nanoseconds
+     */
+    public long getTotalWaitNanos() {
+        return waitNanos.sum();
+    }
+
+    /**
+     * Returns the longest time spent waiting for a loan.
+     *
+     * @return the longest waiting time in nanoseconds
+     */
+    public long getMaxWaitNanos() {
+        return maxWaitNanos.get();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Nonnull public String toString() {
+        return "UnmarshallerPool[capacity=" + capacity + ", created=" + getCreatedCount()
+                + ", active=" + getActiveCount() + ", loans=" + getLoanCount()
+                + ", totalWait=" + getTotalWaitNanos() / 1_000_000 + "ms"
+                + ", maxWait=" + getMaxWaitNanos() / 1_000_000 + "ms]";
+    }
+
+    /**
+     * The loan of an unmarshaller to a single thread, returned to the pool when closed.
+     */
+    public final class Lease implements AutoCloseable {
+
+        /** The unmarshaller on loan, or <code>null</code> once returned. */
+        private Unmarshaller unmarshaller;
+
+        /**
+         * Constructor.
+         *
+         * @param lent the unmarshaller on loan
+         */
+        Lease(@Nonnull final Unmarshaller lent) {
+            unmarshaller = lent;
+        }
+
+        /**
+         * Returns the unmarshaller on loan.
+         *
+         * Any event handler or listener set on it is removed, and its schema restored, when it is returned.
+         *
+         * @return the unmarshaller
+         */
+        @Nonnull public Unmarshaller get() {
+            if (unmarshaller == null) {
+                throw new IllegalStateException("unmarshaller has been returned to the pool");
+            }
+            return unmarshaller;
+        }
+
+        /**
+         * Returns the unmarshaller to the pool. Closing a lease more than once has no further effect.
+         */
+        @Override
+        public void close() {
+            if (unmarshaller == null) {
+                return;
+            }
+            final Unmarshaller returned = unmarshaller;
+            unmarshaller = null;
+            try {
+                returned.setEventHandler(null);
+                returned.setListener(null);
+                returned.setSchema(schema.getSchema());
+                idle.add(returned);
+            } catch (final JAXBException e) {
+                // not reusable, so the pool will create another when it is needed
+            }
+            available.release();
+        }
+    }
+
+}
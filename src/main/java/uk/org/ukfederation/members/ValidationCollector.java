@@ -0,0 +1,249 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLStreamReader;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Node;
+
+import jakarta.xml.bind.Unmarshaller;
+import jakarta.xml.bind.ValidationEvent;
+import jakarta.xml.bind.ValidationEventHandler;
+import jakarta.xml.bind.ValidationEventLocator;
+import uk.org.ukfederation.members.ValidationIssue.Kind;
+import uk.org.ukfederation.members.ValidationIssue.Severity;
+
+/**
+ * Collects the issues found while loading a members document in collecting mode.
+ *
+ * The collector is attached to the {@link Unmarshaller} both as its {@link ValidationEventHandler},
+ * so that schema validation continues past each error, and as its {@link Unmarshaller.Listener},
+ * so that it can record where each JAXB object came from. It is then passed to {@link Members}
+ * to receive the results of the semantic checks, which it attributes to those locations.
+ */
+@NotThreadSafe
+final class ValidationCollector extends Unmarshaller.Listener implements ValidationEventHandler, Members.Problems {
+
+    /** Reader the document is being unmarshalled from, or <code>null</code> if line numbers are not available. */
+    @Nullable private final XMLStreamReader reader;
+
+    /** Issues found so far. */
+    @Nonnull private final List<ValidationIssue> issues = new ArrayList<>();
+
+    /** Where each unmarshalled object came from. */
+    @Nonnull private final Map<Object, Origin> origins = new IdentityHashMap<>();
+
+    /** Number of children of each name seen so far, for each unmarshalled object. */
+    @Nonnull private final Map<Object, Map<String, Integer>> childCounts = new IdentityHashMap<>();
+
+    /** Whether an error has been found. */
+    private boolean errors;
+
+    /**
+     * Constructor.
+     *
+     * @param streamReader reader the document is being unmarshalled from, or <code>null</code>
+     */
+    ValidationCollector(@Nullable final XMLStreamReader streamReader) {
+        reader = streamReader;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean handleEvent(@Nonnull final ValidationEvent event) {
+        final Severity severity;
+        switch (event.getSeverity()) {
+            case ValidationEvent.WARNING:
+                severity = Severity.WARNING;
+                break;
+            case ValidationEvent.FATAL_ERROR:
+                severity = Severity.FATAL;
+                break;
+            default:
+                severity = Severity.ERROR;
+        }
+        final ValidationEventLocator locator = event.getLocator();
+        final String path = locator == null || locator.getNode() == null ? null : domPath(locator.getNode());
+        add(new ValidationIssue(severity, Kind.SCHEMA, String.valueOf(event.getMessage()), path,
+                locator == null ? -1 : locator.getLineNumber(), locator == null ? -1 : locator.getColumnNumber()));
+        // keep going, so that every schema error is reported
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void beforeUnmarshal(@Nonnull final Object target, @Nullable final Object parent) {
+        final String name = elementName(target);
+        final String step;
+        if (parent == null) {
+            step = "/" + name;
+        } else {
+            final int index = childCounts.computeIfAbsent(parent, p -> new HashMap<>()).merge(name, 1, Integer::sum);
+            step = "/" + name + "[" + index + "]";
+        }
+        final Location location = reader == null ? null : reader.getLocation();
+        origins.put(target, new Origin(parent, step,
+                location == null ? -1 : location.getLineNumber(), location == null ? -1 : location.getColumnNumber()));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void error(@Nonnull final Object element, @Nonnull final String message) {
+        add(semanticIssue(Severity.ERROR, element, message));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void warning(@Nonnull final Object element, @Nonnull final String message) {
+        add(semanticIssue(Severity.WARNING, element, message));
+    }
+
+    /**
+     * Records a failure which stopped the document being processed.
+     *
+     * Nothing is recorded if the failure has already been reported as a fatal schema issue.
+     *
+     * @param message description of the failure
+     */
+    void fatal(@Nonnull final String message) {
+        if (issues.isEmpty() || issues.get(issues.size() - 1).getSeverity() != Severity.FATAL) {
+            final Location location = reader == null ? null : reader.getLocation();
+            add(new ValidationIssue(Severity.FATAL, Kind.SCHEMA, message, null,
+                    location == null ? -1 : location.getLineNumber(),
+                    location == null ? -1 : location.getColumnNumber()));
+        }
+    }
+
+    /**
+     * Indicates whether any errors have been found.
+     *
+     * @return <code>true</code> if an issue more serious than a warning has been found
+     */
+    boolean hasErrors() {
+        return errors;
+    }
+
+    /**
+     * Builds the report of the issues found.
+     *
+     * @param members the loaded document, which is only included if there were no errors
+     * @return the report
+     */
+    @Nonnull ValidationReport toReport(@Nullable final Members members) {
+        return new ValidationReport(issues, errors ? null : members);
+    }
+
+    /**
+     * Records an issue.
+     *
+     * @param issue the issue
+     */
+    private void add(@Nonnull final ValidationIssue issue) {
+        issues.add(issue);
+        if (issue.getSeverity() != Severity.WARNING) {
+            errors = true;
+        }
+    }
+
+    /**
+     * Makes an issue for the results of a semantic check.
+     *
+     * @param severity how serious the issue is
+     * @param element the JAXB object concerned
+     * @param message description of the issue
+     * @return the issue
+     */
+    @Nonnull private ValidationIssue semanticIssue(@Nonnull final Severity severity, @Nonnull final Object element,
+            @Nonnull final String message) {
+        final Origin origin = origins.get(element);
+        if (origin == null) {
+            return new ValidationIssue(severity, Kind.SEMANTIC, message, null, -1, -1);
+        }
+        final StringBuilder path = new StringBuilder();
+        for (Origin o = origin; o != null; o = o.parent == null ? null : origins.get(o.parent)) {
+            path.insert(0, o.step);
+        }
+        return new ValidationIssue(severity, Kind.SEMANTIC, message, path.toString(), origin.line, origin.column);
+    }
+
+    /**
+     * Returns the name of the element a JAXB object was unmarshalled from.
+     *
+     * @param target the JAXB object
+     * @return the element's local name
+     */
+    @Nonnull private static String elementName(@Nonnull final Object target) {
+        final String name = target.getClass().getSimpleName();
+        return name.endsWith("Element") ? name.substring(0, name.length() - "Element".length()) : name;
+    }
+
+    /**
+     * Computes the path to a DOM node.
+     *
+     * @param node the node
+     * @return the path to the node, or to its nearest enclosing element
+     */
+    @Nonnull private static String domPath(@Nonnull final Node node) {
+        final StringBuilder path = new StringBuilder();
+        Node n = node;
+        if (n.getNodeType() == Node.ATTRIBUTE_NODE) {
+            path.append("/@").append(n.getNodeName());
+            n = ((Attr) n).getOwnerElement();
+        }
+        while (n != null && n.getNodeType() != Node.ELEMENT_NODE) {
+            n = n.getParentNode();
+        }
+        while (n != null && n.getNodeType() == Node.ELEMENT_NODE) {
+            final String name = n.getLocalName() == null ? n.getNodeName() : n.getLocalName();
+            int index = 1;
+            for (Node s = n.getPreviousSibling(); s != null; s = s.getPreviousSibling()) {
+                if (s.getNodeType() == Node.ELEMENT_NODE && name.equals(
+                        s.getLocalName() == null ? s.getNodeName() : s.getLocalName())) {
+                    index++;
+                }
+            }
+            final Node parent = n.getParentNode();
+            final boolean root = parent == null || parent.getNodeType() != Node.ELEMENT_NODE;
+            path.insert(0, root ? "/" + name : "/" + name + "[" + index + "]");
+            n = parent;
+        }
+        return path.toString();
+    }
+
+    /**
+     * Where an unmarshalled object came from.
+     *
+     * @param parent the object's parent, or <code>null</code> for the document element
+     * @param step the last step in the path to the object's element
+     * @param line line number of the element, or <code>-1</code>
+     * @param column column number of the element, or <code>-1</code>
+     */
+    private record Origin(@Nullable Object parent, @Nonnull String step, int line, int column) {
+    }
+
+}
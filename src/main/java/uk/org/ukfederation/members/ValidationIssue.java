@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * A single problem found while validating a members document in collecting mode.
+ *
+ * @see MembersLoader#validate(java.io.InputStream)
+ */
+@Immutable
+public final class ValidationIssue {
+
+    /**
+     * How serious an issue is.
+     */
+    public enum Severity {
+
+        /** The document is acceptable, but probably not as intended. */
+        WARNING,
+
+        /** The document is not valid. */
+        ERROR,
+
+        /** The document could not be processed any further. */
+        FATAL
+    }
+
+    /**
+     * Which stage of validation found an issue.
+     */
+    public enum Kind {
+
+        /** Parsing or schema validation. */
+        SCHEMA,
+
+        /** The cross-checks applied to a schema-valid document, such as uniqueness of names and domains. */
+        SEMANTIC
+    }
+
+    /** How serious the issue is. */
+    @Nonnull private final Severity severity;
+
+    /** Which stage of validation found the issue. */
+    @Nonnull private final Kind kind;
+
+    /** Description of the issue. */
+    @Nonnull private final String message;
+
+    /** Path to the element concerned, if known. */
+    @Nullable private final String path;
+
+    /** Line number of the element concerned, or <code>-1</code>. */
+    private final int lineNumber;
+
+    /** Column number of the element concerned, or <code>-1</code>. */
+    private final int columnNumber;
+
+    /**
+     * Constructor.
+     *
+     * @param issueSeverity how serious the issue is
+     * @param issueKind which stage of validation found the issue
+     * @param description description of the issue
+     * @param elementPath path to the element concerned, or <code>null</code>
+     * @param line line number of the element concerned, or <code>-1</code>
+     * @param column column number of the element concerned, or <code>-1</code>
+     */
+    ValidationIssue(@Nonnull final Severity issueSeverity, @Nonnull final Kind issueKind,
+            @Nonnull final String description, @Nullable final String elementPath, final int line, final int column) {
+        severity = issueSeverity;
+        kind = issueKind;
+        message = description;
+        path = elementPath;
+        lineNumber = line;
+        columnNumber = column;
+    }
+
+    /**
+     * Returns how serious the issue is.
+     *
+     * @return the severity
+     */
+    @Nonnull public Severity getSeverity() {
+        return severity;
+    }
+
+    /**
+     * Returns which stage of validation found the issue.
+     *
+     * @return the kind of issue
+     */
+    @Nonnull public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Returns a description of the issue.
+     *
+     * @return the message
+     */
+    @Nonnull public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Returns the path to the element concerned, in the form
+     * <code>/Members/DomainOwner[2]/Grants/Grant[1]</code>.
+     *
+     * @return the path, or <code>null</code> if not known
+     */
+    @Nullable public String getPath() {
+        return path;
+    }
+
+    /**
+     * Returns the line number of the element concerned.
+     *
+     * Line numbers are only known when the document was read from a stream.
+     *
+     * @return the line number, or <code>-1</code> if not known
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Returns the column number of the element concerned.
+     *
+     * @return the column number, or <code>-1</code> if not known
+     */
+    public int getColumnNumber() {
+        return columnNumber;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Nonnull public String toString() {
+        final StringBuilder b = new StringBuilder();
+        b.append(severity).append(' ').append(kind);
+        if (lineNumber >= 0) {
+            b.append(" line ").append(lineNumber);
+            if (columnNumber >= 0) {
+                b.append(':').append(columnNumber);
+            }
+        }
+        if (path != null) {
+            b.append(' ').append(path);
+        }
+        return b.append(": ").append(message).toString();
+    }
+
+}
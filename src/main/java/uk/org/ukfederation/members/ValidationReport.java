@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import uk.org.ukfederation.members.ValidationIssue.Severity;
+
+/**
+ * Every problem found while validating a members document in collecting mode.
+ *
+ * Schema issues are reported first, in document order, followed by the results of the
+ * semantic checks. If there are no errors, the report also carries the loaded {@link Members}.
+ *
+ * @see MembersLoader#validate(java.io.InputStream)
+ */
+@Immutable
+public final class ValidationReport {
+
+    /** Every issue found. */
+    @Nonnull private final List<ValidationIssue> issues;
+
+    /** The loaded document, if it is valid. */
+    @Nullable private final Members members;
+
+    /**
+     * Constructor.
+     *
+     * @param found every issue found
+     * @param loaded the loaded document if it is valid, otherwise <code>null</code>
+     */
+    ValidationReport(@Nonnull final List<ValidationIssue> found, @Nullable final Members loaded) {
+        issues = Collections.unmodifiableList(new ArrayList<>(found));
+        members = loaded;
+    }
+
+    /**
+     * Returns every issue found.
+     *
+     * @return the issues, possibly empty
+     */
+    @Nonnull public List<ValidationIssue> getIssues() {
+        return issues;
+    }
+
+    /**
+     * Returns the issues of {@link Severity#ERROR} or {@link Severity#FATAL} severity.
+     *
+     * @return the errors, possibly empty
+     */
+    @Nonnull public List<ValidationIssue> getErrors() {
+        final List<ValidationIssue> errors = new ArrayList<>();
+        for (final ValidationIssue issue : issues) {
+            if (issue.getSeverity() != Severity.WARNING) {
+                errors.add(issue);
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * Returns the issues of {@link Severity#WARNING} severity.
+     *
+     * @return the warnings, possibly empty
+     */
+    @Nonnull public List<ValidationIssue> getWarnings() {
+        final List<ValidationIssue> warnings = new ArrayList<>();
+        for (final ValidationIssue issue : issues) {
+            if (issue.getSeverity() == Severity.WARNING) {
+                warnings.add(issue);
+            }
+        }
+        return warnings;
+    }
+
+    /**
+     * Indicates whether the document is valid: that is, whether no errors were found.
+     *
+     * @return <code>true</code> if the document is valid
+     */
+    public boolean isValid() {
+        return members != null;
+    }
+
+    /**
+     * Returns the loaded document, if it is valid.
+     *
+     * This is equivalent to the {@link Members} object a strict load of the document would have returned.
+     *
+     * @return the loaded document, or <code>null</code> if errors were found
+     */
+    @Nullable public Members getMembers() {
+        return members;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @Nonnull public String toString() {
+        return "ValidationReport{valid=" + isValid() + ", errors=" + getErrors().size()
+                + ", warnings=" + getWarnings().size() + "}";
+    }
+
+}
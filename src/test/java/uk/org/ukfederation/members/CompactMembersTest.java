@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import uk.org.ukfederation.members.CompactMembers.Grant;
+import uk.org.ukfederation.members.jaxb.BaseGrantType;
+
+/**
+ * Tests for the {@link CompactMembers} class.
+ */
+public class CompactMembersTest {
+
+    /**
+     * Load a {@link Members} object from the named resource.
+     *
+     * @param resourceName name of the resource to load
+     * @return the loaded {@link Members}
+     * @throws Exception if anything goes wrong
+     */
+    private Members fetchMembers(final String resourceName) throws Exception {
+        return Members.fromStream(CompactMembersTest.class.getResourceAsStream("/" + resourceName));
+    }
+
+    @Test
+    public void testLookups() throws Exception {
+        final CompactMembers m = CompactMembers.from(fetchMembers("domainTrie.xml"));
+        Assert.assertEquals(m.getParticipants().size(), 3);
+        Assert.assertEquals(m.getParticipantByName("Child Member").id(), "ukforg2");
+        Assert.assertTrue(m.isOwnerName("Parent Member"));
+        Assert.assertFalse(m.isOwnerName("Domain Owner"));
+        Assert.assertNotNull(m.getParticipantByName("Domain Owner"));
+        Assert.assertNull(m.getHeapUsage());
+
+        Assert.assertEquals(m.findDomainOwner("host.example.ac.uk").name(), "Parent Member");
+        Assert.assertEquals(m.findDomainOwner("a.b.sub.example.ac.uk").name(), "Child Member");
+        Assert.assertEquals(m.findDomainOwner("Host.Example.NET.").name(), "Child Member");
+        Assert.assertEquals(m.findOwnedDomain("a.b.sub.example.ac.uk"), "sub.example.ac.uk");
+        Assert.assertNull(m.findDomainOwner("ac.uk"));
+        Assert.assertNull(m.findDomainOwner("notexample.ac.uk"));
+
+        final List<Grant> g1 = m.findGrantsCovering("a.www.example.org", "https://sp.example.org");
+        Assert.assertEquals(g1.size(), 1);
+        Assert.assertTrue(g1.get(0).all());
+        Assert.assertEquals(g1.get(0).to().name(), "Parent Member");
+        Assert.assertEquals(g1.get(0).grantor().name(), "Domain Owner");
+
+        final List<Grant> g2 = m.findGrantsCovering("idp.example.org", "https://idp.example.org/idp");
+        Assert.assertEquals(g2.size(), 1);
+        Assert.assertFalse(g2.get(0).all());
+        Assert.assertSame(g2.get(0).to(), m.getParticipantByName("Child Member"));
+        Assert.assertTrue(m.findGrantsCovering("idp.example.org", "https://other.example.org").isEmpty());
+        Assert.assertTrue(m.findGrantsCovering("a.idp.example.org", null).isEmpty());
+    }
+
+    @Test
+    public void testMatchesMembers() throws Exception {
+        final MembersDocumentGenerator generator = MembersDocumentGenerator.ofParticipants(300);
+        generator.setGrantsPerDomainOwner(4);
+        final Members members = Members.fromStream(new ByteArrayInputStream(generator.generateBytes()));
+        final CompactMembers compact = CompactMembers.from(members);
+
+        for (int i = 0; i < generator.getMemberCount(); i++) {
+            final String name = MembersDocumentGenerator.getMemberName(i);
+            Assert.assertTrue(compact.isOwnerName(name));
+            final String host = "host." + MembersDocumentGenerator.getMemberDomain(i, 1);
+            Assert.assertEquals(compact.findDomainOwner(host).name(), members.findDomainOwner(host).getName());
+            final String entityID = MembersDocumentGenerator.getScopedEntityID(i, 0);
+            Assert.assertEquals(compact.scopesForEntity(entityID), members.scopesForEntity(entityID));
+        }
+        for (int d = 0; d < generator.getDomainOwnerCount(); d++) {
+            for (int g = 0; g < 4; g++) {
+                final String host = MembersDocumentGenerator.getGrantedName(d, g);
+                final List<Grant> found = compact.findGrantsCovering(host, null);
+                final List<BaseGrantType> expected = members.findGrantsCovering(host, null);
+                Assert.assertEquals(found.size(), expected.size());
+                for (int k = 0; k < found.size(); k++) {
+                    Assert.assertEquals(found.get(k).to().name(), expected.get(k).getTo());
+                    Assert.assertEquals(found.get(k).domain(), expected.get(k).getValue());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testLoadCompact() throws Exception {
+        final Path path = Path.of(CompactMembersTest.class.getResource("/pushedScopes.xml").toURI());
+        final CompactMembers m = new MembersLoader().loadCompact(path);
+        Assert.assertNotNull(m.getHeapUsage());
+        Assert.assertTrue(m.getHeapUsage().beforeBytes() > 0);
+        Assert.assertEquals(m.scopesForEntity("entity1"), fetchMembers("pushedScopes.xml").scopesForEntity("entity1"));
+    }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members;
+
+import java.io.InputStream;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import uk.org.ukfederation.members.EntityVerdict.Coverage;
+
+/**
+ * Tests for the {@link EntityAuthorizer} class.
+ */
+public class EntityAuthorizerTest {
+
+    /** Authorizer under test. */
+    private EntityAuthorizer authorizer;
+
+    /**
+     * Setup performed before any test is run.
+     *
+     * @throws Exception is anything goes wrong.
+     */
+    @BeforeClass
+    public void setUp() throws Exception {
+        try (final InputStream in = EntityAuthorizerTest.class.getResourceAsStream("/authorizer.xml")) {
+            authorizer = new EntityAuthorizer(Members.fromStream(in));
+        }
+    }
+
+    @Test
+    public void ownedDomain() {
+        final EntityVerdict v = authorizer.authorize("Owner", "https://sp.example.ac.uk/shibboleth",
+                List.of("example.ac.uk", "login.example.ac.uk"));
+        Assert.assertTrue(v.isOwnerMember());
+        Assert.assertFalse(v.isEntityIDListed());
+        Assert.assertTrue(v.isAuthorized());
+        Assert.assertEquals(v.getHostCoverage().size(), 3);
+        Assert.assertEquals(v.getHostCoverage().get("sp.example.ac.uk"), Coverage.OWNED_DOMAIN);
+        Assert.assertEquals(v.getHostCoverage().get("login.example.ac.uk"), Coverage.OWNED_DOMAIN);
+        Assert.assertEquals(v.getApprovedAttributes().size(), 1);
+        Assert.assertEquals(v.getApprovedAttributes().get(0).getValue(),
+                "http://refeds.org/category/research-and-scholarship");
+    }
+
+    @Test
+    public void notCovered() {
+        final EntityVerdict v = authorizer.authorize("Owner", "https://sp.example.ac.uk/shibboleth",
+                List.of("example.org"));
+        Assert.assertFalse(v.isAuthorized());
+        Assert.assertEquals(v.getHostCoverage().get("example.org"), Coverage.NOT_COVERED);
+
+        // attributes approved for one owner's entity are not available to another owner
+        final EntityVerdict other = authorizer.authorize("Grantee", "https://sp.example.ac.uk/shibboleth",
+                List.of());
+        Assert.assertFalse(other.isAuthorized());
+        Assert.assertTrue(other.getApprovedAttributes().isEmpty());
+    }
+
+    @Test
+    public void granted() {
+        final EntityVerdict v1 = authorizer.authorize("Grantee", "https://idp.example.org/idp",
+                List.of("a.www.example.org"));
+        Assert.assertTrue(v1.isAuthorized(), v1.toString());
+        Assert.assertEquals(v1.getHostCoverage().get("idp.example.org"), Coverage.GRANT);
+        Assert.assertEquals(v1.getHostCoverage().get("a.www.example.org"), Coverage.GRANT_ALL);
+
+        // the Grant is only for one entity
+        final EntityVerdict v2 = authorizer.authorize("Grantee", "https://idp.example.org/other", List.of());
+        Assert.assertFalse(v2.isAuthorized());
+
+        // the grant was to Grantee, not to Owner
+        final EntityVerdict v3 = authorizer.authorize("Owner", "https://idp.example.org/idp", List.of());
+        Assert.assertFalse(v3.isAuthorized());
+    }
+
+    @Test
+    public void entityIDs() {
+        final EntityVerdict v1 = authorizer.authorize("Owner", "urn:mace:example.ac.uk:sp", List.of());
+        Assert.assertTrue(v1.isEntityIDListed());
+        Assert.assertTrue(v1.isAuthorized());
+        Assert.assertTrue(v1.getHostCoverage().isEmpty());
+
+        final EntityVerdict v2 = authorizer.authorize("Owner", "https://listed.example.com/sp", List.of());
+        Assert.assertTrue(v2.isAuthorized());
+        Assert.assertEquals(v2.getHostCoverage().get("listed.example.com"), Coverage.ENTITY_ID);
+    }
+
+    @Test
+    public void nonMemberOwner() {
+        final EntityVerdict v1 = authorizer.authorize("Registrar", "https://www.example.org/sp", List.of());
+        Assert.assertFalse(v1.isOwnerMember());
+        Assert.assertFalse(v1.isAuthorized());
+        final EntityVerdict v2 = authorizer.authorize("Nobody", "https://www.example.org/sp", List.of());
+        Assert.assertFalse(v2.isOwnerMember());
+    }
+
+    @Test
+    public void batch() {
+        final List<EntityAuthorizer.Query> queries = List.of(
+                new EntityAuthorizer.Query("Owner", "https://sp.example.ac.uk/shibboleth", List.of()),
+                new EntityAuthorizer.Query("Owner", "https://sp.example.org/shibboleth", List.of()),
+                new EntityAuthorizer.Query("Grantee", "https://idp.example.org/idp", List.of()));
+        for (final boolean parallel : new boolean[] {false, true}) {
+            final List<EntityVerdict> verdicts = authorizer.authorizeAll(queries, parallel);
+            Assert.assertEquals(verdicts.size(), 3);
+            Assert.assertTrue(verdicts.get(0).isAuthorized());
+            Assert.assertFalse(verdicts.get(1).isAuthorized());
+            Assert.assertTrue(verdicts.get(2).isAuthorized());
+            Assert.assertEquals(verdicts.get(1).getEntityID(), "https://sp.example.org/shibboleth");
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package uk.org.ukfederation.members;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.xml.sax.SAXParseException;
+
+import jakarta.xml.bind.UnmarshalException;
+import net.shibboleth.shared.component.ComponentInitializationException;
+import uk.org.ukfederation.members.jaxb.BaseGrantType;
+import uk.org.ukfederation.members.jaxb.MemberElement;
+import uk.org.ukfederation.members.jaxb.ParticipantType;
+
+/**
+ * Tests for the {@link LazyMembers} class.
+ */
+public class LazyMembersTest {
+
+    /** Directory holding the files for each test. */
+    private Path dir;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("lazy");
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        try (var files = Files.list(dir)) {
+            for (final Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    /**
+     * Copy a resource into the test directory.
+     *
+     * @param resourceName name of the resource
+     * @return the copy
+     * @throws Exception if anything goes wrong
+     */
+    private Path copyResource(final String resourceName) throws Exception {
+        final Path path = dir.resolve(resourceName);
+        try (InputStream in = LazyMembersTest.class.getResourceAsStream("/" + resourceName)) {
+            Files.copy(in, path);
+        }
+        return path;
+    }
+
+    /**
+     * Load a resource lazily, expecting a {@link ComponentInitializationException}.
+     *
+     * @param resourceName name of the resource
+     * @param expected text expected in the exception message
+     * @throws Exception if anything unexpected goes wrong
+     */
+    private void expectProblem(final String resourceName, final String expected) throws Exception {
+        try {
+            new MembersLoader().loadLazy(copyResource(resourceName));
+        } catch (final ComponentInitializationException e) {
+            Assert.assertTrue(e.getMessage().contains(expected), e.getMessage());
+            return;
+        }
+        Assert.fail("expected component initialization exception");
+    }
+
+    @Test
+    public void testNameLookupsDoNotUnmarshal() throws Exception {
+        final LazyMembers lazy = new MembersLoader().loadLazy(copyResource("goodGrants.xml"));
+        Assert.assertEquals(lazy.getParticipantNames(), List.of("Valid Member", "Second Member", "Domain Owner"));
+        Assert.assertTrue(lazy.isOwnerName("Valid Member"));
+        Assert.assertFalse(lazy.isOwnerName("Domain Owner"));
+        Assert.assertTrue(lazy.isParticipantName("Domain Owner"));
+        Assert.assertFalse(lazy.isParticipantName("Unknown"));
+        Assert.assertNull(lazy.getParticipantByName("Unknown"));
+        Assert.assertNull(lazy.getMemberByName("Domain Owner"));
+        Assert.assertEquals(lazy.getMaterializedCount(), 0);
+    }
+
+    @Test
+    public void testGrantReferencesResolved() throws Exception {
+        final LazyMembers lazy = new MembersLoader().loadLazy(copyResource("goodGrants.xml"));
+
+        // The two members grant to each other, so both are unmarshalled together.
+        final MemberElement valid = lazy.getMemberByName("Valid Member");
+        Assert.assertNotNull(valid);
+        Assert.assertEquals(valid.getID(), "ukforg12345");
+        Assert.assertEquals(lazy.getMaterializedCount(), 2);
+        final MemberElement second = lazy.getMemberById("ukforg123");
+        Assert.assertSame(valid.getGrants().getGrantOrGrantAll().get(0).getOrgID(), second);
+        Assert.assertSame(second.getGrants().getGrantOrGrantAll().get(0).getOrgID(), valid);
+        Assert.assertSame(lazy.getParticipantByName("Second Member"), second);
+
+        final ParticipantType owner = lazy.getParticipantById("ukforg1234");
+        Assert.assertNotNull(owner);
+        Assert.assertEquals(lazy.getMaterializedCount(), 3);
+        final List<BaseGrantType> grants = Participants.grantListOf(owner);
+        Assert.assertSame(grants.get(0).getOrgID(), valid);
+        Assert.assertSame(grants.get(1).getOrgID(), second);
+    }
+
+    @Test
+    public void testMatchesMembers() throws Exception {
+        final MembersDocumentGenerator generator = MembersDocumentGenerator.ofParticipants(60);
+        generator.setScopesPerMember(2);
+        generator.setGrantsPerDomainOwner(3);
+        final Path path = dir.resolve("generated.xml");
+        Files.write(path, generator.generateBytes());
+
+        final MembersLoader loader = new MembersLoader();
+        final Members members = loader.load(path);
+        final LazyMembers lazy = loader.loadLazy(path);
+        Assert.assertEquals(lazy.getParticipantNames().size(), 60);
+        for (final String name : lazy.getParticipantNames()) {
+            Assert.assertEquals(lazy.isOwnerName(name), members.isOwnerName(name), name);
+        }
+
+        final String name = MembersDocumentGenerator.getMemberName(7);
+        final MemberElement eager = members.getMemberByName(name);
+        final MemberElement member = lazy.getMemberByName(name);
+        Assert.assertEquals(member.getID(), eager.getID());
+        Assert.assertEquals(member.getDomains().getDomain().size(), eager.getDomains().getDomain().size());
+        Assert.assertEquals(member.getScopes().size(), eager.getScopes().size());
+        Assert.assertTrue(lazy.getMaterializedCount() < 60);
+    }
+
+    @Test
+    public void testProblems() throws Exception {
+        expectProblem("duplicateParticipant.xml", "duplicate participant name");
+        expectProblem("duplicateDomain.xml", "appears in multiple participants");
+        expectProblem("badGrantTo.xml", "unknown grant to=");
+        expectProblem("badGrantToNonMember.xml", "not to a member");
+        expectProblem("badGrantOrgID.xml", "wrong participant");
+    }
+
+    @Test
+    public void testSchemaError() throws Exception {
+        try {
+            new MembersLoader().loadLazy(copyResource("duplicateOrg.xml"));
+        } catch (final UnmarshalException e) {
+            Assert.assertTrue(e.getLinkedException() instanceof SAXParseException);
+            return;
+        }
+        Assert.fail("expected parsing exception");
+    }
+
+    @Test
+    public void testScanParticipants() {
+        final String document = "<?xml version=\"1.0\"?>\n<!-- <Member> -->\n<m:Members xmlns:m=\"urn:x\">"
+                + "<m:Member a=\"x>y\" b='/>'><![CDATA[</m:Member>]]><?pi <x>?></m:Member>"
+                + "<m:Empty/>"
+                + "<m:DomainOwner><!-- </m:DomainOwner> --><m:Name/></m:DomainOwner>"
+                + "</m:Members>";
+        final int[] ranges = LazyMembers.scanParticipants(
+                ByteBuffer.wrap(document.getBytes(StandardCharsets.UTF_8)));
+        Assert.assertEquals(ranges.length, 6);
+        Assert.assertEquals(document.substring(ranges[0], ranges[1]),
+                "<m:Member a=\"x>y\" b='/>'><![CDATA[</m:Member>]]><?pi <x>?></m:Member>");
+        Assert.assertEquals(document.substring(ranges[2], ranges[3]), "<m:Empty/>");
+        Assert.assertEquals(document.substring(ranges[4], ranges[5]),
+                "<m:DomainOwner><!-- </m:DomainOwner> --><m:Name/></m:DomainOwner>");
+    }
+
+}
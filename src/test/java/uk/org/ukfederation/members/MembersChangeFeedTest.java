@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members;
+
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import uk.org.ukfederation.members.MembersChangeFeed.ChangeEvent;
+import uk.org.ukfederation.members.MembersChangeFeed.Kind;
+import uk.org.ukfederation.members.MembersChangeFeed.Subscription;
+
+/**
+ * Tests for the {@link MembersChangeFeed} class.
+ */
+public class MembersChangeFeedTest {
+
+    /**
+     * Fetch a {@link Members} object corresponding to the named resource.
+     *
+     * @param resourceName name of the resource
+     * @return {@link Members} object corresponding to the resource.
+     * @throws Exception if anything goes wrong
+     */
+    private Members fetchMembers(String resourceName) throws Exception {
+        try (final InputStream in = MembersChangeFeedTest.class.getResourceAsStream("/" + resourceName)) {
+            return Members.fromStream(in);
+        }
+    }
+
+    /**
+     * Make a registry publishing the named resources in turn.
+     *
+     * @param resourceNames names of the resources
+     * @return the registry
+     */
+    private MembersRegistry registryOf(String... resourceNames) {
+        final Deque<String> names = new ArrayDeque<>(List.of(resourceNames));
+        return new MembersRegistry(() -> fetchMembers(names.removeFirst()));
+    }
+
+    /**
+     * Remove every waiting event from a subscription.
+     *
+     * @param subscription the subscription
+     * @return the events
+     */
+    private List<ChangeEvent> drain(Subscription subscription) {
+        final List<ChangeEvent> events = new ArrayList<>();
+        subscription.drainTo(events);
+        return events;
+    }
+
+    /**
+     * Collect the subjects of the events of one kind.
+     *
+     * @param events the events
+     * @param kind the kind of event
+     * @return the subjects of the events of that kind
+     */
+    private Set<String> subjects(List<ChangeEvent> events, Kind kind) {
+        return events.stream().filter(e -> e.kind() == kind).map(ChangeEvent::subject).collect(Collectors.toSet());
+    }
+
+    @Test
+    public void testEvents() throws Exception {
+        try (final MembersRegistry registry = registryOf("oneOfEach.xml", "domainTrie.xml", "oneOfEach.xml",
+                "pushedScopes.xml");
+                final MembersChangeFeed feed = new MembersChangeFeed(registry)) {
+            final Subscription subscription = feed.subscribe(100);
+            registry.initialize();
+            Assert.assertNull(subscription.poll());
+
+            Assert.assertTrue(registry.reload());
+            List<ChangeEvent> events = drain(subscription);
+            Assert.assertEquals(subjects(events, Kind.MEMBER_JOINED), Set.of("Parent Member", "Child Member"));
+            Assert.assertEquals(subjects(events, Kind.MEMBER_LEFT), Set.of("Valid Member"));
+            Assert.assertEquals(subjects(events, Kind.PARTICIPANT_CHANGED), Set.of("Domain Owner"));
+            Assert.assertEquals(subjects(events, Kind.DOMAIN_ADDED),
+                    Set.of("example.ac.uk", "sub.example.ac.uk", "example.net", "example.org"));
+            Assert.assertEquals(subjects(events, Kind.GRANT_ADDED), Set.of("www.example.org", "idp.example.org"));
+            for (final ChangeEvent event : events) {
+                Assert.assertEquals(event.generation(), 2);
+                if (event.kind() == Kind.MEMBER_JOINED) {
+                    Assert.assertNotNull(event.joinDate());
+                } else if (event.kind() == Kind.DOMAIN_ADDED && event.subject().equals("example.net")) {
+                    Assert.assertEquals(event.participant(), "Child Member");
+                } else if (event.kind() == Kind.GRANT_ADDED && event.subject().equals("idp.example.org")) {
+                    Assert.assertEquals(event.participant(), "Domain Owner");
+                    Assert.assertEquals(event.grant().to(), "Child Member");
+                    Assert.assertEquals(event.grant().entityID(), "https://idp.example.org/idp");
+                }
+            }
+
+            Assert.assertTrue(registry.reload());
+            events = drain(subscription);
+            Assert.assertEquals(subjects(events, Kind.MEMBER_JOINED), Set.of("Valid Member"));
+            Assert.assertEquals(events.stream().filter(e -> e.kind() == Kind.MEMBER_JOINED).findFirst()
+                    .orElseThrow().joinDate(), LocalDate.of(2008, 4, 29));
+            Assert.assertEquals(subjects(events, Kind.DOMAIN_REMOVED),
+                    Set.of("example.ac.uk", "sub.example.ac.uk", "example.net", "example.org"));
+            Assert.assertEquals(subjects(events, Kind.GRANT_REVOKED), Set.of("www.example.org", "idp.example.org"));
+
+            Assert.assertTrue(registry.reload());
+            events = drain(subscription);
+            Assert.assertEquals(subjects(events, Kind.MEMBER_JOINED), Set.of("member1", "member2"));
+            Assert.assertEquals(subjects(events, Kind.DOMAIN_OWNER_REMOVED), Set.of("Domain Owner"));
+            Assert.assertEquals(subjects(events, Kind.SCOPES_CHANGED), Set.of("entity1", "entity2"));
+            Assert.assertEquals(subscription.getDroppedCount(), 0);
+        }
+    }
+
+    @Test
+    public void testBoundedAndFiltered() throws Exception {
+        try (final MembersRegistry registry = registryOf("oneOfEach.xml", "domainTrie.xml", "oneOfEach.xml");
+                final MembersChangeFeed feed = new MembersChangeFeed(registry)) {
+            final Subscription small = feed.subscribe(2);
+            final Subscription members = feed.subscribe(10, EnumSet.of(Kind.MEMBER_JOINED, Kind.MEMBER_LEFT));
+            registry.initialize();
+            Assert.assertTrue(registry.reload());
+
+            // 4 participant, 4 domain and 2 grant events
+            Assert.assertEquals(drain(small).size(), 2);
+            Assert.assertEquals(small.getDroppedCount(), 8);
+            Assert.assertEquals(drain(members).size(), 3);
+            Assert.assertEquals(members.getDroppedCount(), 0);
+
+            members.close();
+            Assert.assertTrue(registry.reload());
+            Assert.assertNull(members.poll());
+            Assert.assertEquals(drain(small).size(), 2);
+        }
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members;
+
+import java.io.InputStream;
+import java.util.Set;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for the {@link MembersDelta} class.
+ */
+public class MembersDeltaTest {
+
+    /**
+     * Fetch a {@link Members} object corresponding to the named resource.
+     *
+     * @param resourceName name of the resource
+     * @return {@link Members} object corresponding to the resource.
+     * @throws Exception if anything goes wrong
+     */
+    private Members fetchMembers(String resourceName) throws Exception {
+        try (final InputStream in = MembersDeltaTest.class.getResourceAsStream("/" + resourceName)) {
+            return Members.fromStream(in);
+        }
+    }
+
+    @Test
+    public void identical() throws Exception {
+        final MembersDelta delta = fetchMembers("goodGrants.xml").diff(fetchMembers("goodGrants.xml"));
+        Assert.assertTrue(delta.isEmpty(), delta.toString());
+    }
+
+    @Test
+    public void grantsAdded() throws Exception {
+        final Members previous = fetchMembers("oneOfEach.xml");
+        final Members current = fetchMembers("goodGrants.xml");
+        final MembersDelta delta = current.diff(previous);
+        Assert.assertFalse(delta.isEmpty());
+
+        Assert.assertEquals(delta.getParticipants().getAdded(), Set.of("Second Member"));
+        Assert.assertTrue(delta.getParticipants().getRemoved().isEmpty());
+        Assert.assertEquals(delta.getParticipants().getChanged(), Set.of("Valid Member", "Domain Owner"));
+
+        Assert.assertEquals(delta.getGrants().getAdded().size(), 4);
+        Assert.assertTrue(delta.getGrants().getAdded().contains(
+                new MembersDelta.GrantKey("Domain Owner", false, "example.edu", "Valid Member", "http://example.edu")));
+        Assert.assertTrue(delta.getGrants().getAdded().contains(
+                new MembersDelta.GrantKey("Domain Owner", true, "example.edu", "Second Member", null)));
+        Assert.assertTrue(delta.getGrants().getRemoved().isEmpty());
+        Assert.assertTrue(delta.getDomains().isEmpty());
+        Assert.assertTrue(delta.getPushedScopes().isEmpty());
+
+        // and the other way around
+        final MembersDelta reverse = previous.diff(current);
+        Assert.assertEquals(reverse.getParticipants().getRemoved(), Set.of("Second Member"));
+        Assert.assertEquals(reverse.getGrants().getRemoved().size(), 4);
+        Assert.assertTrue(reverse.getGrants().getAdded().isEmpty());
+    }
+
+    @Test
+    public void pushedScopes() throws Exception {
+        final MembersDelta delta = fetchMembers("pushedScopes.xml").diff(fetchMembers("oneOfEach.xml"));
+        Assert.assertEquals(delta.getPushedScopes().getAdded(), Set.of("entity1", "entity2"));
+        Assert.assertEquals(delta.getParticipants().getAdded(), Set.of("member1", "member2"));
+        Assert.assertEquals(delta.getParticipants().getRemoved(), Set.of("Valid Member", "Domain Owner"));
+    }
+}
@@ -0,0 +1,461 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Generates synthetic, schema-valid members documents of any size, for benchmarks and stress tests.
+ *
+ * The generated document contains a configurable number of <code>Member</code>s followed by a
+ * configurable number of <code>DomainOwner</code>s. Every name in the document is derived from
+ * the index of the participant it belongs to, so callers can construct names which are known to
+ * be present (or absent) without parsing the document; see the <code>get...</code> methods.
+ *
+ * <ul>
+ * <li>Member <i>i</i> has ID <code>ukforg<i>i+1</i></code> and registers the domains
+ *     <code>m<i>i</i>-<i>j</i>.example.ac.uk</code>. Each of its <code>Scopes</code> elements pushes
+ *     all of those domains to the entity <code>https://sp<i>k</i>.m<i>i</i>-0.example.ac.uk/shibboleth</code>,
+ *     and its <code>EntityIDs</code> lists <code>urn:example:m<i>i</i>:<i>k</i></code>.</li>
+ * <li>Domain owner <i>d</i> registers the domains <code>o<i>d</i>-<i>j</i>.example.org</code>, and makes
+ *     grants of <code>g<i>g</i>.o<i>d</i>-0.example.org</code>: even numbered grants are
+ *     <code>GrantAll</code>s, odd numbered grants are <code>Grant</code>s for the entity
+ *     <code>https://g<i>g</i>.o<i>d</i>-0.example.org/shibboleth</code>. The member each grant is made
+ *     to is chosen pseudo-randomly from the seed, and is available from {@link #getGranteeIndex(int, int)}.</li>
+ * </ul>
+ *
+ * A single problem can be injected, to exercise the failure paths of large documents: a domain
+ * registered twice ({@link #setDuplicateDomainMember(int)}), or a grant whose <code>orgID</code>
+ * does not match its <code>to</code> ({@link #setBadGrantDomainOwner(int)}).
+ *
+ * Output depends only on the configuration, so the same configuration always produces the same document.
+ */
+public final class MembersDocumentGenerator {
+
+    /** Number of <code>Member</code> elements. */
+    private final int members;
+
+    /** Number of <code>DomainOwner</code> elements. */
+    private final int domainOwners;
+
+    /** Number of domains registered by each participant. */
+    private int domainsPerParticipant = 2;
+
+    /** Number of grants made by each domain owner. */
+    private int grantsPerDomainOwner = 2;
+
+    /** Number of <code>Scopes</code> elements in each member. */
+    private int scopesPerMember = 1;
+
+    /** Number of entity IDs listed in each member's <code>EntityIDs</code>. */
+    private int entityIDsPerMember = 1;
+
+    /** Seed used to choose the members grants are made to. */
+    private long seed = 1;
+
+    /** Index of the member which also registers the first domain of member 0, or -1 for none. */
+    private int duplicateDomainMember = -1;
+
+    /** Index of the domain owner whose first grant has a mismatched <code>orgID</code>, or -1 for none. */
+    private int badGrantDomainOwner = -1;
+
+    /**
+     * Constructor.
+     *
+     * @param memberCount number of <code>Member</code> elements
+     * @param domainOwnerCount number of <code>DomainOwner</code> elements
+     */
+    public MembersDocumentGenerator(final int memberCount, final int domainOwnerCount) {
+        if (memberCount < 1 || domainOwnerCount < 0) {
+            throw new IllegalArgumentException("need at least one member and no negative counts");
+        }
+        members = memberCount;
+        domainOwners = domainOwnerCount;
+    }
+
+    /**
+     * Constructor for a document with a typical proportion of domain owners: one participant in ten.
+     *
+     * @param participants total number of participants
+     * @return the generator
+     */
+    @Nonnull public static MembersDocumentGenerator ofParticipants(final int participants) {
+        return new MembersDocumentGenerator(participants - participants / 10, participants / 10);
+    }
+
+    /**
+     * Returns the number of <code>Member</code> elements.
+     *
+     * @return number of members
+     */
+    public int getMemberCount() {
+        return members;
+    }
+
+    /**
+     * Returns the number of <code>DomainOwner</code> elements.
+     *
+     * @return number of domain owners
+     */
+    public int getDomainOwnerCount() {
+        return domainOwners;
+    }
+
+    /**
+     * Sets the number of domains registered by each participant.
+     *
+     * @param count number of domains
+     */
+    public void setDomainsPerParticipant(final int count) {
+        domainsPerParticipant = count;
+    }
+
+    /**
+     * Returns the number of domains registered by each participant.
+     *
+     * @return number of domains
+     */
+    public int getDomainsPerParticipant() {
+        return domainsPerParticipant;
+    }
+
+    /**
+     * Sets the number of grants made by each domain owner.
+     *
+     * @param count number of grants
+     */
+    public void setGrantsPerDomainOwner(final int count) {
+        grantsPerDomainOwner = count;
+    }
+
+    /**
+     * Returns the number of grants made by each domain owner.
+     *
+     * @return number of grants
+     */
+    public int getGrantsPerDomainOwner() {
+        return grantsPerDomainOwner;
+    }
+
+    /**
+     * Sets the number of <code>Scopes</code> elements in each member.
+     *
+     * @param count number of <code>Scopes</code> elements
+     */
+    public void setScopesPerMember(final int count) {
+        scopesPerMember = count;
+    }
+
+    /**
+     * Returns the number of <code>Scopes</code> elements in each member.
+     *
+     * @return number of <code>Scopes</code> elements
+     */
+    public int getScopesPerMember() {
+        return scopesPerMember;
+    }
+
+    /**
+     * Sets the number of entity IDs listed in each member's <code>EntityIDs</code>.
+     *
+     * @param count number of entity IDs
+     */
+    public void setEntityIDsPerMember(final int count) {
+        entityIDsPerMember = count;
+    }
+
+    /**
+     * Sets the seed used to choose the members grants are made to.
+     *
+     * @param value the seed
+     */
+    public void setSeed(final long value) {
+        seed = value;
+    }
+
+    /**
+     * Makes a member also register the first domain of member 0, so that the document is rejected.
+     *
+     * @param i index of the member, other than 0, or -1 for none
+     */
+    public void setDuplicateDomainMember(final int i) {
+        duplicateDomainMember = i;
+    }
+
+    /**
+     * Makes a domain owner's first grant refer by <code>orgID</code> to a different member from
+     * the one named by its <code>to</code>, so that the document is rejected. This needs at least
+     * two members, and a domain owner making at least one grant.
+     *
+     * @param d index of the domain owner, or -1 for none
+     */
+    public void setBadGrantDomainOwner(final int d) {
+        badGrantDomainOwner = d;
+    }
+
+    /**
+     * Returns the name of a member.
+     *
+     * @param i index of the member
+     * @return the member's name
+     */
+    @Nonnull public static String getMemberName(final int i) {
+        return "Member " + i;
+    }
+
+    /**
+     * Returns the name of a domain owner.
+     *
+     * @param d index of the domain owner
+     * @return the domain owner's name
+     */
+    @Nonnull public static String getDomainOwnerName(final int d) {
+        return "Domain Owner " + d;
+    }
+
+    /**
+     * Returns a domain registered by a member.
+     *
+     * @param i index of the member
+     * @param j index of the domain within the member
+     * @return the domain
+     */
+    @Nonnull public static String getMemberDomain(final int i, final int j) {
+        return "m" + i + "-" + j + ".example.ac.uk";
+    }
+
+    /**
+     * Returns a domain registered by a domain owner.
+     *
+     * @param d index of the domain owner
+     * @param j index of the domain within the domain owner
+     * @return the domain
+     */
+    @Nonnull public static String getDomainOwnerDomain(final int d, final int j) {
+        return "o" + d + "-" + j + ".example.org";
+    }
+
+    /**
+     * Returns the entity a member's <code>Scopes</code> element pushes scopes to.
+     *
+     * @param i index of the member
+     * @param k index of the <code>Scopes</code> element within the member
+     * @return the entity ID
+     */
+    @Nonnull public static String getScopedEntityID(final int i, final int k) {
+        return "https://sp" + k + "." + getMemberDomain(i, 0) + "/shibboleth";
+    }
+
+    /**
+     * Returns an entity ID listed in a member's <code>EntityIDs</code>.
+     *
+     * @param i index of the member
+     * @param k index of the entity ID within the member
+     * @return the entity ID
+     */
+    @Nonnull public static String getListedEntityID(final int i, final int k) {
+        return "urn:example:m" + i + ":" + k;
+    }
+
+    /**
+     * Returns the name granted by a domain owner's grant.
+     *
+     * @param d index of the domain owner
+     * @param g index of the grant within the domain owner
+     * @return the granted name
+     */
+    @Nonnull public static String getGrantedName(final int d, final int g) {
+        return "g" + g + "." + getDomainOwnerDomain(d, 0);
+    }
+
+    /**
+     * Returns the entity ID a <code>Grant</code> is made for.
+     *
+     * Only odd numbered grants are <code>Grant</code>s; even numbered grants are <code>GrantAll</code>s.
+     *
+     * @param d index of the domain owner
+     * @param g index of the grant within the domain owner
+     * @return the entity ID
+     */
+    @Nonnull public static String getGrantEntityID(final int d, final int g) {
+        return "https://" + getGrantedName(d, g) + "/shibboleth";
+    }
+
+    /**
+     * Returns the index of the member a grant is made to.
+     *
+     * @param d index of the domain owner
+     * @param g index of the grant within the domain owner
+     * @return index of the member
+     */
+    public int getGranteeIndex(final int d, final int g) {
+        long x = seed ^ ((long) d << 20) ^ g;
+        // SplitMix64 finalizer
+        x = (x ^ (x >>> 30)) * 0xbf58476d1ce4e5b9L;
+        x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+        x ^= x >>> 31;
+        return (int) Math.floorMod(x, (long) members);
+    }
+
+    /**
+     * Writes the document.
+     *
+     * @param out where to write the document
+     * @throws IOException if the document can not be written
+     */
+    public void write(@Nonnull final Writer out) throws IOException {
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        out.write("<Members xmlns=\"http://ukfederation.org.uk/2007/01/members\">\n");
+        for (int i = 0; i < members; i++) {
+            writeMember(out, i);
+        }
+        for (int d = 0; d < domainOwners; d++) {
+            writeDomainOwner(out, d);
+        }
+        out.write("</Members>\n");
+    }
+
+    /**
+     * Writes the document to a file.
+     *
+     * @param path the file to write
+     * @throws IOException if the document can not be written
+     */
+    public void write(@Nonnull final Path path) throws IOException {
+        try (Writer out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            write(out);
+        }
+    }
+
+    /**
+     * Generates the document as a string.
+     *
+     * @return the document
+     */
+    @Nonnull public String generate() {
+        final StringWriter out = new StringWriter(members * 512);
+        try {
+            write(out);
+        } catch (final IOException e) {
+            // StringWriter does not throw
+            throw new IllegalStateException(e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Generates the document as UTF-8 encoded bytes.
+     *
+     * @return the document
+     */
+    @Nonnull public byte[] generateBytes() {
+        return generate().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes one <code>Member</code> element.
+     *
+     * @param out where to write the element
+     * @param i index of the member
+     * @throws IOException if the element can not be written
+     */
+    private void writeMember(@Nonnull final Writer out, final int i) throws IOException {
+        out.write("  <Member ID=\"ukforg" + (i + 1) + "\">\n");
+        out.write("    <Name>" + getMemberName(i) + "</Name>\n");
+        out.write("    <JoinDate>2010-01-01</JoinDate>\n");
+        writeDomains(out, i, true);
+        for (int k = 0; k < scopesPerMember; k++) {
+            out.write("    <Scopes>\n");
+            out.write("      <Entity>" + getScopedEntityID(i, k) + "</Entity>\n");
+            for (int j = 0; j < Math.max(1, domainsPerParticipant); j++) {
+                out.write("      <Scope>" + getMemberDomain(i, j) + "</Scope>\n");
+            }
+            out.write("    </Scopes>\n");
+        }
+        if (entityIDsPerMember > 0) {
+            out.write("    <EntityIDs>\n");
+            for (int k = 0; k < entityIDsPerMember; k++) {
+                out.write("      <EntityID>" + getListedEntityID(i, k) + "</EntityID>\n");
+            }
+            out.write("    </EntityIDs>\n");
+        }
+        out.write("  </Member>\n");
+    }
+
+    /**
+     * Writes one <code>DomainOwner</code> element.
+     *
+     * @param out where to write the element
+     * @param d index of the domain owner
+     * @throws IOException if the element can not be written
+     */
+    private void writeDomainOwner(@Nonnull final Writer out, final int d) throws IOException {
+        out.write("  <DomainOwner ID=\"ukforg" + (members + d + 1) + "\">\n");
+        out.write("    <Name>" + getDomainOwnerName(d) + "</Name>\n");
+        writeDomains(out, d, false);
+        if (grantsPerDomainOwner > 0) {
+            out.write("    <Grants>\n");
+            for (int g = 0; g < grantsPerDomainOwner; g++) {
+                final int grantee = getGranteeIndex(d, g);
+                final int orgID = d == badGrantDomainOwner && g == 0 ? (grantee + 1) % members : grantee;
+                final String attributes = " to=\"" + getMemberName(grantee) + "\" orgID=\"ukforg" + (orgID + 1)
+                        + "\"";
+                if (g % 2 == 0) {
+                    out.write("      <GrantAll" + attributes + ">" + getGrantedName(d, g) + "</GrantAll>\n");
+                } else {
+                    out.write("      <Grant" + attributes + " entityID=\"" + getGrantEntityID(d, g) + "\">"
+                            + getGrantedName(d, g) + "</Grant>\n");
+                }
+            }
+            out.write("    </Grants>\n");
+        }
+        out.write("  </DomainOwner>\n");
+    }
+
+    /**
+     * Writes a participant's <code>Domains</code> element, if it has any domains.
+     *
+     * @param out where to write the element
+     * @param index index of the participant
+     * @param member <code>true</code> if the participant is a member
+     * @throws IOException if the element can not be written
+     */
+    private void writeDomains(@Nonnull final Writer out, final int index, final boolean member)
+            throws IOException {
+        final boolean duplicate = member && index == duplicateDomainMember;
+        if (domainsPerParticipant == 0 && !duplicate) {
+            return;
+        }
+        out.write("    <Domains>\n");
+        for (int j = 0; j < domainsPerParticipant; j++) {
+            final String domain = member ? getMemberDomain(index, j) : getDomainOwnerDomain(index, j);
+            out.write("      <Domain>" + domain + "</Domain>\n");
+        }
+        if (duplicate) {
+            out.write("      <Domain>" + getMemberDomain(0, 0) + "</Domain>\n");
+        }
+        out.write("    </Domains>\n");
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import uk.org.ukfederation.members.jaxb.BaseGrantType;
+import uk.org.ukfederation.members.jaxb.GrantAllElement;
+import uk.org.ukfederation.members.jaxb.GrantElement;
+
+/**
+ * Tests for the {@link MembersDocumentGenerator} class.
+ */
+public class MembersDocumentGeneratorTest {
+
+    @Test
+    public void testGeneratedDocumentLoads() throws Exception {
+        final MembersDocumentGenerator generator = MembersDocumentGenerator.ofParticipants(50);
+        generator.setScopesPerMember(2);
+        generator.setGrantsPerDomainOwner(3);
+        final Members members = Members.fromStream(new ByteArrayInputStream(generator.generateBytes()));
+
+        Assert.assertEquals(generator.getMemberCount(), 45);
+        Assert.assertEquals(generator.getDomainOwnerCount(), 5);
+        Assert.assertEquals(members.getMembersElement().getMember().size(), 45);
+        Assert.assertEquals(members.getMembersElement().getDomainOwner().size(), 5);
+
+        Assert.assertTrue(members.isOwnerName(MembersDocumentGenerator.getMemberName(44)));
+        Assert.assertTrue(members.isOwnerName(MembersDocumentGenerator.getDomainOwnerName(4)));
+        Assert.assertFalse(members.isOwnerName(MembersDocumentGenerator.getMemberName(45)));
+
+        Assert.assertSame(members.findDomainOwner(MembersDocumentGenerator.getMemberDomain(7, 1)),
+                members.getParticipantByName(MembersDocumentGenerator.getMemberName(7)));
+        Assert.assertEquals(members.scopesForEntity(MembersDocumentGenerator.getScopedEntityID(3, 1)),
+                List.of(MembersDocumentGenerator.getMemberDomain(3, 0),
+                        MembersDocumentGenerator.getMemberDomain(3, 1)));
+
+        final String granteeAll = MembersDocumentGenerator.getMemberName(generator.getGranteeIndex(2, 0));
+        final List<BaseGrantType> all = members.findGrantsCovering(MembersDocumentGenerator.getGrantedName(2, 0),
+                null);
+        Assert.assertEquals(all.size(), 1);
+        Assert.assertTrue(all.get(0) instanceof GrantAllElement);
+        Assert.assertEquals(all.get(0).getTo(), granteeAll);
+
+        final List<BaseGrantType> one = members.findGrantsCovering(MembersDocumentGenerator.getGrantedName(2, 1),
+                MembersDocumentGenerator.getGrantEntityID(2, 1));
+        Assert.assertEquals(one.size(), 1);
+        Assert.assertTrue(one.get(0) instanceof GrantElement);
+    }
+
+    @Test
+    public void testDeterministic() {
+        final MembersDocumentGenerator a = MembersDocumentGenerator.ofParticipants(30);
+        final MembersDocumentGenerator b = MembersDocumentGenerator.ofParticipants(30);
+        Assert.assertEquals(a.generate(), b.generate());
+        b.setSeed(2);
+        Assert.assertNotEquals(a.generate(), b.generate());
+    }
+
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.xml.sax.SAXParseException;
+
+import jakarta.xml.bind.UnmarshalException;
+import net.shibboleth.shared.component.ComponentInitializationException;
+import uk.org.ukfederation.members.jaxb.BaseGrantType;
+
+/**
+ * Tests for the {@link MembersFragments} class.
+ */
+public class MembersFragmentsTest {
+
+    /** Directory holding the files for each test. */
+    private Path dir;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("fragments");
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        try (var files = Files.list(dir)) {
+            for (final Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    /**
+     * Copy a fragment resource into the test directory.
+     *
+     * @param resourceName name of the resource within the fragments directory
+     * @return the copy
+     * @throws Exception if anything goes wrong
+     */
+    private Path copyFragment(final String resourceName) throws Exception {
+        final Path path = dir.resolve(resourceName);
+        try (InputStream in = MembersFragmentsTest.class.getResourceAsStream("/fragments/" + resourceName)) {
+            Files.copy(in, path);
+        }
+        return path;
+    }
+
+    /**
+     * Replace text in a fragment file.
+     *
+     * @param path the fragment file
+     * @param from text to replace
+     * @param to replacement text
+     * @throws Exception if anything goes wrong
+     */
+    private void edit(final Path path, final String from, final String to) throws Exception {
+        final String text = Files.readString(path, StandardCharsets.UTF_8);
+        Assert.assertTrue(text.contains(from), from);
+        Files.writeString(path, text.replace(from, to), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testMerge() throws Exception {
+        final Members members = new MembersLoader().loadFragments(List.of(copyFragment("a.xml"),
+                copyFragment("b.xml")));
+
+        Assert.assertEquals(members.getMembersElement().getMember().size(), 2);
+        Assert.assertEquals(members.getMembersElement().getDomainOwner().size(), 1);
+        Assert.assertEquals(members.getMembersElement().getMember().get(0).getName(), "Alpha Member");
+        Assert.assertEquals(members.getMembersElement().getMember().get(1).getName(), "Beta Member");
+
+        // References across fragments, in both directions, are resolved.
+        final List<BaseGrantType> toBeta = members.findGrantsCovering("beta.alpha.example.org", null);
+        Assert.assertEquals(toBeta.size(), 1);
+        Assert.assertSame(toBeta.get(0).getOrgID(), members.getParticipantByName("Beta Member"));
+        final List<BaseGrantType> toAlpha = members.findGrantsCovering("gamma.example.org",
+                "https://alpha.example.org/idp");
+        Assert.assertEquals(toAlpha.size(), 1);
+        Assert.assertSame(toAlpha.get(0).getOrgID(), members.getParticipantByName("Alpha Member"));
+        Assert.assertSame(members.getParticipantById("ukforg3"), members.getParticipantByName("Gamma Owner"));
+    }
+
+    @Test
+    public void testReparseChanged() throws Exception {
+        final Path a = copyFragment("a.xml");
+        final Path b = copyFragment("b.xml");
+        final MembersFragments fragments = new MembersFragments(new MembersLoader(), List.of(a, b));
+
+        final Members first = fragments.load();
+        Assert.assertEquals(fragments.getLastParsedCount(), 2);
+
+        final Members second = fragments.load();
+        Assert.assertEquals(fragments.getLastParsedCount(), 0);
+        Assert.assertSame(second.getMemberByName("Alpha Member"), first.getMemberByName("Alpha Member"));
+
+        edit(b, "<Name>Beta Member</Name>", "<Name>Beta Member</Name>\n        <NameComment>changed</NameComment>");
+        final Members third = fragments.load();
+        // The unchanged fragment refers to Beta Member, so it is parsed again too.
+        Assert.assertEquals(fragments.getLastParsedCount(), 2);
+        Assert.assertNotSame(third.getMemberByName("Alpha Member"), first.getMemberByName("Alpha Member"));
+        Assert.assertEquals(third.getMemberByName("Beta Member").getNameComment(), "changed");
+
+        final List<BaseGrantType> toBeta = third.findGrantsCovering("beta.alpha.example.org", null);
+        Assert.assertSame(toBeta.get(0).getOrgID(), third.getMemberByName("Beta Member"));
+
+        // The earlier snapshot still resolves to its own participant.
+        final List<BaseGrantType> firstToBeta = first.findGrantsCovering("beta.alpha.example.org", null);
+        Assert.assertSame(firstToBeta.get(0).getOrgID(), first.getMemberByName("Beta Member"));
+
+        final Members fourth = fragments.load();
+        Assert.assertEquals(fragments.getLastParsedCount(), 0);
+        Assert.assertSame(fourth.getMemberByName("Alpha Member"), third.getMemberByName("Alpha Member"));
+    }
+
+    @Test(expectedExceptions = ComponentInitializationException.class)
+    public void testDuplicateName() throws Exception {
+        final Path b = copyFragment("b.xml");
+        edit(b, "<Name>Beta Member</Name>", "<Name>Alpha Member</Name>");
+        new MembersLoader().loadFragments(List.of(copyFragment("a.xml"), b));
+    }
+
+    @Test(expectedExceptions = ComponentInitializationException.class)
+    public void testDuplicateDomain() throws Exception {
+        final Path b = copyFragment("b.xml");
+        edit(b, "<Domain>beta.example.org</Domain>", "<Domain>alpha.example.org</Domain>");
+        new MembersLoader().loadFragments(List.of(copyFragment("a.xml"), b));
+    }
+
+    @Test(expectedExceptions = ComponentInitializationException.class)
+    public void testDuplicateID() throws Exception {
+        final Path b = copyFragment("b.xml");
+        edit(b, "ID=\"ukforg3\"", "ID=\"ukforg1\"");
+        new MembersLoader().loadFragments(List.of(copyFragment("a.xml"), b));
+    }
+
+    @Test
+    public void testUnknownOrgID() throws Exception {
+        // Beta Member's fragment is missing, so the reference to it can not be resolved.
+        try {
+            new MembersLoader().loadFragments(List.of(copyFragment("a.xml")));
+        } catch (final ComponentInitializationException e) {
+            Assert.assertTrue(e.getMessage().contains("unknown orgID \"ukforg2\""), e.getMessage());
+            return;
+        }
+        Assert.fail("expected component initialization exception");
+    }
+
+    @Test
+    public void testMalformedExternalOrgID() throws Exception {
+        // A schema error naming an ID in another fragment is still a schema error.
+        final Path a = copyFragment("a.xml");
+        edit(a, "orgID=\"ukforg2\"", "orgID=\"ukforg2 ukforg3\"");
+        try {
+            new MembersLoader().loadFragments(List.of(a, copyFragment("b.xml")));
+        } catch (final UnmarshalException e) {
+            Assert.assertTrue(e.getLinkedException() instanceof SAXParseException);
+            return;
+        }
+        Assert.fail("expected parsing exception");
+    }
+
+    @Test(expectedExceptions = ComponentInitializationException.class)
+    public void testInconsistentOrgID() throws Exception {
+        final Path a = copyFragment("a.xml");
+        edit(a, "to=\"Beta Member\" orgID=\"ukforg2\"", "to=\"Beta Member\" orgID=\"ukforg3\"");
+        new MembersLoader().loadFragments(List.of(a, copyFragment("b.xml")));
+    }
+
+}
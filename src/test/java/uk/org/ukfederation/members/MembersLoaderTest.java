@@ -0,0 +1,384 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+
+import net.shibboleth.shared.component.ComponentInitializationException;
+import uk.org.ukfederation.members.MembersMetrics.LazyIndex;
+import uk.org.ukfederation.members.MembersMetrics.Lookup;
+import uk.org.ukfederation.members.ValidationIssue.Kind;
+import uk.org.ukfederation.members.ValidationIssue.Severity;
+
+/**
+ * Tests for the {@link MembersLoader} class.
+ */
+public class MembersLoaderTest {
+
+    /** Document builder factory used by every test. */
+    private DocumentBuilderFactory dbFactory;
+
+    /**
+     * Fetch an XML {@link Document} from the named resource.
+     *
+     * @param resourceName name of the resource to parse
+     * @return the resource as a {@link Document}
+     *
+     * @throws Exception if anything goes wrong
+     */
+    private Document fetchDocument(String resourceName) throws Exception {
+        DocumentBuilder db = dbFactory.newDocumentBuilder();
+        return db.parse(MembersLoaderTest.class.getResourceAsStream("/" + resourceName));
+    }
+
+    /**
+     * Setup performed before any test is run.
+     *
+     * @throws Exception is anything goes wrong.
+     */
+    @BeforeClass
+    public void setUp() throws Exception {
+        dbFactory = DocumentBuilderFactory.newInstance();
+        dbFactory.setNamespaceAware(true);
+        dbFactory.setFeature("http://apache.org/xml/features/dom/defer-node-expansion", false);
+    }
+
+    @Test
+    public void defaultSchemaCompiledOnce() throws Exception {
+        final MembersLoader loader = new MembersLoader();
+        final CompiledSchema s1 = loader.getDefaultSchema();
+        final CompiledSchema s2 = loader.getDefaultSchema();
+        Assert.assertSame(s1, s2);
+        Assert.assertNotSame(s1.newUnmarshaller(), s2.newUnmarshaller());
+    }
+
+    @Test
+    public void unmarshallerPoolReused() throws Exception {
+        final MembersLoader loader = new MembersLoader();
+        loader.setUnmarshallerPoolSize(2);
+        for (int i = 0; i < 3; i++) {
+            loader.load(fetchDocument("oneOfEach.xml"));
+        }
+        final UnmarshallerPool pool = loader.getDefaultSchema().getUnmarshallerPool();
+        Assert.assertEquals(pool.getCapacity(), 2);
+        Assert.assertEquals(pool.getCreatedCount(), 1);
+        Assert.assertEquals(pool.getLoanCount(), 3);
+        Assert.assertEquals(pool.getActiveCount(), 0);
+        Assert.assertEquals(pool.getIdleCount(), 1);
+
+        // a failed load returns its unmarshaller too
+        try {
+            loader.load(fetchDocument("duplicateMember.xml"));
+            Assert.fail("expected component initialization exception");
+        } catch (final ComponentInitializationException e) {
+            // expected
+        }
+        Assert.assertEquals(pool.getActiveCount(), 0);
+        Assert.assertEquals(pool.getCreatedCount(), 1);
+    }
+
+    @Test
+    public void unmarshallerPoolBounded() throws Exception {
+        final MembersLoader loader = new MembersLoader();
+        loader.setUnmarshallerPoolSize(2);
+        final MembersDocumentGenerator generator = MembersDocumentGenerator.ofParticipants(200);
+        final byte[] bytes = generator.generateBytes();
+        final ExecutorService executor = Executors.newFixedThreadPool(6);
+        try {
+            final List<Future<Members>> loads = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                loads.add(executor.submit(() -> loader.load(new ByteArrayInputStream(bytes))));
+            }
+            for (final Future<Members> load : loads) {
+                Assert.assertEquals(load.get().getMembersElement().getMember().size(), generator.getMemberCount());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        final UnmarshallerPool pool = loader.getDefaultSchema().getUnmarshallerPool();
+        Assert.assertTrue(pool.getCreatedCount() <= 2, pool.toString());
+        Assert.assertEquals(pool.getLoanCount(), 12);
+        Assert.assertEquals(pool.getActiveCount(), 0);
+        Assert.assertTrue(pool.getMaxWaitNanos() <= pool.getTotalWaitNanos());
+    }
+
+    @Test
+    public void overrideSchemaKeyedByContent() throws Exception {
+        final MembersLoader loader = new MembersLoader();
+        final CompiledSchema s1 = loader.getSchema(fetchDocument("overrideSchema.xsd"));
+        final CompiledSchema s2 = loader.getSchema(fetchDocument("overrideSchema.xsd"));
+        Assert.assertSame(s1, s2);
+        Assert.assertNotSame(s1, loader.getDefaultSchema());
+    }
+
+    @Test
+    public void overrideSchemaCacheBounded() throws Exception {
+        final MembersLoader loader = new MembersLoader();
+        final Document first = fetchDocument("overrideSchema.xsd");
+        final CompiledSchema s1 = loader.getSchema(first);
+        for (int i = 0; i < MembersLoader.OVERRIDE_SCHEMA_CACHE_SIZE; i++) {
+            // each variant has different content, so is compiled and cached separately
+            final Document variant = fetchDocument("overrideSchema.xsd");
+            variant.getDocumentElement().setAttribute("id", "variant" + i);
+            loader.getSchema(variant);
+        }
+        // the least recently used schema has been dropped, so is compiled again
+        Assert.assertNotSame(loader.getSchema(first), s1);
+    }
+
+    @Test
+    public void load() throws Exception {
+        final MembersLoader loader = new MembersLoader();
+        final Members m1 = loader.load(fetchDocument("oneOfEach.xml"));
+        Assert.assertTrue(m1.isOwnerName("Valid Member"));
+        final Members m2 = loader.load(fetchDocument("oneOfEach.xml"));
+        Assert.assertTrue(m2.isOwnerName("Valid Member"));
+
+        final LoadTimings timings = m2.getLoadTimings();
+        Assert.assertTrue(timings.getSchemaNanos() >= 0);
+        Assert.assertTrue(timings.getUnmarshalNanos() > 0);
+        Assert.assertTrue(timings.getIndexNanos() >= 0);
+        Assert.assertEquals(timings.getTotalNanos(),
+                timings.getSchemaNanos() + timings.getUnmarshalNanos() + timings.getIndexNanos());
+    }
+
+    @Test
+    public void defaultIsNotReconfigurable() throws Exception {
+        final MembersLoader loader = MembersLoader.getDefault();
+        try {
+            loader.setCheckExecutor(Runnable::run);
+            Assert.fail("expected illegal state exception");
+        } catch (final IllegalStateException e) {
+            // expected
+        }
+        Assert.assertNull(loader.getCheckExecutor());
+
+        // a loader of one's own may be configured
+        final MembersLoader own = new MembersLoader();
+        own.setEagerScopeIndex(true);
+        Assert.assertTrue(own.isEagerScopeIndex());
+        Assert.assertFalse(loader.isEagerScopeIndex());
+    }
+
+    @Test
+    public void loadOverride() throws Exception {
+        final Members members = MembersLoader.getDefault().load(fetchDocument("overrideSchema.xml"),
+                fetchDocument("overrideSchema.xsd"));
+        Assert.assertTrue(members.isOwnerName("Valid Member"));
+    }
+
+    @Test
+    public void loadChecksSemantics() throws Exception {
+        try {
+            MembersLoader.getDefault().load(fetchDocument("duplicateMember.xml"));
+            Assert.fail("expected component initialization exception");
+        } catch (final ComponentInitializationException e) {
+            // expected
+            Assert.assertTrue(e.getMessage().contains("duplicate participant name"));
+        }
+    }
+
+    @Test
+    public void validateValid() throws Exception {
+        final ValidationReport report = new MembersLoader().validate(fetchDocument("oneOfEach.xml"));
+        Assert.assertTrue(report.isValid());
+        Assert.assertTrue(report.getIssues().isEmpty());
+        Assert.assertNotNull(report.getMembers());
+        Assert.assertTrue(report.getMembers().isOwnerName("Valid Member"));
+    }
+
+    @Test
+    public void validateCollectsSemanticErrors() throws Exception {
+        final ValidationReport report;
+        try (InputStream in = MembersLoaderTest.class.getResourceAsStream("/multipleErrors.xml")) {
+            report = new MembersLoader().validate(in);
+        }
+        Assert.assertFalse(report.isValid());
+        Assert.assertNull(report.getMembers());
+
+        final List<ValidationIssue> errors = report.getErrors();
+        Assert.assertEquals(errors.size(), 4);
+        for (final ValidationIssue error : errors) {
+            Assert.assertEquals(error.getKind(), Kind.SEMANTIC);
+            Assert.assertEquals(error.getSeverity(), Severity.ERROR);
+            Assert.assertTrue(error.getLineNumber() > 0);
+        }
+        Assert.assertTrue(errors.get(0).getMessage().contains("duplicate participant name"));
+        Assert.assertEquals(errors.get(0).getPath(), "/Members/Member[2]");
+        Assert.assertTrue(errors.get(1).getMessage().contains("appears in multiple participants"));
+        Assert.assertEquals(errors.get(1).getPath(), "/Members/Member[3]/Domains[1]/Domain[2]");
+        Assert.assertTrue(errors.get(2).getMessage().contains("unknown grant to=\"Nobody\""));
+        Assert.assertEquals(errors.get(2).getPath(), "/Members/DomainOwner[1]/Grants[1]/GrantAll[1]");
+        Assert.assertTrue(errors.get(3).getMessage().contains("is not to a member"));
+        Assert.assertEquals(errors.get(3).getPath(), "/Members/DomainOwner[1]/Grants[1]/GrantAll[2]");
+
+        final List<ValidationIssue> warnings = report.getWarnings();
+        Assert.assertEquals(warnings.size(), 1);
+        Assert.assertTrue(warnings.get(0).getMessage().contains("\"sub.example.ac.uk\""));
+
+        // a strict load still stops at the first error
+        try {
+            MembersLoader.getDefault().load(fetchDocument("multipleErrors.xml"));
+            Assert.fail("expected component initialization exception");
+        } catch (final ComponentInitializationException e) {
+            Assert.assertEquals(e.getMessage(), errors.get(0).getMessage());
+        }
+    }
+
+    @Test
+    public void validateExactDuplicateDomainIsNotClash() throws Exception {
+        final Document document = fetchDocument("clashingDomains.xml");
+        document.getElementsByTagNameNS("*", "Domain").item(1).setTextContent("example.org");
+        final ValidationReport report = new MembersLoader().validate(document);
+
+        Assert.assertEquals(report.getErrors().size(), 1);
+        Assert.assertTrue(report.getErrors().get(0).getMessage().contains("appears in multiple participants"));
+        for (final ValidationIssue warning : report.getWarnings()) {
+            Assert.assertFalse(warning.getMessage().contains("differs only in case"), warning.getMessage());
+        }
+    }
+
+    @Test
+    public void validateCollectsSchemaErrors() throws Exception {
+        final ValidationReport report;
+        try (InputStream in = MembersLoaderTest.class.getResourceAsStream("/schemaErrors.xml")) {
+            report = new MembersLoader().validate(in);
+        }
+        Assert.assertFalse(report.isValid());
+
+        final Set<Integer> schemaLines = new HashSet<>();
+        boolean duplicateName = false;
+        for (final ValidationIssue issue : report.getErrors()) {
+            if (issue.getKind() == Kind.SCHEMA) {
+                schemaLines.add(issue.getLineNumber());
+            } else if (issue.getMessage().contains("duplicate participant name")) {
+                duplicateName = true;
+            }
+        }
+        // one problem in each member, and the semantic checks still run
+        Assert.assertTrue(schemaLines.contains(10), "schema errors on lines " + schemaLines);
+        Assert.assertTrue(schemaLines.contains(15), "schema errors on lines " + schemaLines);
+        Assert.assertTrue(duplicateName);
+    }
+
+    @Test
+    public void validateNotWellFormed() throws Exception {
+        final byte[] bytes = "<Members xmlns=\"http://ukfederation.org.uk/2007/01/members\"><Member>"
+                .getBytes(StandardCharsets.UTF_8);
+        final ValidationReport report = new MembersLoader().validate(new ByteArrayInputStream(bytes));
+        Assert.assertFalse(report.isValid());
+        final List<ValidationIssue> errors = report.getErrors();
+        Assert.assertEquals(errors.get(errors.size() - 1).getSeverity(), Severity.FATAL);
+    }
+
+    @Test
+    public void parallelChecksMatchSequential() throws Exception {
+        final MembersLoader sequential = new MembersLoader();
+        final MembersLoader parallel = new MembersLoader();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        parallel.setCheckExecutor(executor);
+        try {
+            for (final String resource : List.of("duplicateMember.xml", "duplicateParticipant.xml",
+                    "duplicateDomain.xml", "duplicateDomain2.xml", "duplicateDomain3.xml", "badGrantTo.xml",
+                    "badGrantToNonMember.xml", "badGrantOrgID.xml", "multipleErrors.xml")) {
+                Assert.assertEquals(strictFailure(parallel, resource), strictFailure(sequential, resource), resource);
+                Assert.assertEquals(parallel.validate(fetchDocument(resource)).getIssues().toString(),
+                        sequential.validate(fetchDocument(resource)).getIssues().toString(), resource);
+            }
+
+            final MembersDocumentGenerator generator = MembersDocumentGenerator.ofParticipants(2000);
+            final Members members = parallel.load(new ByteArrayInputStream(generator.generateBytes()));
+            Assert.assertTrue(members.isOwnerName(MembersDocumentGenerator.getMemberName(1799)));
+            Assert.assertSame(members.findDomainOwner(MembersDocumentGenerator.getDomainOwnerDomain(199, 1)),
+                    members.getParticipantByName(MembersDocumentGenerator.getDomainOwnerName(199)));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Loads a resource strictly, expecting it to fail.
+     *
+     * @param loader the loader to use
+     * @param resourceName name of the resource to load
+     * @return the failure message
+     * @throws Exception if anything else goes wrong
+     */
+    private String strictFailure(final MembersLoader loader, final String resourceName) throws Exception {
+        try {
+            loader.load(fetchDocument(resourceName));
+        } catch (final ComponentInitializationException e) {
+            return e.getMessage();
+        }
+        Assert.fail("expected component initialization exception from " + resourceName);
+        return null;
+    }
+
+    @Test
+    public void countingMetrics() throws Exception {
+        final MembersLoader loader = new MembersLoader();
+        final CountingMembersMetrics metrics = new CountingMembersMetrics();
+        loader.setMetrics(metrics);
+        final Members members = loader.load(fetchDocument("domainTrie.xml"));
+
+        Assert.assertEquals(metrics.getSchemaCompilations(), 1);
+        Assert.assertEquals(metrics.getLoads(), 1);
+        Assert.assertSame(metrics.getLastLoadTimings(), members.getLoadTimings());
+        Assert.assertEquals(metrics.getLastIndexSizes(), new IndexSizes(2, 1, 4, 2));
+        Assert.assertEquals(members.getIndexSizes().participants(), 3);
+
+        members.getParticipantByName("Child Member");
+        members.getParticipantByName("Nobody");
+        members.isOwnerName("Domain Owner");
+        members.findDomainOwner("host.example.net");
+        Assert.assertEquals(metrics.getCalls(Lookup.PARTICIPANT_BY_NAME), 2);
+        Assert.assertEquals(metrics.getMisses(Lookup.PARTICIPANT_BY_NAME), 1);
+        Assert.assertEquals(metrics.getCalls(Lookup.IS_OWNER_NAME), 1);
+        Assert.assertEquals(metrics.getMisses(Lookup.IS_OWNER_NAME), 1);
+        Assert.assertEquals(metrics.getCalls(Lookup.FIND_DOMAIN_OWNER), 1);
+        Assert.assertEquals(metrics.getMisses(Lookup.FIND_DOMAIN_OWNER), 0);
+
+        Assert.assertEquals(metrics.getLazyBuilds(LazyIndex.PUSHED_SCOPES), 0);
+        Assert.assertNull(members.scopesForEntity("entity1"));
+        members.scopesForEntity("entity2");
+        Assert.assertEquals(metrics.getLazyBuilds(LazyIndex.PUSHED_SCOPES), 1);
+        Assert.assertEquals(metrics.getMisses(Lookup.SCOPES_FOR_ENTITY), 2);
+
+        // a second load reuses the compiled schema
+        loader.load(fetchDocument("oneOfEach.xml"));
+        Assert.assertEquals(metrics.getSchemaCompilations(), 1);
+        Assert.assertEquals(metrics.getLoads(), 2);
+    }
+
+}
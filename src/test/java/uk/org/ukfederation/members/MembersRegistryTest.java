@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import net.shibboleth.shared.component.ComponentInitializationException;
+
+/**
+ * Tests for the {@link MembersRegistry} class.
+ */
+public class MembersRegistryTest {
+
+    /** Temporary members file. */
+    private Path file;
+
+    /**
+     * Replace the contents of the temporary members file with the named resource.
+     *
+     * The file's modification time is moved on each time, so that the change is
+     * visible however coarse the file system's timestamps are.
+     *
+     * @param resourceName name of the resource
+     * @throws Exception if anything goes wrong
+     */
+    private void install(String resourceName) throws Exception {
+        final FileTime previous = Files.exists(file) ? Files.getLastModifiedTime(file) : FileTime.fromMillis(0);
+        try (final InputStream in = MembersRegistryTest.class.getResourceAsStream("/" + resourceName)) {
+            Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.setLastModifiedTime(file, FileTime.fromMillis(previous.toMillis() + 10_000));
+    }
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        file = Files.createTempFile("members", ".xml");
+        Files.delete(file);
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void reload() throws Exception {
+        install("oneOfEach.xml");
+        try (final MembersRegistry registry = new MembersRegistry(file)) {
+            registry.initialize();
+            final Members first = registry.getMembers();
+            Assert.assertEquals(registry.getGeneration(), 1);
+            Assert.assertNull(first.getParticipantByName("Second Member"));
+
+            // nothing has changed
+            Assert.assertFalse(registry.reloadIfModified());
+            Assert.assertSame(registry.getMembers(), first);
+
+            install("goodGrants.xml");
+            Assert.assertTrue(registry.reloadIfModified());
+            final Members second = registry.getMembers();
+            Assert.assertNotSame(second, first);
+            Assert.assertNotNull(second.getParticipantByName("Second Member"));
+            Assert.assertEquals(registry.getGeneration(), 2);
+            Assert.assertNull(registry.getLastFailure());
+        }
+    }
+
+    @Test
+    public void keepLastGood() throws Exception {
+        install("pushedScopes.xml");
+        try (final MembersRegistry registry = new MembersRegistry(file)) {
+            registry.initialize();
+            final Members good = registry.getMembers();
+
+            install("duplicateDomain.xml");
+            Assert.assertFalse(registry.reloadIfModified());
+            Assert.assertSame(registry.getMembers(), good);
+            Assert.assertTrue(registry.getLastFailure() instanceof ComponentInitializationException);
+
+            // background reload of the still-broken file also leaves the good snapshot in place
+            Assert.assertFalse(registry.reloadInBackground().get());
+            Assert.assertSame(registry.getMembers(), good);
+            Assert.assertEquals(registry.getMembers().scopesForEntity("entity1").size(), 4);
+        }
+    }
+
+    @Test
+    public void initialFailure() throws Exception {
+        install("badGrantTo.xml");
+        try (final MembersRegistry registry = new MembersRegistry(file)) {
+            registry.initialize();
+            Assert.fail("expected component initialization exception");
+        } catch (final ComponentInitializationException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void startOnce() throws Exception {
+        install("oneOfEach.xml");
+        try (final MembersRegistry registry = new MembersRegistry(file)) {
+            registry.initialize();
+            registry.start(Duration.ofHours(1));
+            try {
+                registry.start(Duration.ofHours(1));
+                Assert.fail("expected illegal state exception");
+            } catch (final IllegalStateException e) {
+                // expected
+            }
+
+            // closing stops the periodic reload, after which it may be started again
+            registry.close();
+            registry.start(Duration.ofHours(1));
+        }
+    }
+
+    @Test
+    public void customSource() throws Exception {
+        try (final MembersRegistry registry = new MembersRegistry(() -> {
+            try (final InputStream in = MembersRegistryTest.class.getResourceAsStream("/oneOfEach.xml")) {
+                return Members.fromStream(in);
+            }
+        })) {
+            registry.initialize();
+            Assert.assertTrue(registry.getMembers().isOwnerName("Valid Member"));
+            Assert.assertTrue(registry.reloadIfModified());
+            Assert.assertEquals(registry.getGeneration(), 2);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package uk.org.ukfederation.members;
+
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+import net.shibboleth.shared.component.ComponentInitializationException;
+
+/**
+ * Checks that loading a members document takes time and heap roughly in proportion to its size,
+ * using documents from {@link MembersDocumentGenerator} with many domains and grants.
+ *
+ * Timings and heap depend on the machine and whatever else it is doing, so by default only the
+ * checks that problems are still reported are made, on documents of 8,000 participants. Set the
+ * system property <code>ukf.members.stress</code> to <code>true</code> to also measure the cost of
+ * loading documents of 1,000, 10,000 and 100,000 participants; this needs a heap of at least 2GB.
+ */
+public class MembersScalingTest {
+
+    /** System property enabling the cost measurements and full-size documents. */
+    private static final String STRESS_PROPERTY = "ukf.members.stress";
+
+    /**
+     * How much larger the cost per participant of the largest document may be than that of the
+     * smallest. Quadratic behaviour would make it as much larger as the document is.
+     */
+    private static final double TIME_TOLERANCE = 4.0;
+
+    /** As {@link #TIME_TOLERANCE}, for heap, which depends much less on the JIT compiler and caches. */
+    private static final double HEAP_TOLERANCE = 2.0;
+
+    /** Number of times each document is loaded, keeping the fastest. */
+    private static final int REPETITIONS = 3;
+
+    /**
+     * Returns the document sizes to load.
+     *
+     * @return numbers of participants, smallest first
+     */
+    private static List<Integer> sizes() {
+        return Boolean.getBoolean(STRESS_PROPERTY) ? List.of(1_000, 10_000, 100_000) : List.of(1_000, 8_000);
+    }
+
+    /**
+     * Makes the generator for a document.
+     *
+     * @param participants number of participants
+     * @return the generator
+     */
+    private static MembersDocumentGenerator generator(final int participants) {
+        final MembersDocumentGenerator generator = MembersDocumentGenerator.ofParticipants(participants);
+        generator.setDomainsPerParticipant(4);
+        generator.setGrantsPerDomainOwner(20);
+        generator.setScopesPerMember(2);
+        generator.setEntityIDsPerMember(2);
+        return generator;
+    }
+
+    /**
+     * The cost of loading a document.
+     *
+     * @param participants number of participants
+     * @param totalNanos fastest time to unmarshal and index the document
+     * @param indexNanos fastest time to index the document
+     * @param heapBytes heap retained by the loaded document
+     */
+    private record Cost(int participants, long totalNanos, long indexNanos, long heapBytes) {
+
+        /**
+         * Returns a cost per participant, with a floor so that very fast loads are not compared.
+         *
+         * @param value the cost of the whole document
+         * @param floor the smallest cost per participant to return
+         * @return the cost per participant
+         */
+        double per(final long value, final double floor) {
+            return Math.max((double) value / participants, floor);
+        }
+    }
+
+    /**
+     * Loads a document several times, measuring the cost.
+     *
+     * @param participants number of participants
+     * @return the cost
+     * @throws Exception if anything goes wrong
+     */
+    private static Cost measure(final int participants) throws Exception {
+        final byte[] document = generator(participants).generateBytes();
+        final MembersLoader loader = new MembersLoader();
+        loader.setEagerScopeIndex(true);
+        loader.getDefaultSchema();
+
+        long total = Long.MAX_VALUE;
+        long index = Long.MAX_VALUE;
+        for (int i = 0; i < REPETITIONS; i++) {
+            final LoadTimings timings = loader.load(new ByteArrayInputStream(document)).getLoadTimings();
+            total = Math.min(total, timings.getUnmarshalNanos() + timings.getIndexNanos());
+            index = Math.min(index, timings.getIndexNanos());
+        }
+
+        final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        memory.gc();
+        final long before = memory.getHeapMemoryUsage().getUsed();
+        final Members members = loader.load(new ByteArrayInputStream(document));
+        memory.gc();
+        final long heap = memory.getHeapMemoryUsage().getUsed() - before;
+        Assert.assertEquals(members.getIndexSizes().members() + members.getIndexSizes().domainOwners(), participants);
+        return new Cost(participants, total, index, heap);
+    }
+
+    /**
+     * Loads a document expecting it to be rejected.
+     *
+     * @param generator the generator for the document
+     * @param expected text expected in the exception message
+     * @throws Exception if anything unexpected goes wrong
+     */
+    private static void expectProblem(final MembersDocumentGenerator generator, final String expected)
+            throws Exception {
+        final byte[] document = generator.generateBytes();
+        try {
+            new MembersLoader().load(new ByteArrayInputStream(document));
+        } catch (final ComponentInitializationException e) {
+            Assert.assertTrue(e.getMessage().contains(expected), e.getMessage());
+
+            // Collecting mode finds the same single problem.
+            final ValidationReport report = new MembersLoader().validate(new ByteArrayInputStream(document));
+            Assert.assertEquals(report.getErrors().size(), 1, report.getErrors().toString());
+            Assert.assertTrue(report.getErrors().get(0).getMessage().contains(expected));
+            return;
+        }
+        Assert.fail("expected component initialization exception");
+    }
+
+    @Test
+    public void testLinearScaling() throws Exception {
+        if (!Boolean.getBoolean(STRESS_PROPERTY)) {
+            throw new SkipException("set " + STRESS_PROPERTY + "=true to measure load time and heap");
+        }
+        final List<Integer> sizes = sizes();
+        // warm up the JIT compiler before measuring anything
+        measure(sizes.get(0));
+
+        final Cost smallest = measure(sizes.get(0));
+        for (final int size : sizes.subList(1, sizes.size())) {
+            final Cost cost = measure(size);
+            final String description = smallest + " vs " + cost;
+            Assert.assertTrue(cost.per(cost.totalNanos(), 0) <= TIME_TOLERANCE * smallest.per(smallest.totalNanos(),
+                    1_000), "load time per participant grew faster than linearly: " + description);
+            Assert.assertTrue(cost.per(cost.indexNanos(), 0) <= TIME_TOLERANCE * smallest.per(smallest.indexNanos(),
+                    1_000), "index time per participant grew faster than linearly: " + description);
+            Assert.assertTrue(cost.per(cost.heapBytes(), 0) <= HEAP_TOLERANCE * smallest.per(smallest.heapBytes(),
+                    1_000), "heap per participant grew faster than linearly: " + description);
+        }
+    }
+
+    @Test
+    public void testDuplicateDomainAtScale() throws Exception {
+        final int participants = sizes().get(sizes().size() - 1);
+        final MembersDocumentGenerator generator = generator(participants);
+        generator.setDuplicateDomainMember(generator.getMemberCount() - 1);
+        expectProblem(generator, "appears in multiple participants");
+    }
+
+    @Test
+    public void testBadGrantAtScale() throws Exception {
+        final int participants = sizes().get(sizes().size() - 1);
+        final MembersDocumentGenerator generator = generator(participants);
+        generator.setBadGrantDomainOwner(generator.getDomainOwnerCount() - 1);
+        expectProblem(generator, "wrong participant");
+    }
+
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import uk.org.ukfederation.members.jaxb.GrantElement;
+import uk.org.ukfederation.members.jaxb.MemberElement;
+
+/**
+ * Tests for the {@link MembersSnapshot} class.
+ */
+public class MembersSnapshotTest {
+
+    /** Directory holding the files for each test. */
+    private Path dir;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("snapshot");
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        try (var files = Files.list(dir)) {
+            for (final Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    /**
+     * Copy a test resource into the test directory.
+     *
+     * @param resourceName name of the resource
+     * @return the copy
+     * @throws Exception if anything goes wrong
+     */
+    private Path copyResource(final String resourceName) throws Exception {
+        final Path path = dir.resolve(resourceName);
+        try (InputStream in = MembersSnapshotTest.class.getResourceAsStream("/" + resourceName)) {
+            Files.copy(in, path);
+        }
+        return path;
+    }
+
+    @Test
+    public void testRoundTripGenerated() throws Exception {
+        final MembersDocumentGenerator generator = MembersDocumentGenerator.ofParticipants(200);
+        generator.setScopesPerMember(2);
+        generator.setEntityIDsPerMember(2);
+        final byte[] bytes = generator.generateBytes();
+        final Members original = Members.fromStream(new ByteArrayInputStream(bytes));
+        final Path snapshot = dir.resolve("members.snapshot");
+        final byte[] digest = new byte[MembersSnapshot.DIGEST_LENGTH];
+        digest[0] = 42;
+        MembersSnapshot.write(original, digest, snapshot);
+
+        Assert.assertEquals(MembersSnapshot.readSourceDigest(snapshot), digest);
+        final Members copy = MembersSnapshot.read(snapshot);
+
+        // cheap queries are answered without rebuilding the object graph
+        Assert.assertTrue(copy.isOwnerName(MembersDocumentGenerator.getMemberName(17)));
+        Assert.assertFalse(copy.isOwnerName(MembersDocumentGenerator.getDomainOwnerName(3)));
+        Assert.assertEquals(copy.scopesForEntity(MembersDocumentGenerator.getScopedEntityID(5, 1)),
+                original.scopesForEntity(MembersDocumentGenerator.getScopedEntityID(5, 1)));
+
+        Assert.assertTrue(copy.diff(original).isEmpty(), copy.diff(original).toString());
+        Assert.assertEquals(copy.getOverlappingDomains(), original.getOverlappingDomains());
+        final String host = MembersDocumentGenerator.getGrantedName(2, 1);
+        final String entityID = MembersDocumentGenerator.getGrantEntityID(2, 1);
+        Assert.assertEquals(copy.findGrantsCovering(host, entityID).size(), 1);
+        final GrantElement grant = (GrantElement) copy.findGrantsCovering(host, entityID).get(0);
+        Assert.assertSame(grant.getOrgID(), copy.getParticipantByName(grant.getTo()));
+        Assert.assertSame(copy.findDomainOwner(MembersDocumentGenerator.getMemberDomain(7, 1)),
+                copy.getParticipantByName(MembersDocumentGenerator.getMemberName(7)));
+
+        final MemberElement member = copy.getMemberByName(MembersDocumentGenerator.getMemberName(9));
+        final MemberElement expected = original.getMemberByName(MembersDocumentGenerator.getMemberName(9));
+        Assert.assertEquals(member.getID(), expected.getID());
+        Assert.assertEquals(member.getJoinDate(), expected.getJoinDate());
+        Assert.assertEquals(Participants.entityIDsOf(member), Participants.entityIDsOf(expected));
+    }
+
+    @Test
+    public void testRoundTripFixture() throws Exception {
+        final Path source = copyResource("authorizer.xml");
+        final Members original = Members.fromPath(source);
+        final Path snapshot = dir.resolve("authorizer.snapshot");
+        MembersSnapshot.write(original, MembersSnapshot.digest(source), snapshot);
+        final Members copy = MembersSnapshot.read(snapshot);
+        Assert.assertTrue(copy.diff(original).isEmpty(), copy.diff(original).toString());
+    }
+
+    @Test
+    public void testLoadCached() throws Exception {
+        final Path source = copyResource("pushedScopes.xml");
+        final Path snapshot = dir.resolve("members.snapshot");
+        final MembersLoader loader = new MembersLoader();
+
+        final Members first = loader.loadCached(source, snapshot);
+        Assert.assertTrue(Files.exists(snapshot));
+        Assert.assertEquals(MembersSnapshot.readSourceDigest(snapshot), MembersSnapshot.digest(source));
+
+        final Members second = loader.loadCached(source, snapshot);
+        Assert.assertTrue(second.diff(first).isEmpty());
+
+        // a changed source makes the snapshot stale
+        Files.copy(MembersSnapshotTest.class.getResourceAsStream("/oneOfEach.xml"), source,
+                StandardCopyOption.REPLACE_EXISTING);
+        final Members third = loader.loadCached(source, snapshot);
+        Assert.assertTrue(third.diff(Members.fromPath(source)).isEmpty());
+        Assert.assertEquals(MembersSnapshot.readSourceDigest(snapshot), MembersSnapshot.digest(source));
+    }
+
+    @Test
+    public void testCorruptSnapshot() throws Exception {
+        final Path source = copyResource("pushedScopes.xml");
+        final Path snapshot = dir.resolve("members.snapshot");
+        final MembersLoader loader = new MembersLoader();
+        loader.loadCached(source, snapshot);
+
+        // flip a byte in the body
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final ByteBuffer b = ByteBuffer.allocate(1);
+            final long position = channel.size() - 1;
+            channel.read(b, position);
+            b.put(0, (byte) (b.get(0) ^ 0xff));
+            b.rewind();
+            channel.write(b, position);
+        }
+        try {
+            MembersSnapshot.read(snapshot);
+            Assert.fail("corrupt snapshot should not be read");
+        } catch (final IOException e) {
+            // expected
+        }
+
+        // loading falls back to the source document and replaces the snapshot
+        final Members members = loader.loadCached(source, snapshot);
+        Assert.assertTrue(members.diff(Members.fromPath(source)).isEmpty());
+        Assert.assertNotNull(MembersSnapshot.read(snapshot));
+    }
+
+    @Test
+    public void testNotSnapshot() throws Exception {
+        final Path source = copyResource("pushedScopes.xml");
+        Assert.assertNull(MembersSnapshot.readSourceDigest(source));
+    }
+
+}
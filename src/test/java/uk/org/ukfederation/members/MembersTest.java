@@ -16,11 +16,18 @@
 
 package uk.org.ukfederation.members;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
 
 import org.testng.Assert;
 import org.testng.annotations.BeforeClass;
@@ -30,7 +37,12 @@ import org.xml.sax.SAXParseException;
 
 import jakarta.xml.bind.UnmarshalException;
 import net.shibboleth.shared.component.ComponentInitializationException;
+import uk.org.ukfederation.members.AuditIndex.AuditEntry;
+import uk.org.ukfederation.members.ParticipantSearch.Match;
+import uk.org.ukfederation.members.jaxb.BaseGrantType;
 import uk.org.ukfederation.members.jaxb.DomainOwnerElement;
+import uk.org.ukfederation.members.jaxb.GrantAllElement;
+import uk.org.ukfederation.members.jaxb.GrantElement;
 import uk.org.ukfederation.members.jaxb.MemberElement;
 import uk.org.ukfederation.members.jaxb.MembersElement;
 import uk.org.ukfederation.members.jaxb.ParticipantType;
@@ -330,4 +342,328 @@ public class MembersTest {
             Assert.assertTrue(e.getMessage().contains("appears in multiple participants"), "wrong message");
         }
     }
+
+    @Test
+    public void testFromStream() throws Exception {
+        try (final InputStream in = streamResource("goodGrants.xml")) {
+            final Members members = Members.fromStream(in);
+            Assert.assertTrue(members.isOwnerName("Valid Member"));
+            Assert.assertTrue(members.isOwnerName("Second Member"));
+            final MemberElement m1 = members.getMemberByName("Valid Member");
+            final MemberElement m2 = members.getMemberByName("Second Member");
+            Assert.assertSame(m1.getGrants().getGrantOrGrantAll().get(0).getOrgID(), m2);
+        }
+    }
+
+    @Test
+    public void testFromPath() throws Exception {
+        final Path path = Path.of(MembersTest.class.getResource("/pushedScopes.xml").toURI());
+        final Members m = Members.fromPath(path);
+        Assert.assertEquals(m.scopesForEntity("entity1").size(), 4);
+        Assert.assertEquals(m.scopesForEntity("entity2").size(), 2);
+    }
+
+    @Test
+    public void testFromStreamReader() throws Exception {
+        try (final InputStream in = streamResource("oneOfEach.xml")) {
+            final XMLStreamReader reader = XMLInputFactory.newFactory().createXMLStreamReader(in);
+            final Members m = Members.fromStreamReader(reader);
+            Assert.assertNotNull(m.getMemberByName("Valid Member"));
+            Assert.assertNull(m.getMemberByName("Domain Owner"));
+            Assert.assertNotNull(m.getParticipantByName("Domain Owner"));
+        }
+    }
+
+    @Test
+    public void testFromStreamChecks() throws Exception {
+        try (final InputStream in = streamResource("duplicateDomain.xml")) {
+            Members.fromStream(in);
+            Assert.fail("expected component initialization exception");
+        } catch (final ComponentInitializationException e) {
+            // expected
+            Assert.assertTrue(e.getMessage().contains("appears in multiple participants"), "wrong message");
+        }
+        try (final InputStream in = streamResource("badGrantOrgID.xml")) {
+            Members.fromStream(in);
+            Assert.fail("expected component initialization exception");
+        } catch (final ComponentInitializationException e) {
+            // expected
+            Assert.assertTrue(e.getMessage().contains("wrong participant"), "wrong message");
+        }
+        try (final InputStream in = streamResource("duplicateOrg.xml")) {
+            Members.fromStream(in);
+            Assert.fail("expected parsing exception");
+        } catch (final UnmarshalException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void findDomainOwner() throws Exception {
+        final Members m = fetchMembers("domainTrie.xml");
+        Assert.assertEquals(m.findDomainOwner("example.ac.uk").getName(), "Parent Member");
+        Assert.assertEquals(m.findDomainOwner("host.example.ac.uk").getName(), "Parent Member");
+        Assert.assertEquals(m.findDomainOwner("sub.example.ac.uk").getName(), "Child Member");
+        Assert.assertEquals(m.findDomainOwner("a.b.sub.example.ac.uk").getName(), "Child Member");
+        Assert.assertEquals(m.findDomainOwner("Host.Example.NET.").getName(), "Child Member");
+        Assert.assertEquals(m.findOwnedDomain("a.b.sub.example.ac.uk"), "sub.example.ac.uk");
+        Assert.assertNull(m.findDomainOwner("ac.uk"));
+        Assert.assertNull(m.findDomainOwner("example.com"));
+        Assert.assertNull(m.findDomainOwner("notexample.ac.uk"));
+    }
+
+    @Test
+    public void overlappingDomains() throws Exception {
+        final Members m = fetchMembers("domainTrie.xml");
+        final Map<String, String> overlaps = m.getOverlappingDomains();
+        Assert.assertEquals(overlaps.size(), 1);
+        Assert.assertEquals(overlaps.get("sub.example.ac.uk"), "example.ac.uk");
+        Assert.assertTrue(fetchMembers("goodGrants.xml").getOverlappingDomains().isEmpty());
+    }
+
+    @Test
+    public void clashingDomains() throws Exception {
+        final Members m = fetchMembers("clashingDomains.xml");
+        final Map<String, String> clashes = m.getClashingDomains();
+        Assert.assertEquals(clashes.size(), 1);
+        Assert.assertEquals(clashes.get("Example.ORG"), "example.org");
+        Assert.assertEquals(m.findDomainOwner("www.example.org").getName(), "First Member");
+        Assert.assertTrue(fetchMembers("domainTrie.xml").getClashingDomains().isEmpty());
+    }
+
+    @Test
+    public void findGrantsCovering() throws Exception {
+        final Members m = fetchMembers("domainTrie.xml");
+
+        final List<BaseGrantType> g1 = m.findGrantsCovering("a.www.example.org", "https://sp.example.org");
+        Assert.assertEquals(g1.size(), 1);
+        Assert.assertTrue(g1.get(0) instanceof GrantAllElement);
+        Assert.assertEquals(g1.get(0).getTo(), "Parent Member");
+        Assert.assertEquals(m.findGrantsCovering("www.example.org", null).size(), 1);
+
+        final List<BaseGrantType> g2 = m.findGrantsCovering("idp.example.org", "https://idp.example.org/idp");
+        Assert.assertEquals(g2.size(), 1);
+        Assert.assertTrue(g2.get(0) instanceof GrantElement);
+        Assert.assertEquals(g2.get(0).getTo(), "Child Member");
+
+        // Grant only covers its own entity, and only the exact name
+        Assert.assertTrue(m.findGrantsCovering("idp.example.org", "https://other.example.org").isEmpty());
+        Assert.assertTrue(m.findGrantsCovering("a.idp.example.org", "https://idp.example.org/idp").isEmpty());
+        Assert.assertTrue(m.findGrantsCovering("example.org", null).isEmpty());
+    }
+
+    @Test
+    public void testPushedScopesIndex() throws Exception {
+        final Members m = fetchMembers("pushedScopesDuplicates.xml");
+        final List<String> e1 = m.scopesForEntity("entity1");
+        Assert.assertEquals(e1, List.of("a.example.com", "b.example.com"));
+        try {
+            e1.add("c.example.com");
+            Assert.fail("pushed scopes should not be modifiable");
+        } catch (final UnsupportedOperationException e) {
+            // expected
+        }
+        Assert.assertEquals(m.scopesForEntity("entity2"), List.of("b.example.com"));
+
+        Assert.assertEquals(m.entitiesForScope("a.example.com"), List.of("entity1"));
+        Assert.assertEquals(m.entitiesForScope("b.example.com"), List.of("entity1", "entity2"));
+        Assert.assertTrue(m.entitiesForScope("c.example.com").isEmpty());
+    }
+
+    @Test
+    public void testPushedScopesEager() throws Exception {
+        final MembersLoader loader = new MembersLoader();
+        loader.setEagerScopeIndex(true);
+        final Members m = loader.load(fetchDocument("pushedScopes.xml"));
+        Assert.assertEquals(m.scopesForEntity("entity1").size(), 4);
+        Assert.assertEquals(m.entitiesForScope("example.com"), List.of("entity1", "entity2"));
+    }
+
+    @Test
+    public void testParticipantById() throws Exception {
+        final Members m = fetchMembers("domainTrie.xml");
+        Assert.assertEquals(m.getParticipantById("ukforg2").getName(), "Child Member");
+        Assert.assertEquals(m.getMemberById("ukforg1").getName(), "Parent Member");
+        Assert.assertEquals(m.getParticipantById("ukforg3").getName(), "Domain Owner");
+        Assert.assertNull(m.getMemberById("ukforg3"));
+        Assert.assertNull(m.getParticipantById("ukforg4"));
+
+        // malformed IDs
+        Assert.assertNull(m.getParticipantById(""));
+        Assert.assertNull(m.getParticipantById("ukforg"));
+        Assert.assertNull(m.getParticipantById("ukforgx"));
+        Assert.assertNull(m.getParticipantById("UKFORG1"));
+        Assert.assertNull(m.getParticipantById("ukforg1 "));
+        Assert.assertNull(m.getParticipantById("ukforg01"));
+        Assert.assertNull(m.getParticipantById("ukforg12345678901234567890"));
+
+        final List<ParticipantType> bulk = m.getParticipantsById(List.of("ukforg3", "bad", "ukforg1"));
+        Assert.assertEquals(bulk.size(), 3);
+        Assert.assertEquals(bulk.get(0).getName(), "Domain Owner");
+        Assert.assertNull(bulk.get(1));
+        Assert.assertEquals(bulk.get(2).getName(), "Parent Member");
+    }
+
+    @Test
+    public void testOrgIDIndex() {
+        Assert.assertEquals(OrgIDIndex.parse("ukforg0"), 0);
+        Assert.assertEquals(OrgIDIndex.parse("ukforg1234"), 1234);
+        Assert.assertEquals(OrgIDIndex.parse("ukforg-1"), -1);
+
+        final MemberElement a = new MemberElement();
+        a.setID("ukforg7");
+        final MemberElement b = new MemberElement();
+        b.setID("ukforg07");
+        final MemberElement c = new MemberElement();
+        c.setID("ukforg8");
+        final OrgIDIndex index = new OrgIDIndex(List.of(a, b, c));
+        Assert.assertEquals(index.size(), 3);
+        Assert.assertSame(index.get("ukforg7"), a);
+        Assert.assertSame(index.get("ukforg07"), b);
+        Assert.assertSame(index.get("ukforg8"), c);
+        Assert.assertNull(index.get("ukforg007"));
+        Assert.assertNull(index.get("ukforg9"));
+    }
+
+    @Test
+    public void testParticipantByIdGenerated() throws Exception {
+        final MembersDocumentGenerator generator = MembersDocumentGenerator.ofParticipants(2000);
+        final Members m = Members.fromStream(new ByteArrayInputStream(generator.generateBytes()));
+        for (final MemberElement member : m.getMembersElement().getMember()) {
+            Assert.assertSame(m.getMemberById(member.getID()), member);
+        }
+        for (final DomainOwnerElement owner : m.getMembersElement().getDomainOwner()) {
+            Assert.assertSame(m.getParticipantById(owner.getID()), owner);
+        }
+        final int participants = generator.getMemberCount() + generator.getDomainOwnerCount();
+        Assert.assertNull(m.getParticipantById("ukforg" + (participants + 1)));
+    }
+
+    @Test
+    public void testAuditIndex() throws Exception {
+        final AuditIndex audit = fetchMembers("audit.xml").getAuditIndex();
+        Assert.assertEquals(audit.size(), 8);
+
+        Assert.assertEquals(audit.verified().map(AuditEntry::subject).toList(),
+                List.of("example.org", "example.ac.uk", "https://sp.example.ac.uk/shibboleth",
+                        "urn:mace:example.ac.uk:sp", "example.com", "www.example.org"));
+        Assert.assertEquals(audit.unverified().map(AuditEntry::subject).toList(),
+                List.of("unverified.example.net", "https://listed.example.com/sp"));
+
+        Assert.assertEquals(audit.verifiedBefore(LocalDate.of(2015, 6, 1)).map(AuditEntry::subject).toList(),
+                List.of("example.org"));
+        Assert.assertEquals(audit.verifiedBetween(LocalDate.of(2015, 6, 1), LocalDate.of(2018, 3, 2)).count(), 3);
+        Assert.assertEquals(audit.verifiedBetween(LocalDate.of(2030, 1, 1), LocalDate.of(2000, 1, 1)).count(), 0);
+        Assert.assertEquals(audit.notVerifiedSince(LocalDate.of(2016, 1, 1)).count(), 5);
+
+        final List<AuditEntry> iay = audit.verifiedBy("iay").toList();
+        Assert.assertEquals(iay.size(), 4);
+        Assert.assertEquals(iay.get(0).kind(), AuditIndex.Kind.DOMAIN);
+        Assert.assertEquals(iay.get(1).kind(), AuditIndex.Kind.ENTITY_ID);
+        Assert.assertEquals(iay.get(1).lastVerified(), LocalDate.of(2018, 3, 1));
+        Assert.assertEquals(iay.get(3).kind(), AuditIndex.Kind.GRANT);
+        Assert.assertEquals(iay.get(3).participant().getName(), "Audited Registrar");
+        Assert.assertEquals(audit.getVerifiers(), Set.of("iay", "JTAG"));
+        Assert.assertEquals(audit.verifiedBy("nobody").count(), 0);
+
+        final List<AuditEntry> call = audit.fromSource("Call 1234").toList();
+        Assert.assertEquals(call.size(), 2);
+        Assert.assertEquals(call.get(1).kind(), AuditIndex.Kind.APPROVED_ATTRIBUTE);
+        Assert.assertEquals(call.get(1).sourceURL(), "https://tickets.example.org/1234");
+    }
+
+    @Test
+    public void testBatchLookups() throws Exception {
+        final Members m = fetchMembers("domainTrie.xml");
+        final List<String> names = List.of("Child Member", "Domain Owner", "Nobody", "Parent Member");
+        Assert.assertEquals(m.areOwnerNames(names), new boolean[] {true, false, false, true});
+
+        for (final boolean parallel : new boolean[] {false, true}) {
+            final List<MemberElement> members = m.getMembersByName(names, parallel);
+            Assert.assertEquals(members.size(), 4);
+            Assert.assertSame(members.get(0), m.getMemberByName("Child Member"));
+            Assert.assertNull(members.get(1));
+            Assert.assertNull(members.get(2));
+            Assert.assertSame(members.get(3), m.getMemberByName("Parent Member"));
+        }
+
+        final Members scoped = fetchMembers("pushedScopesDuplicates.xml");
+        final List<String> entities = List.of("entity2", "unknown", "entity1", "entity2");
+        for (final boolean parallel : new boolean[] {false, true}) {
+            final Map<String, List<String>> scopes = scoped.scopesForEntities(entities, parallel);
+            Assert.assertEquals(List.copyOf(scopes.keySet()), List.of("entity2", "entity1"));
+            Assert.assertEquals(scopes.get("entity1"), scoped.scopesForEntity("entity1"));
+            Assert.assertEquals(scopes.get("entity2"), scoped.scopesForEntity("entity2"));
+        }
+        Assert.assertEquals(scoped.scopesForEntities(entities.stream()).count(), 3);
+    }
+
+    @Test
+    public void testParticipantSearch() throws Exception {
+        final Members m = fetchMembers("participantSearch.xml");
+        final ParticipantSearch search = m.getParticipantSearch();
+        Assert.assertSame(m.getParticipantSearch(), search);
+        Assert.assertEquals(search.size(), 4);
+        Assert.assertEquals(ParticipantSearch.fold("  Universit\u00e9 de l'Exemple "), "universite de l exemple");
+
+        // prefix of a whole name beats prefix of a later word
+        final List<Match> edin = search.search("EDIN", 10);
+        Assert.assertEquals(edin.stream().map(match -> match.participant().getName()).toList(),
+                List.of("Edinburgh Napier University", "University of Edinburgh"));
+        Assert.assertEquals(edin.get(0).score(), ParticipantSearch.PREFIX);
+        Assert.assertEquals(edin.get(1).score(), ParticipantSearch.WORD_PREFIX);
+
+        // exact match, folding accents and punctuation
+        final List<Match> exact = search.search("universite de l exemple", 10);
+        Assert.assertEquals(exact.size(), 1);
+        Assert.assertSame(exact.get(0).participant(), m.getParticipantById("ukforg3"));
+        Assert.assertEquals(exact.get(0).score(), 1.0);
+
+        // name comments are searched, and each participant is returned once
+        Assert.assertEquals(search.search("napier", 10).size(), 1);
+        Assert.assertEquals(search.search("french", 10).get(0).participant().getName(), "Universit\u00e9 de l'Exemple");
+
+        // top-k
+        Assert.assertEquals(search.search("e", 2).size(), 2);
+        Assert.assertTrue(search.search("univrsity edinbrugh", 10).isEmpty());
+        Assert.assertTrue(search.search("   ", 10).isEmpty());
+
+        final List<Match> fuzzy = search.search("univrsity edinbrugh", 10, true);
+        Assert.assertFalse(fuzzy.isEmpty());
+        Assert.assertEquals(fuzzy.get(0).participant().getName(), "University of Edinburgh");
+        Assert.assertTrue(fuzzy.get(0).score() < ParticipantSearch.FUZZY);
+    }
+
+    @Test
+    public void testIncomingGrants() throws Exception {
+        final Members m = fetchMembers("goodGrants.xml");
+        final MemberElement valid = m.getMemberByName("Valid Member");
+        final MemberElement second = m.getMemberByName("Second Member");
+        final ParticipantType owner = m.getParticipantByName("Domain Owner");
+
+        final IncomingGrants toValid = m.getIncomingGrants(valid);
+        Assert.assertSame(toValid.getMember(), valid);
+        Assert.assertEquals(toValid.size(), 2);
+        Assert.assertEquals(toValid.getGrantCount(), 2);
+        Assert.assertEquals(toValid.getGrantAllCount(), 0);
+        Assert.assertEquals(toValid.getGrantors(), List.of(second, owner));
+        Assert.assertEquals(toValid.getNames(), List.of("example.com", "example.edu"));
+        Assert.assertEquals(toValid.getEntityIDs(), List.of("http://example.com", "http://example.edu"));
+
+        final IncomingGrants toSecond = m.getIncomingGrants("Second Member");
+        Assert.assertNotNull(toSecond);
+        Assert.assertEquals(toSecond.getGrantAllCount(), 2);
+        Assert.assertEquals(toSecond.getGrantCount(), 0);
+        Assert.assertSame(toSecond.getGrants().get(0).grantor(), valid);
+        Assert.assertTrue(toSecond.getGrants().get(1).isGrantAll());
+        Assert.assertNull(toSecond.getGrants().get(1).entityID());
+        Assert.assertEquals(toSecond.getGrantors(), List.of(valid, owner));
+        Assert.assertEquals(toSecond.getNames(), List.of("example.org", "example.edu"));
+        Assert.assertTrue(toSecond.getEntityIDs().isEmpty());
+
+        Assert.assertNull(m.getIncomingGrants("Domain Owner"));
+        Assert.assertNull(m.getIncomingGrants("Nobody"));
+        final MemberElement ungranted = fetchMembers("oneOfEach.xml").getMembersElement().getMember().get(0);
+        Assert.assertEquals(m.getIncomingGrants(ungranted).size(), 0);
+    }
 }
@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2026 University of Edinburgh.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.org.ukfederation.members;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import uk.org.ukfederation.members.jaxb.MemberElement;
+import uk.org.ukfederation.members.jaxb.MembersElement;
+
+/**
+ * Tests for the {@link MembersWriter} class.
+ */
+public class MembersWriterTest {
+
+    /**
+     * Fetch a {@link Members} object corresponding to the named resource.
+     *
+     * @param resourceName name of the resource
+     * @return {@link Members} object corresponding to the resource.
+     * @throws Exception if anything goes wrong
+     */
+    private Members fetchMembers(String resourceName) throws Exception {
+        try (final InputStream in = MembersWriterTest.class.getResourceAsStream("/" + resourceName)) {
+            return Members.fromStream(in);
+        }
+    }
+
+    /**
+     * Write a {@link Members} object to a byte array.
+     *
+     * @param writer the writer to use
+     * @param members the members to write
+     * @return the document
+     * @throws Exception if anything goes wrong
+     */
+    private byte[] write(MembersWriter writer, Members members) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.write(members, out);
+        return out.toByteArray();
+    }
+
+    @DataProvider
+    public Object[][] resources() {
+        return new Object[][] {
+            {"oneOfEach.xml"}, {"goodGrants.xml"}, {"pushedScopes.xml"}, {"audit.xml"}, {"authorizer.xml"},
+        };
+    }
+
+    @Test(dataProvider = "resources")
+    public void roundTrip(String resourceName) throws Exception {
+        final MembersWriter writer = new MembersWriter();
+        final Members original = fetchMembers(resourceName);
+        final byte[] written = write(writer, original);
+        final Members reloaded = Members.fromStream(new ByteArrayInputStream(written));
+
+        final MembersDelta delta = reloaded.diff(original);
+        Assert.assertTrue(delta.isEmpty(), delta.toString());
+        Assert.assertEquals(reloaded.getAuditIndex().size(), original.getAuditIndex().size());
+
+        // Writing what was read back gives the same bytes.
+        Assert.assertEquals(write(writer, reloaded), written);
+    }
+
+    @Test
+    public void generatedRoundTrip() throws Exception {
+        final MembersDocumentGenerator generator = MembersDocumentGenerator.ofParticipants(200);
+        generator.setScopesPerMember(2);
+        generator.setGrantsPerDomainOwner(3);
+        final Members original = Members.fromStream(new ByteArrayInputStream(generator.generateBytes()));
+        final byte[] written = write(new MembersWriter(), original);
+        final Members reloaded = Members.fromStream(new ByteArrayInputStream(written));
+        Assert.assertTrue(reloaded.diff(original).isEmpty());
+    }
+
+    @Test
+    public void canonicalOrder() throws Exception {
+        final MembersWriter writer = new MembersWriter();
+        final MembersWriter documentOrder = new MembersWriter();
+        documentOrder.setCanonicalOrder(false);
+        final Members members = fetchMembers("goodGrants.xml");
+        final byte[] before = write(writer, members);
+        final byte[] beforeDocumentOrder = write(documentOrder, members);
+
+        final MembersElement element = members.getMembersElement();
+        Collections.reverse(element.getMember());
+        Collections.reverse(element.getDomainOwner());
+        for (final MemberElement member : element.getMember()) {
+            if (member.getDomains() != null) {
+                Collections.reverse(member.getDomains().getDomain());
+            }
+            if (member.getGrants() != null) {
+                Collections.reverse(member.getGrants().getGrantOrGrantAll());
+            }
+        }
+        Assert.assertEquals(write(writer, members), before);
+
+        Assert.assertNotEquals(write(documentOrder, members), beforeDocumentOrder);
+    }
+
+    @Test
+    public void format() throws Exception {
+        final MembersWriter writer = new MembersWriter();
+        writer.setSchemaLocation(null);
+        final String text = new String(write(writer, fetchMembers("oneOfEach.xml")), StandardCharsets.UTF_8);
+        Assert.assertTrue(text.startsWith("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<Members xmlns=\""
+                + MembersWriter.MEMBERS_NS + "\">\n    <Member ID=\""), text);
+        Assert.assertFalse(text.contains("schemaLocation"));
+        Assert.assertFalse(text.contains("\r"));
+        Assert.assertTrue(text.endsWith("\n</Members>\n"), text);
+    }
+
+    @Test
+    public void writePath() throws Exception {
+        final Path dir = Files.createTempDirectory("members");
+        final Path path = dir.resolve("members.xml");
+        try {
+            final Members members = fetchMembers("goodGrants.xml");
+            new MembersWriter().write(members, path);
+            Assert.assertTrue(Members.fromPath(path).diff(members).isEmpty());
+            try (var stream = Files.list(dir)) {
+                Assert.assertEquals(stream.count(), 1);
+            }
+        } finally {
+            Files.deleteIfExists(path);
+            Files.delete(dir);
+        }
+    }
+
+}